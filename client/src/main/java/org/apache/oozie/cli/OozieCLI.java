@@ -56,6 +56,7 @@ import org.apache.oozie.client.BulkResponse;
 import org.apache.oozie.client.BundleJob;
 import org.apache.oozie.client.CoordinatorAction;
 import org.apache.oozie.client.CoordinatorJob;
+import org.apache.oozie.client.JobsPage;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.OozieClient.SYSTEM_MODE;
 import org.apache.oozie.client.OozieClientException;
@@ -149,6 +150,10 @@ public class OozieCLI {
 
     public static final String BULK_OPTION = "bulk";
 
+    public static final String CURSOR_OPTION = "cursor";
+
+    public static final String NO_TOTAL_OPTION = "nototal";
+
     public static final String AVAILABLE_SERVERS_OPTION = "servers";
 
     private static final String[] OOZIE_HELP = {
@@ -364,6 +369,11 @@ public class OozieCLI {
                 "coordinators=<C>\\;actionstatus=<S>\\;startcreatedtime=<SC>\\;endcreatedtime=<EC>\\;" +
                 "startscheduledtime=<SS>\\;endscheduledtime=<ES>\\; coordinators and actionstatus can be multiple comma separated values" +
                 "bundle and coordinators are 'names' of those jobs. Bundle name is mandatory, other params are optional");
+        Option cursor = new Option(CURSOR_OPTION, true, "list jobs by cursor, most recent first: without value lists " +
+                "the first page, with the cursor printed after a page lists the next page (ignores -" + OFFSET_OPTION + ")");
+        cursor.setOptionalArg(true);
+        Option noTotal = new Option(NO_TOTAL_OPTION, false, "do not compute the total number of jobs (requires -" +
+                CURSOR_OPTION + ")");
         start.setType(Integer.class);
         len.setType(Integer.class);
         Options jobsOptions = new Options();
@@ -378,6 +388,8 @@ public class OozieCLI {
         jobsOptions.addOption(jobtype);
         jobsOptions.addOption(verbose);
         jobsOptions.addOption(bulkMonitor);
+        jobsOptions.addOption(cursor);
+        jobsOptions.addOption(noTotal);
         addAuthOptions(jobsOptions);
         return jobsOptions;
     }
@@ -1288,6 +1300,9 @@ public class OozieCLI {
             if (bulkFilterString != null) {
                 printBulkJobs(wc.getBulkInfo(bulkFilterString, start, len), timeZoneId, commandLine.hasOption(VERBOSE_OPTION));
             }
+            else if (commandLine.hasOption(CURSOR_OPTION)) {
+                jobsPageCommand(wc, commandLine, filter, jobtype.toLowerCase(), len, timeZoneId);
+            }
             else if (jobtype.toLowerCase().contains("wf")) {
                 printJobs(wc.getJobsInfo(filter, start, len), timeZoneId, commandLine.hasOption(VERBOSE_OPTION));
             }
@@ -1304,6 +1319,37 @@ public class OozieCLI {
         }
     }
 
+    private void jobsPageCommand(XOozieClient wc, CommandLine commandLine, String filter, String jobtype, int len,
+            String timeZoneId) throws IOException, OozieClientException {
+        String cursor = commandLine.getOptionValue(CURSOR_OPTION);
+        boolean noTotal = commandLine.hasOption(NO_TOTAL_OPTION);
+        boolean verbose = commandLine.hasOption(VERBOSE_OPTION);
+        JobsPage<?> page = null;
+        if (jobtype.contains("wf")) {
+            JobsPage<WorkflowJob> jobs = wc.getJobsPage(filter, len, cursor, noTotal);
+            printJobs(jobs.getJobs(), timeZoneId, verbose);
+            page = jobs;
+        }
+        else if (jobtype.startsWith("coord")) {
+            JobsPage<CoordinatorJob> jobs = wc.getCoordJobsPage(filter, len, cursor, noTotal);
+            printCoordJobs(jobs.getJobs(), timeZoneId, verbose);
+            page = jobs;
+        }
+        else if (jobtype.startsWith("bundle")) {
+            JobsPage<BundleJob> jobs = wc.getBundleJobsPage(filter, len, cursor, noTotal);
+            printBundleJobs(jobs.getJobs(), timeZoneId, verbose);
+            page = jobs;
+        }
+        if (page != null) {
+            if (page.getTotal() >= 0) {
+                System.out.println("Total jobs : " + page.getTotal());
+            }
+            if (page.hasNext()) {
+                System.out.println("Next cursor : " + page.getNextCursor());
+            }
+        }
+    }
+
     @VisibleForTesting
     void printCoordJobs(List<CoordinatorJob> jobs, String timeZoneId, boolean verbose) throws IOException {
         if (jobs != null && jobs.size() > 0) {
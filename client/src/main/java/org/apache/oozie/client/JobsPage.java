@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.client;
+
+import java.util.List;
+
+/**
+ * A page of jobs listed by cursor.
+ * <p/>
+ * The next page is obtained by passing {@link #getNextCursor()} to the listing method that returned this page.
+ *
+ * @param <T> job type.
+ */
+public class JobsPage<T> {
+    private final List<T> jobs;
+    private final String nextCursor;
+    private final int total;
+
+    /**
+     * Create a page of jobs.
+     *
+     * @param jobs jobs of the page.
+     * @param nextCursor cursor of the next page, <code>null</code> if this is the last page.
+     * @param total total number of jobs matching the filter, -1 if not computed.
+     */
+    public JobsPage(List<T> jobs, String nextCursor, int total) {
+        this.jobs = jobs;
+        this.nextCursor = nextCursor;
+        this.total = total;
+    }
+
+    /**
+     * @return the jobs of the page, most recently created first.
+     */
+    public List<T> getJobs() {
+        return jobs;
+    }
+
+    /**
+     * @return the cursor of the next page, <code>null</code> if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return if there may be more jobs after this page.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * @return the total number of jobs matching the filter, -1 if it was not requested.
+     */
+    public int getTotal() {
+        return total;
+    }
+}
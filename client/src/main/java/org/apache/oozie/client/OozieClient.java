@@ -1201,6 +1201,40 @@ public class OozieClient {
         }
     }
 
+    private abstract class JobsPageStatus<T> extends ClientCallable<JobsPage<T>> {
+        private final Object jobsTag;
+
+        JobsPageStatus(String jobType, Object jobsTag, String filter, int len, String cursor, boolean noTotal) {
+            super("GET", RestConstants.JOBS, "", prepareParams(RestConstants.JOBS_FILTER_PARAM, filter,
+                    RestConstants.JOBTYPE_PARAM, jobType, RestConstants.LEN_PARAM, Integer.toString(len),
+                    RestConstants.CURSOR_PARAM, (cursor != null) ? cursor : "", RestConstants.NO_TOTAL_PARAM,
+                    Boolean.toString(noTotal)));
+            this.jobsTag = jobsTag;
+        }
+
+        protected abstract List<T> createJobList(JSONArray jobs);
+
+        @Override
+        protected JobsPage<T> call(HttpURLConnection conn) throws IOException, OozieClientException {
+            conn.setRequestProperty("content-type", RestConstants.XML_CONTENT_TYPE);
+            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(conn.getInputStream());
+                JSONObject json = (JSONObject) JSONValue.parse(reader);
+                JSONArray jobs = (JSONArray) json.get(jobsTag);
+                if (jobs == null) {
+                    jobs = new JSONArray();
+                }
+                Number total = (Number) json.get(JsonTags.WORKFLOWS_TOTAL);
+                return new JobsPage<T>(createJobList(jobs), (String) json.get(JsonTags.WORKFLOWS_NEXT_CURSOR),
+                        (total != null) ? total.intValue() : -1);
+            }
+            else {
+                handleError(conn);
+            }
+            return null;
+        }
+    }
+
     private class BulkResponseStatus extends ClientCallable<List<BulkResponse>> {
 
         BulkResponseStatus(String filter, int start, int len) {
@@ -1642,6 +1676,72 @@ public class OozieClient {
         return new BundleJobsStatus(filter, start, len).call();
     }
 
+    /**
+     * Return a page of the workflow jobs that match the filter, listing by cursor.
+     * <p/>
+     * Jobs are returned most recently created first. Unlike offsets, the cost of a page does not grow with the number
+     * of jobs already listed.
+     *
+     * @param filter job filter. Refer to the {@link OozieClient} for the filter syntax.
+     * @param len number of jobs to return.
+     * @param cursor cursor of the page, as returned by {@link JobsPage#getNextCursor()}, <code>null</code> for the
+     * first page.
+     * @param noTotal if <code>true</code> the total number of matching jobs is not computed.
+     * @return the page of workflow jobs info, without node details.
+     * @throws OozieClientException thrown if the jobs info could not be retrieved.
+     */
+    public JobsPage<WorkflowJob> getJobsPage(String filter, int len, String cursor, boolean noTotal)
+            throws OozieClientException {
+        return new JobsPageStatus<WorkflowJob>("wf", JsonTags.WORKFLOWS_JOBS, filter, len, cursor, noTotal) {
+            @Override
+            protected List<WorkflowJob> createJobList(JSONArray jobs) {
+                return JsonToBean.createWorkflowJobList(jobs);
+            }
+        }.call();
+    }
+
+    /**
+     * Return a page of the coordinator jobs that match the filter, listing by cursor.
+     *
+     * @param filter job filter. Refer to the {@link OozieClient} for the filter syntax.
+     * @param len number of jobs to return.
+     * @param cursor cursor of the page, as returned by {@link JobsPage#getNextCursor()}, <code>null</code> for the
+     * first page.
+     * @param noTotal if <code>true</code> the total number of matching jobs is not computed.
+     * @return the page of coordinator jobs info.
+     * @throws OozieClientException thrown if the jobs info could not be retrieved.
+     */
+    public JobsPage<CoordinatorJob> getCoordJobsPage(String filter, int len, String cursor, boolean noTotal)
+            throws OozieClientException {
+        return new JobsPageStatus<CoordinatorJob>("coord", JsonTags.COORDINATOR_JOBS, filter, len, cursor, noTotal) {
+            @Override
+            protected List<CoordinatorJob> createJobList(JSONArray jobs) {
+                return JsonToBean.createCoordinatorJobList(jobs);
+            }
+        }.call();
+    }
+
+    /**
+     * Return a page of the bundle jobs that match the filter, listing by cursor.
+     *
+     * @param filter job filter. Refer to the {@link OozieClient} for the filter syntax.
+     * @param len number of jobs to return.
+     * @param cursor cursor of the page, as returned by {@link JobsPage#getNextCursor()}, <code>null</code> for the
+     * first page.
+     * @param noTotal if <code>true</code> the total number of matching jobs is not computed.
+     * @return the page of bundle jobs info.
+     * @throws OozieClientException thrown if the jobs info could not be retrieved.
+     */
+    public JobsPage<BundleJob> getBundleJobsPage(String filter, int len, String cursor, boolean noTotal)
+            throws OozieClientException {
+        return new JobsPageStatus<BundleJob>("bundle", JsonTags.BUNDLE_JOBS, filter, len, cursor, noTotal) {
+            @Override
+            protected List<BundleJob> createJobList(JSONArray jobs) {
+                return JsonToBean.createBundleJobList(jobs);
+            }
+        }.call();
+    }
+
     public List<BulkResponse> getBulkInfo(String filter, int start, int len) throws OozieClientException {
         return new BulkResponseStatus(filter, start, len).call();
     }
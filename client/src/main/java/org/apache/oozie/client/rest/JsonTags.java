@@ -62,6 +62,7 @@ public interface JsonTags {
     public static final String WORKFLOWS_TOTAL = "total";
     public static final String WORKFLOWS_OFFSET = "offset";
     public static final String WORKFLOWS_LEN = "len";
+    public static final String WORKFLOWS_NEXT_CURSOR = "nextCursor";
 
     public static final String WORKFLOW_ACTION_ID = "id";
     public static final String WORKFLOW_ACTION_NAME = "name";
@@ -205,11 +206,13 @@ public interface JsonTags {
     public static final Object COORD_JOB_TOTAL = "total";
     public static final Object COORD_JOB_OFFSET = "offset";
     public static final Object COORD_JOB_LEN = "len";
+    public static final Object COORD_JOB_NEXT_CURSOR = "nextCursor";
 
     public static final Object BUNDLE_JOBS = "bundlejobs";
     public static final Object BUNDLE_JOB_TOTAL = "total";
     public static final Object BUNDLE_JOB_OFFSET = "offset";
     public static final Object BUNDLE_JOB_LEN = "len";
+    public static final Object BUNDLE_JOB_NEXT_CURSOR = "nextCursor";
 
     public static final String BULK_RESPONSE_BUNDLE = "bulkbundle";
     public static final String BULK_RESPONSE_COORDINATOR = "bulkcoord";
@@ -46,6 +46,10 @@ public interface RestConstants {
 
     public static final String LEN_PARAM = "len";
 
+    public static final String CURSOR_PARAM = "cursor";
+
+    public static final String NO_TOTAL_PARAM = "nototal";
+
     public static final String ORDER_PARAM = "order";
 
     public static final String JOB_FILTER_PARAM = "filter";
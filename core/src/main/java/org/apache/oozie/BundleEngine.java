@@ -47,6 +47,7 @@ import org.apache.oozie.command.bundle.BundleKillXCommand;
 import org.apache.oozie.command.bundle.BundleRerunXCommand;
 import org.apache.oozie.command.bundle.BundleStartXCommand;
 import org.apache.oozie.command.bundle.BundleSubmitXCommand;
+import org.apache.oozie.executor.jpa.JobsCursor;
 import org.apache.oozie.service.DagXLogInfoService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.XLogStreamingService;
@@ -319,6 +320,41 @@ public class BundleEngine extends BaseEngine {
         }
     }
 
+    /**
+     * Get a page of bundle jobs, optionally listing by cursor.
+     * <p/>
+     * When listing by cursor, jobs are returned by descending creation time, the page starts after the cursor and
+     * the cursor of the next page is set in the returned info.
+     *
+     * @param filter the filter string
+     * @param start start location for paging, used when listing without cursor
+     * @param len number of jobs to return
+     * @param cursor cursor token returned with the previous page, the empty string for the first page,
+     * <code>null</code> to list by offset
+     * @param count if the total number of matching jobs is computed, if <code>false</code> the total is -1
+     * @return bundle job info
+     * @throws BundleEngineException thrown if failed to get bundle job info
+     */
+    public BundleJobInfo getBundleJobs(String filter, int start, int len, String cursor, boolean count)
+            throws BundleEngineException {
+        Map<String, List<String>> filterList = parseFilter(filter);
+        JobsCursor jobsCursor = null;
+        try {
+            if (cursor != null) {
+                jobsCursor = JobsCursor.parse(cursor);
+            }
+        }
+        catch (IllegalArgumentException ex) {
+            throw new BundleEngineException(ErrorCode.E0422, cursor);
+        }
+        try {
+            return new BundleJobsXCommand(filterList, start, len, jobsCursor, count).call();
+        }
+        catch (CommandException ex) {
+            throw new BundleEngineException(ex);
+        }
+    }
+
     /**
      * Parse filter string to a map with key = filter name and values = filter values
      *
@@ -376,9 +412,24 @@ public class BundleEngine extends BaseEngine {
      * @throws BundleEngineException thrown if failed to get bulk job info
      */
     public BulkResponseInfo getBulkJobs(String bulkFilter, int start, int len) throws BundleEngineException {
+        return getBulkJobs(bulkFilter, start, len, true);
+    }
+
+    /**
+     * Get bulk job response
+     *
+     * @param bulkFilter the filter string
+     * @param start start location for paging
+     * @param len total length to get
+     * @param count if the total number of records is computed, the total is -1 otherwise
+     * @return bulk job info
+     * @throws BundleEngineException thrown if failed to get bulk job info
+     */
+    public BulkResponseInfo getBulkJobs(String bulkFilter, int start, int len, boolean count)
+            throws BundleEngineException {
         Map<String,List<String>> bulkRequestMap = parseBulkFilter(bulkFilter);
         try {
-            return new BulkJobsXCommand(bulkRequestMap, start, len).call();
+            return new BulkJobsXCommand(bulkRequestMap, start, len, count).call();
         }
         catch (CommandException ex) {
             throw new BundleEngineException(ex);
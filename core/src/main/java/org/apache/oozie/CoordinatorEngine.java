@@ -40,9 +40,11 @@ import org.apache.oozie.client.WorkflowJob;
 import org.apache.oozie.client.rest.RestConstants;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.coord.CoordActionInfoXCommand;
+import org.apache.oozie.executor.jpa.JobsCursor;
 import org.apache.oozie.util.CoordActionsInDateRange;
 import org.apache.oozie.command.coord.CoordActionsKillXCommand;
 import org.apache.oozie.command.coord.CoordChangeXCommand;
+import org.apache.oozie.command.coord.CoordJobActionsXCommand;
 import org.apache.oozie.command.coord.CoordJobXCommand;
 import org.apache.oozie.command.coord.CoordJobsXCommand;
 import org.apache.oozie.command.coord.CoordKillXCommand;
@@ -161,6 +163,29 @@ public class CoordinatorEngine extends BaseEngine {
         }
     }
 
+    /**
+     * Return a range of the actions of a coordinator job.
+     *
+     * @param jobId coordinator job id.
+     * @param filter status filter of the actions, same syntax as for {@link #getCoordJob(String, String, int, int,
+     * boolean)}.
+     * @param start offset of the first action, base 1.
+     * @param length number of actions to return.
+     * @param desc if actions are ordered by descending nominal time.
+     * @return the coordinator actions.
+     * @throws CoordinatorEngineException thrown if the actions could not be read.
+     */
+    public List<CoordinatorActionBean> getCoordActions(String jobId, String filter, int start, int length,
+            boolean desc) throws CoordinatorEngineException {
+        List<String> filterList = parseStatusFilter(filter);
+        try {
+            return new CoordJobActionsXCommand(jobId, filterList, start, length, desc).call();
+        }
+        catch (CommandException ex) {
+            throw new CoordinatorEngineException(ex);
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -542,6 +567,41 @@ public class CoordinatorEngine extends BaseEngine {
         }
     }
 
+    /**
+     * Return a page of coordinator jobs, optionally listing by cursor.
+     * <p/>
+     * When listing by cursor, jobs are returned by descending creation time, the page starts after the cursor and
+     * the cursor of the next page is set in the returned info.
+     *
+     * @param filter the filter string
+     * @param start start location for paging, used when listing without cursor
+     * @param len number of jobs to return
+     * @param cursor cursor token returned with the previous page, the empty string for the first page,
+     * <code>null</code> to list by offset
+     * @param count if the total number of matching jobs is computed, if <code>false</code> the total is -1
+     * @return CoordinatorJobInfo
+     * @throws CoordinatorEngineException thrown if the filter or cursor are invalid or the jobs could not be read
+     */
+    public CoordinatorJobInfo getCoordJobs(String filter, int start, int len, String cursor, boolean count)
+            throws CoordinatorEngineException {
+        Map<String, List<String>> filterList = parseFilter(filter);
+        JobsCursor jobsCursor = null;
+        try {
+            if (cursor != null) {
+                jobsCursor = JobsCursor.parse(cursor);
+            }
+        }
+        catch (IllegalArgumentException ex) {
+            throw new CoordinatorEngineException(ErrorCode.E0422, cursor);
+        }
+        try {
+            return new CoordJobsXCommand(filterList, start, len, jobsCursor, count).call();
+        }
+        catch (CommandException ex) {
+            throw new CoordinatorEngineException(ex);
+        }
+    }
+
     // Parses the filter string (e.g status=RUNNING;status=WAITING) and returns a list of status values
     private List<String> parseStatusFilter(String filter) throws CoordinatorEngineException {
         List<String> filterList = new ArrayList<String>();
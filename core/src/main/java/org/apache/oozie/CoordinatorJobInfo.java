@@ -23,6 +23,7 @@ public class CoordinatorJobInfo {
     private int start;
     private int len;
     private int total;
+    private String nextCursor;
     private List<CoordinatorJobBean> jobs;
 
     /**
@@ -76,4 +77,23 @@ public class CoordinatorJobInfo {
         return total;
     }
 
+    /**
+     * Return the cursor token of the next page, for listings by cursor.
+     *
+     * @return the cursor token of the next page, <code>null</code> if there are no more jobs or the jobs were not
+     * listed by cursor.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Set the cursor token of the next page.
+     *
+     * @param nextCursor the cursor token of the next page.
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
 }
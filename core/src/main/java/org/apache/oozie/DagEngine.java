@@ -42,6 +42,7 @@ import org.apache.oozie.command.wf.SubmitSqoopXCommand;
 import org.apache.oozie.command.wf.SubmitXCommand;
 import org.apache.oozie.command.wf.SuspendXCommand;
 import org.apache.oozie.command.wf.WorkflowActionInfoXCommand;
+import org.apache.oozie.executor.jpa.JobsCursor;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.CallableQueueService;
 import org.apache.oozie.util.ParamChecker;
@@ -472,6 +473,42 @@ public class DagEngine extends BaseEngine {
         }
     }
 
+    /**
+     * Return the info about a page of jobs, optionally listing by cursor.
+     * <p/>
+     * When listing by cursor, jobs are returned by descending creation time, the page starts after the cursor and
+     * the cursor of the next page is set in the returned info. Unlike offsets, the cost of a page does not grow
+     * with its position.
+     *
+     * @param filter job filter. Refer to the {@link org.apache.oozie.client.OozieClient} for the filter syntax.
+     * @param start offset, base 1, used when listing without cursor.
+     * @param len number of jobs to return.
+     * @param cursor cursor token returned with the previous page, the empty string for the first page,
+     * <code>null</code> to list by offset.
+     * @param count if the total number of matching jobs is computed, if <code>false</code> the total is -1.
+     * @return job info for the matching jobs of the page, the jobs don't contain node action information.
+     * @throws DagEngineException thrown if the jobs info could not be obtained.
+     */
+    public WorkflowsInfo getJobs(String filter, int start, int len, String cursor, boolean count)
+            throws DagEngineException {
+        Map<String, List<String>> filterList = parseFilter(filter);
+        JobsCursor jobsCursor = null;
+        try {
+            if (cursor != null) {
+                jobsCursor = JobsCursor.parse(cursor);
+            }
+        }
+        catch (IllegalArgumentException ex) {
+            throw new DagEngineException(ErrorCode.E0422, cursor);
+        }
+        try {
+            return new JobsXCommand(filterList, start, len, jobsCursor, count).call();
+        }
+        catch (CommandException dce) {
+            throw new DagEngineException(dce);
+        }
+    }
+
     /**
      * Return the workflow Job ID for an external ID. <p/> This is reverse lookup for recovery purposes.
      *
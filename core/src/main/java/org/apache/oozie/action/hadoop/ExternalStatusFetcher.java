@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.action.hadoop;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobStatus;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.util.XLog;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Fetches the status of the running Hadoop jobs of a cluster for all the action checks of a time window.
+ * <p/>
+ * Instead of querying each job, the first check of a window lists the incomplete jobs of the JobTracker/RM with a
+ * single call, the checks of the same cluster during the window look their job up in that list. The lists are kept
+ * per user, as a client only sees the jobs of its user. Concurrent checks of a cluster and user wait for the list
+ * being fetched rather than fetching it again. A job that is not in the list may have
+ * completed, been submitted after the list was fetched or be unknown, it is queried by the check as before, so the
+ * list only answers for the jobs that were still running at most a window ago.
+ * <p/>
+ * The client listing the jobs is only created when the list has to be fetched. The lists of the clusters and users
+ * that are not checked anymore are dropped after {@link #IDLE_WINDOWS} windows.
+ */
+public class ExternalStatusFetcher {
+
+    public static final String INSTRUMENTATION_GROUP = "external-status";
+
+    /**
+     * Number of windows after which the list of a cluster and user that is not used is dropped.
+     */
+    public static final int IDLE_WINDOWS = 10;
+
+    private static XLog LOG = XLog.getLog(ExternalStatusFetcher.class);
+
+    /**
+     * Creates the client to list the incomplete jobs with, only when the list has to be fetched.
+     */
+    public interface JobClientFactory {
+
+        /**
+         * Create a client, it is closed by the fetcher once the jobs are listed.
+         *
+         * @return the client.
+         * @throws IOException thrown if the client could not be created.
+         */
+        JobClient createJobClient() throws IOException;
+    }
+
+    private static class Snapshot {
+        // IDs of the incomplete jobs, null if they could not be listed, guarded by the snapshot
+        private Set<String> runningJobIds;
+        private long fetchTime;
+        private boolean fetching;
+        // last time the snapshot was used, guarded by the map of the snapshots
+        private long lastUsed;
+    }
+
+    private final long window;
+    // user@JobTracker -> incomplete jobs, guarded by itself
+    private final Map<String, Snapshot> snapshots = new HashMap<String, Snapshot>();
+    // last time the idle snapshots were dropped, guarded by the map of the snapshots
+    private long lastExpiry;
+
+    /**
+     * Create a fetcher.
+     *
+     * @param window time, in milliseconds, the list of incomplete jobs of a cluster is used for.
+     */
+    public ExternalStatusFetcher(long window) {
+        this.window = window;
+    }
+
+    /**
+     * Return if a job was running at most a window ago.
+     *
+     * @param user user the job runs as, the jobs of the user are listed with its client.
+     * @param jobTracker JobTracker/RM of the job.
+     * @param jobId ID of the job.
+     * @param jobClientFactory factory of the client of the user to list the incomplete jobs with if the list is too
+     * old.
+     * @return <code>true</code> if the job is running, <code>false</code> if it is unknown whether it is, the job
+     * has to be queried then.
+     * @throws InterruptedException thrown if the thread was interrupted while waiting for the list.
+     */
+    public boolean isRunning(String user, String jobTracker, String jobId, JobClientFactory jobClientFactory)
+            throws InterruptedException {
+        String key = user + "@" + jobTracker;
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            long now = System.currentTimeMillis();
+            if (now - lastExpiry >= window) {
+                expireSnapshots(now);
+                lastExpiry = now;
+            }
+            snapshot = snapshots.get(key);
+            if (snapshot == null) {
+                snapshot = new Snapshot();
+                snapshots.put(key, snapshot);
+            }
+            snapshot.lastUsed = now;
+        }
+        Set<String> runningJobIds = getRunningJobIds(key, snapshot, jobClientFactory);
+        boolean running = runningJobIds != null && runningJobIds.contains(jobId);
+        incrCounter(running ? "running" : "unknown");
+        return running;
+    }
+
+    // must be called holding the lock of the map of the snapshots, a check still using a dropped snapshot is not
+    // affected, the next check of its cluster and user fetches a new list
+    private void expireSnapshots(long now) {
+        Iterator<Snapshot> it = snapshots.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().lastUsed >= IDLE_WINDOWS * window) {
+                it.remove();
+                incrCounter("expired");
+            }
+        }
+    }
+
+    private Set<String> getRunningJobIds(String key, Snapshot snapshot, JobClientFactory jobClientFactory)
+            throws InterruptedException {
+        long now;
+        synchronized (snapshot) {
+            while (snapshot.fetching) {
+                snapshot.wait();
+            }
+            now = System.currentTimeMillis();
+            if (now - snapshot.fetchTime < window) {
+                return snapshot.runningJobIds;
+            }
+            snapshot.fetching = true;
+        }
+        Set<String> runningJobIds = null;
+        JobClient jobClient = null;
+        try {
+            jobClient = jobClientFactory.createJobClient();
+            JobStatus[] statuses = jobClient.jobsToComplete();
+            incrCounter("fetches");
+            runningJobIds = new HashSet<String>();
+            if (statuses != null) {
+                for (JobStatus status : statuses) {
+                    runningJobIds.add(status.getJobID().toString());
+                }
+            }
+        }
+        catch (IOException ex) {
+            // the checks query their job until the next window
+            LOG.warn("Could not list the incomplete jobs of [{0}], {1}", key, ex.getMessage(), ex);
+        }
+        finally {
+            if (jobClient != null) {
+                try {
+                    jobClient.close();
+                }
+                catch (IOException ex) {
+                    LOG.warn("Could not close the client of [{0}], {1}", key, ex.getMessage(), ex);
+                }
+            }
+            synchronized (snapshot) {
+                snapshot.runningJobIds = runningJobIds;
+                snapshot.fetchTime = now;
+                snapshot.fetching = false;
+                snapshot.notifyAll();
+            }
+        }
+        return runningJobIds;
+    }
+
+    @VisibleForTesting
+    int getSnapshotCount() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+
+    private void incrCounter(String name) {
+        Services services = Services.get();
+        InstrumentationService instrService = (services == null) ? null : services.get(InstrumentationService.class);
+        if (instrService != null) {
+            instrService.get().incr(INSTRUMENTATION_GROUP, name, 1);
+        }
+    }
+}
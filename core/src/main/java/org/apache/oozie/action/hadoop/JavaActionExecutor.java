@@ -58,6 +58,7 @@ import org.apache.oozie.action.ActionExecutor;
 import org.apache.oozie.action.ActionExecutorException;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.WorkflowAction;
+import org.apache.oozie.command.wf.ActionXCommand.ActionExecutorContext;
 import org.apache.oozie.service.HadoopAccessorException;
 import org.apache.oozie.service.HadoopAccessorService;
 import org.apache.oozie.service.Services;
@@ -90,6 +91,7 @@ public class JavaActionExecutor extends ActionExecutor {
     public static final int MAX_EXTERNAL_STATS_SIZE_DEFAULT = Integer.MAX_VALUE;
     private static final Set<String> DISALLOWED_PROPERTIES = new HashSet<String>();
     public final static String MAX_EXTERNAL_STATS_SIZE = "oozie.external.stats.max.size";
+    public static final String EXTERNAL_STATUS_FETCH_WINDOW = "oozie.action.external.status.fetch.window";
     public static final String ACL_VIEW_JOB = "mapreduce.job.acl-view-job";
     public static final String ACL_MODIFY_JOB = "mapreduce.job.acl-modify-job";
     private static final String HADOOP_YARN_UBER_MODE = "mapreduce.job.ubertask.enable";
@@ -106,6 +108,7 @@ public class JavaActionExecutor extends ActionExecutor {
     private static int maxActionOutputLen;
     private static int maxExternalStatsSize;
     private static int maxFSGlobMax;
+    private static ExternalStatusFetcher statusFetcher;
     private static final String SUCCEEDED = "SUCCEEDED";
     private static final String KILLED = "KILLED";
     private static final String FAILED = "FAILED";
@@ -165,6 +168,9 @@ public class JavaActionExecutor extends ActionExecutor {
         maxExternalStatsSize = (maxExternalStatsSize == -1) ? Integer.MAX_VALUE : maxExternalStatsSize;
         //Get the limit for the maximum number of globbed files/dirs for FS operation
         maxFSGlobMax = getOozieConf().getInt(LauncherMapper.CONF_OOZIE_ACTION_FS_GLOB_MAX, LauncherMapper.GLOB_MAX_DEFAULT);
+        //Get the window the running jobs of a cluster are listed for, 0 queries each job
+        long statusFetchWindow = getOozieConf().getLong(EXTERNAL_STATUS_FETCH_WINDOW, 0) * 1000;
+        statusFetcher = (statusFetchWindow > 0) ? new ExternalStatusFetcher(statusFetchWindow) : null;
 
         registerError(UnknownHostException.class.getName(), ActionExecutorException.ErrorType.TRANSIENT, "JA001");
         registerError(AccessControlException.class.getName(), ActionExecutorException.ErrorType.NON_TRANSIENT,
@@ -1121,6 +1127,21 @@ public class JavaActionExecutor extends ActionExecutor {
      * @return JobClient
      * @throws HadoopAccessorException
      */
+    private ExternalStatusFetcher.JobClientFactory createJobClientFactory(final Context context,
+            final JobConf jobConf) {
+        return new ExternalStatusFetcher.JobClientFactory() {
+            @Override
+            public JobClient createJobClient() throws IOException {
+                try {
+                    return JavaActionExecutor.this.createJobClient(context, jobConf);
+                }
+                catch (HadoopAccessorException ex) {
+                    throw new IOException(ex);
+                }
+            }
+        };
+    }
+
     protected JobClient createJobClient(Context context, JobConf jobConf) throws HadoopAccessorException {
         String user = context.getWorkflow().getUser();
         String group = context.getWorkflow().getGroup();
@@ -1128,10 +1149,24 @@ public class JavaActionExecutor extends ActionExecutor {
     }
 
     protected RunningJob getRunningJob(Context context, WorkflowAction action, JobClient jobClient) throws Exception{
-        RunningJob runningJob = jobClient.getJob(JobID.forName(action.getExternalId()));
+        RunningJob runningJob = jobClient.getJob(JobID.forName(getRunningJobId(action)));
         return runningJob;
     }
 
+    /**
+     * Return the ID of the Hadoop job whose status is the status of the action.
+     *
+     * @param action action.
+     * @return the job ID.
+     */
+    protected String getRunningJobId(WorkflowAction action) {
+        return action.getExternalId();
+    }
+
+    private static boolean isCallback(Context context) {
+        return context instanceof ActionExecutorContext && ((ActionExecutorContext) context).isCallback();
+    }
+
     @Override
     public void check(Context context, WorkflowAction action) throws ActionExecutorException {
         JobClient jobClient = null;
@@ -1140,6 +1175,16 @@ public class JavaActionExecutor extends ActionExecutor {
             Element actionXml = XmlUtils.parseXml(action.getConf());
             FileSystem actionFs = context.getAppFileSystem();
             JobConf jobConf = createBaseHadoopConf(context, actionXml);
+            // the jobs still running are found in the list of running jobs of the cluster, shared by the checks,
+            // a callback notifies a status change the list may predate, the job is queried then
+            if (statusFetcher != null && !isCallback(context)
+                    && statusFetcher.isRunning(context.getWorkflow().getUser(), jobConf.get(HADOOP_JOB_TRACKER),
+                            getRunningJobId(action), createJobClientFactory(context, jobConf))) {
+                context.setExternalStatus(RUNNING);
+                LOG.info(XLog.STD, "checking action, external ID [{0}] status [{1}]",
+                        action.getExternalId(), action.getExternalStatus());
+                return;
+            }
             jobClient = createJobClient(context, jobConf);
             RunningJob runningJob = getRunningJob(context, action, jobClient);
             if (runningJob == null) {
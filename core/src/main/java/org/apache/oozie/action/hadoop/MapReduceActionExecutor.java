@@ -318,19 +318,15 @@ public class MapReduceActionExecutor extends JavaActionExecutor {
     }
 
     @Override
-    protected RunningJob getRunningJob(Context context, WorkflowAction action, JobClient jobClient) throws Exception{
-
-        RunningJob runningJob;
+    protected String getRunningJobId(WorkflowAction action) {
         String launcherJobId = action.getExternalId();
         String childJobId = action.getExternalChildIDs();
 
         if (childJobId != null && childJobId.length() > 0) {
-            runningJob = jobClient.getJob(JobID.forName(childJobId));
+            return childJobId;
         }
         else {
-            runningJob = jobClient.getJob(JobID.forName(launcherJobId));
+            return launcherJobId;
         }
-
-        return runningJob;
     }
 }
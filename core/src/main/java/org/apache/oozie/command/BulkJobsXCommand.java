@@ -37,6 +37,7 @@ public class BulkJobsXCommand extends XCommand<BulkResponseInfo> {
     private Map<String,List<String>> bulkParams;
     private int start = 1;
     private int len = 50;
+    private boolean count = true;
 
     /**
      * The constructor for BundleJobsXCommand
@@ -46,10 +47,23 @@ public class BulkJobsXCommand extends XCommand<BulkResponseInfo> {
      * @param len total length to get
      */
     public BulkJobsXCommand(Map<String,List<String>> filter, int start, int length) {
+        this(filter, start, length, true);
+    }
+
+    /**
+     * The constructor for BulkJobsXCommand
+     *
+     * @param filter the filter string
+     * @param start start location for paging
+     * @param length total length to get
+     * @param count if the total number of records is computed, the total is -1 otherwise
+     */
+    public BulkJobsXCommand(Map<String,List<String>> filter, int start, int length, boolean count) {
         super("bundle.job.info", "bundle.job.info", 1);
         this.bulkParams = filter;
         this.start = start;
         this.len = length;
+        this.count = count;
     }
 
     /* (non-Javadoc)
@@ -91,7 +105,7 @@ public class BulkJobsXCommand extends XCommand<BulkResponseInfo> {
             JPAService jpaService = Services.get().get(JPAService.class);
             BulkResponseInfo bulk = null;
             if (jpaService != null) {
-                bulk = jpaService.execute(new BulkJPAExecutor(bulkParams, start, len));
+                bulk = jpaService.execute(new BulkJPAExecutor(bulkParams, start, len, count));
             }
             else {
                 LOG.error(ErrorCode.E0610);
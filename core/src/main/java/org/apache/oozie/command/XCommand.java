@@ -172,6 +172,9 @@ public abstract class XCommand<T> implements XCallable<T> {
      * All commands queued during the execution of the current command with the same delay will be queued for a single
      * serial execution.
      * <p/>
+     * A command already queued with the same delay can coalesce the command, see {@link #coalesce}, the command is not
+     * queued then.
+     * <p/>
      * If the command execution throws an exception, no command will be effectively queued.
      *
      * @param command command to queue.
@@ -186,9 +189,30 @@ public abstract class XCommand<T> implements XCallable<T> {
             list = new ArrayList<XCommand<?>>();
             commandQueue.put(msDelay, list);
         }
+        for (XCommand<?> queued : list) {
+            if (queued != command && queued.coalesce(command)) {
+                instrumentation.incr(INSTRUMENTATION_GROUP, command.getName() + ".coalesced", 1);
+                return;
+            }
+        }
         list.add(command);
     }
 
+    /**
+     * Coalesce a command queued after this one, with the same delay, by the same command execution.
+     * <p/>
+     * Commands processing several entities of a job in a single execution, with a single state load and write,
+     * override this method to take over the work of a command of the same type for the same job.
+     * <p/>
+     * The default implementation does not coalesce commands.
+     *
+     * @param command command being queued.
+     * @return <code>true</code> if this command does the work of the given command, which is not queued then.
+     */
+    protected boolean coalesce(XCommand<?> command) {
+        return false;
+    }
+
     /**
      * Obtain an exclusive lock on the {link #getEntityKey}.
      * <p/>
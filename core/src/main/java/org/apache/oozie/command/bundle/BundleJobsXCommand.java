@@ -27,6 +27,7 @@ import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.PreconditionException;
 import org.apache.oozie.command.XCommand;
 import org.apache.oozie.executor.jpa.BundleJobInfoGetJPAExecutor;
+import org.apache.oozie.executor.jpa.JobsCursor;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 
@@ -37,6 +38,8 @@ public class BundleJobsXCommand extends XCommand<BundleJobInfo> {
     private Map<String, List<String>> filter;
     private int start = 1;
     private int len = 50;
+    private JobsCursor cursor;
+    private boolean count = true;
 
     /**
      * The constructor for BundleJobsXCommand
@@ -46,10 +49,26 @@ public class BundleJobsXCommand extends XCommand<BundleJobInfo> {
      * @param len total length to get
      */
     public BundleJobsXCommand(Map<String, List<String>> filter, int start, int length) {
+        this(filter, start, length, null, true);
+    }
+
+    /**
+     * Constructor listing the bundle jobs of the page after a cursor.
+     *
+     * @param filter the filter string
+     * @param start start location for paging, used when listing without cursor
+     * @param length total length to get
+     * @param cursor cursor of the page, <code>null</code> to use the start location
+     * @param count if the total number of bundle jobs is computed
+     */
+    public BundleJobsXCommand(Map<String, List<String>> filter, int start, int length, JobsCursor cursor,
+            boolean count) {
         super("bundle.job.info", "bundle.job.info", 1);
         this.filter = filter;
         this.start = start;
         this.len = length;
+        this.cursor = cursor;
+        this.count = count;
     }
 
     /* (non-Javadoc)
@@ -91,7 +110,7 @@ public class BundleJobsXCommand extends XCommand<BundleJobInfo> {
             JPAService jpaService = Services.get().get(JPAService.class);
             BundleJobInfo bundleInfo = null;
             if (jpaService != null) {
-                bundleInfo = jpaService.execute(new BundleJobInfoGetJPAExecutor(filter, start, len));
+                bundleInfo = jpaService.execute(new BundleJobInfoGetJPAExecutor(filter, start, len, cursor, count));
             }
             else {
                 LOG.error(ErrorCode.E0610);
@@ -21,8 +21,12 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.CoordinatorActionBean;
@@ -33,19 +37,25 @@ import org.apache.oozie.client.Job;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.PreconditionException;
+import org.apache.oozie.command.XCommand;
 import org.apache.oozie.coord.CoordELEvaluator;
 import org.apache.oozie.coord.CoordELFunctions;
+import org.apache.oozie.dependency.FSURIHandler;
+import org.apache.oozie.dependency.ParallelExistenceChecker;
 import org.apache.oozie.dependency.URIHandler;
 import org.apache.oozie.dependency.URIHandlerException;
+import org.apache.oozie.executor.jpa.BatchQueryExecutor;
+import org.apache.oozie.executor.jpa.BatchQueryExecutor.UpdateEntry;
 import org.apache.oozie.executor.jpa.CoordActionGetForInputCheckJPAExecutor;
-import org.apache.oozie.executor.jpa.CoordActionQueryExecutor;
 import org.apache.oozie.executor.jpa.CoordActionQueryExecutor.CoordActionQuery;
 import org.apache.oozie.executor.jpa.CoordJobQueryExecutor;
 import org.apache.oozie.executor.jpa.CoordJobQueryExecutor.CoordJobQuery;
 import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.service.CallableQueueService;
 import org.apache.oozie.service.EventHandlerService;
+import org.apache.oozie.service.FSDependencyManagerService;
 import org.apache.oozie.service.JPAService;
+import org.apache.oozie.service.RecoveryService;
 import org.apache.oozie.service.Service;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.URIHandlerService;
@@ -60,6 +70,8 @@ import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.XmlUtils;
 import org.jdom.Element;
 
+import com.google.common.annotations.VisibleForTesting;
+
 /**
  * The command to check if an action's data input paths exist in the file system.
  */
@@ -77,10 +89,23 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
      * the oozie configuration.
      */
     private final int DEFAULT_COMMAND_REQUEUE_INTERVAL = 60000; // 1 minute
+    /**
+     * Property name of the maximum number of input checks of a coordinator job queued together that are coalesced
+     * into a single execution.
+     */
+    public static final String CONF_COORD_INPUT_CHECK_COALESCE_MAX = Service.CONF_PREFIX
+            + "coord.input.check.coalesce.max";
+    private static final int DEFAULT_COALESCE_MAX = 10;
     private CoordinatorActionBean coordAction = null;
     private CoordinatorJobBean coordJob = null;
     private JPAService jpaService = null;
     private String jobId = null;
+    // actions of the job whose input check is coalesced into this command, checked after the action of the command
+    private final List<String> coalescedActionIds = new ArrayList<String>();
+    // updates of the checked actions, written in a single batch once all the actions are checked
+    private final List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
+    private final List<CoordinatorActionBean> eventActions = new ArrayList<CoordinatorActionBean>();
+    private boolean actionReady = false;
 
     public CoordActionInputCheckXCommand(String actionId, String jobId) {
         super("coord_action_input", "coord_action_input", 1);
@@ -90,6 +115,67 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
 
     @Override
     protected Void execute() throws CommandException {
+        CommandException exception = null;
+        try {
+            checkAction();
+        }
+        catch (CommandException ex) {
+            if (coalescedActionIds.isEmpty()) {
+                exception = ex;
+            }
+            else {
+                // not thrown, the follow-up commands of the coalesced actions would not be queued
+                LOG.error("[" + actionId + "]::ActionInputCheck:: " + ex.getMessage(), ex);
+            }
+        }
+        for (String coalescedActionId : coalescedActionIds) {
+            try {
+                if (loadCoalescedAction(coalescedActionId)) {
+                    checkAction();
+                }
+            }
+            catch (CommandException ex) {
+                LOG.error("[" + coalescedActionId + "]::ActionInputCheck:: " + ex.getMessage(), ex);
+            }
+        }
+        writeUpdates();
+        if (actionReady) {
+            new CoordActionReadyXCommand(coordJob.getId()).call(getEntityKey());
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return null;
+    }
+
+    /**
+     * Load a coalesced action of the job and check its precondition.
+     *
+     * @param coalescedActionId action ID.
+     * @return true if the input of the action has to be checked.
+     * @throws CommandException thrown if the action could not be loaded.
+     */
+    private boolean loadCoalescedAction(String coalescedActionId) throws CommandException {
+        try {
+            coordAction = jpaService.execute(new CoordActionGetForInputCheckJPAExecutor(coalescedActionId));
+        }
+        catch (JPAExecutorException je) {
+            throw new CommandException(je);
+        }
+        LogUtils.setLogInfo(coordAction, logInfo);
+        LOG = XLog.resetPrefix(LOG);
+        try {
+            verifyPrecondition();
+            return true;
+        }
+        catch (PreconditionException ex) {
+            LOG.warn(ex.getMessage() + ", Error Code: " + ex.getErrorCode());
+            return false;
+        }
+    }
+
+    private void checkAction() throws CommandException {
+        String actionId = coordAction.getId();
         LOG.debug("[" + actionId + "]::ActionInputCheck:: Action is in WAITING state.");
 
         // this action should only get processed if current time > nominal time;
@@ -104,7 +190,7 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
                     + "]::ActionInputCheck:: nominal Time is newer than current time, so requeue and wait. Current="
                     + DateUtils.formatDateOozieTZ(currentTime) + ", nominal=" + DateUtils.formatDateOozieTZ(nominalTime));
 
-            return null;
+            return;
         }
 
         StringBuilder actionXml = new StringBuilder(coordAction.getActionXml());
@@ -129,6 +215,7 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
                     + nonResolvedList.toString());
             // Updating the list of data dependencies that are available and those that are yet not
             boolean status = checkInput(actionXml, existList, nonExistList, actionConf);
+            String resolvedMissingDeps = nonExistList.toString();
             String pushDeps = coordAction.getPushMissingDependencies();
             // Resolve latest/future only when all current missingDependencies and
             // pushMissingDependencies are met
@@ -152,17 +239,19 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
                 actionXml.replace(0, actionXml.length(), newActionXml);
                 coordAction.setActionXml(actionXml.toString());
                 coordAction.setStatus(CoordinatorAction.Status.READY);
+                removeMissingDependency();
                 updateCoordAction(coordAction, true);
-                new CoordActionReadyXCommand(coordAction.getJobId()).call(getEntityKey());
+                actionReady = true;
             }
             else if (!isTimeout(currentTime)) {
-                if (status == false) {
+                if (status == false && !addMissingDependency(resolvedMissingDeps, actionConf, currentTime)) {
                     queue(new CoordActionInputCheckXCommand(coordAction.getId(), coordAction.getJobId()),
                             getCoordInputCheckRequeueInterval());
                 }
                 updateCoordAction(coordAction, isChangeInDependency);
             }
             else {
+                removeMissingDependency();
                 if (!nonExistListStr.isEmpty() && pushDeps == null || pushDeps.length() == 0) {
                     queue(new CoordActionTimeOutXCommand(coordAction, coordJob.getUser(), coordJob.getAppName()));
                 }
@@ -186,7 +275,6 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
         finally {
             cron.stop();
         }
-        return null;
     }
 
 
@@ -205,31 +293,99 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
         return (timeOut >= 0) && (waitingTime > timeOut);
     }
 
-    private void updateCoordAction(CoordinatorActionBean coordAction, boolean isChangeInDependency)
-            throws CommandException {
+    private boolean isTimeoutNear(Date currentTime) {
+        int timeOut = coordAction.getTimeOut();
+        if (timeOut < 0) {
+            return false;
+        }
+        Configuration conf = Services.get().getConf();
+        long recoveryDelay = (conf.getLong(RecoveryService.CONF_COORD_OLDER_THAN, 600)
+                + conf.getLong(RecoveryService.CONF_SERVICE_INTERVAL, 60)) * 1000;
+        long timeoutTime = Math.max(coordAction.getNominalTime().getTime(), coordAction.getCreatedTime().getTime())
+                + timeOut * 60L * 1000;
+        return timeoutTime - currentTime.getTime() <= recoveryDelay;
+    }
+
+    private void updateCoordAction(CoordinatorActionBean coordAction, boolean isChangeInDependency) {
         coordAction.setLastModifiedTime(new Date());
         if (jpaService != null) {
-            try {
-                if (isChangeInDependency) {
-                    CoordActionQueryExecutor.getInstance().executeUpdate(
-                            CoordActionQuery.UPDATE_COORD_ACTION_FOR_INPUTCHECK, coordAction);
-                    if (EventHandlerService.isEnabled() && coordAction.getStatus() != CoordinatorAction.Status.READY) {
-                        // since event is not to be generated unless action
-                        // RUNNING via StartX
-                        generateEvent(coordAction, coordJob.getUser(), coordJob.getAppName(), null);
-                    }
-                }
-                else {
-                    CoordActionQueryExecutor.getInstance().executeUpdate(
-                            CoordActionQuery.UPDATE_COORD_ACTION_FOR_MODIFIED_DATE, coordAction);
+            if (isChangeInDependency) {
+                updateList.add(new UpdateEntry<CoordActionQuery>(
+                        CoordActionQuery.UPDATE_COORD_ACTION_FOR_INPUTCHECK, coordAction));
+                if (EventHandlerService.isEnabled() && coordAction.getStatus() != CoordinatorAction.Status.READY) {
+                    // since event is not to be generated unless action
+                    // RUNNING via StartX
+                    eventActions.add(coordAction);
                 }
             }
-            catch (JPAExecutorException jex) {
-                throw new CommandException(ErrorCode.E1021, jex.getMessage(), jex);
+            else {
+                updateList.add(new UpdateEntry<CoordActionQuery>(
+                        CoordActionQuery.UPDATE_COORD_ACTION_FOR_MODIFIED_DATE, coordAction));
             }
         }
     }
 
+    /**
+     * Write the updates of the checked actions in a single batch and generate their events.
+     *
+     * @throws CommandException thrown if the actions could not be updated.
+     */
+    private void writeUpdates() throws CommandException {
+        try {
+            if (!updateList.isEmpty()) {
+                BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(null, updateList, null);
+            }
+        }
+        catch (JPAExecutorException jex) {
+            throw new CommandException(ErrorCode.E1021, jex.getMessage(), jex);
+        }
+        finally {
+            updateList.clear();
+        }
+        for (CoordinatorActionBean action : eventActions) {
+            generateEvent(action, coordJob.getUser(), coordJob.getAppName(), null);
+        }
+        eventActions.clear();
+    }
+
+    /**
+     * Register the action on its first missing dependency so its input check is queued when the dependency appears
+     * instead of being requeued at a fixed interval.
+     *
+     * <p/>
+     * An action that times out before the RecoveryService queues its input check again is not registered, its input
+     * check keeps being requeued so it times out on time.
+     *
+     * @param missingDeps resolved missing dependencies of the action
+     * @param actionConf action configuration
+     * @param currentTime time of the input check
+     * @return true if the action is registered, false if its input check has to be requeued
+     */
+    private boolean addMissingDependency(String missingDeps, Configuration actionConf, Date currentTime) {
+        FSDependencyManagerService depService = Services.get().get(FSDependencyManagerService.class);
+        if (depService == null || missingDeps.length() == 0) {
+            return false;
+        }
+        if (isTimeoutNear(currentTime)) {
+            removeMissingDependency();
+            return false;
+        }
+        String firstMissingDependency = missingDeps.split(CoordELFunctions.INSTANCE_SEPARATOR)[0];
+        boolean registered = depService.addMissingDependency(firstMissingDependency,
+                actionConf.get(OozieClient.USER_NAME), coordAction.getId(), coordAction.getJobId());
+        if (registered) {
+            LOG.debug("[" + coordAction.getId() + "]::ActionInputCheck:: Waiting for " + firstMissingDependency);
+        }
+        return registered;
+    }
+
+    private void removeMissingDependency() {
+        FSDependencyManagerService depService = Services.get().get(FSDependencyManagerService.class);
+        if (depService != null) {
+            depService.removeMissingDependency(coordAction.getId());
+        }
+    }
+
     /**
      * This function reads the value of re-queue interval for coordinator input
      * check command from the Oozie configuration provided by Configuration
@@ -244,6 +400,33 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
         return requeueInterval;
     }
 
+    /**
+     * Coalesce the input check of another action of the same job, queued with the same delay, so the actions
+     * materialized or requeued together are checked in a single execution with a single write of their updates.
+     *
+     * @param command command being queued.
+     * @return true if the input of the action of the command is checked by this command.
+     */
+    @Override
+    protected boolean coalesce(XCommand<?> command) {
+        if (getClass() != CoordActionInputCheckXCommand.class || command.getClass() != getClass()) {
+            return false;
+        }
+        CoordActionInputCheckXCommand other = (CoordActionInputCheckXCommand) command;
+        if (jobId == null || !jobId.equals(other.jobId) || !other.coalescedActionIds.isEmpty()) {
+            return false;
+        }
+        if (actionId.equals(other.actionId) || coalescedActionIds.contains(other.actionId)) {
+            return true;
+        }
+        if (coalescedActionIds.size() + 1 >= Services.get().getConf().getInt(CONF_COORD_INPUT_CHECK_COALESCE_MAX,
+                DEFAULT_COALESCE_MAX)) {
+            return false;
+        }
+        coalescedActionIds.add(other.actionId);
+        return true;
+    }
+
     /**
      * To check the list of input paths if all of them exist
      *
@@ -262,7 +445,7 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
 
     protected boolean checkUnResolvedInput(StringBuilder actionXml, Configuration conf) throws Exception {
         Element eAction = XmlUtils.parseXml(actionXml.toString());
-        LOG.debug("[" + actionId + "]::ActionInputCheck:: Checking Latest/future");
+        LOG.debug("[" + coordAction.getId() + "]::ActionInputCheck:: Checking Latest/future");
         boolean allExist = checkUnresolvedInstances(eAction, conf);
         if (allExist) {
             actionXml.replace(0, actionXml.length(), XmlUtils.prettyPrint(eAction).toString());
@@ -329,7 +512,7 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
         Date actualTime = null;
         if (actualTimeStr == null) {
             LOG.debug("Unable to get action-actual-time from action xml, this job is submitted " +
-            "from previous version. Assign current date to actual time, action = " + actionId);
+            "from previous version. Assign current date to actual time, action = " + coordAction.getId());
             actualTime = new Date();
         } else {
             actualTime = DateUtils.parseDateOozieTZ(actualTimeStr);
@@ -387,7 +570,7 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
                 String ret = CoordELFunctions.evalAndWrap(eval, unresolvedList[i]);
                 Boolean isResolved = (Boolean) eval.getVariable("is_resolved");
                 if (isResolved == false) {
-                    LOG.info("[" + actionId + "]::Cannot resolve: " + ret);
+                    LOG.info("[" + coordAction.getId() + "]::Cannot resolve: " + ret);
                     return false;
                 }
                 if (resolvedTmp.length() > 0) {
@@ -447,17 +630,26 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
 
         String[] uriList = nonExistList.toString().split(CoordELFunctions.INSTANCE_SEPARATOR);
         if (uriList[0] != null) {
-            LOG.info("[" + actionId + "]::ActionInputCheck:: In checkListOfPaths: " + uriList[0] + " is Missing.");
+            LOG.info("[" + coordAction.getId() + "]::ActionInputCheck:: In checkListOfPaths: " + uriList[0]
+                    + " is Missing.");
         }
 
         nonExistList.delete(0, nonExistList.length());
         boolean allExists = true;
         String existSeparator = "", nonExistSeparator = "";
         String user = ParamChecker.notEmpty(conf.get(OozieClient.USER_NAME), OozieClient.USER_NAME);
+        Map<String, Boolean> resolved = resolvePaths(uriList, conf, user);
+        ParallelExistenceChecker checker = new ParallelExistenceChecker(conf, user);
         for (int i = 0; i < uriList.length; i++) {
             if (allExists) {
-                allExists = pathExists(uriList[i], conf, user);
-                LOG.info("[" + actionId + "]::ActionInputCheck:: File:" + uriList[i] + ", Exists? :" + allExists);
+                Boolean exists = resolved.get(uriList[i]);
+                if (exists == null && checker.getFanout() > 1) {
+                    checkPaths(uriList, i, resolved, checker);
+                    exists = resolved.get(uriList[i]);
+                }
+                allExists = (exists != null) ? exists : pathExists(uriList[i], conf, user);
+                LOG.info("[" + coordAction.getId() + "]::ActionInputCheck:: File:" + uriList[i] + ", Exists? :"
+                        + allExists);
             }
             if (allExists) {
                 existList.append(existSeparator).append(uriList[i]);
@@ -471,6 +663,97 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
         return allExists;
     }
 
+    /**
+     * Resolve the existence of the paths that are cached or that can be checked together by listing their directory.
+     *
+     * @param uriList uri paths
+     * @param actionConf action configuration
+     * @param user user to access the paths as
+     * @return the existence of the resolved paths, the other paths have to be checked one by one
+     * @throws IOException thrown if unable to access the paths
+     */
+    private Map<String, Boolean> resolvePaths(String[] uriList, Configuration actionConf, String user)
+            throws IOException {
+        Map<String, Boolean> resolved = new HashMap<String, Boolean>();
+        URIHandlerService service = Services.get().get(URIHandlerService.class);
+        Map<URI, String> fsURIs = new LinkedHashMap<URI, String>();
+        FSURIHandler fsHandler = null;
+        try {
+            for (String sPath : uriList) {
+                URI uri;
+                try {
+                    uri = new URI(sPath);
+                }
+                catch (URISyntaxException e) {
+                    // reported when the path is checked
+                    continue;
+                }
+                URIHandler handler = service.getURIHandler(uri);
+                if (handler instanceof FSURIHandler && (fsHandler == null || fsHandler == handler)) {
+                    fsHandler = (FSURIHandler) handler;
+                    fsURIs.put(uri, sPath);
+                }
+            }
+            if (fsHandler != null) {
+                Map<URI, Boolean> results = fsHandler.exists(new ArrayList<URI>(fsURIs.keySet()), actionConf, user);
+                for (Map.Entry<URI, Boolean> entry : results.entrySet()) {
+                    resolved.put(fsURIs.get(entry.getKey()), entry.getValue());
+                }
+            }
+        }
+        catch (URIHandlerException e) {
+            coordAction.setErrorCode(e.getErrorCode().toString());
+            coordAction.setErrorMessage(e.getMessage());
+            throw new IOException(e);
+        }
+        return resolved;
+    }
+
+    /**
+     * Check the existence of the next unresolved paths in parallel, as many as the fan-out of the checker.
+     * <p/>
+     * Paths not checked by the deadline of the checker are considered missing, they are checked again at the next
+     * input check. Invalid paths are left unresolved so checking them reports the error.
+     *
+     * @param uriList uri paths
+     * @param from index of the first path to check
+     * @param resolved existence of the resolved paths, updated with the checked paths
+     * @param checker checker of the action
+     * @throws IOException thrown if unable to access the paths
+     */
+    @VisibleForTesting
+    void checkPaths(String[] uriList, int from, Map<String, Boolean> resolved,
+            ParallelExistenceChecker checker) throws IOException {
+        List<String> paths = new ArrayList<String>();
+        List<URI> uris = new ArrayList<URI>();
+        for (int i = from; i < uriList.length && uris.size() < checker.getFanout(); i++) {
+            if (!resolved.containsKey(uriList[i])) {
+                try {
+                    uris.add(new URI(uriList[i]));
+                    paths.add(uriList[i]);
+                }
+                catch (URISyntaxException e) {
+                    break;
+                }
+            }
+        }
+        try {
+            Boolean[] results = checker.exists(uris, null);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    LOG.info("[" + coordAction.getId() + "]::ActionInputCheck:: File:" + paths.get(i)
+                            + " not checked in time");
+                }
+                resolved.put(paths.get(i), (results[i] == null) ? Boolean.FALSE : results[i]);
+            }
+        }
+        catch (URIHandlerException e) {
+            coordAction.setErrorCode(e.getErrorCode().toString());
+            coordAction.setErrorMessage(e.getMessage());
+            throw new IOException(e);
+        }
+    }
+
     /**
      * Check if given path exists
      *
@@ -583,7 +866,7 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
     @Override
     protected void verifyPrecondition() throws CommandException, PreconditionException {
         if (coordAction.getStatus() != CoordinatorActionBean.Status.WAITING) {
-            throw new PreconditionException(ErrorCode.E1100, "[" + actionId
+            throw new PreconditionException(ErrorCode.E1100, "[" + coordAction.getId()
                     + "]::CoordActionInputCheck:: Ignoring action. Should be in WAITING state, but state="
                     + coordAction.getStatus());
         }
@@ -596,7 +879,7 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
         if (coordJob.getStatus() != Job.Status.RUNNING && coordJob.getStatus() != Job.Status.RUNNINGWITHERROR && coordJob.getStatus() != Job.Status.PAUSED
                 && coordJob.getStatus() != Job.Status.PAUSEDWITHERROR) {
             throw new PreconditionException(
-                    ErrorCode.E1100, "["+ actionId + "]::CoordActionInputCheck:: Ignoring action." +
+                    ErrorCode.E1100, "["+ coordAction.getId() + "]::CoordActionInputCheck:: Ignoring action." +
                     		" Coordinator job is not in RUNNING/RUNNINGWITHERROR/PAUSED/PAUSEDWITHERROR state, but state="
                             + coordJob.getStatus());
         }
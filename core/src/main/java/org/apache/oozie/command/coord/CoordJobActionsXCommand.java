@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.command.coord;
+
+import java.util.List;
+
+import org.apache.oozie.CoordinatorActionBean;
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.XException;
+import org.apache.oozie.command.CommandException;
+import org.apache.oozie.command.PreconditionException;
+import org.apache.oozie.executor.jpa.CoordJobGetActionsSubsetJPAExecutor;
+import org.apache.oozie.service.JPAService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.util.ParamChecker;
+
+/**
+ * Command for loading a range of the actions of a coordinator job, without the job itself.
+ * <p/>
+ * Used to read the actions of a large coordinator job by pages.
+ */
+public class CoordJobActionsXCommand extends CoordinatorXCommand<List<CoordinatorActionBean>> {
+    private final String id;
+    private final List<String> filterList;
+    private final int start;
+    private final int len;
+    private final boolean desc;
+
+    /**
+     * Constructor for loading a range of coordinator actions.
+     *
+     * @param id coordinator job id.
+     * @param filterList status filter of the actions.
+     * @param start offset of the first action, base 1.
+     * @param length number of actions to load.
+     * @param desc if actions are ordered by descending nominal time.
+     */
+    public CoordJobActionsXCommand(String id, List<String> filterList, int start, int length, boolean desc) {
+        super("job.info", "job.info", 1);
+        this.id = ParamChecker.notEmpty(id, "id");
+        this.filterList = filterList;
+        this.start = start;
+        this.len = length;
+        this.desc = desc;
+    }
+
+    @Override
+    protected boolean isLockRequired() {
+        return false;
+    }
+
+    @Override
+    public String getEntityKey() {
+        return this.id;
+    }
+
+    @Override
+    protected void loadState() throws CommandException {
+    }
+
+    @Override
+    protected void verifyPrecondition() throws CommandException, PreconditionException {
+    }
+
+    @Override
+    protected List<CoordinatorActionBean> execute() throws CommandException {
+        try {
+            JPAService jpaService = Services.get().get(JPAService.class);
+            if (jpaService == null) {
+                throw new CommandException(ErrorCode.E0610);
+            }
+            return jpaService.execute(new CoordJobGetActionsSubsetJPAExecutor(id, filterList, start, len, desc));
+        }
+        catch (XException ex) {
+            throw new CommandException(ex);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.oozie.XException;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.PreconditionException;
 import org.apache.oozie.executor.jpa.CoordJobInfoGetJPAExecutor;
+import org.apache.oozie.executor.jpa.JobsCursor;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 
@@ -36,12 +37,30 @@ public class CoordJobsXCommand extends CoordinatorXCommand<CoordinatorJobInfo> {
     private Map<String, List<String>> filter;
     private int start = 1;
     private int len = 50;
+    private JobsCursor cursor;
+    private boolean count = true;
 
     public CoordJobsXCommand(Map<String, List<String>> filter, int start, int length) {
+        this(filter, start, length, null, true);
+    }
+
+    /**
+     * Constructor listing the coordinator jobs of the page after a cursor.
+     *
+     * @param filter the filter string
+     * @param start start location for paging, used when listing without cursor
+     * @param length total length to get
+     * @param cursor cursor of the page, <code>null</code> to use the start location
+     * @param count if the total number of coordinator jobs is computed
+     */
+    public CoordJobsXCommand(Map<String, List<String>> filter, int start, int length, JobsCursor cursor,
+            boolean count) {
         super("coord.job.info", "coord.job.info", 1);
         this.filter = filter;
         this.start = start;
         this.len = length;
+        this.cursor = cursor;
+        this.count = count;
     }
 
     /* (non-Javadoc)
@@ -83,7 +102,7 @@ public class CoordJobsXCommand extends CoordinatorXCommand<CoordinatorJobInfo> {
             JPAService jpaService = Services.get().get(JPAService.class);
             CoordinatorJobInfo coordInfo = null;
             if (jpaService != null) {
-                coordInfo = jpaService.execute(new CoordJobInfoGetJPAExecutor(filter, start, len));
+                coordInfo = jpaService.execute(new CoordJobInfoGetJPAExecutor(filter, start, len, cursor, count));
             }
             else {
                 LOG.error(ErrorCode.E0610);
@@ -41,6 +41,7 @@ import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
 import org.apache.oozie.service.ActionCheckerService;
 import org.apache.oozie.service.ActionService;
 import org.apache.oozie.service.EventHandlerService;
+import org.apache.oozie.service.RunningActionIndex;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.UUIDService;
 import org.apache.oozie.util.Instrumentation;
@@ -62,6 +63,7 @@ public class ActionCheckXCommand extends ActionXCommand<Void> {
     private ActionExecutor executor = null;
     private List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
     private boolean generateEvent = false;
+    private boolean callback = false;
 
     public ActionCheckXCommand(String actionId) {
         this(actionId, -1);
@@ -78,6 +80,11 @@ public class ActionCheckXCommand extends ActionXCommand<Void> {
         this(actionId, 0, checkDelay);
     }
 
+    public ActionCheckXCommand(String actionId, int priority, int checkDelay, boolean callback) {
+        this(actionId, priority, checkDelay);
+        this.callback = callback;
+    }
+
     @Override
     protected void eagerLoadState() throws CommandException {
         try {
@@ -142,6 +149,10 @@ public class ActionCheckXCommand extends ActionXCommand<Void> {
     @Override
     protected void verifyPrecondition() throws CommandException, PreconditionException {
         if (!wfAction.isPending() || wfAction.getStatus() != WorkflowActionBean.Status.RUNNING) {
+            RunningActionIndex index = RunningActionIndex.get();
+            if (index != null) {
+                index.remove(actionId);
+            }
             throw new PreconditionException(ErrorCode.E0815, wfAction.isPending(), wfAction.getStatusStr());
         }
         if (wfJob.getStatus() != WorkflowJob.Status.RUNNING) {
@@ -174,6 +185,7 @@ public class ActionCheckXCommand extends ActionXCommand<Void> {
             }
             boolean isUserRetry = false;
             context = new ActionXCommand.ActionExecutorContext(wfJob, wfAction, isRetry, isUserRetry);
+            context.setCallback(callback);
             incrActionCounter(wfAction.getType(), 1);
 
             Instrumentation.Cron cron = new Instrumentation.Cron();
@@ -234,6 +246,7 @@ public class ActionCheckXCommand extends ActionXCommand<Void> {
         finally {
             try {
                 BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(null, updateList, null);
+                updateRunningActionIndex();
                 if (generateEvent && EventHandlerService.isEnabled()) {
                     generateEvent(wfAction, wfJob.getUser());
                 }
@@ -250,6 +263,21 @@ public class ActionCheckXCommand extends ActionXCommand<Void> {
         return null;
     }
 
+    private void updateRunningActionIndex() {
+        RunningActionIndex index = RunningActionIndex.get();
+        if (index != null) {
+            if (wfAction.isExecutionComplete()) {
+                index.completed(actionId);
+            }
+            else if (wfAction.getStatus() == WorkflowActionBean.Status.RUNNING) {
+                index.checked(actionId);
+            }
+            else {
+                index.remove(actionId);
+            }
+        }
+    }
+
     protected long getRetryInterval() {
         return (executor != null) ? executor.getRetryInterval() : ActionExecutor.RETRY_INTERVAL;
     }
@@ -44,6 +44,7 @@ import org.apache.oozie.action.control.ControlNodeActionExecutor;
 import org.apache.oozie.service.ActionService;
 import org.apache.oozie.service.EventHandlerService;
 import org.apache.oozie.service.JPAService;
+import org.apache.oozie.service.RunningActionIndex;
 import org.apache.oozie.service.UUIDService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.util.LogUtils;
@@ -119,6 +120,10 @@ public class ActionKillXCommand extends ActionXCommand<Void> {
     @Override
     protected Void execute() throws CommandException {
         LOG.debug("STARTED WorkflowActionKillXCommand for action " + actionId);
+        RunningActionIndex index = RunningActionIndex.get();
+        if (index != null) {
+            index.remove(actionId);
+        }
 
         if (wfAction.isPending()) {
             ActionExecutor executor = Services.get().get(ActionService.class).getExecutor(wfAction.getType());
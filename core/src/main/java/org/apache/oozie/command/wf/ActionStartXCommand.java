@@ -51,6 +51,7 @@ import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
 import org.apache.oozie.service.ActionService;
 import org.apache.oozie.service.EventHandlerService;
 import org.apache.oozie.service.JPAService;
+import org.apache.oozie.service.RunningActionIndex;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.UUIDService;
 import org.apache.oozie.util.ELEvaluationException;
@@ -256,6 +257,11 @@ public class ActionStartXCommand extends ActionXCommand<Void> {
                         failJob(context);
                     } else {
                         queue(new NotificationXCommand(wfJob, wfAction));
+                        RunningActionIndex index = RunningActionIndex.get();
+                        if (index != null) {
+                            index.add(wfAction.getId(), wfJob.getAppName() + "/" + wfAction.getName(),
+                                    System.currentTimeMillis());
+                        }
                     }
                 }
 
@@ -266,6 +266,7 @@ public abstract class ActionXCommand<T> extends WorkflowXCommand<Void> {
         private boolean started;
         private boolean ended;
         private boolean executed;
+        private boolean callback;
 
 		/**
 		 * Constructing the ActionExecutorContext, setting the private members
@@ -417,6 +418,24 @@ public abstract class ActionXCommand<T> extends WorkflowXCommand<Void> {
             return isUserRetry;
         }
 
+        /**
+         * Set if the action is checked because its external system notified a status change.
+         *
+         * @param callback if the check is driven by a callback.
+         */
+        public void setCallback(boolean callback) {
+            this.callback = callback;
+        }
+
+        /**
+         * Return if the action is checked because its external system notified a status change.
+         *
+         * @return if the check is driven by a callback.
+         */
+        public boolean isCallback() {
+            return callback;
+        }
+
         /**
          * Returns whether setStartData has been called or not.
          *
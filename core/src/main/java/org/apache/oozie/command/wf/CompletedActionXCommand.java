@@ -89,7 +89,7 @@ public class CompletedActionXCommand extends WorkflowXCommand<Void> {
         // this is done because oozie notifications (of sub-wfs) is send
         // every status change, not only on completion.
         if (executor.isCompleted(externalStatus)) {
-            queue(new ActionCheckXCommand(this.wfactionBean.getId(), getPriority(), -1));
+            queue(new ActionCheckXCommand(this.wfactionBean.getId(), getPriority(), -1, true));
         }
         return null;
     }
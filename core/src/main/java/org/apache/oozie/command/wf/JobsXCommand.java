@@ -25,6 +25,7 @@ import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.WorkflowsInfo;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.PreconditionException;
+import org.apache.oozie.executor.jpa.JobsCursor;
 import org.apache.oozie.executor.jpa.WorkflowsJobGetJPAExecutor;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
@@ -33,6 +34,8 @@ public class JobsXCommand extends WorkflowXCommand<WorkflowsInfo> {
     private final Map<String, List<String>> filter;
     private final int start;
     private final int len;
+    private final JobsCursor cursor;
+    private final boolean count;
     private WorkflowsInfo workflows;
 
     /**
@@ -44,10 +47,25 @@ public class JobsXCommand extends WorkflowXCommand<WorkflowsInfo> {
      *        index "start".
      */
     public JobsXCommand(Map<String, List<String>> filter, int start, int length) {
+        this(filter, start, length, null, true);
+    }
+
+    /**
+     * Constructor listing the workflows of the page after a cursor.
+     *
+     * @param filter the filter string
+     * @param start start location for paging, used when listing without cursor
+     * @param length total length to get
+     * @param cursor cursor of the page, <code>null</code> to use the start location
+     * @param count if the total number of workflows is computed
+     */
+    public JobsXCommand(Map<String, List<String>> filter, int start, int length, JobsCursor cursor, boolean count) {
         super("job.info", "job.info", 1, true);
         this.filter = filter;
         this.start = start;
         this.len = length;
+        this.cursor = cursor;
+        this.count = count;
     }
 
     /* (non-Javadoc)
@@ -58,7 +76,8 @@ public class JobsXCommand extends WorkflowXCommand<WorkflowsInfo> {
         try {
             JPAService jpaService = Services.get().get(JPAService.class);
             if (jpaService != null) {
-                this.workflows = jpaService.execute(new WorkflowsJobGetJPAExecutor(this.filter, this.start, this.len));
+                this.workflows = jpaService.execute(new WorkflowsJobGetJPAExecutor(this.filter, this.start, this.len,
+                        this.cursor, this.count));
             }
             else {
                 throw new CommandException(ErrorCode.E0610);
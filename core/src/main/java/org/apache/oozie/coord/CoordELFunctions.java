@@ -30,6 +30,7 @@ import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.dependency.URIHandler.Context;
 import org.apache.oozie.dependency.URIHandler;
+import org.apache.oozie.dependency.ParallelExistenceChecker;
 import org.apache.oozie.util.DateUtils;
 import org.apache.oozie.util.ELEvaluator;
 import org.apache.oozie.util.ParamChecker;
@@ -1061,48 +1062,69 @@ public class CoordELFunctions {
             }
             int available = 0;
             boolean resolved = false;
+            boolean timedOut = false;
             String user = ParamChecker
                     .notEmpty((String) eval.getVariable(OozieClient.USER_NAME), OozieClient.USER_NAME);
             String doneFlag = ds.getDoneFlag();
             URIHandlerService uriService = Services.get().get(URIHandlerService.class);
             URIHandler uriHandler = null;
             Context uriContext = null;
+            ParallelExistenceChecker checker = new ParallelExistenceChecker(conf, user);
             try {
-                while (nominalInstanceCal.compareTo(initInstance) >= 0 && !currentThread.isInterrupted()) {
-                    ELEvaluator uriEval = getUriEvaluator(nominalInstanceCal);
-                    String uriPath = uriEval.evaluate(uriTemplate, String.class);
-                    if (uriHandler == null) {
-                        URI uri = new URI(uriPath);
-                        uriHandler = uriService.getURIHandler(uri);
-                        uriContext = uriHandler.getContext(uri, conf, user);
+                while (nominalInstanceCal.compareTo(initInstance) >= 0 && !currentThread.isInterrupted() && !resolved
+                        && !timedOut) {
+                    // the instances are checked by windows, most recent first
+                    List<Calendar> instanceCals = new ArrayList<Calendar>();
+                    List<String> uriPaths = new ArrayList<String>();
+                    List<URI> urisWithDoneFlag = new ArrayList<URI>();
+                    while (instanceCals.size() < checker.getFanout()
+                            && nominalInstanceCal.compareTo(initInstance) >= 0) {
+                        ELEvaluator uriEval = getUriEvaluator(nominalInstanceCal);
+                        String uriPath = uriEval.evaluate(uriTemplate, String.class);
+                        if (uriHandler == null) {
+                            URI uri = new URI(uriPath);
+                            uriHandler = uriService.getURIHandler(uri);
+                            uriContext = uriHandler.getContext(uri, conf, user);
+                        }
+                        instanceCals.add(nominalInstanceCal);
+                        uriPaths.add(uriPath);
+                        urisWithDoneFlag.add(new URI(uriHandler.getURIWithDoneFlag(uriPath, doneFlag)));
+                        // nominalInstanceCal.add(dsTimeUnit.getCalendarUnit(), -datasetFrequency);
+                        nominalInstanceCal = (Calendar) initInstance.clone();
+                        instCount[0]--;
+                        nominalInstanceCal.add(dsTimeUnit.getCalendarUnit(), instCount[0] * datasetFrequency);
+                        // DateUtils.moveToEnd(nominalInstanceCal, getDSEndOfFlag());
                     }
-                    String uriWithDoneFlag = uriHandler.getURIWithDoneFlag(uriPath, doneFlag);
-                    if (uriHandler.exists(new URI(uriWithDoneFlag), uriContext)) {
-                        XLog.getLog(CoordELFunctions.class)
-                        .debug("Found latest(" + available + "): " + uriWithDoneFlag);
-                        if (available == startOffset) {
-                            LOG.debug("Matched latest(" + available + "): " + uriWithDoneFlag);
-                            resolved = true;
-                            resolvedInstances.append(DateUtils.formatDateOozieTZ(nominalInstanceCal));
-                            resolvedURIPaths.append(uriPath);
-                            retVal = resolvedInstances.toString();
-                            eval.setVariable("resolved_path", resolvedURIPaths.toString());
+                    Boolean[] exists = checker.exists(urisWithDoneFlag, uriContext);
+                    for (int i = 0; i < exists.length; i++) {
+                        URI uriWithDoneFlag = urisWithDoneFlag.get(i);
+                        if (exists[i] == null) {
+                            // not checked in time, resolved at the next input check
+                            timedOut = true;
                             break;
                         }
-                        else if (available <= endOffset) {
-                            LOG.debug("Matched latest(" + available + "): " + uriWithDoneFlag);
-                            resolvedInstances.append(DateUtils.formatDateOozieTZ(nominalInstanceCal)).append(
-                                    INSTANCE_SEPARATOR);
-                            resolvedURIPaths.append(uriPath).append(INSTANCE_SEPARATOR);
+                        if (exists[i]) {
+                            XLog.getLog(CoordELFunctions.class)
+                            .debug("Found latest(" + available + "): " + uriWithDoneFlag);
+                            if (available == startOffset) {
+                                LOG.debug("Matched latest(" + available + "): " + uriWithDoneFlag);
+                                resolved = true;
+                                resolvedInstances.append(DateUtils.formatDateOozieTZ(instanceCals.get(i)));
+                                resolvedURIPaths.append(uriPaths.get(i));
+                                retVal = resolvedInstances.toString();
+                                eval.setVariable("resolved_path", resolvedURIPaths.toString());
+                                break;
+                            }
+                            else if (available <= endOffset) {
+                                LOG.debug("Matched latest(" + available + "): " + uriWithDoneFlag);
+                                resolvedInstances.append(DateUtils.formatDateOozieTZ(instanceCals.get(i))).append(
+                                        INSTANCE_SEPARATOR);
+                                resolvedURIPaths.append(uriPaths.get(i)).append(INSTANCE_SEPARATOR);
+                            }
+
+                            available--;
                         }
-
-                        available--;
                     }
-                    // nominalInstanceCal.add(dsTimeUnit.getCalendarUnit(), -datasetFrequency);
-                    nominalInstanceCal = (Calendar) initInstance.clone();
-                    instCount[0]--;
-                    nominalInstanceCal.add(dsTimeUnit.getCalendarUnit(), instCount[0] * datasetFrequency);
-                    // DateUtils.moveToEnd(nominalInstanceCal, getDSEndOfFlag());
                 }
             }
             finally {
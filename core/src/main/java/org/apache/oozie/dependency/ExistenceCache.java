@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.dependency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the results of dependency existence checks, shared by all the coordinator actions of the server.
+ * <p/>
+ * Positive results are kept for <code>positiveTtl</code> milliseconds, negative results for <code>negativeTtl</code>
+ * milliseconds, which should be short as missing dependencies are expected to appear. A TTL of <code>0</code> disables
+ * caching of the corresponding results. Expired results are removed by {@link #purge()}, when the cache reaches its
+ * maximum size the least recently used result is dropped.
+ */
+public class ExistenceCache {
+    private final Map<String, Long> expirations;
+    private final long positiveTtl;
+    private final long negativeTtl;
+
+    /**
+     * Create an existence cache.
+     *
+     * @param positiveTtl time to live of positive results in milliseconds.
+     * @param negativeTtl time to live of negative results in milliseconds.
+     * @param maxSize maximum number of cached results.
+     */
+    public ExistenceCache(long positiveTtl, long negativeTtl, final int maxSize) {
+        this.positiveTtl = positiveTtl;
+        this.negativeTtl = negativeTtl;
+        expirations = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Return the cached existence of a dependency.
+     *
+     * @param key dependency key.
+     * @return <code>true</code> or <code>false</code> if the result is cached, <code>null</code> otherwise.
+     */
+    public synchronized Boolean get(String key) {
+        Long expiration = expirations.get(key);
+        if (expiration == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        // positive results are stored with a positive expiration time, negative results with a negative one
+        if (Math.abs(expiration) <= now) {
+            expirations.remove(key);
+            return null;
+        }
+        return expiration > 0;
+    }
+
+    /**
+     * Cache the existence of a dependency.
+     *
+     * @param key dependency key.
+     * @param exists if the dependency exists.
+     */
+    public synchronized void put(String key, boolean exists) {
+        long ttl = (exists) ? positiveTtl : negativeTtl;
+        if (ttl <= 0) {
+            return;
+        }
+        long expiration = System.currentTimeMillis() + ttl;
+        expirations.put(key, (exists) ? expiration : -expiration);
+    }
+
+    /**
+     * Remove a dependency from the cache.
+     *
+     * @param key dependency key.
+     */
+    public synchronized void remove(String key) {
+        expirations.remove(key);
+    }
+
+    /**
+     * Remove the expired results.
+     */
+    public synchronized void purge() {
+        long now = System.currentTimeMillis();
+        Iterator<Long> it = expirations.values().iterator();
+        while (it.hasNext()) {
+            if (Math.abs(it.next()) <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Return the number of cached results, expired results not purged yet included.
+     *
+     * @return the number of cached results.
+     */
+    public synchronized int size() {
+        return expirations.size();
+    }
+}
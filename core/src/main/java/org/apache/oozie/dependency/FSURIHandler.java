@@ -17,20 +17,30 @@
  */
 package org.apache.oozie.dependency;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.security.AccessControlException;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.action.hadoop.FSLauncherURIHandler;
 import org.apache.oozie.action.hadoop.LauncherURIHandler;
 import org.apache.oozie.service.HadoopAccessorException;
 import org.apache.oozie.service.HadoopAccessorService;
+import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.service.Services;
+import org.apache.oozie.service.URIHandlerService;
 
 public class FSURIHandler implements URIHandler {
 
@@ -84,24 +94,160 @@ public class FSURIHandler implements URIHandler {
 
     @Override
     public boolean exists(URI uri, Context context) throws URIHandlerException {
+        Path path = getNormalizedPath(uri);
+        String key = getCacheKey(context.getUser(), path);
+        Boolean exists = getCached(key);
+        if (exists == null) {
+            exists = exists(((FSContext) context).getFileSystem(), path, key);
+        }
+        return exists;
+    }
+
+    @Override
+    public boolean exists(URI uri, Configuration conf, String user) throws URIHandlerException {
+        Path path = getNormalizedPath(uri);
+        String key = getCacheKey(user, path);
+        Boolean exists = getCached(key);
+        if (exists == null) {
+            exists = exists(getFileSystem(uri, conf, user), path, key);
+        }
+        return exists;
+    }
+
+    /**
+     * Check the existence of several URIs, listing their directory when enough of them are in the same directory.
+     * <p/>
+     * Only the URIs whose existence is cached or that were resolved by a listing are in the returned map, the others
+     * have to be checked with {@link #exists(URI, Configuration, String)}, so a caller that stops at the first missing
+     * URI does not check URIs it does not need.
+     *
+     * @param uris URIs to check.
+     * @param conf configuration to access the URIs.
+     * @param user user to access the URIs as.
+     * @return the existence of the URIs that were resolved.
+     * @throws URIHandlerException thrown if a directory could not be listed.
+     */
+    public Map<URI, Boolean> exists(List<URI> uris, Configuration conf, String user) throws URIHandlerException {
+        Map<URI, Boolean> results = new HashMap<URI, Boolean>();
+        Map<Path, List<URI>> byParent = new LinkedHashMap<Path, List<URI>>();
+        for (URI uri : uris) {
+            Path path = getNormalizedPath(uri);
+            // misses are counted when the URI is checked on its own
+            ExistenceCache existenceCache = getExistenceCache();
+            Boolean exists = (existenceCache == null) ? null : existenceCache.get(getCacheKey(user, path));
+            if (exists != null) {
+                incrCounter("existence.cache.hits");
+                results.put(uri, exists);
+            }
+            else if (path.getParent() != null) {
+                List<URI> siblings = byParent.get(path.getParent());
+                if (siblings == null) {
+                    siblings = new ArrayList<URI>();
+                    byParent.put(path.getParent(), siblings);
+                }
+                siblings.add(uri);
+            }
+        }
+        URIHandlerService uriService = getURIHandlerService();
+        int minURIs = (uriService == null) ? 0 : uriService.getExistenceBatchMinURIs();
+        for (Map.Entry<Path, List<URI>> entry : byParent.entrySet()) {
+            List<URI> siblings = entry.getValue();
+            if (minURIs > 0 && siblings.size() >= minURIs) {
+                FileSystem fs = getFileSystem(siblings.get(0), conf, user);
+                Set<String> children = listChildren(fs, entry.getKey());
+                for (URI uri : siblings) {
+                    Path path = getNormalizedPath(uri);
+                    String key = getCacheKey(user, path);
+                    boolean exists;
+                    if (children != null) {
+                        exists = children.contains(path.getName());
+                        putCached(key, exists);
+                    }
+                    else {
+                        exists = exists(fs, path, key);
+                    }
+                    results.put(uri, exists);
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean exists(FileSystem fs, Path path, String key) throws URIHandlerException {
         try {
-            FileSystem fs = ((FSContext) context).getFileSystem();
-            return fs.exists(getNormalizedPath(uri));
+            incrCounter("namenode.exists");
+            boolean exists = fs.exists(path);
+            putCached(key, exists);
+            return exists;
         }
         catch (IOException e) {
             throw new HadoopAccessorException(ErrorCode.E0902, e);
         }
     }
 
-    @Override
-    public boolean exists(URI uri, Configuration conf, String user) throws URIHandlerException {
+    // names of the children of a directory, empty if the directory does not exist, null if it cannot be read, the
+    // user may still have access to its children
+    private Set<String> listChildren(FileSystem fs, Path dir) throws URIHandlerException {
+        Set<String> children = new HashSet<String>();
         try {
-            FileSystem fs = getFileSystem(uri, conf, user);
-            return fs.exists(getNormalizedPath(uri));
+            incrCounter("namenode.listStatus");
+            FileStatus[] statuses = fs.listStatus(dir);
+            if (statuses != null) {
+                for (FileStatus status : statuses) {
+                    children.add(status.getPath().getName());
+                }
+            }
+        }
+        catch (FileNotFoundException e) {
+            // the directory does not exist so none of its children does
+        }
+        catch (AccessControlException e) {
+            incrCounter("namenode.listStatus.denied");
+            return null;
         }
         catch (IOException e) {
             throw new HadoopAccessorException(ErrorCode.E0902, e);
         }
+        return children;
+    }
+
+    // existence results depend on the permissions of the user so they are cached per user
+    private String getCacheKey(String user, Path path) {
+        return user + "@" + path;
+    }
+
+    private Boolean getCached(String key) {
+        ExistenceCache existenceCache = getExistenceCache();
+        if (existenceCache == null) {
+            return null;
+        }
+        Boolean exists = existenceCache.get(key);
+        incrCounter((exists == null) ? "existence.cache.misses" : "existence.cache.hits");
+        return exists;
+    }
+
+    private void putCached(String key, boolean exists) {
+        ExistenceCache existenceCache = getExistenceCache();
+        if (existenceCache != null) {
+            existenceCache.put(key, exists);
+        }
+    }
+
+    private ExistenceCache getExistenceCache() {
+        URIHandlerService uriService = getURIHandlerService();
+        return (uriService == null) ? null : uriService.getExistenceCache();
+    }
+
+    private URIHandlerService getURIHandlerService() {
+        return (Services.get() == null) ? null : Services.get().get(URIHandlerService.class);
+    }
+
+    private void incrCounter(String name) {
+        InstrumentationService instrService = (Services.get() == null) ? null
+                : Services.get().get(InstrumentationService.class);
+        if (instrService != null) {
+            instrService.get().incr(URIHandlerService.INSTRUMENTATION_GROUP, name, 1);
+        }
     }
 
     @Override
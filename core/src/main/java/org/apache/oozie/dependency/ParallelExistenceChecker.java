@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.dependency;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.dependency.URIHandler.Context;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.service.URIHandlerService;
+import org.apache.oozie.util.XLog;
+
+/**
+ * Checks the existence of the dependencies of a coordinator action several at a time.
+ * <p/>
+ * The checks run on the pool shared by the server, see {@link URIHandlerService#getExistenceCheckExecutor()}. Callers
+ * check their dependencies by windows of at most {@link #getFanout()} URIs, so an action does not take more than its
+ * share of the pool and few URIs are checked past the one the caller stops at. Only the dependencies of the
+ * {@link FSURIHandler} are checked in parallel, the others are checked one by one in the calling thread.
+ * <p/>
+ * All the checks of a checker share a deadline set when the checker is created, the existence of the URIs not checked
+ * by the deadline is unknown.
+ */
+public class ParallelExistenceChecker {
+    private static final XLog LOG = XLog.getLog(ParallelExistenceChecker.class);
+
+    private final URIHandlerService uriService;
+    private final Configuration conf;
+    private final String user;
+    private final ExecutorService executor;
+    private final int fanout;
+    private final long deadline;
+
+    /**
+     * Create a checker, its deadline starts now.
+     *
+     * @param conf configuration to access the URIs.
+     * @param user user to access the URIs as.
+     */
+    public ParallelExistenceChecker(Configuration conf, String user) {
+        this.uriService = Services.get().get(URIHandlerService.class);
+        this.conf = conf;
+        this.user = user;
+        this.executor = uriService.getExistenceCheckExecutor();
+        this.fanout = (executor == null) ? 1 : uriService.getExistenceCheckFanout();
+        this.deadline = System.currentTimeMillis() + uriService.getExistenceCheckTimeout();
+    }
+
+    /**
+     * Return the maximum number of URIs of the action checked at the same time.
+     *
+     * @return the fan-out, <code>1</code> if the URIs are checked one by one.
+     */
+    public int getFanout() {
+        return fanout;
+    }
+
+    /**
+     * Check the existence of URIs.
+     *
+     * @param uris URIs to check, at most {@link #getFanout()} of them should be given at once.
+     * @param context context to access the URIs, <code>null</code> to access them with the configuration and user
+     * of the checker. A context is shared by the parallel checks, it must be the context of the handler of the URIs.
+     * @return the existence of the URIs in the same order, <code>null</code> for URIs not checked by the deadline.
+     * @throws URIHandlerException thrown if the existence of a URI could not be checked.
+     */
+    public Boolean[] exists(List<URI> uris, final Context context) throws URIHandlerException {
+        Boolean[] results = new Boolean[uris.size()];
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(uris.size());
+        try {
+            for (final URI uri : uris) {
+                final URIHandler handler = uriService.getURIHandler(uri);
+                if (executor != null && uris.size() > 1 && handler instanceof FSURIHandler) {
+                    futures.add(executor.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            return exists(handler, uri, context);
+                        }
+                    }));
+                }
+                else {
+                    futures.add(null);
+                }
+            }
+            for (int i = 0; i < results.length; i++) {
+                Future<Boolean> future = futures.get(i);
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    LOG.warn("Existence check of [{0}] did not complete in time", uris.get(i));
+                    break;
+                }
+                if (future == null) {
+                    results[i] = exists(uriService.getURIHandler(uris.get(i)), uris.get(i), context);
+                }
+                else {
+                    results[i] = future.get(remaining, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        catch (TimeoutException ex) {
+            LOG.warn("Existence checks did not complete in time");
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof URIHandlerException) {
+                throw (URIHandlerException) ex.getCause();
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new URIHandlerException(ErrorCode.E0902, ex.getCause());
+        }
+        finally {
+            for (Future<Boolean> future : futures) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean exists(URIHandler handler, URI uri, Context context) throws URIHandlerException {
+        return (context == null) ? handler.exists(uri, conf, user) : handler.exists(uri, context);
+    }
+}
@@ -44,6 +44,9 @@ public class HCatMessageHandler implements MessageHandler {
 
     /**
      * Process JMS message produced by HCat.
+     * <p/>
+     * It runs on the JMS listener thread, it only parses the message and hands the partitions over to the
+     * {@link PartitionDependencyManagerService}.
      *
      * @param msg : to be processed
      */
@@ -59,9 +62,7 @@ public class HCatMessageHandler implements MessageHandler {
                 LOG.info("Partition available event: db [{0}]  table [{1}] partitions [{2}]", db, table,
                         partMsg.getPartitions());
                 List<Map<String, String>> partitions = partMsg.getPartitions();
-                for (int i = 0; i < partitions.size(); i++) {
-                    pdmService.partitionAvailable(this.server, db, table, partitions.get(i));
-                }
+                pdmService.queuePartitionsAvailable(this.server, db, table, partitions);
             }
             else {
                 LOG.debug("Ignoring message of event type [{0}] ", hcatMsg.getEventType());
@@ -0,0 +1,375 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.dependency.hcat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.oozie.command.coord.CoordActionUpdatePushMissingDependency;
+import org.apache.oozie.service.CallableQueueService;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.XLog;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Staged processing of the partition available notifications received from HCatalog.
+ * <p/>
+ * The JMS listener thread only parses the message and adds its partitions to a bounded queue, blocking when the queue
+ * is full so the broker is slowed down instead of the server running out of memory. A worker thread drains the queue
+ * by batches of up to <code>batchSize</code> notifications, drops the duplicate partitions of each table and marks the
+ * remaining ones available in the dependency cache. The actions waiting on them are added to a set of pending wakeups,
+ * so an action made ready by several partitions of a batch, or of batches processed before its wakeup is dispatched,
+ * has its missing dependencies updated once. A dispatcher thread queues a
+ * {@link CoordActionUpdatePushMissingDependency} for each pending action.
+ */
+public class HCatNotificationPipeline {
+
+    public static final String INSTRUMENTATION_GROUP = "hcat-notifications";
+
+    private static XLog LOG = XLog.getLog(HCatNotificationPipeline.class);
+
+    // interval at which the threads check whether the pipeline is stopped and the dispatcher retries full queues
+    private static final long POLL_INTERVAL = 1000;
+
+    private static class Notification {
+        private final String server;
+        private final String db;
+        private final String table;
+        private final Map<String, String> partition;
+        private final long receivedTime;
+
+        private Notification(String server, String db, String table, Map<String, String> partition) {
+            this.server = server;
+            this.db = db;
+            this.table = table;
+            this.partition = partition;
+            this.receivedTime = System.currentTimeMillis();
+        }
+    }
+
+    private final HCatDependencyCache dependencyCache;
+    private final BlockingQueue<Notification> queue;
+    private final int batchSize;
+    // IDs of the actions to wake up, guarded by itself
+    private final Set<String> pendingWakeups = new LinkedHashSet<String>();
+    private volatile long lag;
+    private volatile boolean running;
+    private Thread worker;
+    private Thread dispatcher;
+
+    /**
+     * Create a pipeline, it does not process the notifications until it is started.
+     *
+     * @param dependencyCache cache to mark the partitions available in.
+     * @param queueSize maximum number of partitions waiting to be processed.
+     * @param batchSize maximum number of partitions processed at once.
+     */
+    public HCatNotificationPipeline(HCatDependencyCache dependencyCache, int queueSize, int batchSize) {
+        this.dependencyCache = dependencyCache;
+        this.queue = new ArrayBlockingQueue<Notification>(queueSize);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Start the worker and the dispatcher threads.
+     */
+    public synchronized void start() {
+        running = true;
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        processQueue(POLL_INTERVAL);
+                    }
+                    catch (InterruptedException ex) {
+                        break;
+                    }
+                    catch (RuntimeException ex) {
+                        LOG.warn("Error processing partition notifications", ex);
+                    }
+                }
+            }
+        }, "hcat-notification-worker");
+        dispatcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        if (!dispatch(POLL_INTERVAL)) {
+                            Thread.sleep(POLL_INTERVAL);
+                        }
+                    }
+                    catch (InterruptedException ex) {
+                        break;
+                    }
+                }
+            }
+        }, "hcat-notification-dispatcher");
+        worker.setDaemon(true);
+        dispatcher.setDaemon(true);
+        worker.start();
+        dispatcher.start();
+    }
+
+    /**
+     * Stop the worker and the dispatcher threads.
+     * <p/>
+     * The partitions still queued were already acknowledged to the broker, so they are processed before the pipeline
+     * stops. The wakeups that cannot be queued any more are logged and counted as dropped, the RecoveryService checks
+     * these actions again.
+     */
+    public synchronized void stop() {
+        running = false;
+        for (Thread thread : new Thread[]{worker, dispatcher}) {
+            if (thread != null) {
+                thread.interrupt();
+                try {
+                    thread.join(POLL_INTERVAL);
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        worker = null;
+        dispatcher = null;
+        drain();
+    }
+
+    private void drain() {
+        int drained = 0;
+        try {
+            for (int processed = processQueue(0); processed > 0; processed = processQueue(0)) {
+                drained += processed;
+            }
+            if (Services.get() != null && Services.get().get(CallableQueueService.class) != null) {
+                dispatch(0);
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException ex) {
+            LOG.warn("Error processing partition notifications", ex);
+        }
+        int droppedNotifications = queue.size();
+        queue.clear();
+        int droppedWakeups;
+        synchronized (pendingWakeups) {
+            droppedWakeups = pendingWakeups.size();
+            pendingWakeups.clear();
+        }
+        incrCounter("dropped.notifications", droppedNotifications);
+        incrCounter("dropped.wakeups", droppedWakeups);
+        if (droppedNotifications > 0 || droppedWakeups > 0) {
+            LOG.warn("Stopped with [{0}] partition notifications and [{1}] action wakeups dropped",
+                    droppedNotifications, droppedWakeups);
+        }
+        else {
+            LOG.debug("Processed [{0}] queued partition notifications before stopping", drained);
+        }
+    }
+
+    /**
+     * Instruments the pipeline.
+     *
+     * @param instr instrumentation to use.
+     */
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "queue.depth", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                return queue.size();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "pending.wakeups", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                synchronized (pendingWakeups) {
+                    return pendingWakeups.size();
+                }
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "queue.lag", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                Notification head = queue.peek();
+                return (head == null) ? 0 : System.currentTimeMillis() - head.receivedTime;
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "processing.lag", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return lag;
+            }
+        });
+    }
+
+    /**
+     * Receive stage, add the partitions of a notification to the queue.
+     * <p/>
+     * It blocks while the queue is full.
+     *
+     * @param server host:port of the server.
+     * @param db name of the database.
+     * @param table name of the table.
+     * @param partitions available partitions.
+     * @return <code>false</code> if the thread was interrupted before all the partitions were queued.
+     */
+    public boolean add(String server, String db, String table, List<Map<String, String>> partitions) {
+        for (Map<String, String> partition : partitions) {
+            try {
+                queue.put(new Notification(server, db, table, partition));
+                incrCounter("received", 1);
+            }
+            catch (InterruptedException ex) {
+                LOG.warn("Interrupted while queueing partition notification db [{0}] table [{1}] partition [{2}]",
+                        db, table, partition);
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Worker stage, process a batch of queued partitions.
+     *
+     * @param timeout milliseconds to wait for a partition if the queue is empty.
+     * @return the number of partitions processed.
+     * @throws InterruptedException thrown if the thread was interrupted while waiting.
+     */
+    @VisibleForTesting
+    int processQueue(long timeout) throws InterruptedException {
+        Notification first = queue.poll(timeout, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return 0;
+        }
+        List<Notification> batch = new ArrayList<Notification>(batchSize);
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        lag = System.currentTimeMillis() - first.receivedTime;
+
+        // partitions of the batch by table, without duplicates
+        Map<String, Map<Map<String, String>, Notification>> tables =
+                new LinkedHashMap<String, Map<Map<String, String>, Notification>>();
+        for (Notification notification : batch) {
+            String key = notification.server + "/" + notification.db + "/" + notification.table;
+            Map<Map<String, String>, Notification> partitions = tables.get(key);
+            if (partitions == null) {
+                partitions = new LinkedHashMap<Map<String, String>, Notification>();
+                tables.put(key, partitions);
+            }
+            if (partitions.put(notification.partition, notification) != null) {
+                incrCounter("duplicates", 1);
+            }
+        }
+
+        List<String> actions = new ArrayList<String>();
+        for (Map<Map<String, String>, Notification> partitions : tables.values()) {
+            for (Notification notification : partitions.values()) {
+                Collection<String> available = dependencyCache.markDependencyAvailable(notification.server,
+                        notification.db, notification.table, notification.partition);
+                if (available != null) {
+                    actions.addAll(available);
+                }
+            }
+        }
+        if (!actions.isEmpty()) {
+            int coalesced = 0;
+            synchronized (pendingWakeups) {
+                for (String actionId : actions) {
+                    if (!pendingWakeups.add(actionId)) {
+                        coalesced++;
+                    }
+                }
+                pendingWakeups.notifyAll();
+            }
+            // wakeups of actions already made ready by another partition of the batch or by a previous batch
+            incrCounter("coalesced", coalesced);
+        }
+        incrCounter("processed", batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Dispatch stage, queue the update of the missing dependencies of the pending actions.
+     *
+     * @param timeout milliseconds to wait for a pending action if there is none.
+     * @return <code>false</code> if some of the updates could not be queued, they stay pending.
+     * @throws InterruptedException thrown if the thread was interrupted while waiting.
+     */
+    @VisibleForTesting
+    boolean dispatch(long timeout) throws InterruptedException {
+        List<String> actions;
+        synchronized (pendingWakeups) {
+            if (pendingWakeups.isEmpty() && timeout > 0) {
+                pendingWakeups.wait(timeout);
+            }
+            actions = new ArrayList<String>(pendingWakeups);
+            pendingWakeups.clear();
+        }
+        CallableQueueService callableQueue = Services.get().get(CallableQueueService.class);
+        List<String> notQueued = new ArrayList<String>();
+        for (String actionId : actions) {
+            if (callableQueue.queue(new CoordActionUpdatePushMissingDependency(actionId), 100)) {
+                incrCounter("wakeups", 1);
+            }
+            else {
+                notQueued.add(actionId);
+            }
+        }
+        if (!notQueued.isEmpty()) {
+            LOG.warn("Unable to queue the update of [{0}] actions, most possibly the command queue is full. Queue"
+                    + " size is [{1}]", notQueued.size(), callableQueue.queueSize());
+            synchronized (pendingWakeups) {
+                pendingWakeups.addAll(notQueued);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @VisibleForTesting
+    Set<String> getPendingWakeups() {
+        synchronized (pendingWakeups) {
+            return new LinkedHashSet<String>(pendingWakeups);
+        }
+    }
+
+    private void incrCounter(String name, int count) {
+        if (count > 0) {
+            InstrumentationService instrService = Services.get().get(InstrumentationService.class);
+            if (instrService != null) {
+                instrService.get().incr(INSTRUMENTATION_GROUP, name, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,449 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.dependency.hcat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.service.HCatAccessorService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.util.HCatURI;
+import org.apache.oozie.util.XLog;
+
+/**
+ * Dependency cache indexing the missing partitions of each table in a trie of partition key/value pairs.
+ * <p/>
+ * The path of a missing partition goes through its key/value pairs in sorted key order, so <code>dt=20120101;
+ * country=us</code> and <code>country=us;dt=20120101</code> end at the same node. A partition notification is matched
+ * by walking down the trie with the values of the notification, only the nodes whose key/value pair is in the
+ * notification are visited, instead of building a value string for every partition key pattern of the table.
+ * <p/>
+ * Partition keys and values are interned, the actions waiting at a node are stored as sorted <code>int</code> arrays of
+ * action numbers, each action ID string is kept once for the whole cache.
+ */
+public class TrieHCatDependencyCache implements HCatDependencyCache {
+
+    private static XLog LOG = XLog.getLog(TrieHCatDependencyCache.class);
+    private static String DELIMITER = ";";
+
+    /**
+     * Node of the trie, a missing partition ends at the node of its last key/value pair.
+     */
+    private static class Node {
+        // partition key -> partition value -> child node, null if there are no children
+        private Map<String, Map<String, Node>> children;
+        // original URI string of the missing partitions ending at this node -> waiting action numbers, null if none
+        private Map<String, IntSet> waiting;
+
+        private boolean isEmpty() {
+            return children == null && waiting == null;
+        }
+    }
+
+    /**
+     * Sorted set of <code>int</code> backed by an array.
+     */
+    static class IntSet {
+        private int[] values = new int[1];
+        private int size;
+
+        boolean add(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return true;
+        }
+
+        boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+    }
+
+    /**
+     * Numbers of the waiting action IDs, an action ID is numbered as long as it waits on a partition.
+     */
+    private static class ActionNumbers {
+        private final Map<String, Integer> numbers = new HashMap<String, Integer>();
+        private final List<String> ids = new ArrayList<String>();
+        private final List<Integer> refs = new ArrayList<Integer>();
+        private final List<Integer> free = new ArrayList<Integer>();
+
+        // returns the number of the action, referenced once more
+        synchronized int acquire(String actionID) {
+            Integer number = numbers.get(actionID);
+            if (number == null) {
+                if (free.isEmpty()) {
+                    number = ids.size();
+                    ids.add(actionID);
+                    refs.add(0);
+                }
+                else {
+                    number = free.remove(free.size() - 1);
+                    ids.set(number, actionID);
+                }
+                numbers.put(actionID, number);
+            }
+            refs.set(number, refs.get(number) + 1);
+            return number;
+        }
+
+        // returns the number of the action, -1 if the action is not waiting
+        synchronized int get(String actionID) {
+            Integer number = numbers.get(actionID);
+            return (number == null) ? -1 : number;
+        }
+
+        synchronized String getID(int number) {
+            return ids.get(number);
+        }
+
+        synchronized void release(int number) {
+            int count = refs.get(number) - 1;
+            refs.set(number, count);
+            if (count == 0) {
+                numbers.remove(ids.get(number));
+                ids.set(number, null);
+                free.add(number);
+            }
+        }
+
+        synchronized void clear() {
+            numbers.clear();
+            ids.clear();
+            refs.clear();
+            free.clear();
+        }
+    }
+
+    /**
+     * Map of server;db;table to the root of the trie of its missing partitions
+     */
+    private ConcurrentMap<String, Node> missingDeps;
+
+    /**
+     * Map of actionIDs and collection of available URIs
+     */
+    private ConcurrentMap<String, Collection<String>> availableDeps;
+
+    private ActionNumbers actionNumbers;
+
+    @Override
+    public void init(Configuration conf) {
+        missingDeps = new ConcurrentHashMap<String, Node>();
+        availableDeps = new ConcurrentHashMap<String, Collection<String>>();
+        actionNumbers = new ActionNumbers();
+    }
+
+    @Override
+    public void addMissingDependency(HCatURI hcatURI, String actionID) {
+        String tableKey = getTableKey(hcatURI.getServer(), hcatURI.getDb(), hcatURI.getTable());
+        Node root = missingDeps.get(tableKey);
+        if (root == null) {
+            root = new Node();
+            Node existing = missingDeps.putIfAbsent(tableKey, root);
+            if (existing != null) {
+                root = existing;
+            }
+        }
+        synchronized (root) {
+            missingDeps.put(tableKey, root); // To handle race condition with removal of the root
+            Node node = root;
+            Map<String, String> partitions = hcatURI.getPartitionMap();
+            for (String key : getSortedKeys(partitions)) {
+                if (node.children == null) {
+                    node.children = new HashMap<String, Map<String, Node>>();
+                }
+                Map<String, Node> values = node.children.get(key);
+                if (values == null) {
+                    values = new HashMap<String, Node>();
+                    node.children.put(key.intern(), values);
+                }
+                String value = partitions.get(key);
+                Node child = values.get(value);
+                if (child == null) {
+                    child = new Node();
+                    values.put(value.intern(), child);
+                }
+                node = child;
+            }
+            if (node.waiting == null) {
+                node.waiting = new HashMap<String, IntSet>();
+            }
+            String uriString = hcatURI.toURIString();
+            IntSet actions = node.waiting.get(uriString);
+            if (actions == null) {
+                actions = new IntSet();
+                node.waiting.put(uriString, actions);
+            }
+            int number = actionNumbers.acquire(actionID);
+            if (!actions.add(number)) {
+                actionNumbers.release(number);
+            }
+        }
+    }
+
+    @Override
+    public boolean removeMissingDependency(HCatURI hcatURI, String actionID) {
+        String tableKey = getTableKey(hcatURI.getServer(), hcatURI.getDb(), hcatURI.getTable());
+        Node root = missingDeps.get(tableKey);
+        if (root == null) {
+            LOG.warn("Remove missing dependency - Missing table entry - uri={0}, actionID={1}",
+                    hcatURI.toURIString(), actionID);
+            return false;
+        }
+        synchronized (root) {
+            List<Node> path = getPath(root, hcatURI.getPartitionMap());
+            Node node = (path == null) ? null : path.get(path.size() - 1);
+            if (node == null || node.waiting == null) {
+                LOG.warn("Remove missing dependency - Missing partition - uri={0}, actionID={1}",
+                        hcatURI.toURIString(), actionID);
+                return false;
+            }
+            String uriString = hcatURI.toURIString();
+            IntSet actions = node.waiting.get(uriString);
+            int number = actionNumbers.get(actionID);
+            boolean removed = actions != null && number != -1 && actions.remove(number);
+            if (removed) {
+                actionNumbers.release(number);
+            }
+            else {
+                LOG.warn("Remove missing dependency - Missing action ID - uri={0}, actionID={1}",
+                        hcatURI.toURIString(), actionID);
+            }
+            if (actions != null && actions.size() == 0) {
+                node.waiting.remove(uriString);
+                if (node.waiting.isEmpty()) {
+                    node.waiting = null;
+                }
+                prune(path, getSortedKeys(hcatURI.getPartitionMap()), hcatURI.getPartitionMap());
+                if (root.isEmpty()) {
+                    missingDeps.remove(tableKey);
+                    // Close JMS session. Stop listening on topic
+                    HCatAccessorService hcatService = Services.get().get(HCatAccessorService.class);
+                    hcatService.unregisterFromNotification(hcatURI);
+                }
+            }
+            return removed;
+        }
+    }
+
+    @Override
+    public Collection<String> getWaitingActions(HCatURI hcatURI) {
+        String tableKey = getTableKey(hcatURI.getServer(), hcatURI.getDb(), hcatURI.getTable());
+        Node root = missingDeps.get(tableKey);
+        if (root == null) {
+            return null;
+        }
+        synchronized (root) {
+            List<Node> path = getPath(root, hcatURI.getPartitionMap());
+            Node node = (path == null) ? null : path.get(path.size() - 1);
+            if (node == null || node.waiting == null) {
+                return null;
+            }
+            Collection<String> actionIDs = new ArrayList<String>();
+            IntSet actions = node.waiting.get(hcatURI.toURIString());
+            if (actions != null) {
+                for (int i = 0; i < actions.size(); i++) {
+                    actionIDs.add(actionNumbers.getID(actions.get(i)));
+                }
+            }
+            return actionIDs;
+        }
+    }
+
+    @Override
+    public Collection<String> markDependencyAvailable(String server, String db, String table,
+            Map<String, String> partitions) {
+        String tableKey = getTableKey(server, db, table);
+        Node root = missingDeps.get(tableKey);
+        if (root == null) {
+            LOG.warn("Got partition available notification for " + tableKey
+                    + ". Unexpected and should not be listening to topic. Unregistering topic");
+            HCatAccessorService hcatService = Services.get().get(HCatAccessorService.class);
+            hcatService.unregisterFromNotification(server, db, table);
+            return null;
+        }
+        Collection<String> actionsWithAvailDep = new HashSet<String>();
+        synchronized (root) {
+            markAvailable(root, partitions, actionsWithAvailDep);
+            if (root.isEmpty()) {
+                missingDeps.remove(tableKey);
+                // Close JMS session. Stop listening on topic
+                HCatAccessorService hcatService = Services.get().get(HCatAccessorService.class);
+                hcatService.unregisterFromNotification(server, db, table);
+            }
+        }
+        return actionsWithAvailDep;
+    }
+
+    @Override
+    public Collection<String> getAvailableDependencyURIs(String actionID) {
+        Collection<String> available = availableDeps.get(actionID);
+        if (available !=  null) {
+            // Return a copy
+            available = new ArrayList<String>(available);
+        }
+        return available;
+    }
+
+    @Override
+    public boolean removeAvailableDependencyURIs(String actionID, Collection<String> dependencyURIs) {
+        if (!availableDeps.containsKey(actionID)) {
+            return false;
+        }
+        else {
+            Collection<String> availList = availableDeps.get(actionID);
+            if (!availList.removeAll(dependencyURIs)) {
+                return false;
+            }
+            synchronized (availList) {
+                if (availList.isEmpty()) {
+                    availableDeps.remove(actionID);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        missingDeps.clear();
+        availableDeps.clear();
+        actionNumbers.clear();
+    }
+
+    // marks the partitions of the subtree matching the notification available, returns true if the node is now empty
+    private boolean markAvailable(Node node, Map<String, String> partitions, Collection<String> actionsWithAvailDep) {
+        if (node.waiting != null) {
+            for (Entry<String, IntSet> entry : node.waiting.entrySet()) {
+                IntSet actions = entry.getValue();
+                for (int i = 0; i < actions.size(); i++) {
+                    String actionID = actionNumbers.getID(actions.get(i));
+                    actionNumbers.release(actions.get(i));
+                    actionsWithAvailDep.add(actionID);
+                    Collection<String> depURIs = availableDeps.get(actionID);
+                    if (depURIs == null) {
+                        depURIs = new ArrayList<String>();
+                        Collection<String> existing = availableDeps.putIfAbsent(actionID, depURIs);
+                        if (existing != null) {
+                            depURIs = existing;
+                        }
+                    }
+                    synchronized (depURIs) {
+                        depURIs.add(entry.getKey());
+                        availableDeps.put(actionID, depURIs);
+                    }
+                }
+            }
+            node.waiting = null;
+        }
+        if (node.children != null) {
+            Iterator<Entry<String, Map<String, Node>>> it = node.children.entrySet().iterator();
+            while (it.hasNext()) {
+                Entry<String, Map<String, Node>> entry = it.next();
+                String value = partitions.get(entry.getKey());
+                Node child = (value == null) ? null : entry.getValue().get(value);
+                if (child != null && markAvailable(child, partitions, actionsWithAvailDep)) {
+                    entry.getValue().remove(value);
+                    if (entry.getValue().isEmpty()) {
+                        it.remove();
+                    }
+                }
+            }
+            if (node.children.isEmpty()) {
+                node.children = null;
+            }
+        }
+        return node.isEmpty();
+    }
+
+    // nodes from the root to the node of the partition, null if the partition is not in the trie
+    private List<Node> getPath(Node root, Map<String, String> partitions) {
+        List<Node> path = new ArrayList<Node>();
+        path.add(root);
+        Node node = root;
+        for (String key : getSortedKeys(partitions)) {
+            Map<String, Node> values = (node.children == null) ? null : node.children.get(key);
+            node = (values == null) ? null : values.get(partitions.get(key));
+            if (node == null) {
+                return null;
+            }
+            path.add(node);
+        }
+        return path;
+    }
+
+    // removes the empty nodes of a path, from the bottom up
+    private void prune(List<Node> path, List<String> keys, Map<String, String> partitions) {
+        for (int i = path.size() - 1; i > 0 && path.get(i).isEmpty(); i--) {
+            Node parent = path.get(i - 1);
+            String key = keys.get(i - 1);
+            Map<String, Node> values = parent.children.get(key);
+            values.remove(partitions.get(key));
+            if (values.isEmpty()) {
+                parent.children.remove(key);
+                if (parent.children.isEmpty()) {
+                    parent.children = null;
+                }
+            }
+        }
+    }
+
+    private static List<String> getSortedKeys(Map<String, String> partitions) {
+        List<String> keys = new ArrayList<String>(partitions.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+
+    private static String getTableKey(String server, String db, String table) {
+        return server + DELIMITER + db + DELIMITER + table;
+    }
+}
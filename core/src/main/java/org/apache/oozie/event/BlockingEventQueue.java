@@ -0,0 +1,36 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.event;
+
+import java.util.List;
+
+/**
+ * Event queue whose consumers wait for events instead of polling it at intervals. The EventHandlerService dispatches
+ * the events of such a queue as soon as they are added, through a lane per listener.
+ */
+public interface BlockingEventQueue extends EventQueue {
+
+    /**
+     * Fetch events from queue in batch, waiting for one if the queue is empty
+     * @param timeout milliseconds to wait for an event
+     * @return queued events, with the time they were queued at, empty if none was added before the timeout
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public List<EventQueueElement> takeBatch(long timeout) throws InterruptedException;
+
+}
@@ -32,9 +32,23 @@ public interface EventQueue {
 
         private static final long serialVersionUID = 1L;
         Event event;
+        long queuedTime;
 
         public EventQueueElement(Event e) {
             event = e;
+            queuedTime = System.currentTimeMillis();
+        }
+
+        public Event getEvent() {
+            return event;
+        }
+
+        /**
+         * Get the time the event was queued at
+         * @return time in milliseconds
+         */
+        public long getQueuedTime() {
+            return queuedTime;
         }
     }
 
@@ -0,0 +1,363 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.event;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.client.event.Event;
+import org.apache.oozie.client.event.Event.MessageType;
+import org.apache.oozie.service.EventHandlerService;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.util.XLog;
+
+/**
+ * An implementation of the EventQueue backed by a ring buffer of fixed capacity, preallocated at init. Consumers
+ * wait on the queue for events to be added instead of polling it.
+ * <p/>
+ * When the buffer is full, the overflow policy applies:
+ * <ul>
+ * <li>block: the producer waits for room up to the block timeout, the event is dropped if there is still none.</li>
+ * <li>drop-oldest: the oldest event of the buffer is dropped to make room.</li>
+ * <li>spill: the event is written to a spill file, and so are the events added after it until the spilled events
+ * are read back, which happens when the buffer is empty. Events that are not serializable (SLA events) are not
+ * spilled, they are handled as with the block policy.</li>
+ * </ul>
+ */
+public class RingBufferEventQueue implements BlockingEventQueue {
+
+    public static final String OVERFLOW_BLOCK = "block";
+    public static final String OVERFLOW_DROP_OLDEST = "drop-oldest";
+    public static final String OVERFLOW_SPILL = "spill";
+
+    private static XLog LOG = XLog.getLog(RingBufferEventQueue.class);
+
+    private EventQueueElement[] buffer;
+    private int head;
+    private int count;
+    private int batchSize;
+    private String overflow;
+    private long blockTimeout;
+    private File spillDir;
+
+    // spill file of the events that did not fit, guarded by lock
+    private File spillFile;
+    private ObjectOutputStream spillOut;
+    private ObjectInputStream spillIn;
+    private int spilled;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    @Override
+    public void init(Configuration conf) {
+        buffer = new EventQueueElement[Math.max(1, conf.getInt(EventHandlerService.CONF_QUEUE_SIZE, 10000))];
+        head = 0;
+        count = 0;
+        batchSize = conf.getInt(EventHandlerService.CONF_BATCH_SIZE, 10);
+        overflow = conf.get(EventHandlerService.CONF_QUEUE_OVERFLOW, OVERFLOW_BLOCK).trim();
+        if (!overflow.equals(OVERFLOW_BLOCK) && !overflow.equals(OVERFLOW_DROP_OLDEST)
+                && !overflow.equals(OVERFLOW_SPILL)) {
+            LOG.warn("Unknown event queue overflow policy [{0}], using [{1}]", overflow, OVERFLOW_BLOCK);
+            overflow = OVERFLOW_BLOCK;
+        }
+        blockTimeout = conf.getLong(EventHandlerService.CONF_QUEUE_BLOCK_TIMEOUT, 1000);
+        spillDir = new File(conf.get(EventHandlerService.CONF_QUEUE_SPILL_DIR, System.getProperty("java.io.tmpdir")));
+        LOG.info("Ring buffer Event Queue initialized with Capacity = [{0}], Batch drain size = [{1}],"
+                + " Overflow = [{2}]", buffer.length, batchSize, overflow);
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void add(Event e) {
+        EventQueueElement eqe = new EventQueueElement(e);
+        try {
+            lock.lockInterruptibly();
+            try {
+                if (overflow.equals(OVERFLOW_SPILL) && e instanceof Serializable
+                        && (spilled > 0 || count == buffer.length)) {
+                    spill(eqe);
+                    return;
+                }
+                if (count == buffer.length) {
+                    if (overflow.equals(OVERFLOW_DROP_OLDEST)) {
+                        EventQueueElement oldest = remove();
+                        incrCounter("queue.dropped", 1);
+                        LOG.debug("Queue reached capacity [{0}]. Oldest element [{1}] dropped", buffer.length,
+                                oldest.event);
+                    }
+                    else {
+                        long nanos = TimeUnit.MILLISECONDS.toNanos(blockTimeout);
+                        while (count == buffer.length && nanos > 0) {
+                            nanos = notFull.awaitNanos(nanos);
+                        }
+                        if (count == buffer.length) {
+                            incrCounter("queue.dropped", 1);
+                            LOG.warn("Queue reached capacity [{0}] for [{1}] ms. Element [{2}] not added",
+                                    buffer.length, blockTimeout, e);
+                            return;
+                        }
+                    }
+                }
+                buffer[(head + count) % buffer.length] = eqe;
+                count++;
+                notEmpty.signal();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+        catch (InterruptedException ex) {
+            incrCounter("queue.dropped", 1);
+            LOG.warn("Interrupted while adding event. Element [{0}] not added", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public List<EventQueueElement> takeBatch(long timeout) throws InterruptedException {
+        List<EventQueueElement> batch = new ArrayList<EventQueueElement>(batchSize);
+        lock.lockInterruptibly();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (isEmpty() && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            drain(batch);
+        }
+        finally {
+            lock.unlock();
+        }
+        return batch;
+    }
+
+    @Override
+    public List<Event> pollBatch() {
+        List<EventQueueElement> batch = new ArrayList<EventQueueElement>(batchSize);
+        lock.lock();
+        try {
+            drain(batch);
+        }
+        finally {
+            lock.unlock();
+        }
+        List<Event> eventBatch = new ArrayList<Event>(batch.size());
+        for (EventQueueElement eqe : batch) {
+            eventBatch.add(eqe.event);
+        }
+        return eventBatch;
+    }
+
+    @Override
+    public Event poll() {
+        lock.lock();
+        try {
+            refill();
+            if (count == 0) {
+                return null;
+            }
+            EventQueueElement eqe = remove();
+            notFull.signal();
+            return eqe.event;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count + spilled;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Event peek() {
+        lock.lock();
+        try {
+            refill();
+            return (count == 0) ? null : buffer[head].event;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            while (count > 0) {
+                remove();
+            }
+            closeSpill();
+            notFull.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of events in the spill file
+     * @return spilled events
+     */
+    public int getSpilledSize() {
+        lock.lock();
+        try {
+            return spilled;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain(List<EventQueueElement> batch) {
+        refill();
+        while (count > 0 && batch.size() < batchSize) {
+            batch.add(remove());
+            if (count == 0) {
+                refill();
+            }
+        }
+        if (!batch.isEmpty()) {
+            notFull.signalAll();
+        }
+    }
+
+    private EventQueueElement remove() {
+        EventQueueElement eqe = buffer[head];
+        buffer[head] = null;
+        head = (head + 1) % buffer.length;
+        count--;
+        return eqe;
+    }
+
+    private void spill(EventQueueElement eqe) {
+        try {
+            if (spillOut == null) {
+                spillDir.mkdirs();
+                spillFile = File.createTempFile("oozie-events-", ".spill", spillDir);
+                spillFile.deleteOnExit();
+                spillOut = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+            }
+            // the message type is kept by the base event class, which is not serializable
+            spillOut.writeObject(eqe.event.getMsgType());
+            spillOut.writeObject(eqe);
+            // do not keep references to the written events
+            spillOut.reset();
+            spillOut.flush();
+            spilled++;
+            notEmpty.signal();
+            incrCounter("queue.spilled", 1);
+        }
+        catch (IOException ex) {
+            incrCounter("queue.dropped", 1);
+            LOG.warn("Could not spill event to [{0}]. Element [{1}] not added", spillFile, eqe.event, ex);
+        }
+    }
+
+    // read spilled events back once the buffer is empty, so the events are consumed in the order they were added
+    private void refill() {
+        if (count > 0 || spilled == 0) {
+            return;
+        }
+        try {
+            if (spillIn == null) {
+                spillIn = new ObjectInputStream(new BufferedInputStream(new FileInputStream(spillFile)));
+            }
+            while (spilled > 0 && count < buffer.length) {
+                MessageType msgType = (MessageType) spillIn.readObject();
+                EventQueueElement eqe = (EventQueueElement) spillIn.readObject();
+                eqe.event.setMsgType(msgType);
+                buffer[(head + count) % buffer.length] = eqe;
+                count++;
+                spilled--;
+            }
+        }
+        catch (Exception ex) {
+            incrCounter("queue.dropped", spilled);
+            LOG.error("Could not read spilled events from [{0}], [{1}] events dropped", spillFile, spilled, ex);
+            spilled = 0;
+        }
+        if (spilled == 0) {
+            closeSpill();
+        }
+    }
+
+    private void closeSpill() {
+        close(spillOut);
+        close(spillIn);
+        if (spillFile != null) {
+            spillFile.delete();
+        }
+        spillOut = null;
+        spillIn = null;
+        spillFile = null;
+        spilled = 0;
+    }
+
+    private static void close(Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            }
+            catch (IOException ex) {
+                LOG.debug("Could not close spill file stream", ex);
+            }
+        }
+    }
+
+    private static void incrCounter(String name, int count) {
+        Services services = Services.get();
+        InstrumentationService instrService = (services == null) ? null : services.get(InstrumentationService.class);
+        if (instrService != null && count > 0) {
+            instrService.get().incr(EventHandlerService.INSTRUMENTATION_GROUP, name, count);
+        }
+    }
+}
@@ -19,7 +19,9 @@ package org.apache.oozie.executor.jpa;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 
@@ -39,6 +41,7 @@ import org.apache.oozie.executor.jpa.SLARegistrationQueryExecutor.SLARegQuery;
 import org.apache.oozie.executor.jpa.SLASummaryQueryExecutor.SLASummaryQuery;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor.WorkflowActionQuery;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
+import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.JPAService.QueryEntry;
 import org.apache.oozie.service.Services;
@@ -51,11 +54,17 @@ import com.google.common.annotations.VisibleForTesting;
  * Query Executor that provides API to run multiple update/insert queries in one
  * transaction. This guarantees entire change to be rolled back when one of
  * queries fails.
+ * <p/>
+ * If group commit is enabled ({@link JPAService#CONF_GROUP_COMMIT_ENABLED}), batches made only of updates with
+ * queries listed in {@link JPAService#CONF_GROUP_COMMIT_QUERIES} are committed together with the batches of other
+ * concurrent callers, see {@link GroupCommitter}.
  */
 public class BatchQueryExecutor {
 
     private static BatchQueryExecutor instance = new BatchQueryExecutor();
     private static JPAService jpaService;
+    private GroupCommitter groupCommitter;
+    private Set<String> groupCommitQueries;
 
     public static class UpdateEntry<E extends Enum<E>> {
         E namedQuery;
@@ -79,9 +88,33 @@ public class BatchQueryExecutor {
         Services services = Services.get();
         if (services != null) {
             jpaService = services.get(JPAService.class);
+            if (services.getConf().getBoolean(JPAService.CONF_GROUP_COMMIT_ENABLED, false)) {
+                initGroupCommit(services);
+            }
         }
     }
 
+    private void initGroupCommit(Services services) {
+        long window = services.getConf().getLong(JPAService.CONF_GROUP_COMMIT_WINDOW, 5);
+        int maxBatch = services.getConf().getInt(JPAService.CONF_GROUP_COMMIT_MAX_BATCH, 100);
+        groupCommitQueries = new HashSet<String>();
+        String[] queries = services.getConf().getStrings(JPAService.CONF_GROUP_COMMIT_QUERIES);
+        if (queries != null) {
+            for (String query : queries) {
+                if (query.trim().length() > 0) {
+                    groupCommitQueries.add(query.trim());
+                }
+            }
+        }
+        InstrumentationService instrumentationService = services.get(InstrumentationService.class);
+        groupCommitter = new GroupCommitter(new GroupCommitter.Committer() {
+            @Override
+            public void commit(List<UpdateEntry> updates) throws JPAExecutorException {
+                executeUpdates(updates);
+            }
+        }, window, maxBatch, (instrumentationService != null) ? instrumentationService.get() : null);
+    }
+
     public static BatchQueryExecutor getInstance() {
         if (instance == null) {
             instance = new BatchQueryExecutor();
@@ -92,52 +125,113 @@ public class BatchQueryExecutor {
     @SuppressWarnings("rawtypes")
     public void executeBatchInsertUpdateDelete(Collection<JsonBean> insertList, Collection<UpdateEntry> updateList,
             Collection<JsonBean> deleteList) throws JPAExecutorException {
-        List<QueryEntry> queryList = new ArrayList<QueryEntry>();
-        EntityManager em = jpaService.getEntityManager();
+        try {
+            if (isGroupCommit(insertList, updateList, deleteList)) {
+                groupCommitter.commit(updateList);
+                return;
+            }
+            EntityManager em = jpaService.getEntityManager();
+            List<QueryEntry> queryList = (updateList != null) ? getQueryList(updateList, em)
+                    : new ArrayList<QueryEntry>();
+            jpaService.executeBatchInsertUpdateDelete(insertList, queryList, deleteList, em);
+        }
+        finally {
+            invalidateCaches(updateList, deleteList);
+        }
+    }
 
+    /**
+     * Invalidate the cached query results of the updated and deleted jobs, see {@link EntityCache}.
+     */
+    @SuppressWarnings("rawtypes")
+    private void invalidateCaches(Collection<UpdateEntry> updateList, Collection<JsonBean> deleteList) {
         if (updateList != null) {
             for (UpdateEntry entry : updateList) {
-                Query query = null;
-                JsonBean bean = entry.getBean();
-                if (bean instanceof WorkflowJobBean) {
-                    query = WorkflowJobQueryExecutor.getInstance().getUpdateQuery(
-                            (WorkflowJobQuery) entry.getQueryName(), (WorkflowJobBean) entry.getBean(), em);
-                }
-                else if (bean instanceof WorkflowActionBean) {
-                    query = WorkflowActionQueryExecutor.getInstance().getUpdateQuery(
-                            (WorkflowActionQuery) entry.getQueryName(), (WorkflowActionBean) entry.getBean(), em);
-                }
-                else if (bean instanceof CoordinatorJobBean) {
-                    query = CoordJobQueryExecutor.getInstance().getUpdateQuery((CoordJobQuery) entry.getQueryName(),
-                            (CoordinatorJobBean) entry.getBean(), em);
-                }
-                else if (bean instanceof CoordinatorActionBean) {
-                    query = CoordActionQueryExecutor.getInstance().getUpdateQuery(
-                            (CoordActionQuery) entry.getQueryName(), (CoordinatorActionBean) entry.getBean(), em);
-                }
-                else if (bean instanceof BundleJobBean) {
-                    query = BundleJobQueryExecutor.getInstance().getUpdateQuery((BundleJobQuery) entry.getQueryName(),
-                            (BundleJobBean) entry.getBean(), em);
-                }
-                else if (bean instanceof BundleActionBean) {
-                    query = BundleActionQueryExecutor.getInstance().getUpdateQuery(
-                            (BundleActionQuery) entry.getQueryName(), (BundleActionBean) entry.getBean(), em);
-                }
-                else if (bean instanceof SLARegistrationBean) {
-                    query = SLARegistrationQueryExecutor.getInstance().getUpdateQuery(
-                            (SLARegQuery) entry.getQueryName(), (SLARegistrationBean) entry.getBean(), em);
-                }
-                else if (bean instanceof SLASummaryBean) {
-                    query = SLASummaryQueryExecutor.getInstance().getUpdateQuery(
-                            (SLASummaryQuery) entry.getQueryName(), (SLASummaryBean) entry.getBean(), em);
-                }
-                else {
-                    throw new JPAExecutorException(ErrorCode.E0603, "BatchQueryExecutor faield to construct a query");
-                }
-                queryList.add(new QueryEntry(entry.getQueryName(), query));
+                invalidateCache(entry.getBean());
+            }
+        }
+        if (deleteList != null) {
+            for (JsonBean bean : deleteList) {
+                invalidateCache(bean);
+            }
+        }
+    }
+
+    private void invalidateCache(JsonBean bean) {
+        if (bean instanceof WorkflowJobBean) {
+            WorkflowJobQueryExecutor.getInstance().invalidate(((WorkflowJobBean) bean).getId());
+        }
+        else if (bean instanceof CoordinatorJobBean) {
+            CoordJobQueryExecutor.getInstance().invalidate(((CoordinatorJobBean) bean).getId());
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void executeUpdates(Collection<UpdateEntry> updateList) throws JPAExecutorException {
+        EntityManager em = jpaService.getEntityManager();
+        jpaService.executeBatchInsertUpdateDelete(null, getQueryList(updateList, em), null, em);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private boolean isGroupCommit(Collection<JsonBean> insertList, Collection<UpdateEntry> updateList,
+            Collection<JsonBean> deleteList) {
+        if (groupCommitter == null || updateList == null || updateList.isEmpty()
+                || (insertList != null && !insertList.isEmpty()) || (deleteList != null && !deleteList.isEmpty())) {
+            return false;
+        }
+        for (UpdateEntry entry : updateList) {
+            if (!groupCommitQueries.contains(entry.getQueryName().name())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private List<QueryEntry> getQueryList(Collection<UpdateEntry> updateList, EntityManager em)
+            throws JPAExecutorException {
+        List<QueryEntry> queryList = new ArrayList<QueryEntry>();
+        for (UpdateEntry entry : updateList) {
+            Query query = null;
+            JsonBean bean = entry.getBean();
+            if (bean instanceof WorkflowJobBean) {
+                query = WorkflowJobQueryExecutor.getInstance().getUpdateQuery(
+                        (WorkflowJobQuery) entry.getQueryName(), (WorkflowJobBean) entry.getBean(), em);
+            }
+            else if (bean instanceof WorkflowActionBean) {
+                query = WorkflowActionQueryExecutor.getInstance().getUpdateQuery(
+                        (WorkflowActionQuery) entry.getQueryName(), (WorkflowActionBean) entry.getBean(), em);
+            }
+            else if (bean instanceof CoordinatorJobBean) {
+                query = CoordJobQueryExecutor.getInstance().getUpdateQuery((CoordJobQuery) entry.getQueryName(),
+                        (CoordinatorJobBean) entry.getBean(), em);
+            }
+            else if (bean instanceof CoordinatorActionBean) {
+                query = CoordActionQueryExecutor.getInstance().getUpdateQuery(
+                        (CoordActionQuery) entry.getQueryName(), (CoordinatorActionBean) entry.getBean(), em);
+            }
+            else if (bean instanceof BundleJobBean) {
+                query = BundleJobQueryExecutor.getInstance().getUpdateQuery((BundleJobQuery) entry.getQueryName(),
+                        (BundleJobBean) entry.getBean(), em);
+            }
+            else if (bean instanceof BundleActionBean) {
+                query = BundleActionQueryExecutor.getInstance().getUpdateQuery(
+                        (BundleActionQuery) entry.getQueryName(), (BundleActionBean) entry.getBean(), em);
+            }
+            else if (bean instanceof SLARegistrationBean) {
+                query = SLARegistrationQueryExecutor.getInstance().getUpdateQuery(
+                        (SLARegQuery) entry.getQueryName(), (SLARegistrationBean) entry.getBean(), em);
+            }
+            else if (bean instanceof SLASummaryBean) {
+                query = SLASummaryQueryExecutor.getInstance().getUpdateQuery(
+                        (SLASummaryQuery) entry.getQueryName(), (SLASummaryBean) entry.getBean(), em);
+            }
+            else {
+                throw new JPAExecutorException(ErrorCode.E0603, "BatchQueryExecutor faield to construct a query");
             }
+            queryList.add(new QueryEntry(entry.getQueryName(), query));
         }
-        jpaService.executeBatchInsertUpdateDelete(insertList, queryList, deleteList, em);
+        return queryList;
     }
 
     @VisibleForTesting
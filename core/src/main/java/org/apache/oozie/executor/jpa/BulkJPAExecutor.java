@@ -52,12 +52,24 @@ public class BulkJPAExecutor implements JPAExecutor<BulkResponseInfo> {
     // defaults
     private int start = 1;
     private int len = 50;
+    private boolean count = true;
 
     public BulkJPAExecutor(Map<String, List<String>> bulkFilter, int start, int len) {
+        this(bulkFilter, start, len, true);
+    }
+
+    /**
+     * @param bulkFilter the bulk filter.
+     * @param start offset of the first record, base 1.
+     * @param len number of records to return.
+     * @param count if the total number of records is computed, the total is -1 otherwise.
+     */
+    public BulkJPAExecutor(Map<String, List<String>> bulkFilter, int start, int len, boolean count) {
         ParamChecker.notNull(bulkFilter, "bulkFilter");
         this.bulkFilter = bulkFilter;
         this.start = start;
         this.len = len;
+        this.count = count;
     }
 
     /*
@@ -88,7 +100,7 @@ public class BulkJPAExecutor implements JPAExecutor<BulkResponseInfo> {
             String conditions = actionQuery(em, bundleBean, actionTimes, responseList);
 
             // Query to get the count of records
-            long total = countQuery(conditions, em, bundleBean, actionTimes);
+            long total = (count) ? countQuery(conditions, em, bundleBean, actionTimes) : -1;
 
             BulkResponseInfo bulk = new BulkResponseInfo(responseList, start, len, total);
             return bulk;
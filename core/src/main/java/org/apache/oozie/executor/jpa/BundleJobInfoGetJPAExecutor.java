@@ -47,6 +47,8 @@ public class BundleJobInfoGetJPAExecutor implements JPAExecutor<BundleJobInfo> {
     private Map<String, List<String>> filter;
     private int start = 1;
     private int len = 50;
+    private JobsCursor cursor;
+    private boolean count = true;
 
     /**
      * The constructor for BundleJobInfoGetJPAExecutor
@@ -56,10 +58,29 @@ public class BundleJobInfoGetJPAExecutor implements JPAExecutor<BundleJobInfo> {
      * @param len total length to get
      */
     public BundleJobInfoGetJPAExecutor(Map<String, List<String>> filter, int start, int len) {
+        this(filter, start, len, null, true);
+    }
+
+    /**
+     * The constructor for BundleJobInfoGetJPAExecutor listing the page after a cursor.
+     * <p/>
+     * When a cursor is given the offset is ignored, the bundle jobs created before the cursor are returned and
+     * the cursor of the next page is set in the returned info.
+     *
+     * @param filter the filter string
+     * @param start start location for paging, used when listing without cursor
+     * @param len total length to get
+     * @param cursor cursor of the page, <code>null</code> to use the offset
+     * @param count if the total number of bundle jobs is computed, if <code>false</code> the total is -1
+     */
+    public BundleJobInfoGetJPAExecutor(Map<String, List<String>> filter, int start, int len, JobsCursor cursor,
+            boolean count) {
         ParamChecker.notNull(filter, "filter");
         this.filter = filter;
         this.start = start;
         this.len = len;
+        this.cursor = cursor;
+        this.count = count;
     }
 
     /* (non-Javadoc)
@@ -84,29 +105,45 @@ public class BundleJobInfoGetJPAExecutor implements JPAExecutor<BundleJobInfo> {
         StoreStatusFilter.filter(filter, orArray, colArray, valArray, sb, StoreStatusFilter.bundleSeletStr,
                                  StoreStatusFilter.bundleCountStr);
 
-        int realLen = 0;
+        int realLen = -1;
 
         Query q = null;
         Query qTotal = null;
-        if (orArray.size() == 0) {
+        if (orArray.size() == 0 && cursor == null) {
             q = em.createNamedQuery("GET_BUNDLE_JOBS_COLUMNS");
             q.setFirstResult(start - 1);
             q.setMaxResults(len);
-            qTotal = em.createNamedQuery("GET_BUNDLE_JOBS_COUNT");
+            if (count) {
+                qTotal = em.createNamedQuery("GET_BUNDLE_JOBS_COUNT");
+            }
         }
         else {
+            if (orArray.size() == 0) {
+                sb.append(StoreStatusFilter.bundleSeletStr);
+            }
             StringBuilder sbTotal = new StringBuilder(sb);
-            sb.append(" order by w.createdTimestamp desc ");
-            q = em.createQuery(sb.toString());
-            q.setFirstResult(start - 1);
+            if (cursor != null) {
+                cursor.appendTo(sb, orArray.size() > 0);
+                q = em.createQuery(sb.toString());
+                cursor.setParameters(q);
+            }
+            else {
+                sb.append(" order by w.createdTimestamp desc ");
+                q = em.createQuery(sb.toString());
+                q.setFirstResult(start - 1);
+            }
             q.setMaxResults(len);
-            qTotal = em.createQuery(sbTotal.toString().replace(StoreStatusFilter.bundleSeletStr,
-                                                                          StoreStatusFilter.bundleCountStr));
+            if (count) {
+                qTotal = em.createQuery(sbTotal.toString().replace(StoreStatusFilter.bundleSeletStr,
+                                                                              StoreStatusFilter.bundleCountStr));
+            }
         }
 
         for (int i = 0; i < orArray.size(); i++) {
             q.setParameter(colArray.get(i), valArray.get(i));
-            qTotal.setParameter(colArray.get(i), valArray.get(i));
+            if (qTotal != null) {
+                qTotal.setParameter(colArray.get(i), valArray.get(i));
+            }
         }
 
         OpenJPAQuery kq = OpenJPAPersistence.cast(q);
@@ -124,9 +161,17 @@ public class BundleJobInfoGetJPAExecutor implements JPAExecutor<BundleJobInfo> {
             bundleBeansList.add(bean);
         }
 
-        realLen = ((Long) qTotal.getSingleResult()).intValue();
+        if (qTotal != null) {
+            realLen = ((Long) qTotal.getSingleResult()).intValue();
+        }
 
-        return new BundleJobInfo(bundleBeansList, start, len, realLen);
+        BundleJobInfo info = new BundleJobInfo(bundleBeansList, start, len, realLen);
+        if (cursor != null && !bundleBeansList.isEmpty()) {
+            BundleJobBean last = bundleBeansList.get(bundleBeansList.size() - 1);
+            JobsCursor next = JobsCursor.next(last.getCreatedTime(), last.getId(), bundleBeansList.size(), len);
+            info.setNextCursor((next != null) ? next.toToken() : null);
+        }
+        return info;
     }
 
     private BundleJobBean getBeanForBundleJobFromArray(Object[] arr) {
@@ -39,9 +39,14 @@ public class CoordJobDeleteJPAExecutor implements JPAExecutor<Void> {
      */
     @Override
     public Void execute(EntityManager em) throws JPAExecutorException {
-        CoordinatorJobBean job = em.find(CoordinatorJobBean.class, this.coordJobId);
-        if (job != null) {
-            em.remove(job);
+        try {
+            CoordinatorJobBean job = em.find(CoordinatorJobBean.class, this.coordJobId);
+            if (job != null) {
+                em.remove(job);
+            }
+        }
+        finally {
+            CoordJobQueryExecutor.getInstance().invalidate(this.coordJobId);
         }
         return null;
     }
@@ -20,6 +20,7 @@ package org.apache.oozie.executor.jpa;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -64,13 +65,24 @@ public class CoordJobQueryExecutor extends QueryExecutor<CoordinatorJobBean, Coo
         GET_COORD_JOBS_CHANGED
     };
 
+    private static final EnumSet<CoordJobQuery> CACHED_QUERIES = EnumSet.of(
+            CoordJobQuery.GET_COORD_JOB_USER_APPNAME,
+            CoordJobQuery.GET_COORD_JOB_INPUT_CHECK,
+            CoordJobQuery.GET_COORD_JOB_ACTION_READY,
+            CoordJobQuery.GET_COORD_JOB_ACTION_KILL,
+            CoordJobQuery.GET_COORD_JOB_MATERIALIZE,
+            CoordJobQuery.GET_COORD_JOB_SUSPEND_KILL,
+            CoordJobQuery.GET_COORD_JOB_STATUS_PARENTID);
+
     private static CoordJobQueryExecutor instance = new CoordJobQueryExecutor();
     private static JPAService jpaService;
+    private EntityCache cache;
 
     private CoordJobQueryExecutor() {
         Services services = Services.get();
         if (services != null) {
             jpaService = services.get(JPAService.class);
+            cache = createEntityCache(services, "coordjob");
         }
     }
 
@@ -217,8 +229,19 @@ public class CoordJobQueryExecutor extends QueryExecutor<CoordinatorJobBean, Coo
     public int executeUpdate(CoordJobQuery namedQuery, CoordinatorJobBean jobBean) throws JPAExecutorException {
         EntityManager em = jpaService.getEntityManager();
         Query query = getUpdateQuery(namedQuery, jobBean, em);
-        int ret = jpaService.executeUpdate(namedQuery.name(), query, em);
-        return ret;
+        try {
+            return jpaService.executeUpdate(namedQuery.name(), query, em);
+        }
+        finally {
+            invalidate(jobBean.getId());
+        }
+    }
+
+    @Override
+    public void invalidate(String id) {
+        if (cache != null) {
+            cache.invalidate(id);
+        }
     }
 
     private CoordinatorJobBean constructBean(CoordJobQuery namedQuery, Object ret, Object... parameters)
@@ -318,12 +341,25 @@ public class CoordJobQueryExecutor extends QueryExecutor<CoordinatorJobBean, Coo
 
     @Override
     public CoordinatorJobBean get(CoordJobQuery namedQuery, Object... parameters) throws JPAExecutorException {
+        String id = null;
+        long ticket = 0;
+        if (cache != null && CACHED_QUERIES.contains(namedQuery) && cache.isCacheable((String) parameters[0])) {
+            id = (String) parameters[0];
+            Object ret = cache.get(id, namedQuery.name());
+            if (ret != null) {
+                return constructBean(namedQuery, ret, parameters);
+            }
+            ticket = cache.getTicket(id);
+        }
         EntityManager em = jpaService.getEntityManager();
         Query query = getSelectQuery(namedQuery, em, parameters);
         Object ret = jpaService.executeGet(namedQuery.name(), query, em);
         if (ret == null) {
             throw new JPAExecutorException(ErrorCode.E0604, query.toString());
         }
+        if (id != null) {
+            cache.put(id, namedQuery.name(), ret, ticket);
+        }
         CoordinatorJobBean bean = constructBean(namedQuery, ret, parameters);
         return bean;
     }
@@ -0,0 +1,300 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.oozie.BinaryBlob;
+import org.apache.oozie.StringBlob;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.JobsConcurrencyService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.util.Instrumentation;
+
+/**
+ * Size and TTL bounded cache of select query results, keyed by entity ID and named query.
+ * <p/>
+ * Results are kept as returned by the query (a projection row or a single value), blobs are stored as raw bytes. Each
+ * {@link #get} returns new blob instances so callers never share mutable objects, the bean is then constructed by the
+ * query executor as for a result read from the database.
+ * <p/>
+ * Query executors must {@link #invalidate} an entity once an update on it is committed. To avoid caching a result read
+ * before a concurrent update committed, a ticket is taken with {@link #getTicket} before running the query and
+ * {@link #put} ignores the result if the entity was invalidated in between.
+ * <p/>
+ * In HA mode only the jobs owned by this server, see {@link JobsConcurrencyService#isJobIdForThisServer}, are cached.
+ */
+public class EntityCache {
+
+    public static final String INSTRUMENTATION_GROUP = "jpa";
+
+    private static final int TICKET_STRIPES = 64;
+
+    private static class CachedResult {
+        private final Object result;
+        private final long expires;
+
+        private CachedResult(Object result, long expires) {
+            this.result = result;
+            this.expires = expires;
+        }
+    }
+
+    private static class RawBinaryBlob {
+        private final byte[] rawBlob;
+
+        private RawBinaryBlob(byte[] rawBlob) {
+            this.rawBlob = rawBlob;
+        }
+    }
+
+    private static class RawStringBlob {
+        private final byte[] rawBlob;
+
+        private RawStringBlob(byte[] rawBlob) {
+            this.rawBlob = rawBlob;
+        }
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final long ttl;
+    private final LinkedHashMap<String, Map<String, CachedResult>> entries;
+    private final AtomicLongArray tickets = new AtomicLongArray(TICKET_STRIPES);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create an entity cache.
+     *
+     * @param name name of the cache, used as prefix of the instrumentation counters.
+     * @param maxSize maximum number of entities in the cache.
+     * @param ttl time in milliseconds a result is kept in the cache.
+     */
+    @SuppressWarnings("serial")
+    public EntityCache(String name, final int maxSize, long ttl) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be 1 or more");
+        }
+        if (ttl < 1) {
+            throw new IllegalArgumentException("ttl must be 1 or more");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        entries = new LinkedHashMap<String, Map<String, CachedResult>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, CachedResult>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    incr("evictions");
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return if the results of an entity can be cached.
+     *
+     * @param id entity ID.
+     * @return <code>true</code> if the entity is owned by this server.
+     */
+    public boolean isCacheable(String id) {
+        Services services = Services.get();
+        JobsConcurrencyService jobsConcurrencyService = (services != null) ? services
+                .get(JobsConcurrencyService.class) : null;
+        return jobsConcurrencyService == null || jobsConcurrencyService.isJobIdForThisServer(id);
+    }
+
+    /**
+     * Return the cached result of a query.
+     *
+     * @param id entity ID.
+     * @param query named query.
+     * @return a copy of the cached result, <code>null</code> if not cached or expired.
+     */
+    public Object get(String id, String query) {
+        CachedResult entry = null;
+        synchronized (entries) {
+            Map<String, CachedResult> results = entries.get(id);
+            if (results != null) {
+                entry = results.get(query);
+                if (entry != null && entry.expires < System.currentTimeMillis()) {
+                    results.remove(query);
+                    entry = null;
+                }
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            incr("misses");
+            return null;
+        }
+        hits.incrementAndGet();
+        incr("hits");
+        return thaw(entry.result);
+    }
+
+    /**
+     * Return the ticket to use with {@link #put} for a query about to be run.
+     *
+     * @param id entity ID.
+     * @return the ticket.
+     */
+    public long getTicket(String id) {
+        return tickets.get(stripe(id));
+    }
+
+    /**
+     * Cache the result of a query.
+     * <p/>
+     * The result is not cached if the entity has been invalidated since the ticket was taken.
+     *
+     * @param id entity ID.
+     * @param query named query.
+     * @param result query result.
+     * @param ticket ticket taken before running the query.
+     */
+    public void put(String id, String query, Object result, long ticket) {
+        Object frozen = freeze(result);
+        synchronized (entries) {
+            if (tickets.get(stripe(id)) != ticket) {
+                return;
+            }
+            Map<String, CachedResult> results = entries.get(id);
+            if (results == null) {
+                results = new HashMap<String, CachedResult>();
+                entries.put(id, results);
+            }
+            results.put(query, new CachedResult(frozen, System.currentTimeMillis() + ttl));
+        }
+    }
+
+    /**
+     * Remove all the cached results of an entity.
+     *
+     * @param id entity ID.
+     */
+    public void invalidate(String id) {
+        if (id != null) {
+            synchronized (entries) {
+                tickets.incrementAndGet(stripe(id));
+                entries.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Remove all the cached results.
+     */
+    public void clear() {
+        synchronized (entries) {
+            for (int i = 0; i < TICKET_STRIPES; i++) {
+                tickets.incrementAndGet(i);
+            }
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return number of entities in the cache.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return number of results found in the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of results not found in the cache.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of entities evicted because the cache was full.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private int stripe(String id) {
+        return (id.hashCode() & Integer.MAX_VALUE) % TICKET_STRIPES;
+    }
+
+    private void incr(String counter) {
+        Services services = Services.get();
+        InstrumentationService instrumentationService = (services != null) ? services
+                .get(InstrumentationService.class) : null;
+        Instrumentation instr = (instrumentationService != null) ? instrumentationService.get() : null;
+        if (instr != null) {
+            instr.incr(INSTRUMENTATION_GROUP, name + ".cache." + counter, 1);
+        }
+    }
+
+    private static Object freeze(Object result) {
+        if (result instanceof Object[]) {
+            Object[] row = ((Object[]) result).clone();
+            for (int i = 0; i < row.length; i++) {
+                row[i] = freeze(row[i]);
+            }
+            return row;
+        }
+        else if (result instanceof BinaryBlob) {
+            return new RawBinaryBlob(((BinaryBlob) result).getRawBlob());
+        }
+        else if (result instanceof StringBlob) {
+            return new RawStringBlob(((StringBlob) result).getRawBlob());
+        }
+        return result;
+    }
+
+    private static Object thaw(Object frozen) {
+        if (frozen instanceof Object[]) {
+            Object[] row = ((Object[]) frozen).clone();
+            for (int i = 0; i < row.length; i++) {
+                row[i] = thaw(row[i]);
+            }
+            return row;
+        }
+        else if (frozen instanceof RawBinaryBlob) {
+            byte[] rawBlob = ((RawBinaryBlob) frozen).rawBlob;
+            return (rawBlob != null) ? new BinaryBlob(rawBlob, false) : null;
+        }
+        else if (frozen instanceof RawStringBlob) {
+            byte[] rawBlob = ((RawStringBlob) frozen).rawBlob;
+            return (rawBlob != null) ? new StringBlob(rawBlob) : null;
+        }
+        return frozen;
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.executor.jpa.BatchQueryExecutor.UpdateEntry;
+import org.apache.oozie.util.Instrumentation;
+
+/**
+ * Gathers the updates of concurrent callers and commits them in a single transaction.
+ * <p/>
+ * The first caller that finds no commit in progress becomes the leader: it waits up to the commit window (or until the
+ * maximum batch size is reached) for other callers to join, then commits the updates of all of them at once. Callers
+ * block until the transaction that contains their updates is committed, so durability is the same as committing
+ * separately.
+ * <p/>
+ * If the group transaction fails, the updates of each caller are committed again in their own transaction, only the
+ * callers whose updates fail get an exception.
+ */
+@SuppressWarnings("rawtypes")
+public class GroupCommitter {
+
+    public static final String INSTRUMENTATION_GROUP = "jpa";
+
+    /**
+     * Commits updates in a single transaction.
+     */
+    public static interface Committer {
+
+        /**
+         * Commit updates in a single transaction.
+         *
+         * @param updates updates to commit.
+         * @throws JPAExecutorException thrown if the transaction failed, no update has been committed.
+         */
+        void commit(List<UpdateEntry> updates) throws JPAExecutorException;
+    }
+
+    private static class Request {
+        private final Collection<UpdateEntry> updates;
+        private boolean done;
+        private JPAExecutorException exception;
+
+        private Request(Collection<UpdateEntry> updates) {
+            this.updates = updates;
+        }
+    }
+
+    private final Committer committer;
+    private final long window;
+    private final int maxBatch;
+    private final Instrumentation instrumentation;
+    private final LinkedList<Request> pending = new LinkedList<Request>();
+    private boolean committing;
+
+    /**
+     * Create a group committer.
+     *
+     * @param committer committer used to execute the transactions.
+     * @param window time in milliseconds the leader waits for other callers before committing.
+     * @param maxBatch maximum number of callers committed in a single transaction.
+     * @param instrumentation instrumentation for batch size and commit latency, may be <code>null</code>.
+     */
+    public GroupCommitter(Committer committer, long window, int maxBatch, Instrumentation instrumentation) {
+        if (window < 0) {
+            throw new IllegalArgumentException("window cannot be negative");
+        }
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be 1 or more");
+        }
+        this.committer = committer;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Commit updates, possibly in the same transaction as the updates of other callers.
+     * <p/>
+     * The method returns once the updates are committed. It is not interruptible, an interrupted caller could not know
+     * if its updates were committed, the interrupt status is restored on return.
+     *
+     * @param updates updates to commit.
+     * @throws JPAExecutorException thrown if the updates could not be committed.
+     */
+    public void commit(Collection<UpdateEntry> updates) throws JPAExecutorException {
+        Request request = new Request(updates);
+        boolean interrupted = false;
+        synchronized (pending) {
+            pending.add(request);
+            if (pending.size() >= maxBatch) {
+                pending.notifyAll();
+            }
+        }
+        while (true) {
+            synchronized (pending) {
+                while (!request.done && committing) {
+                    try {
+                        pending.wait();
+                    }
+                    catch (InterruptedException ex) {
+                        interrupted = true;
+                    }
+                }
+                if (request.done) {
+                    break;
+                }
+                committing = true;
+            }
+            try {
+                interrupted |= lead();
+            }
+            finally {
+                synchronized (pending) {
+                    committing = false;
+                    pending.notifyAll();
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (request.exception != null) {
+            throw request.exception;
+        }
+    }
+
+    /**
+     * Return the number of callers waiting for a commit.
+     *
+     * @return the number of callers waiting for a commit.
+     */
+    public int getPending() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private boolean lead() {
+        boolean interrupted = false;
+        List<Request> batch = new ArrayList<Request>();
+        synchronized (pending) {
+            long deadline = System.currentTimeMillis() + window;
+            long remaining = window;
+            while (pending.size() < maxBatch && remaining > 0) {
+                try {
+                    pending.wait(remaining);
+                }
+                catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            while (!pending.isEmpty() && batch.size() < maxBatch) {
+                batch.add(pending.removeFirst());
+            }
+        }
+        List<UpdateEntry> updates = new ArrayList<UpdateEntry>();
+        for (Request request : batch) {
+            updates.addAll(request.updates);
+        }
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        try {
+            committer.commit(updates);
+        }
+        catch (JPAExecutorException ex) {
+            // commit each caller on its own so a failing update does not fail the others
+            incr("groupcommit.fallbacks", 1);
+            for (Request request : batch) {
+                try {
+                    committer.commit(new ArrayList<UpdateEntry>(request.updates));
+                }
+                catch (JPAExecutorException requestEx) {
+                    request.exception = requestEx;
+                }
+            }
+        }
+        catch (RuntimeException ex) {
+            for (Request request : batch) {
+                request.exception = new JPAExecutorException(ErrorCode.E0603, ex.getMessage());
+            }
+        }
+        finally {
+            cron.stop();
+            if (instrumentation != null) {
+                instrumentation.addCron(INSTRUMENTATION_GROUP, "groupcommit", cron);
+            }
+            incr("groupcommit.batches", 1);
+            incr("groupcommit.callers", batch.size());
+            incr("groupcommit.updates", updates.size());
+            synchronized (pending) {
+                for (Request request : batch) {
+                    request.done = true;
+                }
+            }
+        }
+        return interrupted;
+    }
+
+    private void incr(String name, long count) {
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, name, count);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import javax.persistence.Query;
+
+/**
+ * Position in a jobs listing ordered by creation time and ID, both descending.
+ * <p/>
+ * A page starting at a cursor is read with a keyset condition on the created time and ID of the last job of the
+ * previous page instead of an offset, the database seeks to the position using the created time index and the cost of
+ * a page does not depend on how far the listing is scanned.
+ * <p/>
+ * Cursors are exchanged with clients as opaque tokens, see {@link #toToken} and {@link #parse}. The {@link #FIRST}
+ * cursor, with the empty token, starts a listing.
+ */
+public class JobsCursor {
+
+    /**
+     * Cursor of the first page of a listing.
+     */
+    public static final JobsCursor FIRST = new JobsCursor(null, null);
+
+    private static final char SEPARATOR = '_';
+    private static final int RADIX = 36;
+
+    private final Date createdTime;
+    private final String id;
+
+    /**
+     * Create a cursor positioned after a job.
+     *
+     * @param createdTime created time of the job.
+     * @param id ID of the job.
+     */
+    public JobsCursor(Date createdTime, String id) {
+        this.createdTime = createdTime;
+        this.id = id;
+    }
+
+    /**
+     * Return the cursor positioned after the last job of a page, if there may be more jobs.
+     *
+     * @param createdTime created time of the last job of the page.
+     * @param id ID of the last job of the page.
+     * @param pageSize number of jobs in the page.
+     * @param len number of jobs requested.
+     * @return the cursor of the next page, <code>null</code> if the page was the last one.
+     */
+    public static JobsCursor next(Date createdTime, String id, int pageSize, int len) {
+        if (pageSize < len || pageSize == 0 || createdTime == null) {
+            return null;
+        }
+        return new JobsCursor(createdTime, id);
+    }
+
+    /**
+     * Parse a cursor token.
+     *
+     * @param token cursor token, <code>null</code> or the empty string for the first page.
+     * @return the cursor.
+     * @throws IllegalArgumentException thrown if the token is not valid.
+     */
+    public static JobsCursor parse(String token) {
+        token = (token != null) ? token.trim() : "";
+        if (token.length() == 0) {
+            return FIRST;
+        }
+        int index = token.indexOf(SEPARATOR);
+        if (index < 1 || index == token.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor [" + token + "]");
+        }
+        try {
+            long time = Long.parseLong(token.substring(0, index), RADIX);
+            return new JobsCursor(new Date(time), token.substring(index + 1));
+        }
+        catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor [" + token + "]");
+        }
+    }
+
+    /**
+     * @return the created time of the last job returned, <code>null</code> for the first page.
+     */
+    public Date getCreatedTime() {
+        return createdTime;
+    }
+
+    /**
+     * @return the ID of the last job returned, <code>null</code> for the first page.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return if the cursor starts a listing.
+     */
+    public boolean isFirst() {
+        return createdTime == null;
+    }
+
+    /**
+     * @return the token of the cursor.
+     */
+    public String toToken() {
+        if (isFirst()) {
+            return "";
+        }
+        return Long.toString(createdTime.getTime(), RADIX) + SEPARATOR + id;
+    }
+
+    /**
+     * Append the keyset condition and the order clause to a select query on the jobs bean aliased <code>w</code>.
+     *
+     * @param sb query to append to.
+     * @param hasWhere if the query already has a where clause.
+     */
+    public void appendTo(StringBuilder sb, boolean hasWhere) {
+        if (!isFirst()) {
+            sb.append(hasWhere ? " and " : " where ");
+            sb.append("(w.createdTimestamp < :cursorTime or (w.createdTimestamp = :cursorTime and w.id < :cursorId))");
+        }
+        sb.append(" order by w.createdTimestamp desc, w.id desc");
+    }
+
+    /**
+     * Set the parameters of the keyset condition.
+     *
+     * @param q query built with {@link #appendTo}.
+     */
+    public void setParameters(Query q) {
+        if (!isFirst()) {
+            q.setParameter("cursorTime", new Timestamp(createdTime.getTime()));
+            q.setParameter("cursorId", id);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toToken();
+    }
+}
@@ -72,4 +72,27 @@ public abstract class QueryExecutor<T, E extends Enum<E>> {
     public abstract Query getSelectQuery(E namedQuery, EntityManager em, Object... parameters)
             throws JPAExecutorException;
 
+    /**
+     * Invalidate the cached query results of an entity after an update, no-op for executors without cache.
+     *
+     * @param id entity ID.
+     */
+    public void invalidate(String id) {
+    }
+
+    /**
+     * Create the entity cache of an executor if enabled, see {@link JPAService#CONF_ENTITY_CACHE_ENABLED}.
+     *
+     * @param services services instance.
+     * @param name name of the cache.
+     * @return the entity cache, <code>null</code> if disabled.
+     */
+    protected static EntityCache createEntityCache(Services services, String name) {
+        if (services == null || !services.getConf().getBoolean(JPAService.CONF_ENTITY_CACHE_ENABLED, false)) {
+            return null;
+        }
+        return new EntityCache(name, services.getConf().getInt(JPAService.CONF_ENTITY_CACHE_SIZE, 10000),
+                services.getConf().getLong(JPAService.CONF_ENTITY_CACHE_TTL, 5000));
+    }
+
 }
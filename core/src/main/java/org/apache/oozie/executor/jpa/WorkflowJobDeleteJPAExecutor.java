@@ -40,9 +40,14 @@ public class WorkflowJobDeleteJPAExecutor implements JPAExecutor<Void>{
      */
     @Override
     public Void execute(EntityManager em) throws JPAExecutorException {
-        WorkflowJobBean job = em.find(WorkflowJobBean.class, this.wfJobId);
-        if (job != null) {
-            em.remove(job);
+        try {
+            WorkflowJobBean job = em.find(WorkflowJobBean.class, this.wfJobId);
+            if (job != null) {
+                em.remove(job);
+            }
+        }
+        finally {
+            WorkflowJobQueryExecutor.getInstance().invalidate(this.wfJobId);
         }
         return null;
     }
@@ -19,6 +19,7 @@ package org.apache.oozie.executor.jpa;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -59,13 +60,26 @@ public class WorkflowJobQueryExecutor extends QueryExecutor<WorkflowJobBean, Wor
         GET_WORKFLOW_STATUS
     };
 
+    private static final EnumSet<WorkflowJobQuery> CACHED_QUERIES = EnumSet.of(
+            WorkflowJobQuery.GET_WORKFLOW_STARTTIME,
+            WorkflowJobQuery.GET_WORKFLOW_USER_GROUP,
+            WorkflowJobQuery.GET_WORKFLOW_SUSPEND,
+            WorkflowJobQuery.GET_WORKFLOW_ACTION_OP,
+            WorkflowJobQuery.GET_WORKFLOW_RERUN,
+            WorkflowJobQuery.GET_WORKFLOW_DEFINITION,
+            WorkflowJobQuery.GET_WORKFLOW_KILL,
+            WorkflowJobQuery.GET_WORKFLOW_RESUME,
+            WorkflowJobQuery.GET_WORKFLOW_STATUS);
+
     private static WorkflowJobQueryExecutor instance = new WorkflowJobQueryExecutor();
     private static JPAService jpaService;
+    private EntityCache cache;
 
     private WorkflowJobQueryExecutor() {
         Services services = Services.get();
         if (services != null) {
             jpaService = services.get(JPAService.class);
+            cache = createEntityCache(services, "workflowjob");
         }
     }
 
@@ -189,8 +203,19 @@ public class WorkflowJobQueryExecutor extends QueryExecutor<WorkflowJobBean, Wor
     public int executeUpdate(WorkflowJobQuery namedQuery, WorkflowJobBean jobBean) throws JPAExecutorException {
         EntityManager em = jpaService.getEntityManager();
         Query query = getUpdateQuery(namedQuery, jobBean, em);
-        int ret = jpaService.executeUpdate(namedQuery.name(), query, em);
-        return ret;
+        try {
+            return jpaService.executeUpdate(namedQuery.name(), query, em);
+        }
+        finally {
+            invalidate(jobBean.getId());
+        }
+    }
+
+    @Override
+    public void invalidate(String id) {
+        if (cache != null) {
+            cache.invalidate(id);
+        }
     }
 
     private WorkflowJobBean constructBean(WorkflowJobQuery namedQuery, Object ret, Object... parameters)
@@ -309,12 +334,25 @@ public class WorkflowJobQueryExecutor extends QueryExecutor<WorkflowJobBean, Wor
 
     @Override
     public WorkflowJobBean get(WorkflowJobQuery namedQuery, Object... parameters) throws JPAExecutorException {
+        String id = null;
+        long ticket = 0;
+        if (cache != null && CACHED_QUERIES.contains(namedQuery) && cache.isCacheable((String) parameters[0])) {
+            id = (String) parameters[0];
+            Object ret = cache.get(id, namedQuery.name());
+            if (ret != null) {
+                return constructBean(namedQuery, ret, parameters);
+            }
+            ticket = cache.getTicket(id);
+        }
         EntityManager em = jpaService.getEntityManager();
         Query query = getSelectQuery(namedQuery, em, parameters);
         Object ret = jpaService.executeGet(namedQuery.name(), query, em);
         if (ret == null) {
             throw new JPAExecutorException(ErrorCode.E0604, query.toString());
         }
+        if (id != null) {
+            cache.put(id, namedQuery.name(), ret, ticket);
+        }
         WorkflowJobBean bean = constructBean(namedQuery, ret, parameters);
         return bean;
     }
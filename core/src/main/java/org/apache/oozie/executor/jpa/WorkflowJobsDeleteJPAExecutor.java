@@ -91,6 +91,18 @@ public class WorkflowJobsDeleteJPAExecutor implements JPAExecutor<Integer> {
         catch (Exception e) {
             throw new JPAExecutorException(ErrorCode.E0603, e.getMessage(), e);
         }
+        finally {
+            invalidateCache();
+        }
         return actionsDeleted;
     }
+
+    // evict the deleted jobs from the query results cache, see EntityCache
+    private void invalidateCache() {
+        if (deleteList != null) {
+            for (String id : deleteList) {
+                WorkflowJobQueryExecutor.getInstance().invalidate(id);
+            }
+        }
+    }
 }
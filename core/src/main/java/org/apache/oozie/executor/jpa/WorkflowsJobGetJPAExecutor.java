@@ -46,6 +46,8 @@ public class WorkflowsJobGetJPAExecutor implements JPAExecutor<WorkflowsInfo> {
     private final Map<String, List<String>> filter;
     private final int start;
     private final int len;
+    private final JobsCursor cursor;
+    private final boolean count;
 
     /**
      * This JPA Executor gets the workflows info for the range.
@@ -55,9 +57,28 @@ public class WorkflowsJobGetJPAExecutor implements JPAExecutor<WorkflowsInfo> {
      * @param len
      */
     public WorkflowsJobGetJPAExecutor(Map<String, List<String>> filter, int start, int len) {
+        this(filter, start, len, null, true);
+    }
+
+    /**
+     * This JPA Executor gets the workflows info for the range or the page after a cursor.
+     * <p/>
+     * When a cursor is given the offset is ignored, the workflows created before the cursor are returned and the
+     * cursor of the next page is set in the workflows info.
+     *
+     * @param filter
+     * @param start offset, used when listing without cursor.
+     * @param len number of workflows.
+     * @param cursor cursor of the page, <code>null</code> to use the offset.
+     * @param count if the total number of workflows is computed, if <code>false</code> the total is -1.
+     */
+    public WorkflowsJobGetJPAExecutor(Map<String, List<String>> filter, int start, int len, JobsCursor cursor,
+            boolean count) {
         this.filter = filter;
         this.start = start;
         this.len = len;
+        this.cursor = cursor;
+        this.count = count;
     }
 
     /* (non-Javadoc)
@@ -213,26 +234,40 @@ public class WorkflowsJobGetJPAExecutor implements JPAExecutor<WorkflowsInfo> {
             }
         }
 
-        int realLen = 0;
+        int realLen = -1;
 
         Query q = null;
         Query qTotal = null;
-        if (orArray.size() == 0) {
+        if (orArray.size() == 0 && cursor == null) {
             q = em.createNamedQuery("GET_WORKFLOWS_COLUMNS");
             q.setFirstResult(start - 1);
             q.setMaxResults(len);
-            qTotal = em.createNamedQuery("GET_WORKFLOWS_COUNT");
+            if (count) {
+                qTotal = em.createNamedQuery("GET_WORKFLOWS_COUNT");
+            }
         }
         else {
-            if (orArray.size() > 0) {
-                StringBuilder sbTotal = new StringBuilder(sb);
+            if (orArray.size() == 0) {
+                sb.append(seletStr);
+            }
+            StringBuilder sbTotal = new StringBuilder(sb);
+            if (cursor != null) {
+                cursor.appendTo(sb, orArray.size() > 0);
+                q = em.createQuery(sb.toString());
+                cursor.setParameters(q);
+            }
+            else {
                 sb.append(" order by w.createdTimestamp desc ");
                 q = em.createQuery(sb.toString());
                 q.setFirstResult(start - 1);
-                q.setMaxResults(len);
+            }
+            q.setMaxResults(len);
+            if (count) {
                 qTotal = em.createQuery(sbTotal.toString().replace(seletStr, countStr));
-                for (int i = 0; i < orArray.size(); i++) {
-                    q.setParameter(colArray.get(i), valArray.get(i));
+            }
+            for (int i = 0; i < orArray.size(); i++) {
+                q.setParameter(colArray.get(i), valArray.get(i));
+                if (qTotal != null) {
                     qTotal.setParameter(colArray.get(i), valArray.get(i));
                 }
             }
@@ -253,9 +288,17 @@ public class WorkflowsJobGetJPAExecutor implements JPAExecutor<WorkflowsInfo> {
             wfBeansList.add(ww);
         }
 
-        realLen = ((Long) qTotal.getSingleResult()).intValue();
+        if (qTotal != null) {
+            realLen = ((Long) qTotal.getSingleResult()).intValue();
+        }
 
-        return new WorkflowsInfo(wfBeansList, start, len, realLen);
+        WorkflowsInfo info = new WorkflowsInfo(wfBeansList, start, len, realLen);
+        if (cursor != null && !wfBeansList.isEmpty()) {
+            WorkflowJobBean last = wfBeansList.get(wfBeansList.size() - 1);
+            JobsCursor next = JobsCursor.next(last.getCreatedTime(), last.getId(), wfBeansList.size(), len);
+            info.setNextCursor((next != null) ? next.toToken() : null);
+        }
+        return info;
     }
 
     /* (non-Javadoc)
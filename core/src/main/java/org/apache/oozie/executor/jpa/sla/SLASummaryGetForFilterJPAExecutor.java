@@ -38,6 +38,7 @@ public class SLASummaryGetForFilterJPAExecutor implements JPAExecutor<List<SLASu
     private static final String selectStr = "SELECT OBJECT(s) FROM SLASummaryBean s WHERE ";
 
     private SLASummaryFilter filter;
+    private int start = 1;
     private int numMaxResults;
 
 
@@ -46,6 +47,16 @@ public class SLASummaryGetForFilterJPAExecutor implements JPAExecutor<List<SLASu
         this.numMaxResults = numMaxResults;
     }
 
+    /**
+     * @param filter the filter.
+     * @param start offset of the first summary, base 1.
+     * @param numMaxResults maximum number of summaries returned.
+     */
+    public SLASummaryGetForFilterJPAExecutor(SLASummaryFilter filter, int start, int numMaxResults) {
+        this(filter, numMaxResults);
+        this.start = start;
+    }
+
     @Override
     public String getName() {
         return "SLASummaryGetForFilterJPAExecutor";
@@ -102,12 +113,16 @@ public class SLASummaryGetForFilterJPAExecutor implements JPAExecutor<List<SLASu
             queryParams.put("nominalTimeEnd", new Timestamp(filter.getNominalEnd().getTime()));
         }
 
-        sb.append(" ORDER BY s.nominalTimeTS");
+        // jobId makes the order total so ranges of summaries do not overlap
+        sb.append(" ORDER BY s.nominalTimeTS, s.jobId");
         try {
             Query q = em.createQuery(sb.toString());
             for (Map.Entry<String, Object> entry : queryParams.entrySet()) {
                 q.setParameter(entry.getKey(), entry.getValue());
             }
+            if (start > 1) {
+                q.setFirstResult(start - 1);
+            }
             q.setMaxResults(numMaxResults);
             ssBean = (List<SLASummaryBean>) q.getResultList();
         }
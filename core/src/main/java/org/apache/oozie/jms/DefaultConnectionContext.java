@@ -87,10 +87,22 @@ public class DefaultConnectionContext implements ConnectionContext {
 
     @Override
     public Session createSession(int sessionOpts) throws JMSException {
+        return createSession(false, sessionOpts);
+    }
+
+    /**
+     * Creates session using the specified transaction mode and session opts
+     *
+     * @param transacted whether the session is transacted, the session opts are ignored if it is
+     * @param sessionOpts
+     * @return
+     * @throws JMSException
+     */
+    public Session createSession(boolean transacted, int sessionOpts) throws JMSException {
         if (connection == null) {
             throw new JMSException ("Connection is not initialized");
         }
-        return connection.createSession(false, sessionOpts);
+        return connection.createSession(transacted, sessionOpts);
     }
 
     @Override
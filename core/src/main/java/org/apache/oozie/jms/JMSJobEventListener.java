@@ -17,14 +17,9 @@
  */
 package org.apache.oozie.jms;
 
+import java.util.HashMap;
 import java.util.Map;
 
-import javax.jms.DeliveryMode;
-import javax.jms.JMSException;
-import javax.jms.MessageProducer;
-import javax.jms.Session;
-import javax.jms.TextMessage;
-
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.client.event.jms.JMSHeaderConstants;
 import org.apache.oozie.client.event.message.CoordinatorActionMessage;
@@ -55,10 +50,9 @@ public class JMSJobEventListener extends JobEventListener {
     public static final String JMS_SESSION_OPTS = "oozie.jms.producer.session.opts";
     public static final String JMS_DELIVERY_MODE = "oozie.jms.delivery.mode";
     public static final String JMS_EXPIRATION_DATE = "oozie.jms.expiration.date";
-    private int jmsSessionOpts;
-    private int jmsDeliveryMode;
-    private int jmsExpirationDate;
-    private ConnectionContext jmsContext;
+    // milliseconds to wait for the queued messages to be sent when the listener is destroyed
+    static final long PUBLISHER_STOP_TIMEOUT = 5000;
+    private JMSMessagePublisher publisher;
     private static XLog LOG;
 
     @Override
@@ -67,36 +61,16 @@ public class JMSJobEventListener extends JobEventListener {
         String jmsProps = conf.get(JMS_CONNECTION_PROPERTIES);
         LOG.info("JMS producer connection properties [{0}]", jmsProps);
         connInfo = new JMSConnectionInfo(jmsProps);
-        jmsSessionOpts = conf.getInt(JMS_SESSION_OPTS, Session.AUTO_ACKNOWLEDGE);
-        jmsDeliveryMode = conf.getInt(JMS_DELIVERY_MODE, DeliveryMode.PERSISTENT);
-        jmsExpirationDate = conf.getInt(JMS_EXPIRATION_DATE, 0);
-
+        publisher = new JMSMessagePublisher(jmsService, connInfo, conf);
+        publisher.start();
     }
 
     protected void sendMessage(Map<String, String> messageProperties, String messageBody, String topicName,
             String messageFormat) {
-        jmsContext = jmsService.createProducerConnectionContext(connInfo);
-        if (jmsContext != null) {
-            try {
-                Session session = jmsContext.createThreadLocalSession(jmsSessionOpts);
-                TextMessage textMessage = session.createTextMessage(messageBody);
-                for (Map.Entry<String, String> property : messageProperties.entrySet()) {
-                    textMessage.setStringProperty(property.getKey(), property.getValue());
-                }
-                textMessage.setStringProperty(JMSHeaderConstants.MESSAGE_FORMAT, messageFormat);
-                LOG.trace("Event related JMS text body [{0}]", textMessage.getText());
-                LOG.trace("Event related JMS entire message [{0}]", textMessage.toString());
-                MessageProducer producer = jmsContext.createProducer(session, topicName);
-                producer.setDeliveryMode(jmsDeliveryMode);
-                producer.setTimeToLive(jmsExpirationDate);
-                producer.send(textMessage);
-                producer.close();
-            }
-            catch (JMSException jmse) {
-                LOG.error("Exception happened while sending event related jms message", jmse);
-            }
-        }
-
+        Map<String, String> properties = new HashMap<String, String>(messageProperties);
+        properties.put(JMSHeaderConstants.MESSAGE_FORMAT, messageFormat);
+        LOG.trace("Event related JMS message properties [{0}]", properties);
+        publisher.publish(topicName, messageBody, properties);
     }
 
     @Override
@@ -150,6 +124,9 @@ public class JMSJobEventListener extends JobEventListener {
 
     @Override
     public void destroy() {
-}
+        if (publisher != null) {
+            publisher.stop(PUBLISHER_STOP_TIMEOUT);
+        }
+    }
 
 }
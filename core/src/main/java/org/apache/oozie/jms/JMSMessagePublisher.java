@@ -0,0 +1,357 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.jms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.JMSAccessorService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.XLog;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Publisher of the JMS notifications of the event listeners.
+ * <p/>
+ * The publisher sends on a session of its own and keeps a producer per topic for the current producer connection,
+ * instead of creating and closing a producer for each message. The session and the producers are recreated when the
+ * connection is reestablished.
+ * <p/>
+ * The listeners only add their messages to a bounded queue, a publisher thread drains it by batches of up to
+ * <code>batchSize</code> messages. If the queue is full the message is dropped rather than blocking the event thread.
+ * If <code>transacted</code>, a batch is sent in a single transaction on a transacted session so the broker syncs it
+ * once, only the {@link DefaultConnectionContext} creates transacted sessions. If the queue size is 0 the messages
+ * are sent by the calling thread, one at a time.
+ * <p/>
+ * The time from the publication of a message to its delivery to the broker, the number of messages and batches sent
+ * and the number of messages dropped or failed are instrumented.
+ */
+public class JMSMessagePublisher {
+
+    public static final String JMS_PRODUCER_QUEUE_SIZE = "oozie.jms.producer.queue.size";
+    public static final String JMS_PRODUCER_BATCH_SIZE = "oozie.jms.producer.batch.size";
+    public static final String JMS_PRODUCER_TRANSACTED = "oozie.jms.producer.transacted";
+
+    public static final String INSTRUMENTATION_GROUP = "jms-publisher";
+
+    private static XLog LOG = XLog.getLog(JMSMessagePublisher.class);
+
+    // interval at which the publisher thread checks whether the publisher is stopped
+    private static final long POLL_INTERVAL = 1000;
+
+    // maximum number of producers kept open
+    private static final int MAX_PRODUCERS = 1000;
+
+    private static class Message {
+        private final String topic;
+        private final String body;
+        private final Map<String, String> properties;
+        private final Instrumentation.Cron cron;
+
+        private Message(String topic, String body, Map<String, String> properties) {
+            this.topic = topic;
+            this.body = body;
+            this.properties = properties;
+            this.cron = new Instrumentation.Cron();
+            cron.start();
+        }
+    }
+
+    private final JMSAccessorService jmsService;
+    private final JMSConnectionInfo connInfo;
+    private final int sessionOpts;
+    private final int deliveryMode;
+    private final int timeToLive;
+    private final int batchSize;
+    private final boolean transacted;
+    // null if the messages are sent by the calling thread
+    private final BlockingQueue<Message> queue;
+
+    // connection, session and producers in use, guarded by this
+    private ConnectionContext context;
+    private Session session;
+    private final Map<String, MessageProducer> producers = new LinkedHashMap<String, MessageProducer>(16, 0.75f,
+            true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MessageProducer> eldest) {
+            if (size() > MAX_PRODUCERS) {
+                closeProducer(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private volatile boolean running;
+    private Thread publisher;
+
+    /**
+     * Create a publisher, the messages are queued but not sent until it is started.
+     *
+     * @param jmsService service to get the producer connection from.
+     * @param connInfo information to connect to the JMS server.
+     * @param conf configuration with the session, delivery and queueing options of the producer.
+     */
+    public JMSMessagePublisher(JMSAccessorService jmsService, JMSConnectionInfo connInfo, Configuration conf) {
+        this.jmsService = jmsService;
+        this.connInfo = connInfo;
+        sessionOpts = conf.getInt(JMSJobEventListener.JMS_SESSION_OPTS, Session.AUTO_ACKNOWLEDGE);
+        deliveryMode = conf.getInt(JMSJobEventListener.JMS_DELIVERY_MODE, DeliveryMode.PERSISTENT);
+        timeToLive = conf.getInt(JMSJobEventListener.JMS_EXPIRATION_DATE, 0);
+        int queueSize = conf.getInt(JMS_PRODUCER_QUEUE_SIZE, 10000);
+        queue = (queueSize > 0) ? new ArrayBlockingQueue<Message>(queueSize) : null;
+        batchSize = Math.max(1, conf.getInt(JMS_PRODUCER_BATCH_SIZE, 100));
+        transacted = conf.getBoolean(JMS_PRODUCER_TRANSACTED, false);
+    }
+
+    /**
+     * Start the publisher thread.
+     */
+    public synchronized void start() {
+        running = true;
+        if (queue != null && publisher == null) {
+            publisher = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // once stopped, the messages published before are flushed
+                    while (running || !queue.isEmpty()) {
+                        try {
+                            publishQueue(running ? POLL_INTERVAL : 0);
+                        }
+                        catch (InterruptedException ex) {
+                            LOG.warn("Interrupted, [{0}] queued messages are not sent", queue.size());
+                            break;
+                        }
+                        catch (RuntimeException ex) {
+                            LOG.warn("Error publishing JMS messages", ex);
+                        }
+                    }
+                }
+            }, "jms-publisher");
+            publisher.setDaemon(true);
+            publisher.start();
+        }
+    }
+
+    /**
+     * Stop the publisher thread once the queued messages are sent, and close the producers.
+     *
+     * @param timeout milliseconds to wait for the queued messages to be sent.
+     */
+    public void stop(long timeout) {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = publisher;
+            publisher = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join(timeout + POLL_INTERVAL);
+                if (thread.isAlive()) {
+                    thread.interrupt();
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            reset();
+        }
+    }
+
+    /**
+     * Publish a text message.
+     *
+     * @param topic topic to send the message to.
+     * @param body text of the message.
+     * @param properties string properties of the message.
+     * @return <code>false</code> if the message was dropped because the queue is full or, if sent by the calling
+     * thread, it could not be sent.
+     */
+    public boolean publish(String topic, String body, Map<String, String> properties) {
+        Message message = new Message(topic, body, properties);
+        if (queue == null) {
+            synchronized (this) {
+                return send(Collections.singletonList(message));
+            }
+        }
+        if (!queue.offer(message)) {
+            incrCounter("dropped", 1);
+            LOG.warn("JMS publisher queue is full, dropping message for topic [{0}]", topic);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Send a batch of queued messages.
+     *
+     * @param timeout milliseconds to wait for a message if the queue is empty.
+     * @return the number of messages taken from the queue.
+     * @throws InterruptedException thrown if the thread was interrupted while waiting.
+     */
+    @VisibleForTesting
+    int publishQueue(long timeout) throws InterruptedException {
+        Message first = queue.poll(timeout, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return 0;
+        }
+        List<Message> batch = new ArrayList<Message>(batchSize);
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        synchronized (this) {
+            send(batch);
+        }
+        return batch.size();
+    }
+
+    @VisibleForTesting
+    int getQueueSize() {
+        return (queue == null) ? 0 : queue.size();
+    }
+
+    @VisibleForTesting
+    synchronized int getProducerCount() {
+        return producers.size();
+    }
+
+    private boolean send(List<Message> batch) {
+        ConnectionContext current = jmsService.createProducerConnectionContext(connInfo);
+        if (current == null) {
+            incrCounter("failed", batch.size());
+            LOG.warn("No connection. Not sending [{0}] messages", batch.size());
+            return false;
+        }
+        Instrumentation.Cron batchCron = new Instrumentation.Cron();
+        batchCron.start();
+        try {
+            if (current != context || session == null) {
+                reset();
+                if (transacted && current instanceof DefaultConnectionContext) {
+                    session = ((DefaultConnectionContext) current).createSession(true, sessionOpts);
+                }
+                else {
+                    // other connection contexts only create non transacted sessions
+                    session = current.createSession(sessionOpts);
+                }
+                context = current;
+            }
+            for (Message message : batch) {
+                TextMessage textMessage = session.createTextMessage(message.body);
+                for (Map.Entry<String, String> property : message.properties.entrySet()) {
+                    textMessage.setStringProperty(property.getKey(), property.getValue());
+                }
+                LOG.trace("Event related JMS text body [{0}]", message.body);
+                getProducer(message.topic).send(textMessage);
+            }
+            if (session.getTransacted()) {
+                session.commit();
+            }
+        }
+        catch (JMSException ex) {
+            incrCounter("failed", batch.size());
+            LOG.error("Exception happened while sending [{0}] event related jms messages", batch.size(), ex);
+            // the session is recreated for the next batch, the transaction is rolled back by closing it
+            reset();
+            return false;
+        }
+        batchCron.stop();
+        addCron("batch", batchCron);
+        for (Message message : batch) {
+            message.cron.stop();
+            addCron("latency", message.cron);
+        }
+        incrCounter("published", batch.size());
+        incrCounter("batches", 1);
+        return true;
+    }
+
+    private MessageProducer getProducer(String topic) throws JMSException {
+        MessageProducer producer = producers.get(topic);
+        if (producer == null) {
+            producer = context.createProducer(session, topic);
+            producer.setDeliveryMode(deliveryMode);
+            producer.setTimeToLive(timeToLive);
+            producers.put(topic, producer);
+        }
+        return producer;
+    }
+
+    private void reset() {
+        for (MessageProducer producer : producers.values()) {
+            closeProducer(producer);
+        }
+        producers.clear();
+        if (session != null) {
+            try {
+                session.close();
+            }
+            catch (JMSException ex) {
+                LOG.debug("Unable to close the JMS session", ex);
+            }
+        }
+        session = null;
+        context = null;
+    }
+
+    private static void closeProducer(MessageProducer producer) {
+        try {
+            producer.close();
+        }
+        catch (JMSException ex) {
+            LOG.debug("Unable to close the JMS producer", ex);
+        }
+    }
+
+    private static void incrCounter(String name, int count) {
+        InstrumentationService instrService = getInstrumentationService();
+        if (instrService != null) {
+            instrService.get().incr(INSTRUMENTATION_GROUP, name, count);
+        }
+    }
+
+    private static void addCron(String name, Instrumentation.Cron cron) {
+        InstrumentationService instrService = getInstrumentationService();
+        if (instrService != null) {
+            instrService.get().addCron(INSTRUMENTATION_GROUP, name, cron);
+        }
+    }
+
+    private static InstrumentationService getInstrumentationService() {
+        Services services = Services.get();
+        return (services == null) ? null : services.get(InstrumentationService.class);
+    }
+}
@@ -17,11 +17,8 @@
  */
 package org.apache.oozie.jms;
 
-import javax.jms.DeliveryMode;
-import javax.jms.JMSException;
-import javax.jms.MessageProducer;
-import javax.jms.Session;
-import javax.jms.TextMessage;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.sla.listener.SLAEventListener;
@@ -40,10 +37,7 @@ public class JMSSLAEventListener extends SLAEventListener {
     private JMSAccessorService jmsService = Services.get().get(JMSAccessorService.class);
     private JMSTopicService jmsTopicService = Services.get().get(JMSTopicService.class);
     private JMSConnectionInfo connInfo;
-    private int jmsSessionOpts;
-    private int jmsDeliveryMode;
-    private int jmsExpirationDate;
-    private ConnectionContext jmsContext;
+    private JMSMessagePublisher publisher;
     private static XLog LOG;
 
     @Override
@@ -51,9 +45,8 @@ public class JMSSLAEventListener extends SLAEventListener {
         String jmsProps = conf.get(JMSJobEventListener.JMS_CONNECTION_PROPERTIES);
         connInfo = new JMSConnectionInfo(jmsProps);
         LOG = XLog.getLog(getClass());
-        jmsSessionOpts = conf.getInt(JMSJobEventListener.JMS_SESSION_OPTS, Session.AUTO_ACKNOWLEDGE);
-        jmsDeliveryMode = conf.getInt(JMSJobEventListener.JMS_DELIVERY_MODE, DeliveryMode.PERSISTENT);
-        jmsExpirationDate = conf.getInt(JMSJobEventListener.JMS_EXPIRATION_DATE, 0);
+        publisher = new JMSMessagePublisher(jmsService, connInfo, conf);
+        publisher.start();
     }
 
     @Override
@@ -97,33 +90,16 @@ public class JMSSLAEventListener extends SLAEventListener {
 
     protected void sendJMSMessage(SLAMessage slaMsg, String messageBody, String topicName,
             String messageFormat) {
-        jmsContext = jmsService.createProducerConnectionContext(connInfo);
-        if (jmsContext != null) {
-            try {
-                Session session = jmsContext.createThreadLocalSession(jmsSessionOpts);
-                TextMessage textMessage = session.createTextMessage(messageBody);
-                textMessage.setStringProperty(JMSHeaderConstants.EVENT_STATUS, slaMsg.getEventStatus().toString());
-                textMessage.setStringProperty(JMSHeaderConstants.SLA_STATUS, slaMsg.getSLAStatus().toString());
-                textMessage.setStringProperty(JMSHeaderConstants.APP_TYPE, slaMsg.getAppType().toString());
-                textMessage.setStringProperty(JMSHeaderConstants.MESSAGE_TYPE, slaMsg.getMessageType().toString());
-                textMessage.setStringProperty(JMSHeaderConstants.APP_NAME, slaMsg.getAppName());
-                textMessage.setStringProperty(JMSHeaderConstants.USER, slaMsg.getUser());
-                textMessage.setStringProperty(JMSHeaderConstants.MESSAGE_FORMAT, messageFormat);
-                LOG.trace("Event related JMS text body [{0}]", textMessage.getText());
-                LOG.trace("Event related JMS message [{0}]", textMessage.toString());
-                MessageProducer producer = jmsContext.createProducer(session, topicName);
-                producer.setDeliveryMode(jmsDeliveryMode);
-                producer.setTimeToLive(jmsExpirationDate);
-                producer.send(textMessage);
-                producer.close();
-            }
-            catch (JMSException jmse) {
-                LOG.error("Exception happened while sending event related jms message :" + messageBody, jmse);
-            }
-        }
-        else {
-            LOG.warn("No connection. Not sending message" + messageBody);
-        }
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put(JMSHeaderConstants.EVENT_STATUS, slaMsg.getEventStatus().toString());
+        properties.put(JMSHeaderConstants.SLA_STATUS, slaMsg.getSLAStatus().toString());
+        properties.put(JMSHeaderConstants.APP_TYPE, slaMsg.getAppType().toString());
+        properties.put(JMSHeaderConstants.MESSAGE_TYPE, slaMsg.getMessageType().toString());
+        properties.put(JMSHeaderConstants.APP_NAME, slaMsg.getAppName());
+        properties.put(JMSHeaderConstants.USER, slaMsg.getUser());
+        properties.put(JMSHeaderConstants.MESSAGE_FORMAT, messageFormat);
+        LOG.trace("Event related JMS message properties [{0}]", properties);
+        publisher.publish(topicName, messageBody, properties);
     }
 
     public String getTopic(SLAEvent event) {
@@ -137,5 +113,8 @@ public class JMSSLAEventListener extends SLAEventListener {
 
     @Override
     public void destroy() {
+        if (publisher != null) {
+            publisher.stop(JMSJobEventListener.PUBLISHER_STOP_TIMEOUT);
+        }
     }
 }
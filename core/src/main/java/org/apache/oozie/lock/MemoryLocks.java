@@ -17,31 +17,137 @@
  */
 package org.apache.oozie.lock;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.Lock;
 
 /**
  * In memory resource locking that provides READ/WRITE lock capabilities.
+ * <p/>
+ * Locks are kept in a concurrent map. Each entry counts the threads holding or waiting for it and it is removed from
+ * the map when the last one releases it, lookups do not take any lock shared by all resources.
+ * <p/>
+ * Optionally, locks for job IDs can be striped: job IDs are hashed to a fixed set of locks, no entry is created per
+ * job. Different jobs may then share the same lock, which makes striping unsafe for threads holding a job lock while
+ * locking another job: two threads nesting locks of unrelated jobs on the same stripes can deadlock each other, and a
+ * thread holding a READ lock cannot obtain a WRITE lock for another job of the same stripe. The latter is detected, the
+ * WRITE lock is not obtained and <code>null</code> is returned right away instead of waiting for the thread itself.
+ * <p/>
+ * Lock acquisitions, contended acquisitions (the lock was not available right away), timeouts and wait time are
+ * tracked per resource type, see {@link ResourceType}.
  */
 public class MemoryLocks {
-    final private HashMap<String, ReentrantReadWriteLock> locks = new HashMap<String, ReentrantReadWriteLock>();
+
+    /**
+     * Resource types used for lock statistics, derived from the resource name.
+     */
+    public static enum ResourceType {
+        WORKFLOW, COORDINATOR, BUNDLE, OTHER;
+
+        /**
+         * Return the type of a resource from its name.
+         *
+         * @param resource resource name.
+         * @return the type of the resource, {@link #OTHER} if the resource is not a job ID.
+         */
+        public static ResourceType of(String resource) {
+            int length = resource.length();
+            if (length > 2 && resource.charAt(length - 2) == '-') {
+                switch (resource.charAt(length - 1)) {
+                    case 'W':
+                        return WORKFLOW;
+                    case 'C':
+                        return COORDINATOR;
+                    case 'B':
+                        return BUNDLE;
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    /**
+     * Lock statistics of a resource type.
+     */
+    public static class Stats {
+        private final AtomicLong acquired = new AtomicLong();
+        private final AtomicLong contended = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong waitTime = new AtomicLong();
+
+        /**
+         * @return number of locks obtained.
+         */
+        public long getAcquired() {
+            return acquired.get();
+        }
+
+        /**
+         * @return number of lock requests that could not obtain the lock right away.
+         */
+        public long getContended() {
+            return contended.get();
+        }
+
+        /**
+         * @return number of lock requests that did not obtain the lock.
+         */
+        public long getTimeouts() {
+            return timeouts.get();
+        }
+
+        /**
+         * @return total time, in milliseconds, spent waiting for contended locks.
+         */
+        public long getWaitTime() {
+            return waitTime.get();
+        }
+    }
 
     private static enum Type {
         READ, WRITE
     }
 
+    /**
+     * Lock entry, a read/write lock with the count of threads holding or waiting for it.
+     * <p/>
+     * Once the count drops to zero the entry is removed from the map and cannot be referenced again.
+     */
+    private static class LockEntry {
+        private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock(true);
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private boolean reference() {
+            while (true) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private final ConcurrentMap<String, LockEntry> locks = new ConcurrentHashMap<String, LockEntry>();
+    private final ReentrantReadWriteLock[] stripes;
+    private final Stats[] stats;
+
     /**
      * Implementation of {@link LockToken} for in memory locks.
      */
     class MemoryLockToken implements LockToken {
-        private final ReentrantReadWriteLock rwLock;
+        private final LockEntry entry;
         private final java.util.concurrent.locks.Lock lock;
         private final String resource;
 
-        private MemoryLockToken(ReentrantReadWriteLock rwLock, java.util.concurrent.locks.Lock lock, String resource) {
-            this.rwLock = rwLock;
+        private MemoryLockToken(LockEntry entry, java.util.concurrent.locks.Lock lock, String resource) {
+            this.entry = entry;
             this.lock = lock;
             this.resource = resource;
         }
@@ -51,18 +157,43 @@ public class MemoryLocks {
          */
         @Override
         public void release() {
-            int val = rwLock.getQueueLength();
-            if (val == 0) {
-                synchronized (locks) {
-                    locks.remove(resource);
-                }
-            }
             lock.unlock();
+            if (entry != null) {
+                dereference(resource, entry);
+            }
+        }
+    }
+
+    /**
+     * Create in memory locks without striping.
+     */
+    public MemoryLocks() {
+        this(0);
+    }
+
+    /**
+     * Create in memory locks.
+     *
+     * @param jobStripes number of locks shared by job IDs, <code>0</code> to use one lock per job ID.
+     */
+    public MemoryLocks(int jobStripes) {
+        if (jobStripes < 0) {
+            throw new IllegalArgumentException("jobStripes cannot be negative");
+        }
+        stripes = new ReentrantReadWriteLock[jobStripes];
+        for (int i = 0; i < jobStripes; i++) {
+            stripes[i] = new ReentrantReadWriteLock(true);
+        }
+        stats = new Stats[ResourceType.values().length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new Stats();
         }
     }
 
     /**
      * Return the number of active locks.
+     * <p/>
+     * Striped locks are not included.
      *
      * @return the number of active locks.
      */
@@ -70,6 +201,16 @@ public class MemoryLocks {
         return locks.size();
     }
 
+    /**
+     * Return the lock statistics of a resource type.
+     *
+     * @param type resource type.
+     * @return the lock statistics of the resource type.
+     */
+    public Stats getStats(ResourceType type) {
+        return stats[type.ordinal()];
+    }
+
     /**
      * Obtain a READ lock for a source.
      *
@@ -94,40 +235,88 @@ public class MemoryLocks {
         return getLock(resource, Type.WRITE, wait);
     }
 
-    private MemoryLockToken getLock(String resource, Type type, long wait) throws InterruptedException {
-        ReentrantReadWriteLock lockEntry;
-        synchronized (locks) {
-            if (locks.containsKey(resource)) {
-                lockEntry = locks.get(resource);
+    private LockEntry reference(String resource) {
+        while (true) {
+            LockEntry entry = locks.get(resource);
+            if (entry == null) {
+                LockEntry newEntry = new LockEntry();
+                entry = locks.putIfAbsent(resource, newEntry);
+                if (entry == null) {
+                    return newEntry;
+                }
             }
-            else {
-                lockEntry = new ReentrantReadWriteLock(true);
-                locks.put(resource, lockEntry);
+            if (entry.reference()) {
+                return entry;
             }
+            // the entry is being removed, try again
         }
+    }
+
+    private void dereference(String resource, LockEntry entry) {
+        if (entry.references.decrementAndGet() == 0) {
+            locks.remove(resource, entry);
+        }
+    }
 
-        Lock lock = (type.equals(Type.READ)) ? lockEntry.readLock() : lockEntry.writeLock();
+    private MemoryLockToken getLock(String resource, Type type, long wait) throws InterruptedException {
+        ResourceType resourceType = ResourceType.of(resource);
+        Stats typeStats = stats[resourceType.ordinal()];
 
-        if (wait == -1) {
-            lock.lock();
+        LockEntry entry = null;
+        ReentrantReadWriteLock rwLock;
+        if (stripes.length > 0 && resourceType != ResourceType.OTHER) {
+            rwLock = stripes[(resource.hashCode() & Integer.MAX_VALUE) % stripes.length];
         }
         else {
-            if (wait > 0) {
-                if (!lock.tryLock(wait, TimeUnit.MILLISECONDS)) {
-                    return null;
+            entry = reference(resource);
+            rwLock = entry.rwLock;
+        }
+        Lock lock = (type.equals(Type.READ)) ? rwLock.readLock() : rwLock.writeLock();
+
+        if (entry == null && type.equals(Type.WRITE) && rwLock.getReadHoldCount() > 0
+                && !rwLock.isWriteLockedByCurrentThread()) {
+            // the thread holds the stripe for another job, a READ lock cannot be upgraded
+            typeStats.contended.incrementAndGet();
+            typeStats.timeouts.incrementAndGet();
+            return null;
+        }
+
+        boolean locked = false;
+        try {
+            // a zero timeout honors the fairness of the lock, unlike tryLock()
+            locked = lock.tryLock(0, TimeUnit.MILLISECONDS);
+            if (!locked && wait != 0) {
+                typeStats.contended.incrementAndGet();
+                long start = System.currentTimeMillis();
+                try {
+                    if (wait == -1) {
+                        lock.lock();
+                        locked = true;
+                    }
+                    else {
+                        locked = lock.tryLock(wait, TimeUnit.MILLISECONDS);
+                    }
                 }
-            }
-            else {
-                if (!lock.tryLock()) {
-                    return null;
+                finally {
+                    typeStats.waitTime.addAndGet(System.currentTimeMillis() - start);
                 }
             }
+            else if (!locked) {
+                typeStats.contended.incrementAndGet();
+            }
         }
-        synchronized (locks) {
-            if (!locks.containsKey(resource)) {
-                locks.put(resource, lockEntry);
+        finally {
+            if (!locked) {
+                typeStats.timeouts.incrementAndGet();
+                if (entry != null) {
+                    dereference(resource, entry);
+                }
             }
         }
-        return new MemoryLockToken(lockEntry, lock, resource);
+        if (!locked) {
+            return null;
+        }
+        typeStats.acquired.incrementAndGet();
+        return new MemoryLockToken(entry, lock, resource);
     }
 }
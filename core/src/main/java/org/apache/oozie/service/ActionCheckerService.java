@@ -30,6 +30,8 @@ import org.apache.oozie.executor.jpa.CoordActionsRunningGetJPAExecutor;
 import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor.WorkflowActionQuery;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 
@@ -38,8 +40,12 @@ import org.apache.oozie.util.XLog;
  * running actions and CoordActionCheckCommands to check the status of
  * coordinator actions. The delay between checks on the same action can be
  * configured.
+ * <p/>
+ * In push mode the workflow actions are completed by their callbacks. The running workflow actions are tracked in a
+ * {@link RunningActionIndex} and only the actions the index considers due are checked, without querying the database.
+ * The database is queried for all the running actions, as without push mode, only every reconciliation interval.
  */
-public class ActionCheckerService implements Service {
+public class ActionCheckerService implements Service, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "ActionCheckerService.";
     /**
@@ -56,9 +62,32 @@ public class ActionCheckerService implements Service {
      */
     public static final String CONF_CALLABLE_BATCH_SIZE = CONF_PREFIX + "callable.batch.size";
 
+    /**
+     * Whether the workflow actions are completed by their callbacks and tracked in memory.
+     */
+    public static final String CONF_PUSH_MODE = CONF_PREFIX + "push.mode";
+
+    /**
+     * The time, in seconds, between two queries of all the running workflow actions in push mode.
+     */
+    public static final String CONF_RECONCILIATION_INTERVAL = CONF_PREFIX + "reconciliation.interval";
+
+    /**
+     * The minimum time, in seconds, between two checks of the same workflow action in push mode.
+     */
+    public static final String CONF_PUSH_MIN_CHECK_INTERVAL = CONF_PREFIX + "push.min.check.interval";
+
+    /**
+     * The maximum time, in seconds, between two checks of the same workflow action in push mode.
+     */
+    public static final String CONF_PUSH_MAX_CHECK_INTERVAL = CONF_PREFIX + "push.max.check.interval";
+
     protected static final String INSTRUMENTATION_GROUP = "actionchecker";
     protected static final String INSTR_CHECK_ACTIONS_COUNTER = "checks_wf_actions";
     protected static final String INSTR_CHECK_COORD_ACTIONS_COUNTER = "checks_coord_actions";
+    protected static final String INSTR_RECONCILED_ACTIONS_COUNTER = "reconciled_wf_actions";
+
+    private RunningActionIndex runningActionIndex;
 
 
     /**
@@ -69,9 +98,24 @@ public class ActionCheckerService implements Service {
         private int actionCheckDelay;
         private List<XCallable<Void>> callables;
         private StringBuilder msg = null;
+        private RunningActionIndex index;
+        private long reconciliationInterval;
+        private long nextReconciliationTime;
 
         public ActionCheckRunnable(int actionCheckDelay) {
+            this(actionCheckDelay, null, 0);
+        }
+
+        /**
+         * @param actionCheckDelay the time, in seconds, between an ActionCheck for the same action.
+         * @param index index of the running workflow actions, <code>null</code> if not in push mode.
+         * @param reconciliationInterval the time, in milliseconds, between two queries of the running workflow
+         * actions in push mode.
+         */
+        public ActionCheckRunnable(int actionCheckDelay, RunningActionIndex index, long reconciliationInterval) {
             this.actionCheckDelay = actionCheckDelay;
+            this.index = index;
+            this.reconciliationInterval = reconciliationInterval;
         }
 
         public void run() {
@@ -104,6 +148,19 @@ public class ActionCheckerService implements Service {
          * @throws CommandException
          */
         private void runWFActionCheck() throws CommandException {
+            long now = System.currentTimeMillis();
+            if (index != null && now < nextReconciliationTime) {
+                List<String> actionIds = index.getDueActions(now);
+                msg.append(" WF_ACTIONS (index) : ").append(actionIds.size());
+                for (String actionId : actionIds) {
+                    Services.get().get(InstrumentationService.class).get().incr(INSTRUMENTATION_GROUP,
+                            INSTR_CHECK_ACTIONS_COUNTER, 1);
+                    queueCallable(new ActionCheckXCommand(actionId));
+                }
+                return;
+            }
+            nextReconciliationTime = now + reconciliationInterval;
+
             JPAService jpaService = Services.get().get(JPAService.class);
             if (jpaService == null) {
                 throw new CommandException(ErrorCode.E0610);
@@ -133,6 +190,10 @@ public class ActionCheckerService implements Service {
             msg.append(" WF_ACTIONS : ").append(actionIds.size());
 
             for (String actionId : actionIds) {
+                if (index != null && index.reconcile(actionId, now)) {
+                    Services.get().get(InstrumentationService.class).get().incr(INSTRUMENTATION_GROUP,
+                            INSTR_RECONCILED_ACTIONS_COUNTER, 1);
+                }
                 Services.get().get(InstrumentationService.class).get().incr(INSTRUMENTATION_GROUP,
                         INSTR_CHECK_ACTIONS_COUNTER, 1);
                     queueCallable(new ActionCheckXCommand(actionId));
@@ -222,7 +283,12 @@ public class ActionCheckerService implements Service {
     @Override
     public void init(Services services) {
         Configuration conf = services.getConf();
-        Runnable actionCheckRunnable = new ActionCheckRunnable(conf.getInt(CONF_ACTION_CHECK_DELAY, 600));
+        if (conf.getBoolean(CONF_PUSH_MODE, false)) {
+            runningActionIndex = new RunningActionIndex(conf.getInt(CONF_PUSH_MIN_CHECK_INTERVAL, 300) * 1000L,
+                    conf.getInt(CONF_PUSH_MAX_CHECK_INTERVAL, 3600) * 1000L);
+        }
+        Runnable actionCheckRunnable = new ActionCheckRunnable(conf.getInt(CONF_ACTION_CHECK_DELAY, 600),
+                runningActionIndex, conf.getInt(CONF_RECONCILIATION_INTERVAL, 3600) * 1000L);
         services.get(SchedulerService.class).schedule(actionCheckRunnable, 10,
                 conf.getInt(CONF_ACTION_CHECK_INTERVAL, 60), SchedulerService.Unit.SEC);
     }
@@ -243,4 +309,30 @@ public class ActionCheckerService implements Service {
     public Class<? extends Service> getInterface() {
         return ActionCheckerService.class;
     }
+
+    /**
+     * Instruments the action checker service.
+     *
+     * @param instr instrumentation to use.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        if (runningActionIndex != null) {
+            instr.addVariable(INSTRUMENTATION_GROUP, "indexed_wf_actions", new Instrumentation.Variable<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return runningActionIndex.size();
+                }
+            });
+        }
+    }
+
+    /**
+     * Return the index of the running workflow actions.
+     *
+     * @return the index, <code>null</code> if the service is not running in push mode.
+     */
+    public RunningActionIndex getRunningActionIndex() {
+        return runningActionIndex;
+    }
 }
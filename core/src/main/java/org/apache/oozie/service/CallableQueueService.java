@@ -20,7 +20,6 @@ package org.apache.oozie.service;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -29,16 +28,24 @@ import java.util.Set;
 import java.util.Map.Entry;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.client.OozieClient.SYSTEM_MODE;
+import org.apache.oozie.util.ConcurrencyLimiter;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.PollablePriorityDelayQueue;
 import org.apache.oozie.util.PriorityDelayQueue;
+import org.apache.oozie.util.ShardedPriorityDelayQueue;
 import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
@@ -63,6 +70,18 @@ import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
  * of threads is reached, commands remain the queue until threads become available. Sets up a priority queue for the
  * execution of Commands via a ThreadPool. Sets up a Delayed Queue to handle actions which will be ready for execution
  * sometime in the future.
+ * <p/>
+ * {@link #CONF_CALLABLE_CONCURRENCY} maximum concurrency for a callable type, {@link #CONF_CALLABLE_CONCURRENCY_TYPES}
+ * overrides it for specific callable types.
+ * <p/>
+ * {@link #CONF_EXECUTION_MODE} execution mode, in <code>pool</code> mode the callables run in the thread-pool threads.
+ * In <code>elastic</code> mode the thread-pool threads only dispatch the callables, in priority and delay order, to an
+ * elastic executor (virtual threads if the JVM supports them and {@link #CONF_ELASTIC_VIRTUAL_THREADS} is true, a
+ * cached thread-pool otherwise) that runs up to {@link #CONF_ELASTIC_MAX_CONCURRENCY} callables concurrently.
+ * <p/>
+ * {@link #CONF_QUEUE_TYPE} type of the queue, <code>default</code> uses a {@link PriorityDelayQueue} guarded by a single
+ * lock, <code>sharded</code> uses a lock-striped {@link ShardedPriorityDelayQueue} with {@link #CONF_QUEUE_SHARDS}
+ * shards per priority.
  */
 public class CallableQueueService implements Service, Instrumentable {
     private static final String INSTRUMENTATION_GROUP = "callablequeue";
@@ -72,22 +91,35 @@ public class CallableQueueService implements Service, Instrumentable {
     private static final String INSTR_QUEUED_COUNTER = "queued";
     private static final String INSTR_QUEUE_SIZE_SAMPLER = "queue.size";
     private static final String INSTR_THREADS_ACTIVE_SAMPLER = "threads.active";
+    private static final String INSTR_ELASTIC_ACTIVE_SAMPLER = "elastic.active";
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "CallableQueueService.";
 
     public static final String CONF_QUEUE_SIZE = CONF_PREFIX + "queue.size";
     public static final String CONF_THREADS = CONF_PREFIX + "threads";
+    public static final String CONF_EXECUTION_MODE = CONF_PREFIX + "execution.mode";
+    public static final String CONF_ELASTIC_MAX_CONCURRENCY = CONF_PREFIX + "elastic.max.concurrency";
+    public static final String CONF_ELASTIC_VIRTUAL_THREADS = CONF_PREFIX + "elastic.virtual.threads";
+    public static final String CONF_QUEUE_TYPE = CONF_PREFIX + "queue.type";
+    public static final String CONF_QUEUE_SHARDS = CONF_PREFIX + "queue.shards";
     public static final String CONF_CALLABLE_CONCURRENCY = CONF_PREFIX + "callable.concurrency";
+    public static final String CONF_CALLABLE_CONCURRENCY_TYPES = CONF_PREFIX + "callable.concurrency.types";
     public static final String CONF_CALLABLE_NEXT_ELIGIBLE = CONF_PREFIX + "callable.next.eligible";
     public static final String CONF_CALLABLE_INTERRUPT_TYPES = CONF_PREFIX + "InterruptTypes";
     public static final String CONF_CALLABLE_INTERRUPT_MAP_MAX_SIZE = CONF_PREFIX + "InterruptMapMaxSize";
 
+    public static final String EXECUTION_MODE_POOL = "pool";
+    public static final String EXECUTION_MODE_ELASTIC = "elastic";
+
+    public static final String QUEUE_TYPE_DEFAULT = "default";
+    public static final String QUEUE_TYPE_SHARDED = "sharded";
+
+    private static final String COMPOSITE_TYPE_PREFIX = "#composite#";
+
     public static final int CONCURRENCY_DELAY = 500;
 
     public static final int SAFE_MODE_DELAY = 60000;
 
-    private final Map<String, AtomicInteger> activeCallables = new HashMap<String, AtomicInteger>();
-
     private final Map<String, Date> uniqueCallables = new ConcurrentHashMap<String, Date>();
 
     private final ConcurrentHashMap<String, Set<XCallable<?>>> interruptCommandsMap = new ConcurrentHashMap<String, Set<XCallable<?>>>();
@@ -96,46 +128,18 @@ public class CallableQueueService implements Service, Instrumentable {
 
     private int interruptMapMaxSize;
 
-    private int maxCallableConcurrency;
+    private ConcurrencyLimiter concurrencyLimiter;
 
     private boolean callableBegin(XCallable<?> callable) {
-        synchronized (activeCallables) {
-            AtomicInteger counter = activeCallables.get(callable.getType());
-            if (counter == null) {
-                counter = new AtomicInteger(1);
-                activeCallables.put(callable.getType(), counter);
-                return true;
-            }
-            else {
-                int i = counter.incrementAndGet();
-                return i <= maxCallableConcurrency;
-            }
-        }
+        return concurrencyLimiter.acquire(callable.getType());
     }
 
     private void callableEnd(XCallable<?> callable) {
-        synchronized (activeCallables) {
-            AtomicInteger counter = activeCallables.get(callable.getType());
-            if (counter == null) {
-                throw new IllegalStateException("It should not happen");
-            }
-            else {
-                counter.decrementAndGet();
-            }
-        }
+        concurrencyLimiter.release(callable.getType());
     }
 
     private boolean callableReachMaxConcurrency(XCallable<?> callable) {
-        synchronized (activeCallables) {
-            AtomicInteger counter = activeCallables.get(callable.getType());
-            if (counter == null) {
-                return true;
-            }
-            else {
-                int i = counter.get();
-                return i < maxCallableConcurrency;
-            }
-        }
+        return concurrencyLimiter.hasFreeSlot(callable.getType());
     }
 
     // Callables are wrapped with the this wrapper for execution, for logging
@@ -152,7 +156,57 @@ public class CallableQueueService implements Service, Instrumentable {
         }
 
         public void run() {
+            if (elasticExecutor != null) {
+                dispatch();
+            }
+            else {
+                runCallable();
+            }
+        }
+
+        /**
+         * Hand the callable over to the elastic executor, waiting for a free execution slot.
+         * <p/>
+         * This runs in the dispatcher threads when the service is in {@link #EXECUTION_MODE_ELASTIC} mode.
+         */
+        private void dispatch() {
+            try {
+                while (!elasticPermits.tryAcquire(1, TimeUnit.SECONDS)) {
+                    if (executor.isShutdown()) {
+                        log.warn("Executor shutting down, ignoring dispatching of [{0}]", getElement().getKey());
+                        removeFromUniqueCallables();
+                        return;
+                    }
+                }
+            }
+            catch (InterruptedException ex) {
+                log.warn("Interrupted while dispatching [{0}]", getElement().getKey());
+                removeFromUniqueCallables();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                elasticExecutor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            runCallable();
+                        }
+                        finally {
+                            elasticPermits.release();
+                        }
+                    }
+                });
+            }
+            catch (RejectedExecutionException ex) {
+                elasticPermits.release();
+                removeFromUniqueCallables();
+                log.warn("Elastic executor shutting down, ignoring execution of [{0}]", getElement().getKey());
+            }
+        }
+
+        private void runCallable() {
             XCallable<?> callable = null;
+            boolean acquired = false;
             try {
                 removeFromUniqueCallables();
                 if (Services.get().getSystemMode() == SYSTEM_MODE.SAFEMODE) {
@@ -163,7 +217,8 @@ public class CallableQueueService implements Service, Instrumentable {
                     return;
                 }
                 callable = getElement();
-                if (callableBegin(callable)) {
+                acquired = callableBegin(callable);
+                if (acquired) {
                     cron.stop();
                     addInQueueCron(cron);
                     XLog.Info.get().clear();
@@ -197,7 +252,7 @@ public class CallableQueueService implements Service, Instrumentable {
                         t.getMessage(), t);
             }
             finally {
-                if (callable != null) {
+                if (acquired) {
                     callableEnd(callable);
                 }
             }
@@ -278,17 +333,17 @@ public class CallableQueueService implements Service, Instrumentable {
 
         @Override
         public String getType() {
-            return "#composite#" + callables.get(0).getType();
+            return COMPOSITE_TYPE_PREFIX + callables.get(0).getType();
         }
 
         @Override
         public String getKey() {
-            return "#composite#" + callables.get(0).getKey();
+            return COMPOSITE_TYPE_PREFIX + callables.get(0).getKey();
         }
 
         @Override
         public String getEntityKey() {
-            return "#composite#" + callables.get(0).getEntityKey();
+            return COMPOSITE_TYPE_PREFIX + callables.get(0).getEntityKey();
         }
 
         @Override
@@ -407,8 +462,12 @@ public class CallableQueueService implements Service, Instrumentable {
     private XLog log = XLog.getLog(getClass());
 
     private int queueSize;
-    private PriorityDelayQueue<CallableWrapper> queue;
+    private BlockingQueue<QueueElement<CallableWrapper>> queue;
     private ThreadPoolExecutor executor;
+    private ExecutorService elasticExecutor;
+    private Semaphore elasticPermits;
+    private int elasticMaxConcurrency;
+    private boolean elasticVirtualThreads;
     private Instrumentation instrumentation;
 
     /**
@@ -442,13 +501,52 @@ public class CallableQueueService implements Service, Instrumentable {
         queueSize = conf.getInt(CONF_QUEUE_SIZE, 10000);
         int threads = conf.getInt(CONF_THREADS, 10);
         boolean callableNextEligible = conf.getBoolean(CONF_CALLABLE_NEXT_ELIGIBLE, true);
+        String queueType = conf.get(CONF_QUEUE_TYPE, QUEUE_TYPE_DEFAULT).trim();
+
+        Map<String, Integer> typeLimits =
+                ConcurrencyLimiter.parseLimits(conf.getStrings(CONF_CALLABLE_CONCURRENCY_TYPES));
+        for (Map.Entry<String, Integer> entry : new ArrayList<Map.Entry<String, Integer>>(typeLimits.entrySet())) {
+            log.debug("Max concurrency for callable type [{0}] is [{1}]", entry.getKey(), entry.getValue());
+            typeLimits.put(COMPOSITE_TYPE_PREFIX + entry.getKey(), entry.getValue());
+        }
+        concurrencyLimiter = new ConcurrencyLimiter(conf.getInt(CONF_CALLABLE_CONCURRENCY, 3), typeLimits);
 
         for (String type : conf.getStringCollection(CONF_CALLABLE_INTERRUPT_TYPES)) {
             log.debug("Adding interrupt type [{0}]", type);
             INTERRUPT_TYPES.add(type);
         }
 
-        if (!callableNextEligible) {
+        if (queueType.equals(QUEUE_TYPE_SHARDED)) {
+            int shards = conf.getInt(CONF_QUEUE_SHARDS, 8);
+            final boolean nextEligible = callableNextEligible;
+            log.info("Using sharded callable queue with [{0}] shards per priority", shards);
+            queue = new ShardedPriorityDelayQueue<CallableWrapper>(3, shards, 1000 * 30, TimeUnit.MILLISECONDS,
+                    queueSize) {
+                @Override
+                protected void debug(String msgTemplate, Object... msgArgs) {
+                    log.trace(msgTemplate, msgArgs);
+                }
+
+                @Override
+                protected boolean eligibleToPoll(QueueElement<?> element) {
+                    if (!nextEligible) {
+                        return true;
+                    }
+                    if (element != null) {
+                        CallableWrapper wrapper = (CallableWrapper) element;
+                        if (element.getElement() != null) {
+                            return callableReachMaxConcurrency(wrapper.getElement());
+                        }
+                    }
+                    return false;
+                }
+            };
+        }
+        else if (!queueType.equals(QUEUE_TYPE_DEFAULT)) {
+            throw new IllegalArgumentException("Invalid " + CONF_QUEUE_TYPE + " [" + queueType + "], must be ["
+                    + QUEUE_TYPE_DEFAULT + "] or [" + QUEUE_TYPE_SHARDED + "]");
+        }
+        else if (!callableNextEligible) {
             queue = new PriorityDelayQueue<CallableWrapper>(3, 1000 * 30, TimeUnit.MILLISECONDS, queueSize) {
                 @Override
                 protected void debug(String msgTemplate, Object... msgArgs) {
@@ -484,6 +582,18 @@ public class CallableQueueService implements Service, Instrumentable {
 
         interruptMapMaxSize = conf.getInt(CONF_CALLABLE_INTERRUPT_MAP_MAX_SIZE, 100);
 
+        String executionMode = conf.get(CONF_EXECUTION_MODE, EXECUTION_MODE_POOL).trim();
+        if (executionMode.equals(EXECUTION_MODE_ELASTIC)) {
+            elasticMaxConcurrency = conf.getInt(CONF_ELASTIC_MAX_CONCURRENCY, 1000);
+            elasticVirtualThreads = conf.getBoolean(CONF_ELASTIC_VIRTUAL_THREADS, true);
+            elasticPermits = new Semaphore(elasticMaxConcurrency);
+            elasticExecutor = createElasticExecutor();
+        }
+        else if (!executionMode.equals(EXECUTION_MODE_POOL)) {
+            throw new IllegalArgumentException("Invalid " + CONF_EXECUTION_MODE + " [" + executionMode
+                    + "], must be [" + EXECUTION_MODE_POOL + "] or [" + EXECUTION_MODE_ELASTIC + "]");
+        }
+
         // IMPORTANT: The ThreadPoolExecutor does not always the execute
         // commands out of the queue, there are
         // certain conditions where commands are pushed directly to a thread.
@@ -509,8 +619,42 @@ public class CallableQueueService implements Service, Instrumentable {
                 }
             });
         }
+    }
 
-        maxCallableConcurrency = conf.getInt(CONF_CALLABLE_CONCURRENCY, 3);
+    /**
+     * Create the executor used to run the callables in {@link #EXECUTION_MODE_ELASTIC} mode.
+     * <p/>
+     * If virtual threads are enabled and the JVM supports them, one virtual thread is used per callable. Otherwise a
+     * cached thread-pool is used, its size is bound by the number of execution slots.
+     *
+     * @return the elastic executor.
+     */
+    private ExecutorService createElasticExecutor() {
+        if (elasticVirtualThreads) {
+            try {
+                ExecutorService virtualExecutor = (ExecutorService) Executors.class.getMethod(
+                        "newVirtualThreadPerTaskExecutor").invoke(null);
+                log.info("Running callables in virtual threads, max concurrency [{0}]", elasticMaxConcurrency);
+                return virtualExecutor;
+            }
+            catch (NoSuchMethodException ex) {
+                log.info("Virtual threads not supported by the JVM, using a cached thread-pool");
+            }
+            catch (Exception ex) {
+                log.warn("Could not create virtual thread executor, using a cached thread-pool, {0}",
+                        ex.getMessage(), ex);
+            }
+        }
+        log.info("Running callables in a cached thread-pool, max concurrency [{0}]", elasticMaxConcurrency);
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "callable-elastic-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
     }
 
     /**
@@ -529,6 +673,16 @@ public class CallableQueueService implements Service, Instrumentable {
                     break;
                 }
             }
+            if (elasticExecutor != null) {
+                elasticExecutor.shutdown();
+                while (!elasticExecutor.awaitTermination(1000, TimeUnit.MILLISECONDS)) {
+                    log.info("Waiting for elastic executor to shutdown");
+                    if (System.currentTimeMillis() > limit) {
+                        log.warn("Gave up, continuing without waiting for elastic executor to shutdown");
+                        break;
+                    }
+                }
+            }
         }
         catch (InterruptedException ex) {
             log.warn(ex);
@@ -545,24 +699,39 @@ public class CallableQueueService implements Service, Instrumentable {
         return CallableQueueService.class;
     }
 
+    /**
+     * Return the number of callables running in the elastic executor.
+     *
+     * @return the number of callables running in the elastic executor, <code>0</code> if the service is not in
+     *         {@link #EXECUTION_MODE_ELASTIC} mode.
+     */
+    public int elasticActiveCount() {
+        return (elasticExecutor == null) ? 0 : elasticMaxConcurrency - elasticPermits.availablePermits();
+    }
+
     /**
      * @return int size of queue
      */
-    public synchronized int queueSize() {
+    public int queueSize() {
         return queue.size();
     }
 
-    private synchronized boolean queue(CallableWrapper wrapper, boolean ignoreQueueSize) {
+    private boolean queue(CallableWrapper wrapper, boolean ignoreQueueSize) {
         if (!ignoreQueueSize && queue.size() >= queueSize) {
             log.warn("queue full, ignoring queuing for [{0}]", wrapper.getElement().getKey());
             return false;
         }
         if (!executor.isShutdown()) {
-            if (wrapper.filterDuplicates()) {
-                wrapper.addToUniqueCallables();
+            if (reserveUniqueCallables(wrapper)) {
                 try {
                     executor.execute(wrapper);
                 }
+                catch (RejectedExecutionException ree) {
+                    // the size check is not atomic with the insertion, the bounded queue may have filled up since
+                    wrapper.removeFromUniqueCallables();
+                    log.warn("queue full, ignoring queuing for [{0}]", wrapper.getElement().getKey());
+                    return false;
+                }
                 catch (Throwable ree) {
                     wrapper.removeFromUniqueCallables();
                     throw new RuntimeException(ree);
@@ -575,6 +744,24 @@ public class CallableQueueService implements Service, Instrumentable {
         return true;
     }
 
+    /**
+     * Filter the duplicates of a callable and register its keys as queued.
+     * <p/>
+     * Only this check-and-register step is serialized, the insertion into the queue is done outside of the monitor.
+     *
+     * @param wrapper callable wrapper to queue.
+     * @return true if the callable should be queued.
+     */
+    private boolean reserveUniqueCallables(CallableWrapper wrapper) {
+        synchronized (uniqueCallables) {
+            if (wrapper.filterDuplicates()) {
+                wrapper.addToUniqueCallables();
+                return true;
+            }
+            return false;
+        }
+    }
+
     /**
      * Queue a callable for asynchronous execution.
      *
@@ -609,7 +796,7 @@ public class CallableQueueService implements Service, Instrumentable {
      * @return <code>true</code> if the callable was queued, <code>false</code>
      *         if the queue is full and the callable was not queued.
      */
-    public synchronized boolean queue(XCallable<?> callable, long delay) {
+    public boolean queue(XCallable<?> callable, long delay) {
         if (callable == null) {
             return true;
         }
@@ -642,7 +829,7 @@ public class CallableQueueService implements Service, Instrumentable {
      * @return <code>true</code> if the callables were queued, <code>false</code> if the queue is full and the callables
      *         were not queued.
      */
-    public synchronized boolean queueSerial(List<? extends XCallable<?>> callables, long delay) {
+    public boolean queueSerial(List<? extends XCallable<?>> callables, long delay) {
         boolean queued;
         if (callables == null || callables.size() == 0) {
             queued = true;
@@ -678,6 +865,14 @@ public class CallableQueueService implements Service, Instrumentable {
                         return (long) executor.getActiveCount();
                     }
                 });
+        if (elasticExecutor != null) {
+            instr.addSampler(INSTRUMENTATION_GROUP, INSTR_ELASTIC_ACTIVE_SAMPLER, 60, 1,
+                    new Instrumentation.Variable<Long>() {
+                        public Long getValue() {
+                            return (long) (elasticMaxConcurrency - elasticPermits.availablePermits());
+                        }
+                    });
+        }
     }
 
     /**
@@ -35,7 +35,9 @@ import java.util.List;
  * of constant definitions to be available for EL evaluations. <p/> {@link #CONF_FUNCTIONS} list of function definitions
  * to be available for EL evalations. <p/> Definitions must be separated by a comma, definitions are trimmed. <p/> The
  * syntax for a constant definition is <code>PREFIX:NAME=CLASS_NAME#CONSTANT_NAME</code>. <p/> The syntax for a constant
- * definition is <code>PREFIX:NAME=CLASS_NAME#METHOD_NAME</code>.
+ * definition is <code>PREFIX:NAME=CLASS_NAME#METHOD_NAME</code>. <p/> The constants and functions of a group are
+ * registered once in a context shared by the evaluators of the group, each evaluator only holds its own variables.
+ * <p/> {@link #CONF_EXPRESSION_CACHE_SIZE} maximum number of parsed EL expressions cached.
  */
 public class ELService implements Service {
 
@@ -51,6 +53,8 @@ public class ELService implements Service {
 
     public static final String CONF_GROUPS = CONF_PREFIX + "groups";
 
+    public static final String CONF_EXPRESSION_CACHE_SIZE = CONF_PREFIX + "expression.cache.size";
+
     private final XLog log = XLog.getLog(getClass());
 
     //<Group Name>, <List of constants>
@@ -58,6 +62,9 @@ public class ELService implements Service {
     //<Group Name>, <List of functions>
     private HashMap<String, List<ELFunction>> functions;
 
+    //<Group Name>, <Context with the constants and functions>, not modified once built
+    private HashMap<String, ELEvaluator.Context> contexts;
+
     private static class ELConstant {
         private String name;
         private Object value;
@@ -134,6 +141,12 @@ public class ELService implements Service {
             tmpFunctions.addAll(extractFunctions(services.getConf(), CONF_EXT_FUNCTIONS + group));
             functions.put(group, tmpFunctions);
         }
+        contexts = new HashMap<String, ELEvaluator.Context>();
+        for (String group : groupList) {
+            contexts.put(group, createContext(group));
+        }
+        ELEvaluator.setExpressionCacheSize(services.getConf().getInt(CONF_EXPRESSION_CACHE_SIZE,
+                ELEvaluator.DEFAULT_EXPRESSION_CACHE_SIZE));
     }
 
     /**
@@ -143,6 +156,7 @@ public class ELService implements Service {
     public void destroy() {
         constants = null;
         functions = null;
+        contexts = null;
     }
 
     /**
@@ -164,6 +178,14 @@ public class ELService implements Service {
      * @return a preconfigured {@link ELEvaluator}.
      */
     public ELEvaluator createEvaluator(String group) {
+        ELEvaluator.Context context = contexts.get(group);
+        if (context == null) {
+            throw new IllegalArgumentException("Group " + group + " is not defined");
+        }
+        return new ELEvaluator(new ELEvaluator.Context(context));
+    }
+
+    private ELEvaluator.Context createContext(String group) {
         ELEvaluator.Context context = new ELEvaluator.Context();
         boolean groupDefined = false;
         if (constants.containsKey(group)) {
@@ -181,7 +203,7 @@ public class ELService implements Service {
         if (groupDefined == false) {
             throw new IllegalArgumentException("Group " + group + " is not defined");
         }
-        return new ELEvaluator(context);
+        return context;
     }
 
     private static String[] parseDefinition(String str) throws ServiceException {
@@ -26,13 +26,17 @@ import org.apache.oozie.event.CoordinatorJobEvent;
 import org.apache.oozie.client.event.Event;
 import org.apache.oozie.client.event.Event.MessageType;
 import org.apache.oozie.client.event.JobEvent;
+import org.apache.oozie.event.BlockingEventQueue;
 import org.apache.oozie.event.EventQueue;
+import org.apache.oozie.event.EventQueue.EventQueueElement;
 import org.apache.oozie.event.MemoryEventQueue;
 import org.apache.oozie.event.WorkflowActionEvent;
 import org.apache.oozie.event.WorkflowJobEvent;
 import org.apache.oozie.event.listener.JobEventListener;
 import org.apache.oozie.sla.listener.SLAEventListener;
 import org.apache.oozie.client.event.SLAEvent;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 
 import java.util.ArrayList;
@@ -42,13 +46,23 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service class that handles the events system - creating events queue,
  * managing configured properties and managing and invoking various event
  * listeners via worker threads
+ * <p/>
+ * If the events queue is a {@link BlockingEventQueue}, the events are not processed by scheduled worker threads but
+ * dispatched as soon as they are queued by a dispatcher thread, to a lane per listener. A lane is a bounded queue
+ * with a thread invoking its listener, so a slow listener only delays its own events; they are dropped for that
+ * listener when its lane is full. The end-to-end latency, from queueing an event to its listener returning, is
+ * instrumented.
  */
-public class EventHandlerService implements Service {
+public class EventHandlerService implements Service, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "EventHandlerService.";
     public static final String CONF_QUEUE_SIZE = CONF_PREFIX + "queue.size";
@@ -58,6 +72,15 @@ public class EventHandlerService implements Service {
     public static final String CONF_BATCH_SIZE = CONF_PREFIX + "batch.size";
     public static final String CONF_WORKER_THREADS = CONF_PREFIX + "worker.threads";
     public static final String CONF_WORKER_INTERVAL = CONF_PREFIX + "worker.interval";
+    public static final String CONF_QUEUE_OVERFLOW = CONF_PREFIX + "queue.overflow";
+    public static final String CONF_QUEUE_BLOCK_TIMEOUT = CONF_PREFIX + "queue.block.timeout";
+    public static final String CONF_QUEUE_SPILL_DIR = CONF_PREFIX + "queue.spill.dir";
+    public static final String CONF_LANE_SIZE = CONF_PREFIX + "lane.size";
+
+    public static final String INSTRUMENTATION_GROUP = "events";
+
+    // interval at which the dispatcher and lane threads check whether the service is destroyed
+    private static final long POLL_INTERVAL = 1000;
 
     private static EventQueue eventQueue;
     private XLog LOG;
@@ -65,6 +88,13 @@ public class EventHandlerService implements Service {
     private Set<String> apptypes;
     private static boolean eventsEnabled = false;
     private int numWorkers;
+    // 0 if the listeners are invoked by the worker threads
+    private int laneSize;
+    private List<ListenerLane> lanes = new CopyOnWriteArrayList<ListenerLane>();
+    private volatile boolean dispatching;
+    private Thread dispatcher;
+    private volatile long lastLatency;
+    private volatile long maxLatency;
 
     @Override
     public void init(Services services) throws ServiceException {
@@ -74,12 +104,20 @@ public class EventHandlerService implements Service {
             Class<? extends EventQueue> queueImpl = (Class<? extends EventQueue>) conf.getClass(CONF_EVENT_QUEUE, null);
             eventQueue = queueImpl == null ? new MemoryEventQueue() : (EventQueue) queueImpl.newInstance();
             eventQueue.init(conf);
+            laneSize = (eventQueue instanceof BlockingEventQueue) ? Math.max(1, conf.getInt(CONF_LANE_SIZE, 1000))
+                    : 0;
             // initialize app-types to switch on events for
             initApptypes(conf);
             // initialize event listeners
             initEventListeners(conf);
-            // initialize worker threads via Scheduler
-            initWorkerThreads(conf, services);
+            if (laneSize > 0) {
+                // dispatch the events to the listener lanes as they are queued
+                startDispatcher();
+            }
+            else {
+                // initialize worker threads via Scheduler
+                initWorkerThreads(conf, services);
+            }
             eventsEnabled = true;
             LOG.info("EventHandlerService initialized. Event queue = [{0}], Event listeners configured = [{1}],"
                     + " Events configured for App-types = [{2}], Num Worker Threads = [{3}]", eventQueue.getClass()
@@ -130,6 +168,7 @@ public class EventHandlerService implements Service {
             }
             listenersList.add(listener);
             ((JobEventListener) listener).init(conf);
+            addLane(listener, MessageType.JOB, name);
         }
         else if (listener instanceof SLAEventListener) {
             List listenersList = listenerMap.get(MessageType.SLA);
@@ -139,6 +178,7 @@ public class EventHandlerService implements Service {
             }
             listenersList.add(listener);
             ((SLAEventListener) listener).init(conf);
+            addLane(listener, MessageType.SLA, name);
         }
         else {
             LOG.warn("Event listener [{0}] is of undefined type", name);
@@ -166,9 +206,96 @@ public class EventHandlerService implements Service {
         }
     }
 
+    private void addLane(Object listener, MessageType msgType, String name) {
+        if (laneSize > 0) {
+            ListenerLane lane = new ListenerLane(listener, msgType, listener.getClass().getSimpleName());
+            lanes.add(lane);
+            lane.start();
+            LOG.debug("Started dispatch lane for event listener [{0}]", name);
+        }
+    }
+
+    private void startDispatcher() {
+        dispatching = true;
+        dispatcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                BlockingEventQueue queue = (BlockingEventQueue) eventQueue;
+                while (dispatching) {
+                    try {
+                        for (EventQueueElement eqe : queue.takeBatch(POLL_INTERVAL)) {
+                            LOG.debug("Dispatching event : {0}", eqe.getEvent());
+                            for (ListenerLane lane : lanes) {
+                                if (lane.msgType == eqe.getEvent().getMsgType()) {
+                                    lane.offer(eqe);
+                                }
+                            }
+                        }
+                    }
+                    catch (InterruptedException ex) {
+                        break;
+                    }
+                    catch (RuntimeException ex) {
+                        LOG.warn("Error dispatching events", ex);
+                    }
+                }
+            }
+        }, "event-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "queue.size", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                return eventQueue.size();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "lanes.size", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                int size = 0;
+                for (ListenerLane lane : lanes) {
+                    size += lane.queue.size();
+                }
+                return size;
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "latency.last", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return lastLatency;
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "latency.max", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return maxLatency;
+            }
+        });
+    }
+
     @Override
     public void destroy() {
         eventsEnabled = false;
+        dispatching = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            try {
+                dispatcher.join(POLL_INTERVAL);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            dispatcher = null;
+        }
+        // the lanes deliver the events already dispatched to them before their listener is destroyed
+        for (ListenerLane lane : lanes) {
+            lane.stop();
+        }
+        lanes.clear();
         for (MessageType type : listenerMap.keySet()) {
             Iterator<?> iter = listenerMap.get(type).iterator();
             while (iter.hasNext()) {
@@ -258,52 +385,152 @@ public class EventHandlerService implements Service {
                         error);
             }
         }
+    }
 
-        private void invokeJobEventListener(JobEventListener jobListener, JobEvent event) {
-            switch (event.getAppType()) {
-                case WORKFLOW_JOB:
-                    jobListener.onWorkflowJobEvent((WorkflowJobEvent)event);
-                    break;
-                case WORKFLOW_ACTION:
-                    jobListener.onWorkflowActionEvent((WorkflowActionEvent)event);
-                    break;
-                case COORDINATOR_JOB:
-                    jobListener.onCoordinatorJobEvent((CoordinatorJobEvent)event);
-                    break;
-                case COORDINATOR_ACTION:
-                    jobListener.onCoordinatorActionEvent((CoordinatorActionEvent)event);
-                    break;
-                case BUNDLE_JOB:
-                    jobListener.onBundleJobEvent((BundleJobEvent)event);
-                    break;
-                default:
-                    XLog.getLog(EventHandlerService.class).info("Undefined Job Event app-type - {0}",
-                            event.getAppType());
+    private void invokeListener(Object listener, Event event) {
+        if (event.getMsgType() == MessageType.JOB) {
+            invokeJobEventListener((JobEventListener) listener, (JobEvent) event);
+        }
+        else if (event.getMsgType() == MessageType.SLA) {
+            invokeSLAEventListener((SLAEventListener) listener, (SLAEvent) event);
+        }
+    }
+
+    private void invokeJobEventListener(JobEventListener jobListener, JobEvent event) {
+        switch (event.getAppType()) {
+            case WORKFLOW_JOB:
+                jobListener.onWorkflowJobEvent((WorkflowJobEvent)event);
+                break;
+            case WORKFLOW_ACTION:
+                jobListener.onWorkflowActionEvent((WorkflowActionEvent)event);
+                break;
+            case COORDINATOR_JOB:
+                jobListener.onCoordinatorJobEvent((CoordinatorJobEvent)event);
+                break;
+            case COORDINATOR_ACTION:
+                jobListener.onCoordinatorActionEvent((CoordinatorActionEvent)event);
+                break;
+            case BUNDLE_JOB:
+                jobListener.onBundleJobEvent((BundleJobEvent)event);
+                break;
+            default:
+                XLog.getLog(EventHandlerService.class).info("Undefined Job Event app-type - {0}",
+                        event.getAppType());
+        }
+    }
+
+    private void invokeSLAEventListener(SLAEventListener slaListener, SLAEvent event) {
+        switch (event.getEventStatus()) {
+            case START_MET:
+                slaListener.onStartMet(event);
+                break;
+            case START_MISS:
+                slaListener.onStartMiss(event);
+                break;
+            case END_MET:
+                slaListener.onEndMet(event);
+                break;
+            case END_MISS:
+                slaListener.onEndMiss(event);
+                break;
+            case DURATION_MET:
+                slaListener.onDurationMet(event);
+                break;
+            case DURATION_MISS:
+                slaListener.onDurationMiss(event);
+                break;
+            default:
+                XLog.getLog(EventHandlerService.class).info("Undefined SLA event type - {0}", event.getSLAStatus());
+        }
+    }
+
+    private void recordLatency(long latency) {
+        lastLatency = latency;
+        if (latency > maxLatency) {
+            maxLatency = latency;
+        }
+        incrCounter("latency.total", latency);
+        incrCounter("delivered", 1);
+    }
+
+    private static void incrCounter(String name, long count) {
+        Services services = Services.get();
+        InstrumentationService instrService = (services == null) ? null : services.get(InstrumentationService.class);
+        if (instrService != null) {
+            instrService.get().incr(INSTRUMENTATION_GROUP, name, count);
+        }
+    }
+
+    /**
+     * Dispatch lane of a listener, a bounded queue of the events to deliver to the listener and the thread delivering
+     * them.
+     */
+    private class ListenerLane implements Runnable {
+        private final Object listener;
+        private final MessageType msgType;
+        private final String name;
+        private final BlockingQueue<EventQueueElement> queue;
+        private volatile boolean running;
+        private Thread thread;
+
+        private ListenerLane(Object listener, MessageType msgType, String name) {
+            this.listener = listener;
+            this.msgType = msgType;
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<EventQueueElement>(laneSize);
+        }
+
+        private void start() {
+            running = true;
+            thread = new Thread(this, "event-lane-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void stop() {
+            running = false;
+            try {
+                thread.join(POLL_INTERVAL * 5);
+                if (thread.isAlive()) {
+                    LOG.warn("Event listener [{0}] did not process [{1}] events in time", name, queue.size());
+                    thread.interrupt();
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
         }
 
-        private void invokeSLAEventListener(SLAEventListener slaListener, SLAEvent event) {
-            switch (event.getEventStatus()) {
-                case START_MET:
-                    slaListener.onStartMet(event);
-                    break;
-                case START_MISS:
-                    slaListener.onStartMiss(event);
-                    break;
-                case END_MET:
-                    slaListener.onEndMet(event);
-                    break;
-                case END_MISS:
-                    slaListener.onEndMiss(event);
-                    break;
-                case DURATION_MET:
-                    slaListener.onDurationMet(event);
-                    break;
-                case DURATION_MISS:
-                    slaListener.onDurationMiss(event);
+        private void offer(EventQueueElement eqe) {
+            if (!queue.offer(eqe)) {
+                incrCounter(name + ".dropped", 1);
+                LOG.warn("Dispatch lane of event listener [{0}] is full. Event [{1}] not delivered", name,
+                        eqe.getEvent());
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                EventQueueElement eqe;
+                try {
+                    eqe = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException ex) {
                     break;
-                default:
-                    XLog.getLog(EventHandlerService.class).info("Undefined SLA event type - {0}", event.getSLAStatus());
+                }
+                if (eqe != null) {
+                    try {
+                        invokeListener(listener, eqe.getEvent());
+                        incrCounter(name + ".delivered", 1);
+                    }
+                    catch (Throwable error) {
+                        incrCounter(name + ".errors", 1);
+                        XLog.getLog(EventHandlerService.class).debug("Throwable in event listener [{0}] : ", name,
+                                error);
+                    }
+                    recordLatency(System.currentTimeMillis() - eqe.getQueuedTime());
+                }
             }
         }
     }
@@ -0,0 +1,380 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.command.coord.CoordActionInputCheckXCommand;
+import org.apache.oozie.dependency.FSURIHandler;
+import org.apache.oozie.dependency.URIHandler;
+import org.apache.oozie.dependency.URIHandlerException;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.XLog;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Service that maintains the mapping of missing filesystem dependencies to the coordinator actions waiting on them,
+ * the filesystem counterpart of {@link PartitionDependencyManagerService}.
+ * <p/>
+ * Instead of requeueing the input check of every waiting action at a fixed interval, the input check registers the
+ * action on its first missing dependency. Each distinct dependency is checked once for all the actions waiting on it,
+ * and the input check of these actions is queued only when the dependency appears. A dependency that stays missing is
+ * checked less and less often, from every <code>min.backoff</code> seconds up to every <code>max.backoff</code>
+ * seconds.
+ * <p/>
+ * The mapping is kept in memory. Registrations older than <code>max.wait</code> seconds are dropped so actions that
+ * are killed or changed do not stay in the mapping, the {@link RecoveryService} keeps queueing the input check of
+ * actions waiting for too long, which registers them again and times them out. Actions that time out before the
+ * {@link RecoveryService} queues their input check again are not registered.
+ * <p/>
+ * The service is not enabled by default, it is enabled by adding it to <code>oozie.services.ext</code>.
+ */
+public class FSDependencyManagerService implements Service, Instrumentable {
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "FSDependencyManagerService.";
+    public static final String CONF_CHECK_INTERVAL = CONF_PREFIX + "check.interval";
+    public static final String CONF_MIN_BACKOFF = CONF_PREFIX + "min.backoff";
+    public static final String CONF_MAX_BACKOFF = CONF_PREFIX + "max.backoff";
+    public static final String CONF_MAX_WAIT = CONF_PREFIX + "max.wait";
+    public static final String CONF_MAX_ACTIONS = CONF_PREFIX + "max.actions";
+
+    public static final String INSTRUMENTATION_GROUP = "fs-dependency";
+
+    private static XLog LOG = XLog.getLog(FSDependencyManagerService.class);
+
+    private static class Dependency {
+        private final URI uri;
+        private final String user;
+        private final FSURIHandler handler;
+        // action ID -> job ID and registration time of the actions waiting on the dependency
+        private final Map<String, Waiter> waiters = new LinkedHashMap<String, Waiter>();
+        private long nextCheckTime;
+        private long backoff;
+
+        private Dependency(URI uri, String user, FSURIHandler handler) {
+            this.uri = uri;
+            this.user = user;
+            this.handler = handler;
+        }
+    }
+
+    private static class Waiter {
+        private final String jobId;
+        private final long registeredTime;
+
+        private Waiter(String jobId, long registeredTime) {
+            this.jobId = jobId;
+            this.registeredTime = registeredTime;
+        }
+    }
+
+    // dependency key -> dependency, and action ID -> key of the dependency the action waits on, guarded by this
+    private final Map<String, Dependency> dependencies = new HashMap<String, Dependency>();
+    private final Map<String, String> actions = new HashMap<String, String>();
+    private Configuration conf;
+    private long minBackoff;
+    private long maxBackoff;
+    private long maxWait;
+    private int maxActions;
+
+    @Override
+    public void init(Services services) throws ServiceException {
+        conf = services.getConf();
+        minBackoff = conf.getLong(CONF_MIN_BACKOFF, 60) * 1000;
+        maxBackoff = Math.max(minBackoff, conf.getLong(CONF_MAX_BACKOFF, 600) * 1000);
+        maxWait = conf.getLong(CONF_MAX_WAIT, 3600) * 1000;
+        maxActions = conf.getInt(CONF_MAX_ACTIONS, 100000);
+        int checkInterval = conf.getInt(CONF_CHECK_INTERVAL, 10);
+        services.get(SchedulerService.class).schedule(new Runnable() {
+            @Override
+            public void run() {
+                checkDependencies();
+            }
+        }, checkInterval, checkInterval, SchedulerService.Unit.SEC);
+        LOG.info("FSDependencyManagerService initialized, backoff [{0}] to [{1}] ms", minBackoff, maxBackoff);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        dependencies.clear();
+        actions.clear();
+    }
+
+    @Override
+    public Class<? extends Service> getInterface() {
+        return FSDependencyManagerService.class;
+    }
+
+    /**
+     * Instruments the filesystem dependency manager service.
+     *
+     * @param instr instrumentation to use.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "dependencies", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                synchronized (FSDependencyManagerService.this) {
+                    return dependencies.size();
+                }
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "waiting.actions", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                synchronized (FSDependencyManagerService.this) {
+                    return actions.size();
+                }
+            }
+        });
+    }
+
+    /**
+     * Register a coordinator action as waiting on a missing dependency, replacing its previous registration.
+     * <p/>
+     * An action registered again keeps its registration time, so it is unregistered after <code>max.wait</code>
+     * seconds even when its input check is queued again in the meantime.
+     * <p/>
+     * Only dependencies handled by the {@link FSURIHandler} can be registered.
+     *
+     * @param dependency dependency URI.
+     * @param user user to check the dependency as.
+     * @param actionId ID of the action waiting on the dependency.
+     * @param jobId ID of the coordinator job of the action.
+     * @return <code>true</code> if the action is registered, <code>false</code> if the dependency is not a filesystem
+     * dependency or if too many actions are registered, the input check of the action then has to be requeued.
+     */
+    public boolean addMissingDependency(String dependency, String user, String actionId, String jobId) {
+        URI uri;
+        URIHandler handler;
+        try {
+            uri = new URI(dependency);
+            handler = Services.get().get(URIHandlerService.class).getURIHandler(uri);
+        }
+        catch (URISyntaxException e) {
+            return false;
+        }
+        catch (URIHandlerException e) {
+            return false;
+        }
+        if (!(handler instanceof FSURIHandler) || user == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            long registeredTime = now;
+            String previousKey = actions.get(actionId);
+            Dependency previousDep = (previousKey == null) ? null : dependencies.get(previousKey);
+            if (previousDep != null && previousDep.waiters.containsKey(actionId)) {
+                registeredTime = previousDep.waiters.get(actionId).registeredTime;
+            }
+            removeMissingDependency(actionId);
+            if (actions.size() >= maxActions) {
+                return false;
+            }
+            String key = getKey(user, uri);
+            Dependency dep = dependencies.get(key);
+            if (dep == null) {
+                dep = new Dependency(uri, user, (FSURIHandler) handler);
+                dep.backoff = minBackoff;
+                dep.nextCheckTime = now + minBackoff;
+                dependencies.put(key, dep);
+            }
+            else {
+                // the dependency may be checked rarely by now, the new action should not wait longer than usual
+                dep.nextCheckTime = Math.min(dep.nextCheckTime, now + minBackoff);
+            }
+            dep.waiters.put(actionId, new Waiter(jobId, registeredTime));
+            actions.put(actionId, key);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the registration of a coordinator action.
+     *
+     * @param actionId ID of the action.
+     * @return <code>true</code> if the action was registered.
+     */
+    public synchronized boolean removeMissingDependency(String actionId) {
+        String key = actions.remove(actionId);
+        if (key == null) {
+            return false;
+        }
+        Dependency dep = dependencies.get(key);
+        if (dep != null) {
+            dep.waiters.remove(actionId);
+            if (dep.waiters.isEmpty()) {
+                dependencies.remove(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the coordinator actions waiting on a dependency.
+     *
+     * @param dependency dependency URI.
+     * @param user user the dependency is checked as.
+     * @return IDs of the waiting actions.
+     * @throws URISyntaxException thrown if the dependency is not a valid URI.
+     */
+    public synchronized Collection<String> getWaitingActions(String dependency, String user)
+            throws URISyntaxException {
+        Dependency dep = dependencies.get(getKey(user, new URI(dependency)));
+        return (dep == null) ? Collections.<String>emptyList() : new ArrayList<String>(dep.waiters.keySet());
+    }
+
+    /**
+     * Check the dependencies that are due and queue the input check of the actions waiting on the available ones.
+     * <p/>
+     * The dependencies are checked per user so dependencies in the same directory can be resolved by a single listing,
+     * see {@link FSURIHandler#exists(List, Configuration, String)}.
+     */
+    @VisibleForTesting
+    public void checkDependencies() {
+        long now = System.currentTimeMillis();
+        Map<String, List<Dependency>> due = new LinkedHashMap<String, List<Dependency>>();
+        synchronized (this) {
+            Iterator<Dependency> it = dependencies.values().iterator();
+            while (it.hasNext()) {
+                Dependency dep = it.next();
+                expireWaiters(dep, now);
+                if (dep.waiters.isEmpty()) {
+                    it.remove();
+                }
+                else if (dep.nextCheckTime <= now) {
+                    List<Dependency> userDeps = due.get(dep.user);
+                    if (userDeps == null) {
+                        userDeps = new ArrayList<Dependency>();
+                        due.put(dep.user, userDeps);
+                    }
+                    userDeps.add(dep);
+                }
+            }
+        }
+        for (Map.Entry<String, List<Dependency>> entry : due.entrySet()) {
+            checkDependencies(entry.getKey(), entry.getValue(), now);
+        }
+    }
+
+    private void checkDependencies(String user, List<Dependency> deps, long now) {
+        Map<URI, Boolean> resolved = Collections.emptyMap();
+        List<URI> uris = new ArrayList<URI>(deps.size());
+        for (Dependency dep : deps) {
+            uris.add(dep.uri);
+        }
+        try {
+            resolved = deps.get(0).handler.exists(uris, conf, user);
+        }
+        catch (URIHandlerException e) {
+            LOG.warn("Could not check dependencies of user [{0}] together, {1}", user, e.getMessage());
+        }
+        for (Dependency dep : deps) {
+            Boolean exists = resolved.get(dep.uri);
+            if (exists == null) {
+                try {
+                    exists = dep.handler.exists(dep.uri, conf, user);
+                }
+                catch (URIHandlerException e) {
+                    LOG.warn("Could not check dependency [{0}] of user [{1}], {2}", dep.uri, user, e.getMessage());
+                    exists = false;
+                }
+            }
+            incrCounter("checks");
+            if (exists) {
+                dependencyAvailable(dep);
+            }
+            else {
+                synchronized (this) {
+                    dep.backoff = Math.min(dep.backoff * 2, maxBackoff);
+                    dep.nextCheckTime = now + dep.backoff;
+                }
+            }
+        }
+    }
+
+    private void dependencyAvailable(Dependency dep) {
+        Map<String, Waiter> waiters;
+        synchronized (this) {
+            String key = getKey(dep.user, dep.uri);
+            // the dependency may have been dropped and registered again while it was checked, the waiters of the
+            // new registration are woken up when it is checked
+            if (dependencies.get(key) == dep) {
+                dependencies.remove(key);
+            }
+            waiters = new LinkedHashMap<String, Waiter>(dep.waiters);
+            for (String actionId : waiters.keySet()) {
+                if (key.equals(actions.get(actionId))) {
+                    actions.remove(actionId);
+                }
+            }
+        }
+        LOG.debug("Dependency [{0}] is available, queueing the input check of [{1}] actions", dep.uri,
+                waiters.size());
+        incrCounter("available");
+        CallableQueueService queueService = Services.get().get(CallableQueueService.class);
+        for (Map.Entry<String, Waiter> entry : waiters.entrySet()) {
+            if (queueService.queue(new CoordActionInputCheckXCommand(entry.getKey(), entry.getValue().jobId))) {
+                incrCounter("wakeups");
+            }
+            else {
+                // the RecoveryService queues the input check later
+                LOG.warn("Unable to queue the input check of action [{0}], queue size [{1}]", entry.getKey(),
+                        queueService.queueSize());
+            }
+        }
+    }
+
+    // must be called holding the lock of the service
+    private void expireWaiters(Dependency dep, long now) {
+        Iterator<Map.Entry<String, Waiter>> it = dep.waiters.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Waiter> entry = it.next();
+            if (entry.getValue().registeredTime + maxWait <= now) {
+                it.remove();
+                actions.remove(entry.getKey());
+                incrCounter("expired");
+            }
+        }
+    }
+
+    private String getKey(String user, URI uri) {
+        return user + "@" + uri;
+    }
+
+    private void incrCounter(String name) {
+        InstrumentationService instrService = Services.get().get(InstrumentationService.class);
+        if (instrService != null) {
+            instrService.get().incr(INSTRUMENTATION_GROUP, name, 1);
+        }
+    }
+}
@@ -18,8 +18,12 @@
 package org.apache.oozie.service;
 
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.ClusterStatus;
 import org.apache.hadoop.mapred.JobClient;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.JobID;
+import org.apache.hadoop.mapred.JobStatus;
+import org.apache.hadoop.mapred.RunningJob;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.conf.Configuration;
@@ -31,6 +35,8 @@ import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.security.token.Token;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.action.hadoop.JavaActionExecutor;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
@@ -42,18 +48,28 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The HadoopAccessorService returns HadoopAccessor instances configured to work on behalf of a user-group. <p/> The
  * default accessor used is the base accessor which just injects the UGI into the configuration instance used to
  * create/obtain JobClient and FileSystem instances.
+ * <p/>
+ * JobClient instances are pooled per user, JobTracker and connection settings if
+ * <code>jobclient.pool.idle.timeout</code> is greater than 0. A pooled client is shared by the callers, each caller
+ * gets its own handle and closing it releases the client, which is closed once it has not been used for the idle
+ * timeout. FileSystem instances are cached by Hadoop per user UGI, the UGI of a user is reused through the
+ * {@link UserGroupInformationService}.
  */
-public class HadoopAccessorService implements Service {
+public class HadoopAccessorService implements Service, Instrumentable {
 
     private static XLog LOG = XLog.getLog(HadoopAccessorService.class);
 
@@ -66,6 +82,9 @@ public class HadoopAccessorService implements Service {
     public static final String KERBEROS_KEYTAB = CONF_PREFIX + "keytab.file";
     public static final String KERBEROS_PRINCIPAL = CONF_PREFIX + "kerberos.principal";
     public static final Text MR_TOKEN_ALIAS = new Text("oozie mr token");
+    public static final String JOB_CLIENT_POOL_IDLE_TIMEOUT = CONF_PREFIX + "jobclient.pool.idle.timeout";
+
+    public static final String INSTRUMENTATION_GROUP = "hadoop-accessor";
 
     protected static final String OOZIE_HADOOP_ACCESSOR_SERVICE_CREATED = "oozie.HadoopAccessorService.created";
     /** The Kerberos principal for the job tracker.*/
@@ -85,6 +104,122 @@ public class HadoopAccessorService implements Service {
 
     private UserGroupInformationService ugiService;
 
+    /**
+     * Configuration properties used to connect a JobClient, clients are pooled per user, JobTracker and the values of
+     * these properties.
+     */
+    private static final String[] JOB_CLIENT_POOL_KEY_PROPERTIES = {"mapreduce.framework.name",
+            "yarn.resourcemanager.address", "yarn.resourcemanager.principal", "mapreduce.jobtracker.kerberos.principal",
+            "hadoop.security.authentication", "hadoop.rpc.protection", "hadoop.rpc.socket.factory.class.default",
+            "ipc.client.connect.max.retries", "ipc.client.connect.timeout", "ipc.client.connection.maxidletime",
+            "ipc.ping.interval"};
+
+    private long jobClientIdleTimeout;
+    // pool key -> pooled client, guarded by itself
+    private final Map<String, PooledJobClient> jobClientPool = new HashMap<String, PooledJobClient>();
+    private long nextEvictionTime;
+
+    /**
+     * JobClient shared by the callers with the same pool key.
+     */
+    private static class PooledJobClient {
+        private final String key;
+        private final JobClient client;
+        // number of callers using the client, last time it was released and whether it is out of the pool, guarded by
+        // the pool
+        private int references;
+        private long lastReleased;
+        private boolean evicted;
+
+        private PooledJobClient(String key, JobClient client) {
+            this.key = key;
+            this.client = client;
+        }
+
+        private void close() {
+            try {
+                client.close();
+            }
+            catch (IOException ex) {
+                LOG.warn("Could not close JobClient [{0}], {1}", key, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Handle of a caller on a pooled JobClient, closing it releases the pooled client, only once.
+     * <p/>
+     * Only the JobClient methods used by Oozie are delegated to the pooled client.
+     */
+    private class JobClientHandle extends JobClient {
+        private final PooledJobClient pooled;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private JobClientHandle(PooledJobClient pooled) {
+            super();
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Configuration getConf() {
+            return pooled.client.getConf();
+        }
+
+        @Override
+        public RunningJob getJob(JobID jobId) throws IOException {
+            return pooled.client.getJob(jobId);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public RunningJob getJob(String jobId) throws IOException {
+            return pooled.client.getJob(jobId);
+        }
+
+        @Override
+        public RunningJob submitJob(JobConf job) throws IOException {
+            return pooled.client.submitJob(job);
+        }
+
+        @Override
+        public Token<DelegationTokenIdentifier> getDelegationToken(Text renewer) throws IOException,
+                InterruptedException {
+            return pooled.client.getDelegationToken(renewer);
+        }
+
+        @Override
+        public JobStatus[] jobsToComplete() throws IOException {
+            return pooled.client.jobsToComplete();
+        }
+
+        @Override
+        public JobStatus[] getAllJobs() throws IOException {
+            return pooled.client.getAllJobs();
+        }
+
+        @Override
+        public ClusterStatus getClusterStatus() throws IOException {
+            return pooled.client.getClusterStatus();
+        }
+
+        @Override
+        public FileSystem getFs() throws IOException {
+            return pooled.client.getFs();
+        }
+
+        @Override
+        public Path getSystemDir() {
+            return pooled.client.getSystemDir();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed.compareAndSet(false, true)) {
+                releaseJobClient(pooled);
+            }
+        }
+    }
+
     /**
      * Supported filesystem schemes for namespace federation
      */
@@ -136,6 +271,8 @@ public class HadoopAccessorService implements Service {
             this.ugiService = new UserGroupInformationService();
         }
 
+        jobClientIdleTimeout = conf.getLong(JOB_CLIENT_POOL_IDLE_TIMEOUT, 0) * 1000;
+
         loadHadoopConfigs(conf);
         preLoadActionConfigs(conf);
 
@@ -263,12 +400,54 @@ public class HadoopAccessorService implements Service {
     }
 
     public void destroy() {
+        List<PooledJobClient> idle = new ArrayList<PooledJobClient>();
+        synchronized (jobClientPool) {
+            for (PooledJobClient client : jobClientPool.values()) {
+                client.evicted = true;
+                if (client.references == 0) {
+                    idle.add(client);
+                }
+            }
+            jobClientPool.clear();
+        }
+        for (PooledJobClient client : idle) {
+            client.close();
+        }
     }
 
     public Class<? extends Service> getInterface() {
         return HadoopAccessorService.class;
     }
 
+    /**
+     * Instruments the Hadoop accessor service.
+     *
+     * @param instr instrumentation to use.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "jobclient.pooled", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                synchronized (jobClientPool) {
+                    return jobClientPool.size();
+                }
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "jobclient.in.use", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                int inUse = 0;
+                synchronized (jobClientPool) {
+                    for (PooledJobClient client : jobClientPool.values()) {
+                        inUse += client.references;
+                    }
+                }
+                return inUse;
+            }
+        });
+    }
+
     private UserGroupInformation getUGI(String user) throws IOException {
         return ugiService.getProxyUser(user);
     }
@@ -350,6 +529,8 @@ public class HadoopAccessorService implements Service {
 
     /**
      * Return a JobClient created with the provided user/group.
+     * <p/>
+     * The client may be shared with other callers, it must be closed once used and must not be used after.
      *
      *
      * @param conf JobConf with all necessary information to create the
@@ -366,13 +547,30 @@ public class HadoopAccessorService implements Service {
         validateJobTracker(jobTracker);
         try {
             UserGroupInformation ugi = getUGI(user);
-            JobClient jobClient = ugi.doAs(new PrivilegedExceptionAction<JobClient>() {
-                public JobClient run() throws Exception {
-                    return new JobClient(conf);
+            JobClient jobClient;
+            if (jobClientIdleTimeout > 0) {
+                jobClient = getPooledJobClient(getJobClientPoolKey(user, jobTracker, conf), ugi, conf);
+            }
+            else {
+                jobClient = ugi.doAs(new PrivilegedExceptionAction<JobClient>() {
+                    public JobClient run() throws Exception {
+                        return new JobClient(conf);
+                    }
+                });
+                incrCounter("jobclient.created");
+            }
+            boolean tokenAdded = false;
+            try {
+                Token<DelegationTokenIdentifier> mrdt = jobClient.getDelegationToken(getMRDelegationTokenRenewer(conf));
+                conf.getCredentials().addToken(MR_TOKEN_ALIAS, mrdt);
+                tokenAdded = true;
+            }
+            finally {
+                if (!tokenAdded) {
+                    // releases the client if it is pooled
+                    jobClient.close();
                 }
-            });
-            Token<DelegationTokenIdentifier> mrdt = jobClient.getDelegationToken(getMRDelegationTokenRenewer(conf));
-            conf.getCredentials().addToken(MR_TOKEN_ALIAS, mrdt);
+            }
             return jobClient;
         }
         catch (InterruptedException ex) {
@@ -383,6 +581,94 @@ public class HadoopAccessorService implements Service {
         }
     }
 
+    private String getJobClientPoolKey(String user, String jobTracker, JobConf conf) {
+        StringBuilder key = new StringBuilder(user).append("@").append(jobTracker);
+        for (String name : JOB_CLIENT_POOL_KEY_PROPERTIES) {
+            String value = conf.get(name);
+            if (value != null) {
+                key.append(";").append(name).append("=").append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return a handle on the pooled JobClient of a pool key, creating the client with the given configuration if there
+     * is none.
+     */
+    private JobClient getPooledJobClient(final String key, UserGroupInformation ugi, final JobConf conf)
+            throws IOException, InterruptedException {
+        List<PooledJobClient> idle = new ArrayList<PooledJobClient>();
+        try {
+            synchronized (jobClientPool) {
+                long now = System.currentTimeMillis();
+                if (now >= nextEvictionTime) {
+                    nextEvictionTime = now + jobClientIdleTimeout / 2;
+                    for (Iterator<PooledJobClient> it = jobClientPool.values().iterator(); it.hasNext();) {
+                        PooledJobClient client = it.next();
+                        if (client.references == 0 && now - client.lastReleased >= jobClientIdleTimeout) {
+                            client.evicted = true;
+                            idle.add(client);
+                            it.remove();
+                        }
+                    }
+                }
+                PooledJobClient client = jobClientPool.get(key);
+                if (client != null) {
+                    client.references++;
+                    incrCounter("jobclient.pool.hits");
+                    return new JobClientHandle(client);
+                }
+            }
+            // connecting can take a while, it is done out of the lock and the client is discarded if another caller
+            // pooled one meanwhile
+            PooledJobClient created = ugi.doAs(new PrivilegedExceptionAction<PooledJobClient>() {
+                public PooledJobClient run() throws Exception {
+                    return new PooledJobClient(key, new JobClient(conf));
+                }
+            });
+            incrCounter("jobclient.created");
+            synchronized (jobClientPool) {
+                PooledJobClient client = jobClientPool.get(key);
+                if (client == null) {
+                    created.references = 1;
+                    jobClientPool.put(key, created);
+                    return new JobClientHandle(created);
+                }
+                client.references++;
+                idle.add(created);
+                return new JobClientHandle(client);
+            }
+        }
+        finally {
+            for (PooledJobClient client : idle) {
+                client.close();
+                incrCounter("jobclient.closed");
+            }
+        }
+    }
+
+    private void releaseJobClient(PooledJobClient client) {
+        boolean close;
+        synchronized (jobClientPool) {
+            client.references--;
+            client.lastReleased = System.currentTimeMillis();
+            close = client.evicted && client.references == 0;
+        }
+        if (close) {
+            client.close();
+            incrCounter("jobclient.closed");
+        }
+    }
+
+    private void incrCounter(String name) {
+        Services services = Services.get();
+        InstrumentationService instrService = (services == null) ? null : services.get(InstrumentationService.class);
+        if (instrService != null) {
+            instrService.get().incr(INSTRUMENTATION_GROUP, name, 1);
+        }
+    }
+
     /**
      * Return a FileSystem created with the provided user for the specified URI.
      *
@@ -75,6 +75,13 @@ public class JPAService implements Service, Instrumentable {
     public static final String CONF_VALIDATE_DB_CONN = CONF_PREFIX + "validate.db.connection";
     public static final String CONF_VALIDATE_DB_CONN_EVICTION_INTERVAL = CONF_PREFIX + "validate.db.connection.eviction.interval";
     public static final String CONF_VALIDATE_DB_CONN_EVICTION_NUM = CONF_PREFIX + "validate.db.connection.eviction.num";
+    public static final String CONF_GROUP_COMMIT_ENABLED = CONF_PREFIX + "group.commit.enabled";
+    public static final String CONF_GROUP_COMMIT_WINDOW = CONF_PREFIX + "group.commit.window";
+    public static final String CONF_GROUP_COMMIT_MAX_BATCH = CONF_PREFIX + "group.commit.max.batch";
+    public static final String CONF_GROUP_COMMIT_QUERIES = CONF_PREFIX + "group.commit.queries";
+    public static final String CONF_ENTITY_CACHE_ENABLED = CONF_PREFIX + "entity.cache.enabled";
+    public static final String CONF_ENTITY_CACHE_SIZE = CONF_PREFIX + "entity.cache.size";
+    public static final String CONF_ENTITY_CACHE_TTL = CONF_PREFIX + "entity.cache.ttl";
 
 
     private EntityManagerFactory factory;
@@ -17,12 +17,26 @@
  */
 package org.apache.oozie.service;
 
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
 import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.ErrorCode;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.workflow.WorkflowApp;
 import org.apache.oozie.workflow.WorkflowException;
 import org.apache.oozie.workflow.WorkflowLib;
+import org.apache.oozie.workflow.lite.LiteWorkflowAppParser;
 import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.ParameterVerifier;
+import org.apache.oozie.util.ParameterVerifierException;
+import org.apache.oozie.util.XmlUtils;
+import org.jdom.Element;
+import org.jdom.JDOMException;
 
 /**
  * Service that provides workflow application definition reading, parsing and creating proto configuration.
@@ -53,8 +67,67 @@ public class LiteWorkflowAppService extends WorkflowAppService {
 
     public WorkflowApp parseDef(String workflowXml, Configuration jobConf, Configuration configDefault)
             throws WorkflowException {
+        String key = getCacheKey(workflowXml, jobConf, configDefault);
+        CachedApp cachedApp = getCachedApp(key);
+        if (cachedApp != null) {
+            // the formal parameters are checked, and their default values set, for each job
+            try {
+                ParameterVerifier.verifyParameters(jobConf, cachedApp.getParameters());
+            }
+            catch (ParameterVerifierException ex) {
+                throw new WorkflowException(ex);
+            }
+            return cachedApp.getApp();
+        }
         WorkflowLib workflowLib = Services.get().get(WorkflowStoreService.class).getWorkflowLibWithNoDB();
-        return workflowLib.parseDef(workflowXml, jobConf, configDefault);
+        WorkflowApp app = workflowLib.parseDef(workflowXml, jobConf, configDefault);
+        cacheApp(key, new CachedApp(app, getParameters(workflowXml)));
+        return app;
+    }
+
+    // the parsed application depends on the definition, the default configuration and the fork/join validation
+    private String getCacheKey(String workflowXml, Configuration jobConf, Configuration configDefault)
+            throws WorkflowException {
+        StringBuilder key = new StringBuilder();
+        key.append(jobConf.get(OozieClient.APP_PATH)).append("#").append(digest(workflowXml));
+        if (configDefault != null) {
+            Map<String, String> properties = new TreeMap<String, String>();
+            for (Map.Entry<String, String> entry : configDefault) {
+                properties.put(entry.getKey(), entry.getValue());
+            }
+            key.append("#").append(digest(properties.toString()));
+        }
+        key.append("#").append(jobConf.getBoolean(LiteWorkflowAppParser.WF_VALIDATE_FORK_JOIN, true));
+        return key.toString();
+    }
+
+    private String digest(String value) throws WorkflowException {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes("UTF-8"));
+            return new BigInteger(1, digest).toString(16);
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new WorkflowException(ErrorCode.E0702, ex.getMessage(), ex);
+        }
+        catch (UnsupportedEncodingException ex) {
+            throw new WorkflowException(ErrorCode.E0702, ex.getMessage(), ex);
+        }
+    }
+
+    // root element of the definition with its formal parameters only
+    private Element getParameters(String workflowXml) throws WorkflowException {
+        try {
+            Element root = XmlUtils.parseXml(workflowXml);
+            Element parametersRoot = new Element(root.getName(), root.getNamespace());
+            Element parameters = root.getChild("parameters", root.getNamespace());
+            if (parameters != null) {
+                parametersRoot.addContent((Element) parameters.clone());
+            }
+            return parametersRoot;
+        }
+        catch (JDOMException ex) {
+            throw new WorkflowException(ErrorCode.E0700, ex.getMessage(), ex);
+        }
     }
 
 }
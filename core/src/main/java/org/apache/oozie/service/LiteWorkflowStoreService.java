@@ -39,6 +39,7 @@ import org.apache.oozie.workflow.lite.EndNodeDef;
 import org.apache.oozie.workflow.lite.ForkNodeDef;
 import org.apache.oozie.workflow.lite.JoinNodeDef;
 import org.apache.oozie.workflow.lite.KillNodeDef;
+import org.apache.oozie.workflow.lite.LiteWorkflowInstance;
 import org.apache.oozie.workflow.lite.NodeDef;
 import org.apache.oozie.workflow.lite.NodeHandler;
 import org.apache.oozie.util.XLog;
@@ -66,6 +67,11 @@ public abstract class LiteWorkflowStoreService extends WorkflowStoreService {
     public static final String NODE_DEF_VERSION_1 = "_oozie_inst_v_1";
     public static final String CONF_NODE_DEF_VERSION = CONF_PREFIX + "node.def.version";
 
+    // the original encoding, whose version marks the variable values written as bytes
+    public static final String INSTANCE_DATA_VERSION_1 = LiteWorkflowInstance.DATA_VERSION;
+    public static final String INSTANCE_DATA_VERSION_2 = "V==2";
+    public static final String CONF_INSTANCE_DATA_VERSION = CONF_PREFIX + "instance.data.version";
+
     /**
      * Delegation method used by the Action and Decision {@link NodeHandler} on start. <p/> This method provides the
      * necessary information to create ActionExecutors.
@@ -208,6 +214,20 @@ public abstract class LiteWorkflowStoreService extends WorkflowStoreService {
         return ret;
     }
 
+    /**
+     * Get the data version workflow instances are written with, V==1 (default) or V==2 (compact)
+     *
+     * @return instance data version
+     */
+    public static String getInstanceDataVersion() {
+        Services services = Services.get();
+        String ret = (services == null) ? null : services.getConf().get(CONF_INSTANCE_DATA_VERSION);
+        if (ret == null) {
+            ret = INSTANCE_DATA_VERSION_1;
+        }
+        return ret;
+    }
+
     /**
      * Delegation method used when failing actions. <p/>
      *
@@ -24,9 +24,16 @@ import org.apache.oozie.lock.MemoryLocks;
 
 /**
  * Service that provides in-memory locks.  Assumes no other Oozie servers are using the database.
+ * <p/>
+ * {@link #CONF_JOB_STRIPES} number of locks shared by job IDs, <code>0</code> (default) to use one lock per job ID.
  */
 public class MemoryLocksService implements Service, Instrumentable {
     private static final String INSTRUMENTATION_GROUP = "locks";
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "MemoryLocksService.";
+
+    public static final String CONF_JOB_STRIPES = CONF_PREFIX + "job.stripes";
+
     private MemoryLocks locks;
 
     /**
@@ -36,7 +43,7 @@ public class MemoryLocksService implements Service, Instrumentable {
      */
     @Override
     public void init(Services services) throws ServiceException {
-        locks = new MemoryLocks();
+        locks = new MemoryLocks(services.getConf().getInt(CONF_JOB_STRIPES, 0));
     }
 
     /**
@@ -69,6 +76,30 @@ public class MemoryLocksService implements Service, Instrumentable {
                 return (long) finalLocks.size();
             }
         });
+        for (MemoryLocks.ResourceType type : MemoryLocks.ResourceType.values()) {
+            final MemoryLocks.Stats stats = finalLocks.getStats(type);
+            String prefix = type.name().toLowerCase() + ".";
+            instr.addVariable(INSTRUMENTATION_GROUP, prefix + "acquired", new Instrumentation.Variable<Long>() {
+                public Long getValue() {
+                    return stats.getAcquired();
+                }
+            });
+            instr.addVariable(INSTRUMENTATION_GROUP, prefix + "contended", new Instrumentation.Variable<Long>() {
+                public Long getValue() {
+                    return stats.getContended();
+                }
+            });
+            instr.addVariable(INSTRUMENTATION_GROUP, prefix + "timeouts", new Instrumentation.Variable<Long>() {
+                public Long getValue() {
+                    return stats.getTimeouts();
+                }
+            });
+            instr.addVariable(INSTRUMENTATION_GROUP, prefix + "wait.time", new Instrumentation.Variable<Long>() {
+                public Long getValue() {
+                    return stats.getWaitTime();
+                }
+            });
+        }
     }
 
     /**
@@ -18,27 +18,37 @@
 package org.apache.oozie.service;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.oozie.command.coord.CoordActionUpdatePushMissingDependency;
 import org.apache.oozie.dependency.hcat.HCatDependencyCache;
+import org.apache.oozie.dependency.hcat.HCatNotificationPipeline;
 import org.apache.oozie.dependency.hcat.SimpleHCatDependencyCache;
 import org.apache.oozie.util.HCatURI;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 
 /**
  * Module that functions like a caching service to maintain partition dependency mappings
+ * <p/>
+ * The partition notifications received from HCatalog are processed by a {@link HCatNotificationPipeline} unless
+ * <code>notification.queue.size</code> is 0, in which case they are processed by the JMS listener thread.
  */
-public class PartitionDependencyManagerService implements Service {
+public class PartitionDependencyManagerService implements Service, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "PartitionDependencyManagerService.";
     public static final String CACHE_MANAGER_IMPL = CONF_PREFIX + "cache.manager.impl";
+    public static final String CONF_NOTIFICATION_QUEUE_SIZE = CONF_PREFIX + "notification.queue.size";
+    public static final String CONF_NOTIFICATION_BATCH_SIZE = CONF_PREFIX + "notification.batch.size";
 
     private static XLog LOG = XLog.getLog(PartitionDependencyManagerService.class);
 
     private HCatDependencyCache dependencyCache;
+    private HCatNotificationPipeline notificationPipeline;
 
     @Override
     public void init(Services services) throws ServiceException {
@@ -50,12 +60,21 @@ public class PartitionDependencyManagerService implements Service {
         dependencyCache = (defaultClass == null) ? new SimpleHCatDependencyCache()
                 : (HCatDependencyCache) ReflectionUtils.newInstance(defaultClass, null);
         dependencyCache.init(conf);
+        int queueSize = conf.getInt(CONF_NOTIFICATION_QUEUE_SIZE, 10000);
+        if (queueSize > 0) {
+            notificationPipeline = new HCatNotificationPipeline(dependencyCache, queueSize,
+                    conf.getInt(CONF_NOTIFICATION_BATCH_SIZE, 500));
+            notificationPipeline.start();
+        }
         LOG.info("PartitionDependencyManagerService initialized. Dependency cache is {0} ", dependencyCache.getClass()
                 .getName());
     }
 
     @Override
     public void destroy() {
+        if (notificationPipeline != null) {
+            notificationPipeline.stop();
+        }
         dependencyCache.destroy();
     }
 
@@ -64,6 +83,18 @@ public class PartitionDependencyManagerService implements Service {
         return PartitionDependencyManagerService.class;
     }
 
+    /**
+     * Instruments the partition dependency manager service.
+     *
+     * @param instr instrumentation to use.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        if (notificationPipeline != null) {
+            notificationPipeline.instrument(instr);
+        }
+    }
+
     /**
      * Add a missing partition dependency and the actionID waiting on it
      *
@@ -121,6 +152,28 @@ public class PartitionDependencyManagerService implements Service {
         }
     }
 
+    /**
+     * Mark the partitions of a notification as available, once the notifications received before are processed.
+     * <p/>
+     * It blocks while too many notifications are waiting to be processed. If the notification pipeline is disabled
+     * the partitions are marked available before returning.
+     *
+     * @param server host:port of the server
+     * @param db name of the database
+     * @param table name of the table
+     * @param partitions list of available partitions
+     */
+    public void queuePartitionsAvailable(String server, String db, String table, List<Map<String, String>> partitions) {
+        if (notificationPipeline != null) {
+            notificationPipeline.add(server, db, table, partitions);
+        }
+        else {
+            for (Map<String, String> partition : partitions) {
+                partitionAvailable(server, db, table, partition);
+            }
+        }
+    }
+
     /**
      * Get a list of available dependency URIs for a actionID
      *
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * In-memory index of the asynchronous workflow actions running on this server, used by the
+ * {@link ActionCheckerService} in push mode.
+ * <p/>
+ * The completion of an action is normally reported by its callback, the index only tells which actions are due for
+ * a check in case the callback was lost. An action is checked around the time it is expected to complete, given by
+ * the average runtime of the previous runs of the same action of the same workflow application. Once that time is
+ * passed, or if the runtime is unknown, the interval between checks grows with the age of the action. Intervals are
+ * kept between <code>minInterval</code> and <code>maxInterval</code>.
+ * <p/>
+ * The index is not persisted, the actions running when the server started are added by the reconciliation sweep of
+ * the {@link ActionCheckerService}.
+ */
+public class RunningActionIndex {
+
+    // maximum number of actions whose runtime is remembered
+    private static final int MAX_RUNTIMES = 10000;
+
+    private static class Entry {
+        private final String runtimeKey;
+        private final long startTime;
+        private long nextCheckTime;
+
+        private Entry(String runtimeKey, long startTime) {
+            this.runtimeKey = runtimeKey;
+            this.startTime = startTime;
+        }
+    }
+
+    private final long minInterval;
+    private final long maxInterval;
+    // action ID -> entry, and runtime key -> average runtime, guarded by this
+    private final Map<String, Entry> actions = new HashMap<String, Entry>();
+    private final Map<String, Long> runtimes = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_RUNTIMES;
+        }
+    };
+
+    /**
+     * Create an empty index.
+     *
+     * @param minInterval minimum interval between checks of an action, in milliseconds.
+     * @param maxInterval maximum interval between checks of an action, in milliseconds.
+     */
+    public RunningActionIndex(long minInterval, long maxInterval) {
+        this.minInterval = minInterval;
+        this.maxInterval = Math.max(minInterval, maxInterval);
+    }
+
+    /**
+     * Return the index of the {@link ActionCheckerService}.
+     *
+     * @return the index, <code>null</code> if the service is not running in push mode.
+     */
+    public static RunningActionIndex get() {
+        ActionCheckerService checker = (Services.get() == null) ? null : Services.get().get(ActionCheckerService.class);
+        return (checker == null) ? null : checker.getRunningActionIndex();
+    }
+
+    /**
+     * Add an action that has just started.
+     *
+     * @param actionId action ID.
+     * @param runtimeKey key of the runs of the same action, <code>null</code> if unknown.
+     * @param startTime start time of the action.
+     */
+    public synchronized void add(String actionId, String runtimeKey, long startTime) {
+        Entry entry = new Entry(runtimeKey, startTime);
+        entry.nextCheckTime = getNextCheckTime(entry, startTime);
+        actions.put(actionId, entry);
+    }
+
+    /**
+     * Add an action found running by the reconciliation sweep if it is not in the index.
+     *
+     * @param actionId action ID.
+     * @param now current time.
+     * @return <code>true</code> if the action was added.
+     */
+    public synchronized boolean reconcile(String actionId, long now) {
+        if (actions.containsKey(actionId)) {
+            return false;
+        }
+        // the sweep checks it, its start time and runtime key are unknown
+        add(actionId, null, now);
+        return true;
+    }
+
+    /**
+     * Schedule the next check of an action that is still running after a check.
+     *
+     * @param actionId action ID.
+     */
+    public synchronized void checked(String actionId) {
+        Entry entry = actions.get(actionId);
+        if (entry != null) {
+            entry.nextCheckTime = getNextCheckTime(entry, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Remove an action that completed, its runtime is averaged with the runtime of the previous runs.
+     *
+     * @param actionId action ID.
+     */
+    public synchronized void completed(String actionId) {
+        Entry entry = actions.remove(actionId);
+        if (entry != null && entry.runtimeKey != null) {
+            long runtime = System.currentTimeMillis() - entry.startTime;
+            Long average = runtimes.get(entry.runtimeKey);
+            runtimes.put(entry.runtimeKey, (average == null) ? runtime : (average * 3 + runtime) / 4);
+        }
+    }
+
+    /**
+     * Remove an action that is not running anymore.
+     *
+     * @param actionId action ID.
+     * @return <code>true</code> if the action was in the index.
+     */
+    public synchronized boolean remove(String actionId) {
+        return actions.remove(actionId) != null;
+    }
+
+    /**
+     * Return the actions due for a check, their next check is scheduled as if they were checked now so they are not
+     * returned again if the check is lost.
+     *
+     * @param now current time.
+     * @return the IDs of the actions to check.
+     */
+    public synchronized List<String> getDueActions(long now) {
+        List<String> due = new ArrayList<String>();
+        for (Map.Entry<String, Entry> entry : actions.entrySet()) {
+            if (entry.getValue().nextCheckTime <= now) {
+                due.add(entry.getKey());
+                entry.getValue().nextCheckTime = getNextCheckTime(entry.getValue(), now);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Return the number of actions in the index.
+     *
+     * @return the number of actions.
+     */
+    public synchronized int size() {
+        return actions.size();
+    }
+
+    @VisibleForTesting
+    synchronized long getNextCheckTime(String actionId) {
+        Entry entry = actions.get(actionId);
+        return (entry == null) ? -1 : entry.nextCheckTime;
+    }
+
+    @VisibleForTesting
+    synchronized Long getExpectedRuntime(String runtimeKey) {
+        return runtimes.get(runtimeKey);
+    }
+
+    private long getNextCheckTime(Entry entry, long now) {
+        long elapsed = now - entry.startTime;
+        Long expected = (entry.runtimeKey == null) ? null : runtimes.get(entry.runtimeKey);
+        long interval = (expected != null && elapsed < expected) ? expected - elapsed : elapsed / 4;
+        return now + Math.min(maxInterval, Math.max(minInterval, interval));
+    }
+}
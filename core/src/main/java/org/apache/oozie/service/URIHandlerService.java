@@ -25,29 +25,51 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.action.hadoop.LauncherURIHandler;
 import org.apache.oozie.action.hadoop.LauncherURIHandlerFactory;
+import org.apache.oozie.dependency.ExistenceCache;
 import org.apache.oozie.dependency.FSURIHandler;
 import org.apache.oozie.dependency.URIHandler;
 import org.apache.oozie.dependency.URIHandlerException;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 
-public class URIHandlerService implements Service {
+public class URIHandlerService implements Service, Instrumentable {
 
     private static final String CONF_PREFIX = Service.CONF_PREFIX + "URIHandlerService.";
     public static final String URI_HANDLERS = CONF_PREFIX + "uri.handlers";
     public static final String URI_HANDLER_DEFAULT = CONF_PREFIX + "uri.handler.default";
     public static final String URI_HANDLER_SUPPORTED_SCHEMES_PREFIX = CONF_PREFIX + "uri.handler.";
     public static final String URI_HANDLER_SUPPORTED_SCHEMES_SUFFIX = ".supported.schemes";
+    public static final String EXISTENCE_CACHE_ENABLED = CONF_PREFIX + "existence.cache.enabled";
+    public static final String EXISTENCE_CACHE_POSITIVE_TTL = CONF_PREFIX + "existence.cache.positive.ttl";
+    public static final String EXISTENCE_CACHE_NEGATIVE_TTL = CONF_PREFIX + "existence.cache.negative.ttl";
+    public static final String EXISTENCE_CACHE_MAX_SIZE = CONF_PREFIX + "existence.cache.max.size";
+    public static final String EXISTENCE_BATCH_MIN_URIS = CONF_PREFIX + "existence.batch.min.uris";
+    public static final String EXISTENCE_CHECK_THREADS = CONF_PREFIX + "existence.check.threads";
+    public static final String EXISTENCE_CHECK_FANOUT = CONF_PREFIX + "existence.check.fanout";
+    public static final String EXISTENCE_CHECK_TIMEOUT = CONF_PREFIX + "existence.check.timeout";
+
+    public static final String INSTRUMENTATION_GROUP = "uri-handler";
 
     private static XLog LOG = XLog.getLog(URIHandlerService.class);
     private Configuration launcherConf;
     private Set<Class<?>> launcherClassesToShip;
     private Map<String, URIHandler> cache;
     private URIHandler defaultHandler;
+    private ExistenceCache existenceCache;
+    private int existenceBatchMinURIs;
+    private ExecutorService existenceCheckExecutor;
+    private int existenceCheckFanout;
+    private long existenceCheckTimeout;
 
     @Override
     public void init(Services services) throws ServiceException {
@@ -57,10 +79,39 @@ public class URIHandlerService implements Service {
         catch (Exception e) {
             throw new ServiceException(ErrorCode.E0902, e);
         }
+        if (existenceCache != null) {
+            SchedulerService scheduler = services.get(SchedulerService.class);
+            if (scheduler != null) {
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        existenceCache.purge();
+                    }
+                }, 60, 60, SchedulerService.Unit.SEC);
+            }
+        }
     }
 
     private void init(Configuration conf) throws ClassNotFoundException {
         cache = new HashMap<String, URIHandler>();
+        if (conf.getBoolean(EXISTENCE_CACHE_ENABLED, false)) {
+            existenceCache = new ExistenceCache(conf.getLong(EXISTENCE_CACHE_POSITIVE_TTL, 3600) * 1000,
+                    conf.getLong(EXISTENCE_CACHE_NEGATIVE_TTL, 10) * 1000, conf.getInt(EXISTENCE_CACHE_MAX_SIZE, 100000));
+        }
+        existenceBatchMinURIs = conf.getInt(EXISTENCE_BATCH_MIN_URIS, 2);
+        int threads = conf.getInt(EXISTENCE_CHECK_THREADS, 20);
+        existenceCheckFanout = conf.getInt(EXISTENCE_CHECK_FANOUT, 8);
+        existenceCheckTimeout = conf.getLong(EXISTENCE_CHECK_TIMEOUT, 60) * 1000;
+        if (threads > 0 && existenceCheckFanout > 1) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            existenceCheckExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "existence-check-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
 
         String[] classes = conf.getStrings(URI_HANDLERS, FSURIHandler.class.getName());
         for (String classname : classes) {
@@ -125,6 +176,9 @@ public class URIHandlerService implements Service {
 
     @Override
     public void destroy() {
+        if (existenceCheckExecutor != null) {
+            existenceCheckExecutor.shutdownNow();
+        }
         Set<URIHandler> handlers = new HashSet<URIHandler>();
         handlers.addAll(cache.values());
         for (URIHandler handler : handlers) {
@@ -138,6 +192,68 @@ public class URIHandlerService implements Service {
         return URIHandlerService.class;
     }
 
+    /**
+     * Instruments the URI handler service.
+     *
+     * @param instr instrumentation to use.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "existence.cache.size", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                return (existenceCache == null) ? 0 : existenceCache.size();
+            }
+        });
+    }
+
+    /**
+     * Return the cache of dependency existence checks shared by the URI handlers.
+     *
+     * @return the cache, <code>null</code> if disabled.
+     */
+    public ExistenceCache getExistenceCache() {
+        return existenceCache;
+    }
+
+    /**
+     * Return the minimum number of URIs in the same directory for their existence to be checked by listing the
+     * directory instead of checking each URI.
+     *
+     * @return the minimum number of URIs, <code>0</code> if listing is disabled.
+     */
+    public int getExistenceBatchMinURIs() {
+        return existenceBatchMinURIs;
+    }
+
+    /**
+     * Return the pool the existence of dependencies is checked on in parallel, see
+     * {@link org.apache.oozie.dependency.ParallelExistenceChecker}.
+     *
+     * @return the pool, <code>null</code> if dependencies are checked one by one.
+     */
+    public ExecutorService getExistenceCheckExecutor() {
+        return existenceCheckExecutor;
+    }
+
+    /**
+     * Return the maximum number of dependencies of a coordinator action checked at the same time.
+     *
+     * @return the fan-out.
+     */
+    public int getExistenceCheckFanout() {
+        return existenceCheckFanout;
+    }
+
+    /**
+     * Return the time allowed to check the dependencies of a coordinator action.
+     *
+     * @return the timeout in milliseconds.
+     */
+    public long getExistenceCheckTimeout() {
+        return existenceCheckTimeout;
+    }
+
     /**
      * Return the classes to be shipped to the launcher
      * @return the set of classes to be shipped to the launcher
@@ -51,8 +51,13 @@ public class UserGroupInformationService implements Service {
     }
 
     public UserGroupInformation getProxyUser(String user) throws IOException {
-        cache.putIfAbsent(user, UserGroupInformation.createProxyUser(user, UserGroupInformation.getLoginUser()));
-        return cache.get(user);
+        UserGroupInformation ugi = cache.get(user);
+        if (ugi == null) {
+            // the same UGI has to be returned for a user, the FileSystem cache and the RPC connections are keyed by it
+            cache.putIfAbsent(user, UserGroupInformation.createProxyUser(user, UserGroupInformation.getLoginUser()));
+            ugi = cache.get(user);
+        }
+        return ugi;
     }
 
 }
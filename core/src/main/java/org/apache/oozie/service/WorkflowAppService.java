@@ -27,9 +27,12 @@ import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.workflow.WorkflowApp;
 import org.apache.oozie.workflow.WorkflowException;
 import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.ErrorCode;
+import org.jdom.Element;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -40,6 +43,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -47,8 +51,12 @@ import java.util.Set;
 
 /**
  * Service that provides application workflow definition reading from the path and creation of the proto configuration.
+ * <p/>
+ * The definitions read and the applications parsed are cached, up to {@link #CONF_DEFINITION_CACHE_SIZE} of each. A
+ * definition is read again when the modification time or the length of its file changes, a parsed application is
+ * cached by the content of its definition and the configuration it was parsed with.
  */
-public abstract class WorkflowAppService implements Service {
+public abstract class WorkflowAppService implements Service, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "WorkflowAppService.";
 
@@ -64,9 +72,57 @@ public abstract class WorkflowAppService implements Service {
 
     public static final String OOZIE_WF_SUBWORKFLOW_CLASSPATH_INHERITANCE = "oozie.wf.subworkflow.classpath.inheritance";
 
+    public static final String CONF_DEFINITION_CACHE_SIZE = CONF_PREFIX + "definition.cache.size";
+
+    public static final String INSTRUMENTATION_GROUP = "workflow-definitions";
+
+    /**
+     * Parsed workflow application with the formal parameters of its definition, checked against the configuration
+     * of each job created from the cached application.
+     */
+    public static class CachedApp {
+        private final WorkflowApp app;
+        private final Element parameters;
+
+        /**
+         * Create a cached application.
+         *
+         * @param app parsed application.
+         * @param parameters root element of the definition with its formal parameters only, <code>null</code> if
+         * the parameters are not checked.
+         */
+        public CachedApp(WorkflowApp app, Element parameters) {
+            this.app = app;
+            this.parameters = parameters;
+        }
+
+        public WorkflowApp getApp() {
+            return app;
+        }
+
+        public Element getParameters() {
+            return parameters;
+        }
+    }
+
+    private static class CachedDefinition {
+        private final long modificationTime;
+        private final long length;
+        private final String definition;
+
+        private CachedDefinition(FileStatus fsStatus, String definition) {
+            this.modificationTime = fsStatus.getModificationTime();
+            this.length = fsStatus.getLen();
+            this.definition = definition;
+        }
+    }
+
     private Path systemLibPath;
     private long maxWFLength;
     private boolean oozieSubWfCPInheritance;
+    // user and definition path -> definition, and cache key -> parsed application, guarded by themselves
+    private Map<String, CachedDefinition> definitions;
+    private Map<String, CachedApp> apps;
 
     /**
      * Initialize the workflow application service.
@@ -84,6 +140,20 @@ public abstract class WorkflowAppService implements Service {
         maxWFLength = conf.getInt(CONFG_MAX_WF_LENGTH, 100000);
 
         oozieSubWfCPInheritance = conf.getBoolean(OOZIE_SUBWORKFLOW_CLASSPATH_INHERITANCE, false);
+
+        final int cacheSize = conf.getInt(CONF_DEFINITION_CACHE_SIZE, 500);
+        definitions = new LinkedHashMap<String, CachedDefinition>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDefinition> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        apps = new LinkedHashMap<String, CachedApp>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedApp> eldest) {
+                return size() > cacheSize;
+            }
+        };
     }
 
     /**
@@ -101,6 +171,58 @@ public abstract class WorkflowAppService implements Service {
         return WorkflowAppService.class;
     }
 
+    /**
+     * Instruments the workflow application service.
+     *
+     * @param instr instance to instrument the workflow application service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "cached.definitions", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                synchronized (definitions) {
+                    return definitions.size();
+                }
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "cached.apps", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                synchronized (apps) {
+                    return apps.size();
+                }
+            }
+        });
+    }
+
+    /**
+     * Return a cached parsed application.
+     *
+     * @param key cache key of the application.
+     * @return the cached application, <code>null</code> if it is not cached.
+     */
+    public CachedApp getCachedApp(String key) {
+        CachedApp cachedApp;
+        synchronized (apps) {
+            cachedApp = apps.get(key);
+        }
+        incrCounter((cachedApp == null) ? "app.cache.misses" : "app.cache.hits");
+        return cachedApp;
+    }
+
+    /**
+     * Cache a parsed application, it must not be modified once cached.
+     *
+     * @param key cache key of the application.
+     * @param cachedApp application to cache.
+     */
+    public void cacheApp(String key, CachedApp cachedApp) {
+        synchronized (apps) {
+            apps.put(key, cachedApp);
+        }
+    }
+
     /**
      * Read workflow definition.
      *
@@ -129,10 +251,27 @@ public abstract class WorkflowAppService implements Service {
                 throw new WorkflowException(ErrorCode.E0736, fsStatus.getLen(), this.maxWFLength);
             }
 
+            // cached by user as the definition was read with the permissions of the user
+            String key = user + "@" + fsStatus.getPath();
+            CachedDefinition cachedDefinition;
+            synchronized (definitions) {
+                cachedDefinition = definitions.get(key);
+            }
+            if (cachedDefinition != null && cachedDefinition.modificationTime == fsStatus.getModificationTime()
+                    && cachedDefinition.length == fsStatus.getLen()) {
+                incrCounter("definition.cache.hits");
+                return cachedDefinition.definition;
+            }
+            incrCounter("definition.cache.misses");
+
             Reader reader = new InputStreamReader(fs.open(path));
             StringWriter writer = new StringWriter();
             IOUtils.copyCharStream(reader, writer);
-            return writer.toString();
+            String definition = writer.toString();
+            synchronized (definitions) {
+                definitions.put(key, new CachedDefinition(fsStatus, definition));
+            }
+            return definition;
 
         }
         catch (WorkflowException wfe) {
@@ -331,4 +470,11 @@ public abstract class WorkflowAppService implements Service {
     public Path getSystemLibPath() {
         return systemLibPath;
     }
+
+    private void incrCounter(String name) {
+        InstrumentationService instrService = Services.get().get(InstrumentationService.class);
+        if (instrService != null) {
+            instrService.get().incr(INSTRUMENTATION_GROUP, name, 1);
+        }
+    }
 }
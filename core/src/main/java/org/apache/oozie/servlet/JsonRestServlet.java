@@ -60,6 +60,11 @@ public abstract class JsonRestServlet extends HttpServlet {
     protected static final String AUDIT_ERROR_MESSAGE = "audit.error.message";
     protected static final String AUDIT_HTTP_STATUS_CODE = "audit.http.status.code";
 
+    /**
+     * Number of beans read per page by the responses streaming large results, <code>0</code> disables streaming.
+     */
+    public static final String STREAMING_PAGE_SIZE = "oozie.servlet.json.streaming.page.size";
+
     private XLog auditLog;
     XLog.Info logInfo;
 
@@ -364,6 +369,18 @@ public abstract class JsonRestServlet extends HttpServlet {
         json.writeJSONString(response.getWriter());
     }
 
+    /**
+     * Return the number of beans read per page by the responses streaming large results.
+     * <p/>
+     * Results that fit in a single page are sent as usual, larger results are read by pages and written with a
+     * {@link StreamingJSONArray}.
+     *
+     * @return the page size, <code>0</code> if streaming is disabled.
+     */
+    protected int getStreamingPageSize() {
+        return Math.max(0, Services.get().getConf().getInt(STREAMING_PAGE_SIZE, 1000));
+    }
+
     /**
      * Sends a error response.
      *
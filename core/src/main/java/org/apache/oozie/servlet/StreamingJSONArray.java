@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.servlet;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.apache.oozie.client.rest.JsonBean;
+import org.apache.oozie.util.PagedIterable;
+import org.json.simple.JSONAware;
+import org.json.simple.JSONStreamAware;
+
+/**
+ * JSON array of beans serialized one at a time while it is written.
+ * <p/>
+ * The beans are read from the iterable as the array is written, each bean is converted to a <code>JSONObject</code>,
+ * written and discarded. Used as a value of a <code>JSONObject</code> sent with
+ * {@link JsonRestServlet#sendJsonResponse}, the memory used by the response does not depend on the number of beans
+ * when the iterable reads them by pages, see {@link PagedIterable}.
+ * <p/>
+ * The writer is flushed every <code>flushInterval</code> beans so the client receives the first beans before the last
+ * ones are read. If reading the beans fails after the response has been committed the response is truncated.
+ */
+public class StreamingJSONArray implements JSONStreamAware, JSONAware {
+    private final Iterable<? extends JsonBean> beans;
+    private final String timeZoneId;
+    private final int flushInterval;
+
+    /**
+     * Create a streaming JSON array.
+     *
+     * @param beans beans of the array.
+     * @param timeZoneId time zone to use for dates.
+     * @param flushInterval number of beans written between flushes of the writer, <code>0</code> to never flush.
+     */
+    public StreamingJSONArray(Iterable<? extends JsonBean> beans, String timeZoneId, int flushInterval) {
+        this.beans = beans;
+        this.timeZoneId = timeZoneId;
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public void writeJSONString(Writer out) throws IOException {
+        out.write('[');
+        int count = 0;
+        try {
+            for (JsonBean bean : beans) {
+                if (count > 0) {
+                    out.write(',');
+                }
+                bean.toJSONObject(timeZoneId).writeJSONString(out);
+                count++;
+                if (flushInterval > 0 && count % flushInterval == 0) {
+                    out.flush();
+                }
+            }
+        }
+        catch (PagedIterable.PageException ex) {
+            throw new IOException(ex.getMessage(), ex.getCause());
+        }
+        out.write(']');
+    }
+
+    @Override
+    public String toJSONString() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeJSONString(writer);
+        }
+        catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJSONString();
+    }
+}
@@ -36,6 +36,7 @@ import org.apache.oozie.service.CoordinatorEngineService;
 import org.apache.oozie.service.DagEngineService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.util.GraphGenerator;
+import org.apache.oozie.util.PagedIterable;
 import org.apache.oozie.util.XLog;
 import org.json.simple.JSONObject;
 import org.xml.sax.SAXException;
@@ -816,9 +817,22 @@ public class V1JobServlet extends BaseJobServlet {
         int defaultLen = Services.get().getConf().getInt(COORD_ACTIONS_DEFAULT_LENGTH, 1000);
         int len = (lenStr != null) ? Integer.parseInt(lenStr) : 0;
         len = getCoordinatorJobLength(defaultLen, len);
+        int pageSize = getStreamingPageSize();
         try {
-            CoordinatorJobBean coordJob = coordEngine.getCoordJob(jobId, filter, start, len, order);
-            jobBean = coordJob;
+            if (pageSize > 0 && len > pageSize) {
+                // the actions are read by pages while the response is written
+                CoordinatorJobBean coordJob = coordEngine.getCoordJob(jobId, filter, start, 0, order);
+                try {
+                    jobBean = new StreamingCoordinatorJob(coordJob, coordEngine, filter, start, len, order, pageSize);
+                }
+                catch (XException ex) {
+                    throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ex);
+                }
+            }
+            else {
+                CoordinatorJobBean coordJob = coordEngine.getCoordJob(jobId, filter, start, len, order);
+                jobBean = coordJob;
+            }
         }
         catch (CoordinatorEngineException ex) {
             throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ex);
@@ -827,6 +841,43 @@ public class V1JobServlet extends BaseJobServlet {
         return jobBean;
     }
 
+    /**
+     * Coordinator job info whose actions are read by pages and serialized while the response is written.
+     * <p/>
+     * The first page is read when created, before the response status is sent, so that its errors are reported.
+     */
+    static class StreamingCoordinatorJob implements JsonBean {
+        private final CoordinatorJobBean coordJob;
+        private final Iterable<CoordinatorActionBean> actions;
+        private final int pageSize;
+
+        StreamingCoordinatorJob(CoordinatorJobBean coordJob, final CoordinatorEngine coordEngine,
+                final String filter, int start, int len, final boolean desc, int pageSize) throws XException {
+            this.coordJob = coordJob;
+            this.pageSize = pageSize;
+            final String jobId = coordJob.getId();
+            actions = new PagedIterable<CoordinatorActionBean>(start, len, pageSize) {
+                @Override
+                protected List<CoordinatorActionBean> getPage(int start, int len) throws XException {
+                    return coordEngine.getCoordActions(jobId, filter, start, len, desc);
+                }
+            }.prefetch();
+        }
+
+        @Override
+        public JSONObject toJSONObject() {
+            return toJSONObject("GMT");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JSONObject toJSONObject(String timeZoneId) {
+            JSONObject json = coordJob.toJSONObject(timeZoneId);
+            json.put(JsonTags.COORDINATOR_ACTIONS, new StreamingJSONArray(actions, timeZoneId, pageSize));
+            return json;
+        }
+    }
+
     /**
      * Given the requested length and the default length, determine how many coordinator jobs to return.
      * Used by {@link #getCoordinatorJob(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}
@@ -41,6 +41,7 @@ import org.apache.oozie.DagEngineException;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.WorkflowsInfo;
+import org.apache.oozie.XException;
 import org.apache.oozie.cli.OozieCLI;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.rest.BulkResponseImpl;
@@ -50,6 +51,7 @@ import org.apache.oozie.service.CoordinatorEngineService;
 import org.apache.oozie.service.DagEngineService;
 import org.apache.oozie.service.BundleEngineService;
 import org.apache.oozie.service.Services;
+import org.apache.oozie.util.PagedIterable;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.XmlUtils;
 import org.json.simple.JSONObject;
@@ -316,13 +318,18 @@ public class V1JobsServlet extends BaseJobsServlet {
             start = (start < 1) ? 1 : start;
             int len = (lenStr != null) ? Integer.parseInt(lenStr) : 50;
             len = (len < 1) ? 50 : len;
+            String cursor = request.getParameter(RestConstants.CURSOR_PARAM);
+            boolean noTotal = Boolean.parseBoolean(request.getParameter(RestConstants.NO_TOTAL_PARAM));
             DagEngine dagEngine = Services.get().get(DagEngineService.class).getDagEngine(getUser(request));
-            WorkflowsInfo jobs = dagEngine.getJobs(filter, start, len);
+            WorkflowsInfo jobs = dagEngine.getJobs(filter, start, len, cursor, !noTotal);
             List<WorkflowJobBean> jsonWorkflows = jobs.getWorkflows();
             json.put(JsonTags.WORKFLOWS_JOBS, WorkflowJobBean.toJSONArray(jsonWorkflows, timeZoneId));
             json.put(JsonTags.WORKFLOWS_TOTAL, jobs.getTotal());
             json.put(JsonTags.WORKFLOWS_OFFSET, jobs.getStart());
             json.put(JsonTags.WORKFLOWS_LEN, jobs.getLen());
+            if (jobs.getNextCursor() != null) {
+                json.put(JsonTags.WORKFLOWS_NEXT_CURSOR, jobs.getNextCursor());
+            }
 
         }
         catch (DagEngineException ex) {
@@ -349,14 +356,19 @@ public class V1JobsServlet extends BaseJobsServlet {
             start = (start < 1) ? 1 : start;
             int len = (lenStr != null) ? Integer.parseInt(lenStr) : 50;
             len = (len < 1) ? 50 : len;
+            String cursor = request.getParameter(RestConstants.CURSOR_PARAM);
+            boolean noTotal = Boolean.parseBoolean(request.getParameter(RestConstants.NO_TOTAL_PARAM));
             CoordinatorEngine coordEngine = Services.get().get(CoordinatorEngineService.class).getCoordinatorEngine(
                     getUser(request));
-            CoordinatorJobInfo jobs = coordEngine.getCoordJobs(filter, start, len);
+            CoordinatorJobInfo jobs = coordEngine.getCoordJobs(filter, start, len, cursor, !noTotal);
             List<CoordinatorJobBean> jsonJobs = jobs.getCoordJobs();
             json.put(JsonTags.COORDINATOR_JOBS, CoordinatorJobBean.toJSONArray(jsonJobs, timeZoneId));
             json.put(JsonTags.COORD_JOB_TOTAL, jobs.getTotal());
             json.put(JsonTags.COORD_JOB_OFFSET, jobs.getStart());
             json.put(JsonTags.COORD_JOB_LEN, jobs.getLen());
+            if (jobs.getNextCursor() != null) {
+                json.put(JsonTags.COORD_JOB_NEXT_CURSOR, jobs.getNextCursor());
+            }
 
         }
         catch (CoordinatorEngineException ex) {
@@ -378,15 +390,20 @@ public class V1JobsServlet extends BaseJobsServlet {
             start = (start < 1) ? 1 : start;
             int len = (lenStr != null) ? Integer.parseInt(lenStr) : 50;
             len = (len < 1) ? 50 : len;
+            String cursor = request.getParameter(RestConstants.CURSOR_PARAM);
+            boolean noTotal = Boolean.parseBoolean(request.getParameter(RestConstants.NO_TOTAL_PARAM));
 
             BundleEngine bundleEngine = Services.get().get(BundleEngineService.class).getBundleEngine(getUser(request));
-            BundleJobInfo jobs = bundleEngine.getBundleJobs(filter, start, len);
+            BundleJobInfo jobs = bundleEngine.getBundleJobs(filter, start, len, cursor, !noTotal);
             List<BundleJobBean> jsonJobs = jobs.getBundleJobs();
 
             json.put(JsonTags.BUNDLE_JOBS, BundleJobBean.toJSONArray(jsonJobs, timeZoneId));
             json.put(JsonTags.BUNDLE_JOB_TOTAL, jobs.getTotal());
             json.put(JsonTags.BUNDLE_JOB_OFFSET, jobs.getStart());
             json.put(JsonTags.BUNDLE_JOB_LEN, jobs.getLen());
+            if (jobs.getNextCursor() != null) {
+                json.put(JsonTags.BUNDLE_JOB_NEXT_CURSOR, jobs.getNextCursor());
+            }
 
         }
         catch (BundleEngineException ex) {
@@ -410,13 +427,27 @@ public class V1JobsServlet extends BaseJobsServlet {
             len = (len < 1) ? 50 : len;
 
             BundleEngine bundleEngine = Services.get().get(BundleEngineService.class).getBundleEngine(getUser(request));
-            BulkResponseInfo bulkResponse = bundleEngine.getBulkJobs(bulkFilter, start, len);
-            List<BulkResponseImpl> responsesToJson = bulkResponse.getResponses();
+            int pageSize = getStreamingPageSize();
+            if (pageSize > 0 && len > pageSize) {
+                // the first page is read upfront for the total and for errors to be reported as such,
+                // the following pages are read while the response is written
+                BulkResponseInfo firstPage = bundleEngine.getBulkJobs(bulkFilter, start, pageSize);
+                json.put(JsonTags.BULK_RESPONSES, new StreamingJSONArray(
+                        new BulkResponses(bundleEngine, bulkFilter, firstPage, start, len, pageSize), timeZoneId,
+                        pageSize));
+                json.put(JsonTags.BULK_RESPONSE_TOTAL, firstPage.getTotal());
+                json.put(JsonTags.BULK_RESPONSE_OFFSET, start);
+                json.put(JsonTags.BULK_RESPONSE_LEN, len);
+            }
+            else {
+                BulkResponseInfo bulkResponse = bundleEngine.getBulkJobs(bulkFilter, start, len);
+                List<BulkResponseImpl> responsesToJson = bulkResponse.getResponses();
 
-            json.put(JsonTags.BULK_RESPONSES, BulkResponseImpl.toJSONArray(responsesToJson, timeZoneId));
-            json.put(JsonTags.BULK_RESPONSE_TOTAL, bulkResponse.getTotal());
-            json.put(JsonTags.BULK_RESPONSE_OFFSET, bulkResponse.getStart());
-            json.put(JsonTags.BULK_RESPONSE_LEN, bulkResponse.getLen());
+                json.put(JsonTags.BULK_RESPONSES, BulkResponseImpl.toJSONArray(responsesToJson, timeZoneId));
+                json.put(JsonTags.BULK_RESPONSE_TOTAL, bulkResponse.getTotal());
+                json.put(JsonTags.BULK_RESPONSE_OFFSET, bulkResponse.getStart());
+                json.put(JsonTags.BULK_RESPONSE_LEN, bulkResponse.getLen());
+            }
 
         }
         catch (BaseEngineException ex) {
@@ -444,4 +475,33 @@ public class V1JobsServlet extends BaseJobsServlet {
 
         return json;
     }
+
+    /**
+     * Bulk responses read by pages, the first page being already read.
+     */
+    static class BulkResponses extends PagedIterable<BulkResponseImpl> {
+        private final BundleEngine bundleEngine;
+        private final String bulkFilter;
+        private final int start;
+        private BulkResponseInfo firstPage;
+
+        BulkResponses(BundleEngine bundleEngine, String bulkFilter, BulkResponseInfo firstPage, int start, int len,
+                int pageSize) {
+            super(start, len, pageSize);
+            this.bundleEngine = bundleEngine;
+            this.bulkFilter = bulkFilter;
+            this.firstPage = firstPage;
+            this.start = start;
+        }
+
+        @Override
+        protected List<BulkResponseImpl> getPage(int start, int len) throws XException {
+            if (start == this.start && firstPage != null) {
+                List<BulkResponseImpl> page = firstPage.getResponses();
+                firstPage = null;
+                return page;
+            }
+            return bundleEngine.getBulkJobs(bulkFilter, start, len, false).getResponses();
+        }
+    }
 }
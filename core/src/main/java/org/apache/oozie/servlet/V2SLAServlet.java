@@ -33,6 +33,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.XException;
 import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.client.rest.JsonTags;
 import org.apache.oozie.client.rest.RestConstants;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.executor.jpa.sla.SLASummaryGetForFilterJPAExecutor;
@@ -41,6 +42,7 @@ import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.sla.SLASummaryBean;
 import org.apache.oozie.util.DateUtils;
+import org.apache.oozie.util.PagedIterable;
 import org.apache.oozie.util.XLog;
 import org.json.simple.JSONObject;
 
@@ -94,6 +96,7 @@ public class V2SLAServlet extends SLAServlet {
         }
     }
 
+    @SuppressWarnings("unchecked")
     private JSONObject getSLASummaryList(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, CommandException {
         String timeZoneId = request.getParameter(RestConstants.TIME_ZONE_PARAM) == null ? null : request
@@ -137,7 +140,22 @@ public class V2SLAServlet extends SLAServlet {
                                 + " should be specified in the filter query parameter");
             }
 
-            JPAService jpaService = Services.get().get(JPAService.class);
+            final JPAService jpaService = Services.get().get(JPAService.class);
+            int pageSize = getStreamingPageSize();
+            if (jpaService != null && pageSize > 0 && numMaxResults > pageSize) {
+                // the summaries are read by pages while the response is written, the first one before the
+                // response status is sent so that its errors are reported
+                final SLASummaryFilter pageFilter = filter;
+                Iterable<SLASummaryBean> summaries = new PagedIterable<SLASummaryBean>(1, numMaxResults, pageSize) {
+                    @Override
+                    protected List<SLASummaryBean> getPage(int start, int len) throws XException {
+                        return jpaService.execute(new SLASummaryGetForFilterJPAExecutor(pageFilter, start, len));
+                    }
+                }.prefetch();
+                JSONObject json = new JSONObject();
+                json.put(JsonTags.SLA_SUMMARY_LIST, new StreamingJSONArray(summaries, timeZoneId, pageSize));
+                return json;
+            }
             List<SLASummaryBean> slaSummaryList = null;
             if (jpaService != null) {
                 slaSummaryList = jpaService.execute(new SLASummaryGetForFilterJPAExecutor(filter, numMaxResults));
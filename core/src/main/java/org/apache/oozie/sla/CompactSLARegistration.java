@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.sla;
+
+import java.util.Date;
+
+import org.apache.oozie.AppType;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Compact form of an {@link SLARegistrationBean} kept by the SLA calculator for the jobs it tracks.
+ * <p/>
+ * Times are kept as primitives instead of timestamps. Strings repeated across registrations, such as the parent ID,
+ * app name, user, notification message or SLA configuration of the actions of a coordinator, are interned so the
+ * registrations share a single instance. The SLA configuration map is not kept, it is parsed again from the SLA
+ * configuration string when the registration is rehydrated.
+ */
+public class CompactSLARegistration {
+
+    // weak so the strings of the registrations that are not tracked anymore can be collected
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private String id;
+    private final String parentId;
+    private final String appName;
+    private final AppType appType;
+    private final String user;
+    private final String upstreamApps;
+    private final String jobData;
+    private final String slaConfig;
+    private final String alertEvents;
+    private final String alertContact;
+    private final String notificationMsg;
+    private final long createdTime;
+    private final long nominalTime;
+    private final long expectedStart;
+    private final long expectedEnd;
+    private final long expectedDuration;
+
+    public CompactSLARegistration(SLARegistrationBean reg) {
+        id = reg.getId();
+        parentId = intern(reg.getParentId());
+        appName = intern(reg.getAppName());
+        appType = reg.getAppType();
+        user = intern(reg.getUser());
+        upstreamApps = intern(reg.getUpstreamApps());
+        jobData = intern(reg.getJobData());
+        slaConfig = intern(reg.getSlaConfig());
+        alertEvents = intern(reg.getAlertEvents());
+        alertContact = intern(reg.getAlertContact());
+        notificationMsg = intern(reg.getNotificationMsg());
+        createdTime = toTime(reg.getCreatedTimestamp());
+        nominalTime = toTime(reg.getNominalTimestamp());
+        expectedStart = toTime(reg.getExpectedStartTimestamp());
+        expectedEnd = toTime(reg.getExpectedEndTimestamp());
+        expectedDuration = reg.getExpectedDuration();
+    }
+
+    /**
+     * Rehydrate the registration.
+     *
+     * @return a new registration bean.
+     */
+    public SLARegistrationBean toBean() {
+        SLARegistrationBean reg = new SLARegistrationBean();
+        reg.setId(id);
+        reg.setParentId(parentId);
+        reg.setAppName(appName);
+        reg.setAppType(appType);
+        reg.setUser(user);
+        reg.setUpstreamApps(upstreamApps);
+        reg.setJobData(jobData);
+        reg.setSlaConfig(slaConfig);
+        // set again as they are not parsed back correctly from the SLA configuration string, the alert events are
+        // comma separated
+        if (alertEvents != null) {
+            reg.setAlertEvents(alertEvents);
+        }
+        if (alertContact != null) {
+            reg.setAlertContact(alertContact);
+        }
+        reg.setNotificationMsg(notificationMsg);
+        reg.setCreatedTime(toDate(createdTime));
+        reg.setNominalTime(toDate(nominalTime));
+        reg.setExpectedStart(toDate(expectedStart));
+        reg.setExpectedEnd(toDate(expectedEnd));
+        reg.setExpectedDuration(expectedDuration);
+        return reg;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public AppType getAppType() {
+        return appType;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getUpstreamApps() {
+        return upstreamApps;
+    }
+
+    public String getJobData() {
+        return jobData;
+    }
+
+    public String getSlaConfig() {
+        return slaConfig;
+    }
+
+    public String getAlertEvents() {
+        return alertEvents;
+    }
+
+    public String getAlertContact() {
+        return alertContact;
+    }
+
+    public String getNotificationMsg() {
+        return notificationMsg;
+    }
+
+    public Date getNominalTime() {
+        return toDate(nominalTime);
+    }
+
+    public Date getExpectedStart() {
+        return toDate(expectedStart);
+    }
+
+    public Date getExpectedEnd() {
+        return toDate(expectedEnd);
+    }
+
+    public long getExpectedDuration() {
+        return expectedDuration;
+    }
+
+    /**
+     * Return the shared instance of a string.
+     *
+     * @param str string, may be <code>null</code>.
+     * @return the shared instance.
+     */
+    public static String intern(String str) {
+        return (str == null) ? null : STRINGS.intern(str);
+    }
+
+    static long toTime(Date date) {
+        return (date == null) ? NULL_TIME : date.getTime();
+    }
+
+    static Date toDate(long time) {
+        return (time == NULL_TIME) ? null : new Date(time);
+    }
+}
@@ -25,17 +25,22 @@ import org.apache.oozie.client.event.SLAEvent;
 /**
  * Class used by SLAService to store SLA objects and perform calculations and
  * sla decisions
+ * <p/>
+ * Once {@link #compact()} is called, the registration is kept as a {@link CompactSLARegistration} and the
+ * registration bean is rehydrated on demand, for the events emitted from a copy of this object.
  */
 public class SLACalcStatus extends SLAEvent {
 
+    // only one of them is set
     private SLARegistrationBean regBean;
+    private CompactSLARegistration compactReg;
     private String jobStatus;
     private SLAStatus slaStatus;
     private EventStatus eventStatus;
-    private Date actualStart;
-    private Date actualEnd;
+    private long actualStart = CompactSLARegistration.toTime(null);
+    private long actualEnd = CompactSLARegistration.toTime(null);
     private long actualDuration = -1;
-    private Date lastModifiedTime;
+    private long lastModifiedTime;
     private byte eventProcessed;
 
     public SLACalcStatus(SLARegistrationBean reg) {
@@ -92,39 +97,60 @@ public class SLACalcStatus extends SLAEvent {
         setLastModifiedTime(new Date());
     }
 
+    /**
+     * Get the registration bean, once compacted a new bean is returned by each call.
+     *
+     * @return the registration bean
+     */
     public SLARegistrationBean getSLARegistrationBean() {
-        return regBean;
+        return (regBean != null) ? regBean : compactReg.toBean();
     }
 
     public void setSLARegistrationBean(SLARegistrationBean slaBean) {
         this.regBean = slaBean;
+        this.compactReg = null;
+    }
+
+    /**
+     * Keep the registration in its compact form, to reduce the memory used while the job is tracked.
+     */
+    public void compact() {
+        if (regBean != null) {
+            compactReg = new CompactSLARegistration(regBean);
+            regBean = null;
+        }
     }
 
     @Override
     public String getId() {
-        return regBean.getId();
+        return (regBean != null) ? regBean.getId() : compactReg.getId();
     }
 
     public void setId(String id) {
-        regBean.setId(id);
+        if (regBean != null) {
+            regBean.setId(id);
+        }
+        else {
+            compactReg.setId(id);
+        }
     }
 
     @Override
     public Date getActualStart() {
-        return actualStart;
+        return CompactSLARegistration.toDate(actualStart);
     }
 
     public void setActualStart(Date actualStart) {
-        this.actualStart = actualStart;
+        this.actualStart = CompactSLARegistration.toTime(actualStart);
     }
 
     @Override
     public Date getActualEnd() {
-        return actualEnd;
+        return CompactSLARegistration.toDate(actualEnd);
     }
 
     public void setActualEnd(Date actualEnd) {
-        this.actualEnd = actualEnd;
+        this.actualEnd = CompactSLARegistration.toTime(actualEnd);
     }
 
     @Override
@@ -142,7 +168,7 @@ public class SLACalcStatus extends SLAEvent {
     }
 
     public void setJobStatus(String status) {
-        this.jobStatus = status;
+        this.jobStatus = CompactSLARegistration.intern(status);
     }
 
     @Override
@@ -164,7 +190,7 @@ public class SLACalcStatus extends SLAEvent {
     }
 
     public void setLastModifiedTime(Date lastModifiedTime) {
-        this.lastModifiedTime = lastModifiedTime;
+        this.lastModifiedTime = CompactSLARegistration.toTime(lastModifiedTime);
     }
 
     /**
@@ -186,82 +212,82 @@ public class SLACalcStatus extends SLAEvent {
 
     @Override
     public String getParentId() {
-        return regBean.getParentId();
+        return (regBean != null) ? regBean.getParentId() : compactReg.getParentId();
     }
 
     @Override
     public AppType getAppType() {
-        return regBean.getAppType();
+        return (regBean != null) ? regBean.getAppType() : compactReg.getAppType();
     }
 
     @Override
     public String getAppName() {
-        return regBean.getAppName();
+        return (regBean != null) ? regBean.getAppName() : compactReg.getAppName();
     }
 
     @Override
     public Date getNominalTime() {
-        return regBean.getNominalTime();
+        return (regBean != null) ? regBean.getNominalTime() : compactReg.getNominalTime();
     }
 
     @Override
     public Date getExpectedStart() {
-        return regBean.getExpectedStart();
+        return (regBean != null) ? regBean.getExpectedStart() : compactReg.getExpectedStart();
     }
 
     @Override
     public Date getExpectedEnd() {
-        return regBean.getExpectedEnd();
+        return (regBean != null) ? regBean.getExpectedEnd() : compactReg.getExpectedEnd();
     }
 
     @Override
     public long getExpectedDuration() {
-        return regBean.getExpectedDuration();
+        return (regBean != null) ? regBean.getExpectedDuration() : compactReg.getExpectedDuration();
     }
 
     @Override
     public String getNotificationMsg() {
-        return regBean.getNotificationMsg();
+        return (regBean != null) ? regBean.getNotificationMsg() : compactReg.getNotificationMsg();
     }
 
     @Override
     public String getAlertEvents() {
-        return regBean.getAlertEvents();
+        return (regBean != null) ? regBean.getAlertEvents() : compactReg.getAlertEvents();
     }
 
     @Override
     public String getAlertContact() {
-        return regBean.getAlertContact();
+        return (regBean != null) ? regBean.getAlertContact() : compactReg.getAlertContact();
     }
 
     @Override
     public String getUpstreamApps() {
-        return regBean.getUpstreamApps();
+        return (regBean != null) ? regBean.getUpstreamApps() : compactReg.getUpstreamApps();
     }
 
     @Override
     public String getJobData() {
-        return regBean.getJobData();
+        return (regBean != null) ? regBean.getJobData() : compactReg.getJobData();
     }
 
     @Override
     public String getUser() {
-        return regBean.getUser();
+        return (regBean != null) ? regBean.getUser() : compactReg.getUser();
     }
 
     @Override
     public String getSlaConfig() {
-        return regBean.getSlaConfig();
+        return (regBean != null) ? regBean.getSlaConfig() : compactReg.getSlaConfig();
     }
 
     @Override
     public MessageType getMsgType() {
-        return regBean.getMsgType();
+        return (regBean != null) ? regBean.getMsgType() : super.getMsgType();
     }
 
     @Override
     public Date getLastModifiedTime() {
-        return lastModifiedTime;
+        return CompactSLARegistration.toDate(lastModifiedTime);
     }
 
 }
@@ -64,13 +64,14 @@ import org.apache.oozie.util.XLog;
 
 /**
  * Implementation class for SLACalculator that calculates SLA related to
- * start/end/duration of jobs using a memory-based map
+ * start/end/duration of jobs using a memory-based map. The periodic check only
+ * visits the jobs whose next deadline passed, see {@link SLADeadlineIndex}.
  */
 public class SLACalculatorMemory implements SLACalculator {
 
     private static final XLog LOG = XLog.getLog(SLACalculatorMemory.class);
-    // TODO optimization priority based insertion/processing/bumping up-down
     private static Map<String, SLACalcStatus> slaMap;
+    private static SLADeadlineIndex deadlineIndex;
     private static Set<String> historySet;
     private static int capacity;
     private static JPAService jpaService;
@@ -83,6 +84,7 @@ public class SLACalculatorMemory implements SLACalculator {
         capacity = conf.getInt(SLAService.CONF_CAPACITY, 5000);
         jobEventLatency = conf.getInt(SLAService.CONF_JOB_EVENT_LATENCY, 90 * 1000);
         slaMap = new ConcurrentHashMap<String, SLACalcStatus>();
+        deadlineIndex = new SLADeadlineIndex();
         historySet = Collections.synchronizedSet(new HashSet<String>());
         jpaService = Services.get().get(JPAService.class);
         eventHandler = Services.get().get(EventHandlerService.class);
@@ -133,7 +135,9 @@ public class SLACalculatorMemory implements SLACalculator {
                         SLARegistrationBean slaRegBean = jpaService.execute(new SLARegistrationGetOnRestartJPAExecutor(
                                 jobId));
                         SLACalcStatus slaCalcStatus = new SLACalcStatus(summaryBean, slaRegBean);
+                        slaCalcStatus.compact();
                         slaMap.put(jobId, slaCalcStatus);
+                        scheduleDeadline(jobId);
                         slaPendingCount++;
                     }
                 }
@@ -280,6 +284,7 @@ public class SLACalculatorMemory implements SLACalculator {
     public void clear() {
         slaMap.clear();
         historySet.clear();
+        deadlineIndex.clear();
     }
 
     /**
@@ -290,11 +295,10 @@ public class SLACalculatorMemory implements SLACalculator {
         synchronized (slaCalc) {
             boolean change = false;
             byte eventProc = slaCalc.getEventProcessed();
-            SLARegistrationBean reg = slaCalc.getSLARegistrationBean();
             // calculation w.r.t current time and status
             if ((eventProc & 1) == 0) { // first bit (start-processed) unset
-                if (reg.getExpectedStart() != null) {
-                    if (reg.getExpectedStart().getTime() + jobEventLatency < System.currentTimeMillis()) {
+                if (slaCalc.getExpectedStart() != null) {
+                    if (slaCalc.getExpectedStart().getTime() + jobEventLatency < System.currentTimeMillis()) {
                         confirmWithDB(slaCalc);
                         eventProc = slaCalc.getEventProcessed();
                         if (eventProc != 8 && (eventProc & 1 ) == 0) {
@@ -312,12 +316,12 @@ public class SLACalculatorMemory implements SLACalculator {
                 }
             }
             if (((eventProc >> 1) & 1) == 0 && eventProc != 8) { // check if second bit (duration-processed) is unset
-                if (reg.getExpectedDuration() == -1) {
+                if (slaCalc.getExpectedDuration() == -1) {
                     eventProc += 2;
                     change = true;
                 }
                 else if (slaCalc.getActualStart() != null) {
-                    if ((reg.getExpectedDuration() + jobEventLatency) < (System.currentTimeMillis() - slaCalc
+                    if ((slaCalc.getExpectedDuration() + jobEventLatency) < (System.currentTimeMillis() - slaCalc
                             .getActualStart().getTime())) {
                         slaCalc.setEventProcessed(eventProc);
                         confirmWithDB(slaCalc);
@@ -333,7 +337,7 @@ public class SLACalculatorMemory implements SLACalculator {
                 }
             }
             if (eventProc < 4) {
-                if (reg.getExpectedEnd().getTime() + jobEventLatency < System.currentTimeMillis()) {
+                if (slaCalc.getExpectedEnd().getTime() + jobEventLatency < System.currentTimeMillis()) {
                     slaCalc.setEventProcessed(eventProc);
                     confirmWithDB(slaCalc);
                     eventProc = slaCalc.getEventProcessed();
@@ -368,27 +372,75 @@ public class SLACalculatorMemory implements SLACalculator {
                 }
 
             }
+            scheduleDeadline(jobId);
         }
     }
 
     /**
-     * Periodically run by the SLAService worker threads to update SLA status by
-     * iterating through all the jobs in the map
+     * Schedule the next check of a job in the deadline index, or remove it if it is not tracked anymore
+     */
+    private void scheduleDeadline(String jobId) {
+        SLACalcStatus slaCalc = slaMap.get(jobId);
+        if (slaCalc == null) {
+            deadlineIndex.remove(jobId);
+        }
+        else {
+            synchronized (slaCalc) {
+                deadlineIndex.schedule(jobId, getNextDeadline(slaCalc));
+            }
+        }
+    }
+
+    /**
+     * Earliest time after which updateJobSla may change the SLA of a job, the same conditions are checked
+     */
+    private long getNextDeadline(SLACalcStatus slaCalc) {
+        byte eventProc = slaCalc.getEventProcessed();
+        long deadline = Long.MAX_VALUE;
+        if ((eventProc & 1) == 0) {
+            // optional start sla condition is disabled at the next check
+            Date expectedStart = slaCalc.getExpectedStart();
+            deadline = (expectedStart != null) ? expectedStart.getTime() + jobEventLatency : Long.MIN_VALUE;
+        }
+        if (((eventProc >> 1) & 1) == 0 && eventProc != 8) {
+            if (slaCalc.getExpectedDuration() == -1) {
+                deadline = Long.MIN_VALUE;
+            }
+            else if (slaCalc.getActualStart() != null) {
+                deadline = Math.min(deadline, slaCalc.getActualStart().getTime() + slaCalc.getExpectedDuration()
+                        + jobEventLatency);
+            }
+        }
+        Date expectedEnd = slaCalc.getExpectedEnd();
+        if (eventProc < 4 && expectedEnd != null) {
+            deadline = Math.min(deadline, expectedEnd.getTime() + jobEventLatency);
+        }
+        return deadline;
+    }
+
+    /**
+     * Periodically run by the SLAService worker threads to update SLA status of
+     * the jobs in the map whose deadline passed
      */
     @Override
     public void updateAllSlaStatus() {
         LOG.info("Running periodic SLA check");
-        Iterator<String> iterator = slaMap.keySet().iterator();
-        while (iterator.hasNext()) {
-            String jobId = iterator.next();
+        List<String> dueJobs = deadlineIndex.pollDue(System.currentTimeMillis());
+        for (String jobId : dueJobs) {
+            if (!slaMap.containsKey(jobId)) {
+                continue;
+            }
             try {
                 LOG.trace("Processing SLA for jobid={0}", jobId);
                 updateJobSla(jobId);
             }
             catch (Exception e) {
                 LOG.error("Exception in SLA processing for job [{0}]", jobId, e);
+                // checked again at the next run
+                scheduleDeadline(jobId);
             }
         }
+        LOG.debug("Processed SLA of [{0}] jobs due out of [{1}]", dueJobs.size(), slaMap.size());
     }
 
     /**
@@ -401,7 +453,9 @@ public class SLACalculatorMemory implements SLACalculator {
                 SLACalcStatus slaCalc = new SLACalcStatus(reg);
                 slaCalc.setSLAStatus(SLAStatus.NOT_STARTED);
                 slaCalc.setJobStatus(getJobStatus(reg.getAppType()));
+                slaCalc.compact();
                 slaMap.put(jobId, slaCalc);
+                scheduleDeadline(jobId);
                 List<JsonBean> insertList = new ArrayList<JsonBean>();
                 final SLASummaryBean summaryBean = new SLASummaryBean(slaCalc);
                 final Timestamp currentTime = DateUtils.convertDateToTimestamp(new Date());
@@ -453,7 +507,9 @@ public class SLACalculatorMemory implements SLACalculator {
                 SLACalcStatus slaCalc = new SLACalcStatus(reg);
                 slaCalc.setSLAStatus(SLAStatus.NOT_STARTED);
                 slaCalc.setJobStatus(getJobStatus(reg.getAppType()));
+                slaCalc.compact();
                 slaMap.put(jobId, slaCalc);
+                scheduleDeadline(jobId);
                 List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
                 updateList.add(new UpdateEntry<SLARegQuery>(SLARegQuery.UPDATE_SLA_REG_ALL, reg));
                 updateList.add(new UpdateEntry<SLASummaryQuery>(SLASummaryQuery.UPDATE_SLA_SUMMARY_ALL,
@@ -482,6 +538,7 @@ public class SLACalculatorMemory implements SLACalculator {
         if (slaMap.remove(jobId) == null) {
             historySet.remove(jobId);
         }
+        deadlineIndex.remove(jobId);
     }
 
     /**
@@ -518,6 +575,7 @@ public class SLACalculatorMemory implements SLACalculator {
                 }
                 hasSla = true;
             }
+            scheduleDeadline(jobId);
             LOG.trace("SLA Status Event - Job:" + jobId + " Status:" + slaCalc.getSLAStatus());
         }
         else if (historySet.contains(jobId)) {
@@ -556,8 +614,7 @@ public class SLACalculatorMemory implements SLACalculator {
         if (slaCalc.getSLAStatus().equals(SLAStatus.NOT_STARTED)) {
             slaCalc.setSLAStatus(SLAStatus.IN_PROCESS);
         }
-        SLARegistrationBean reg = slaCalc.getSLARegistrationBean();
-        Date expecStart = reg.getExpectedStart();
+        Date expecStart = slaCalc.getExpectedStart();
         byte eventProc = slaCalc.getEventProcessed();
         // set event proc here
         if (((eventProc & 1) == 0)) {
@@ -587,10 +644,9 @@ public class SLACalculatorMemory implements SLACalculator {
      * @throws JPAExecutorException
      */
     private SLASummaryBean processJobEndSuccessSLA(SLACalcStatus slaCalc, Date actualStart, Date actualEnd) throws JPAExecutorException {
-        SLARegistrationBean reg = slaCalc.getSLARegistrationBean();
         slaCalc.setActualStart(actualStart);
         slaCalc.setActualEnd(actualEnd);
-        long expectedDuration = reg.getExpectedDuration();
+        long expectedDuration = slaCalc.getExpectedDuration();
         long actualDuration = actualEnd.getTime() - actualStart.getTime();
         slaCalc.setActualDuration(actualDuration);
         //check event proc
@@ -602,7 +658,7 @@ public class SLACalculatorMemory implements SLACalculator {
         }
 
         if (eventProc < 4) {
-            Date expectedEnd = reg.getExpectedEnd();
+            Date expectedEnd = slaCalc.getExpectedEnd();
             if (actualEnd.getTime() > expectedEnd.getTime()) {
                 slaCalc.setEventStatus(EventStatus.END_MISS);
                 slaCalc.setSLAStatus(SLAStatus.MISS);
@@ -640,8 +696,7 @@ public class SLACalculatorMemory implements SLACalculator {
                 return getSLASummaryBean(slaCalc);
             }
         }
-        SLARegistrationBean reg = slaCalc.getSLARegistrationBean();
-        long expectedDuration = reg.getExpectedDuration();
+        long expectedDuration = slaCalc.getExpectedDuration();
         long actualDuration = actualEnd.getTime() - actualStart.getTime();
         slaCalc.setActualDuration(actualDuration);
 
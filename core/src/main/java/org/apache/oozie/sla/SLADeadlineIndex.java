@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.sla;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Index of the registered SLAs by their next deadline, the earliest time their start, duration or end may be missed.
+ * <p/>
+ * The periodic SLA check only visits the jobs whose deadline passed instead of all the registered jobs. A job is
+ * scheduled again with its new deadline after each check and after each status change, or removed if it has no
+ * deadline left.
+ * <p/>
+ * Deadlines are kept in a binary heap. Rescheduling or removing a job does not remove its previous heap entry, the
+ * entry is skipped when it reaches the top of the heap and the heap is compacted when it holds too many such stale
+ * entries.
+ */
+public class SLADeadlineIndex {
+
+    private static class Entry implements Comparable<Entry> {
+        private final long deadline;
+        private final String jobId;
+
+        private Entry(long deadline, String jobId) {
+            this.deadline = deadline;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return (deadline < other.deadline) ? -1 : ((deadline == other.deadline) ? 0 : 1);
+        }
+    }
+
+    // job ID -> current deadline, and entries by deadline, guarded by this
+    private final Map<String, Long> deadlines = new HashMap<String, Long>();
+    private PriorityQueue<Entry> heap = new PriorityQueue<Entry>();
+
+    /**
+     * Schedule the next check of a job.
+     *
+     * @param jobId job ID.
+     * @param deadline time the job has to be checked after, <code>Long.MIN_VALUE</code> to check it at the next
+     * tick, <code>Long.MAX_VALUE</code> if the job has no deadline, only a status change can update its SLA.
+     */
+    public synchronized void schedule(String jobId, long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            deadlines.remove(jobId);
+            return;
+        }
+        Long previous = deadlines.put(jobId, deadline);
+        if (previous == null || previous != deadline) {
+            heap.add(new Entry(deadline, jobId));
+            compact();
+        }
+    }
+
+    /**
+     * Remove a job from the index.
+     *
+     * @param jobId job ID.
+     */
+    public synchronized void remove(String jobId) {
+        deadlines.remove(jobId);
+    }
+
+    /**
+     * Remove all the jobs.
+     */
+    public synchronized void clear() {
+        deadlines.clear();
+        heap.clear();
+    }
+
+    /**
+     * Remove and return the jobs whose deadline passed, they have to be scheduled again once checked.
+     *
+     * @param now current time.
+     * @return the IDs of the jobs to check, by deadline.
+     */
+    public synchronized List<String> pollDue(long now) {
+        List<String> due = new ArrayList<String>();
+        while (!heap.isEmpty() && heap.peek().deadline < now) {
+            Entry entry = heap.poll();
+            Long deadline = deadlines.get(entry.jobId);
+            if (deadline != null && deadline == entry.deadline) {
+                deadlines.remove(entry.jobId);
+                due.add(entry.jobId);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Return the number of jobs with a deadline.
+     *
+     * @return the number of jobs.
+     */
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Return the deadline of a job.
+     *
+     * @param jobId job ID.
+     * @return the deadline, <code>null</code> if the job has none.
+     */
+    public synchronized Long getDeadline(String jobId) {
+        return deadlines.get(jobId);
+    }
+
+    // rebuild the heap without the stale entries when they outnumber the live ones
+    private void compact() {
+        if (heap.size() > 2 * deadlines.size() + 1000) {
+            PriorityQueue<Entry> compacted = new PriorityQueue<Entry>(Math.max(1, deadlines.size()));
+            for (Map.Entry<String, Long> entry : deadlines.entrySet()) {
+                compacted.add(new Entry(entry.getValue(), entry.getKey()));
+            }
+            heap = compacted;
+        }
+    }
+}
@@ -140,20 +140,19 @@ public class SLASummaryBean implements JsonBean {
     }
 
     public SLASummaryBean(SLACalcStatus slaCalc) {
-        SLARegistrationBean reg = slaCalc.getSLARegistrationBean();
         setId(slaCalc.getId());
-        setAppName(reg.getAppName());
-        setAppType(reg.getAppType());
-        setNominalTime(reg.getNominalTime());
-        setExpectedStart(reg.getExpectedStart());
-        setExpectedEnd(reg.getExpectedEnd());
-        setExpectedDuration(reg.getExpectedDuration());
+        setAppName(slaCalc.getAppName());
+        setAppType(slaCalc.getAppType());
+        setNominalTime(slaCalc.getNominalTime());
+        setExpectedStart(slaCalc.getExpectedStart());
+        setExpectedEnd(slaCalc.getExpectedEnd());
+        setExpectedDuration(slaCalc.getExpectedDuration());
         setJobStatus(slaCalc.getJobStatus());
         setSLAStatus(slaCalc.getSLAStatus());
         setEventStatus(slaCalc.getEventStatus());
         setLastModifiedTime(slaCalc.getLastModifiedTime());
-        setUser(reg.getUser());
-        setParentId(reg.getParentId());
+        setUser(slaCalc.getUser());
+        setParentId(slaCalc.getParentId());
         setEventProcessed(slaCalc.getEventProcessed());
         setActualDuration(slaCalc.getActualDuration());
         setActualEnd(slaCalc.getActualEnd());
@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free concurrency limiter keyed by type.
+ * <p/>
+ * Each type has its own counter and its own limit. Types with a configured limit are registered when the limiter is
+ * created, any other type is registered on first use with the default limit. Acquiring and releasing a slot is a CAS
+ * on the counter of the type, no lock is shared between types.
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * Counter of a single type.
+     */
+    private static class Slots {
+        private final int limit;
+        private final AtomicInteger active = new AtomicInteger();
+
+        Slots(int limit) {
+            this.limit = limit;
+        }
+    }
+
+    private final int defaultLimit;
+    private final Map<String, Integer> limits;
+    private final ConcurrentMap<String, Slots> slots = new ConcurrentHashMap<String, Slots>();
+
+    /**
+     * Create a concurrency limiter.
+     *
+     * @param defaultLimit limit for the types without a specific limit.
+     * @param limits specific limits by type, may be <code>null</code>.
+     */
+    public ConcurrencyLimiter(int defaultLimit, Map<String, Integer> limits) {
+        if (defaultLimit < 1) {
+            throw new IllegalArgumentException("defaultLimit must be 1 or more");
+        }
+        this.defaultLimit = defaultLimit;
+        this.limits = (limits == null) ? Collections.<String, Integer>emptyMap()
+                : Collections.unmodifiableMap(new HashMap<String, Integer>(limits));
+        for (Map.Entry<String, Integer> entry : this.limits.entrySet()) {
+            if (entry.getValue() < 1) {
+                throw new IllegalArgumentException("limit for [" + entry.getKey() + "] must be 1 or more");
+            }
+            slots.put(entry.getKey(), new Slots(entry.getValue()));
+        }
+    }
+
+    private Slots getSlots(String type) {
+        Slots typeSlots = slots.get(type);
+        if (typeSlots == null) {
+            Slots newSlots = new Slots(getLimit(type));
+            typeSlots = slots.putIfAbsent(type, newSlots);
+            if (typeSlots == null) {
+                typeSlots = newSlots;
+            }
+        }
+        return typeSlots;
+    }
+
+    /**
+     * Return the limit of a type.
+     *
+     * @param type the type.
+     * @return the specific limit of the type if any, the default limit otherwise.
+     */
+    public int getLimit(String type) {
+        Integer limit = limits.get(type);
+        return (limit != null) ? limit : defaultLimit;
+    }
+
+    /**
+     * Acquire a slot for a type.
+     * <p/>
+     * If the slot is acquired, it must be released with {@link #release(String)}.
+     *
+     * @param type the type.
+     * @return <code>true</code> if the slot was acquired, <code>false</code> if the type is at its limit.
+     */
+    public boolean acquire(String type) {
+        Slots typeSlots = getSlots(type);
+        while (true) {
+            int active = typeSlots.active.get();
+            if (active >= typeSlots.limit) {
+                return false;
+            }
+            if (typeSlots.active.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release a slot previously acquired with {@link #acquire(String)}.
+     *
+     * @param type the type.
+     * @throws IllegalStateException if there is no slot acquired for the type.
+     */
+    public void release(String type) {
+        Slots typeSlots = slots.get(type);
+        if (typeSlots == null || typeSlots.active.decrementAndGet() < 0) {
+            if (typeSlots != null) {
+                typeSlots.active.incrementAndGet();
+            }
+            throw new IllegalStateException("No slot acquired for [" + type + "]");
+        }
+    }
+
+    /**
+     * Return if a type has free slots, without acquiring one.
+     *
+     * @param type the type.
+     * @return <code>true</code> if the type is below its limit.
+     */
+    public boolean hasFreeSlot(String type) {
+        Slots typeSlots = slots.get(type);
+        return typeSlots == null || typeSlots.active.get() < typeSlots.limit;
+    }
+
+    /**
+     * Return the number of slots in use for a type.
+     *
+     * @param type the type.
+     * @return the number of slots in use.
+     */
+    public int getActive(String type) {
+        Slots typeSlots = slots.get(type);
+        return (typeSlots == null) ? 0 : typeSlots.active.get();
+    }
+
+    /**
+     * Parse specific limits in <code>TYPE=LIMIT</code> format.
+     *
+     * @param definitions limit definitions, may be <code>null</code>.
+     * @return the limits by type.
+     * @throws IllegalArgumentException if a definition is invalid.
+     */
+    public static Map<String, Integer> parseLimits(String[] definitions) {
+        Map<String, Integer> limits = new HashMap<String, Integer>();
+        if (definitions != null) {
+            for (String definition : definitions) {
+                definition = definition.trim();
+                if (definition.length() == 0) {
+                    continue;
+                }
+                String[] values = definition.split("=", 2);
+                if (values.length != 2 || values[0].trim().length() == 0) {
+                    throw new IllegalArgumentException("Invalid concurrency definition [" + definition + "]");
+                }
+                try {
+                    limits.put(values[0].trim(), Integer.parseInt(values[1].trim()));
+                }
+                catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Invalid concurrency definition [" + definition + "]", ex);
+                }
+            }
+        }
+        return limits;
+    }
+}
@@ -17,8 +17,11 @@
  */
 package org.apache.oozie.util;
 
+import org.apache.commons.el.Coercions;
+import org.apache.commons.el.Expression;
 import org.apache.commons.el.ExpressionEvaluatorImpl;
 import org.apache.commons.el.ExpressionString;
+import org.apache.commons.el.Logger;
 
 import javax.servlet.jsp.el.ELException;
 import javax.servlet.jsp.el.ExpressionEvaluator;
@@ -29,8 +32,13 @@ import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
- * JSP Expression Language Evaluator. <p/> It provides a more convenient way of using the JSP EL Evaluator.
+ * JSP Expression Language Evaluator. <p/> It provides a more convenient way of using the JSP EL Evaluator. <p/> The
+ * parsed form of the expressions is kept in a cache shared by all the evaluators, bounded to
+ * {@link #setExpressionCacheSize(int)} expressions, so an expression is only parsed once.
  */
 public class ELEvaluator {
 
@@ -39,6 +47,7 @@ public class ELEvaluator {
      * evaluator are accessible from EL expressions.
      */
     public static class Context implements VariableResolver, FunctionMapper {
+        private Context parent;
         private Map<String, Object> vars;
         private Map<String, Method> functions;
 
@@ -46,6 +55,18 @@ public class ELEvaluator {
          * Create an empty context.
          */
         public Context() {
+            this(null);
+        }
+
+        /**
+         * Create a context on top of a parent context. <p/> The variables and functions of the parent are available
+         * unless the context defines its own with the same name. The parent is shared, it must not be modified once
+         * contexts are created on top of it.
+         *
+         * @param parent parent context, <code>null</code> if none.
+         */
+        public Context(Context parent) {
+            this.parent = parent;
             vars = new HashMap<String, Object>();
             functions = new HashMap<String, Method>();
         }
@@ -76,7 +97,10 @@ public class ELEvaluator {
          * @return the variable value.
          */
         public Object getVariable(String name) {
-            return vars.get(name);
+            if (vars.containsKey(name) || parent == null) {
+                return vars.get(name);
+            }
+            return parent.getVariable(name);
         }
 
         /**
@@ -103,6 +127,9 @@ public class ELEvaluator {
          */
         public Object resolveVariable(String name) throws ELException {
             if (!vars.containsKey(name)) {
+                if (parent != null) {
+                    return parent.resolveVariable(name);
+                }
                 throw new ELException(XLog.format("variable [{0}] cannot be resolved", name));
             }
             return vars.get(name);
@@ -119,8 +146,58 @@ public class ELEvaluator {
             if (prefix.length() > 0) {
                 name = prefix + ":" + name;
             }
-            return functions.get(name);
+            return findFunction(name);
+        }
+
+        private Method findFunction(String name) {
+            Method method = functions.get(name);
+            if (method == null && parent != null) {
+                method = parent.findFunction(name);
+            }
+            return method;
+        }
+    }
+
+    /**
+     * Default number of parsed expressions kept in the cache.
+     */
+    public static final int DEFAULT_EXPRESSION_CACHE_SIZE = 10000;
+
+    // the evaluator cache is unbounded, parsed expressions are cached by this class instead
+    private static final ExpressionEvaluatorImpl EVALUATOR = new ExpressionEvaluatorImpl(true);
+
+    private static final Logger EL_LOGGER = new Logger(System.out);
+
+    // expression -> parsed expression (String, Expression or ExpressionString), null if not caching
+    private static volatile Cache<String, Object> parsedExpressions = createCache(DEFAULT_EXPRESSION_CACHE_SIZE);
+
+    /**
+     * Set the maximum number of parsed expressions kept in the cache, the cache is emptied. <p/>
+     *
+     * @param size maximum number of parsed expressions, 0 to not cache them.
+     */
+    public static void setExpressionCacheSize(int size) {
+        parsedExpressions = createCache(size);
+    }
+
+    private static Cache<String, Object> createCache(int size) {
+        if (size <= 0) {
+            return null;
+        }
+        Cache<String, Object> cache = CacheBuilder.newBuilder().maximumSize(size).build();
+        return cache;
+    }
+
+    private static Object parseExpression(String expr) throws ELException {
+        Cache<String, Object> cache = parsedExpressions;
+        Object parsed = (cache == null) ? null : cache.getIfPresent(expr);
+        if (parsed == null) {
+            parsed = EVALUATOR.parseExpressionString(expr);
+            if (cache != null) {
+                cache.put(expr, parsed);
+            }
         }
+        return parsed;
     }
 
     private static ThreadLocal<ELEvaluator> current = new ThreadLocal<ELEvaluator>();
@@ -139,8 +216,6 @@ public class ELEvaluator {
 
     private Context context;
 
-    private ExpressionEvaluatorImpl evaluator = new ExpressionEvaluatorImpl();
-
     /**
      * Creates an ELEvaluator with no functions and no variables defined.
      */
@@ -200,7 +275,22 @@ public class ELEvaluator {
         ELEvaluator existing = current.get();
         try {
             current.set(this);
-            return (T) evaluator.evaluate(expr, clazz, context, context);
+            if (expr == null) {
+                // fails as a null expression is not valid
+                return (T) EVALUATOR.evaluate(expr, clazz, context, context);
+            }
+            Object parsed = parseExpression(expr);
+            Object value;
+            if (parsed instanceof Expression) {
+                value = ((Expression) parsed).evaluate(context, context, EL_LOGGER);
+            }
+            else if (parsed instanceof ExpressionString) {
+                value = ((ExpressionString) parsed).evaluate(context, context, EL_LOGGER);
+            }
+            else {
+                value = parsed;
+            }
+            return (T) Coercions.coerce(value, clazz, EL_LOGGER);
         }
         catch (ELException ex) {
             if (ex.getRootCause() instanceof Exception) {
@@ -229,7 +319,7 @@ public class ELEvaluator {
     public boolean checkForExistence(String expr, String sequence)
             throws Exception {
         try {
-            Object exprString = evaluator.parseExpressionString(expr);
+            Object exprString = parseExpression(expr);
             if (exprString instanceof ExpressionString) {
                 for (Object element : ((ExpressionString)exprString).getElements()) {
                     if (element instanceof String &&
@@ -0,0 +1,397 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Index of the jobs logged in a rolled log file, stored in a sidecar file next to it.
+ * <p/>
+ * The log file is split in blocks of about <code>blockSize</code> bytes, each block starting at the beginning of a log
+ * message so multi-line messages are never split. The index records the offset and length of each block along with the
+ * job IDs found in the <code>JOB[...]</code> token of its messages. Offsets are in the uncompressed content, for
+ * <code>.gz</code> files the blocks are reached by skipping the decompressed bytes without parsing them.
+ * <p/>
+ * The sidecar file of <code>oozie.log-2013-01-01-10</code> is <code>.oozie.log-2013-01-01-10.idx</code>, it is hidden so
+ * it is not taken for a log file. An index is ignored if the log file changed after it was written.
+ */
+public class LogIndex {
+    private static final int MAGIC = 0x4f4c4958;
+    private static final int VERSION = 1;
+    private static final String JOB_TOKEN = "JOB[";
+
+    private static class Block {
+        private final long offset;
+        private final long length;
+        private final Set<String> jobIds;
+
+        private Block(long offset, long length, Set<String> jobIds) {
+            this.offset = offset;
+            this.length = length;
+            this.jobIds = jobIds;
+        }
+    }
+
+    private final long fileLength;
+    private final List<Block> blocks;
+
+    private LogIndex(long fileLength, List<Block> blocks) {
+        this.fileLength = fileLength;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Return the sidecar index file of a log file.
+     *
+     * @param logFile log file.
+     * @return the index file, it may not exist.
+     */
+    public static File getIndexFile(File logFile) {
+        return new File(logFile.getParentFile(), "." + logFile.getName() + ".idx");
+    }
+
+    /**
+     * Build the index of a log file by reading it.
+     *
+     * @param logFile log file, it must not be written anymore.
+     * @param blockSize minimum size of the blocks in bytes.
+     * @return the index.
+     * @throws IOException thrown if the log file could not be read.
+     */
+    public static LogIndex build(File logFile, int blockSize) throws IOException {
+        long fileLength = logFile.length();
+        List<Block> blocks = new ArrayList<Block>();
+        XLogStreamer.Filter filter = new XLogStreamer.Filter();
+        LineReader reader = new LineReader(open(logFile));
+        try {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long offset = 0;
+            long blockStart = 0;
+            Set<String> jobIds = new HashSet<String>();
+            while (reader.readLine(line)) {
+                String text = stripLineTerminator(line.toString());
+                if (filter.splitLogMessage(text) != null) {
+                    if (offset - blockStart >= blockSize) {
+                        blocks.add(new Block(blockStart, offset - blockStart, jobIds));
+                        blockStart = offset;
+                        jobIds = new HashSet<String>();
+                    }
+                    addJobIds(text, jobIds);
+                }
+                offset += line.size();
+                line.reset();
+            }
+            if (offset > blockStart) {
+                blocks.add(new Block(blockStart, offset - blockStart, jobIds));
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return new LogIndex(fileLength, blocks);
+    }
+
+    /**
+     * Read the index of a log file.
+     *
+     * @param logFile log file.
+     * @return the index, <code>null</code> if there is no index or if it is out of date or unreadable.
+     */
+    public static LogIndex read(File logFile) {
+        File indexFile = getIndexFile(logFile);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                long fileLength = in.readLong();
+                if (fileLength != logFile.length()) {
+                    return null;
+                }
+                int count = in.readInt();
+                List<Block> blocks = new ArrayList<Block>(count);
+                for (int i = 0; i < count; i++) {
+                    long offset = in.readLong();
+                    long length = in.readLong();
+                    int jobCount = in.readInt();
+                    Set<String> jobIds = new HashSet<String>();
+                    for (int j = 0; j < jobCount; j++) {
+                        jobIds.add(in.readUTF());
+                    }
+                    blocks.add(new Block(offset, length, jobIds));
+                }
+                return new LogIndex(fileLength, blocks);
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException ex) {
+            XLog.getLog(LogIndex.class).warn("Could not read log index [{0}], {1}", indexFile, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the index next to its log file.
+     * <p/>
+     * The index is written to a temporary file first so a partially written index is never read.
+     *
+     * @param logFile log file the index was built for.
+     * @throws IOException thrown if the index could not be written.
+     */
+    public void write(File logFile) throws IOException {
+        File indexFile = getIndexFile(logFile);
+        File tmpFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fileLength);
+            out.writeInt(blocks.size());
+            for (Block block : blocks) {
+                out.writeLong(block.offset);
+                out.writeLong(block.length);
+                out.writeInt(block.jobIds.size());
+                for (String jobId : block.jobIds) {
+                    out.writeUTF(jobId);
+                }
+            }
+        }
+        finally {
+            out.close();
+        }
+        if (!tmpFile.renameTo(indexFile)) {
+            tmpFile.delete();
+            throw new IOException("Could not rename [" + tmpFile + "] to [" + indexFile + "]");
+        }
+    }
+
+    /**
+     * Return the number of blocks of the index.
+     *
+     * @return the number of blocks.
+     */
+    public int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Return the byte ranges of the blocks containing messages of a job, adjacent blocks are merged.
+     *
+     * @param jobId job ID.
+     * @return list of <code>{offset, length}</code> pairs in increasing offset order.
+     */
+    public List<long[]> getRanges(String jobId) {
+        List<long[]> ranges = new ArrayList<long[]>();
+        long[] last = null;
+        for (Block block : blocks) {
+            if (block.jobIds.contains(jobId)) {
+                if (last != null && last[0] + last[1] == block.offset) {
+                    last[1] += block.length;
+                }
+                else {
+                    last = new long[]{block.offset, block.length};
+                    ranges.add(last);
+                }
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Open the content of a log file restricted to the blocks containing messages of a job.
+     *
+     * @param logFile log file of the index.
+     * @param jobId job ID.
+     * @return a stream of the matching blocks.
+     * @throws IOException thrown if the log file could not be opened.
+     */
+    public InputStream open(File logFile, String jobId) throws IOException {
+        List<long[]> ranges = getRanges(jobId);
+        if (ranges.isEmpty()) {
+            return new RangesInputStream(null, Collections.<long[]>emptyList());
+        }
+        return new RangesInputStream(open(logFile), ranges);
+    }
+
+    /**
+     * Open the uncompressed content of a log file.
+     *
+     * @param logFile log file, gzipped if its name ends with <code>.gz</code>.
+     * @return the content stream.
+     * @throws IOException thrown if the log file could not be opened.
+     */
+    static InputStream open(File logFile) throws IOException {
+        InputStream is = new FileInputStream(logFile);
+        if (logFile.getName().endsWith(".gz")) {
+            is = new GZIPInputStream(is);
+        }
+        return is;
+    }
+
+    private static String stripLineTerminator(String line) {
+        int end = line.length();
+        while (end > 0 && (line.charAt(end - 1) == '\n' || line.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    private static void addJobIds(String line, Set<String> jobIds) {
+        int start = line.indexOf(JOB_TOKEN);
+        while (start != -1) {
+            start += JOB_TOKEN.length();
+            int end = line.indexOf(']', start);
+            if (end == -1) {
+                break;
+            }
+            jobIds.add(line.substring(start, end));
+            start = line.indexOf(JOB_TOKEN, end);
+        }
+    }
+
+    /**
+     * Reads lines from a stream through a buffer scanned for the line terminators.
+     */
+    private static class LineReader {
+        private final InputStream is;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int limit;
+
+        private LineReader(InputStream is) {
+            this.is = is;
+        }
+
+        // reads a line including its terminator, returns false at the end of the stream
+        private boolean readLine(ByteArrayOutputStream line) throws IOException {
+            while (true) {
+                if (position == limit) {
+                    limit = is.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return line.size() > 0;
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                if (position < limit) {
+                    position++;
+                    line.write(buffer, start, position - start);
+                    return true;
+                }
+                line.write(buffer, start, position - start);
+            }
+        }
+
+        private void close() throws IOException {
+            is.close();
+        }
+    }
+
+    /**
+     * Stream over byte ranges of another stream, the bytes between the ranges are skipped.
+     */
+    private static class RangesInputStream extends InputStream {
+        private final InputStream is;
+        private final List<long[]> ranges;
+        private int index;
+        private long position;
+        private long remaining;
+
+        private RangesInputStream(InputStream is, List<long[]> ranges) {
+            this.is = is;
+            this.ranges = ranges;
+        }
+
+        // positions the stream at the next range if the current one is exhausted, returns false after the last range
+        private boolean nextRange() throws IOException {
+            while (remaining == 0) {
+                if (index >= ranges.size()) {
+                    return false;
+                }
+                long[] range = ranges.get(index++);
+                long skip = range[0] - position;
+                while (skip > 0) {
+                    long skipped = is.skip(skip);
+                    if (skipped <= 0) {
+                        if (is.read() == -1) {
+                            throw new EOFException("Log file shorter than its index");
+                        }
+                        skipped = 1;
+                    }
+                    skip -= skipped;
+                    position += skipped;
+                }
+                remaining = range[1];
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!nextRange()) {
+                return -1;
+            }
+            int n = is.read(b, off, (int) Math.min(len, remaining));
+            if (n == -1) {
+                throw new EOFException("Log file shorter than its index");
+            }
+            position += n;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (is != null) {
+                is.close();
+            }
+        }
+    }
+}
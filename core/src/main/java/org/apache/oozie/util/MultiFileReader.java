@@ -75,19 +75,30 @@ public class MultiFileReader extends Reader {
 
     private void openNextReader() throws IOException {
         if (index < files.size()) {
-            // gzip files
-            if (files.get(index).getName().endsWith(".gz")) {
-                GZIPInputStream gzipInputStream = new GZIPInputStream(new FileInputStream(files.get(index)));
-                reader = new InputStreamReader(gzipInputStream);
-            }
-            // regular files
-            else {
-                reader = new FileReader(files.get(index));
-            }
+            reader = openReader(files.get(index));
             index++;
         }
         else {
             closed = true;
         }
     }
+
+    /**
+     * Opens a Reader for one of the files.  Subclasses can override it to read only parts of the files.
+     *
+     * @param file The file to open
+     * @return A Reader for the file
+     * @throws IOException If there was a problem opening the file
+     */
+    protected Reader openReader(File file) throws IOException {
+        // gzip files
+        if (file.getName().endsWith(".gz")) {
+            GZIPInputStream gzipInputStream = new GZIPInputStream(new FileInputStream(file));
+            return new InputStreamReader(gzipInputStream);
+        }
+        // regular files
+        else {
+            return new FileReader(file);
+        }
+    }
 }
@@ -18,23 +18,31 @@
 package org.apache.oozie.util;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import org.apache.log4j.Appender;
+import org.apache.log4j.helpers.LogLog;
 import org.apache.log4j.rolling.RollingPolicyBase;
 import org.apache.log4j.rolling.RolloverDescription;
+import org.apache.log4j.rolling.RolloverDescriptionImpl;
 import org.apache.log4j.rolling.TimeBasedRollingPolicy;
 import org.apache.log4j.rolling.TriggeringPolicy;
+import org.apache.log4j.rolling.helper.Action;
+import org.apache.log4j.rolling.helper.ActionBase;
+import org.apache.log4j.rolling.helper.CompositeAction;
 import org.apache.log4j.spi.LoggingEvent;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.XLogService;
 
 /**
  * Has the same behavior as the TimeBasedRollingPolicy.  Additionally, it will delete older logs (MaxHistory determines how many
- * older logs are retained).
+ * older logs are retained) and, after each rollover, write a {@link LogIndex} for the rolled logs so log streaming can skip the
+ * parts of them not related to the job (IndexBlockSize determines the size of the indexed blocks, 0 to disable).
  */
 public class OozieRollingPolicy extends RollingPolicyBase implements TriggeringPolicy {
 
@@ -46,9 +54,13 @@ public class OozieRollingPolicy extends RollingPolicyBase implements TriggeringP
     private Semaphore deleteSem;
     
     private Thread deleteThread;
+
+    private Thread backlogThread;
     
     private int maxHistory = 720;       // (720 hours / 24 hours per day = 30 days) as default
-    
+
+    private int indexBlockSize = 64 * 1024;
+
     public int getMaxHistory() {
         return maxHistory;
     }
@@ -57,6 +69,14 @@ public class OozieRollingPolicy extends RollingPolicyBase implements TriggeringP
         this.maxHistory = maxHistory;
     }
     
+    public int getIndexBlockSize() {
+        return indexBlockSize;
+    }
+
+    public void setIndexBlockSize(int indexBlockSize) {
+        this.indexBlockSize = indexBlockSize;
+    }
+
     public OozieRollingPolicy() {
         deleteSem = new Semaphore(1);
         deleteThread = new Thread();
@@ -77,7 +97,101 @@ public class OozieRollingPolicy extends RollingPolicyBase implements TriggeringP
     
     @Override
     public RolloverDescription rollover(final String activeFile) throws SecurityException {
-        return tbrp.rollover(activeFile);
+        RolloverDescription description = tbrp.rollover(activeFile);
+        if (description == null || indexBlockSize <= 0) {
+            return description;
+        }
+        // Index the rolled log once it has been renamed and compressed; asynchronous actions run in their own thread
+        List<Action> actions = new ArrayList<Action>();
+        if (description.getAsynchronous() != null) {
+            actions.add(description.getAsynchronous());
+        }
+        actions.add(new ActionBase() {
+            @Override
+            public boolean execute() {
+                indexLatestRolledFile();
+                startBacklogIndexing();
+                return true;
+            }
+        });
+        return new RolloverDescriptionImpl(description.getActiveFileName(), description.getAppend(),
+                description.getSynchronous(), new CompositeAction(actions, false));
+    }
+
+    // Indexes the newest rolled log file without an index, the one that was just rolled
+    void indexLatestRolledFile() {
+        File latest = null;
+        for (File file : getUnindexedRolledFiles()) {
+            if (latest == null || file.lastModified() > latest.lastModified()) {
+                latest = file;
+            }
+        }
+        if (latest != null) {
+            indexFile(latest);
+        }
+    }
+
+    // Indexes the rolled log files that don't have an index yet
+    void indexRolledFiles() {
+        for (File file : getUnindexedRolledFiles()) {
+            indexFile(file);
+        }
+    }
+
+    // Indexes the rolled log files left from before the first rollover in a new thread, only once, as there can be
+    // up to MaxHistory of them
+    private synchronized void startBacklogIndexing() {
+        if (backlogThread == null) {
+            backlogThread = new Thread("OozieRollingPolicy-index") {
+                @Override
+                public void run() {
+                    indexRolledFiles();
+                }
+            };
+            backlogThread.setDaemon(true);
+            backlogThread.start();
+        }
+    }
+
+    private List<File> getUnindexedRolledFiles() {
+        List<File> files = new ArrayList<File>();
+        XLogService xls = getXLogService();
+        if (xls == null) {
+            return files;
+        }
+        String oozieLogPath = xls.getOozieLogPath();
+        String logFile = xls.getOozieLogName();
+        if (oozieLogPath == null || logFile == null) {
+            return files;
+        }
+        File dir = new File(oozieLogPath).getAbsoluteFile();
+        String[] children = dir.list();
+        if (children == null) {
+            return files;
+        }
+        for (String child : children) {
+            if (child.startsWith(logFile) && !child.equals(logFile)) {
+                File childFile = new File(dir, child);
+                if (!LogIndex.getIndexFile(childFile).exists()) {
+                    files.add(childFile);
+                }
+            }
+        }
+        return files;
+    }
+
+    // Synchronized so the rollover and the backlog thread don't index the same file at the same time
+    private synchronized void indexFile(File file) {
+        if (LogIndex.getIndexFile(file).exists() || !file.exists()) {
+            return;
+        }
+        try {
+            LogIndex.build(file, indexBlockSize).write(file);
+        }
+        catch (IOException ex) {
+            // Log streaming reads the whole file when there is no index
+            LogLog.warn("Could not index log file " + file, ex);
+        }
     }
     
     @Override
@@ -134,7 +248,9 @@ public class OozieRollingPolicy extends RollingPolicyBase implements TriggeringP
             Collections.sort(fileList);
             
             for (int i = maxHistory; i < fileList.size(); i++) {
-                new File(fileList.get(i).getFileName()).delete();
+                File file = new File(fileList.get(i).getFileName());
+                file.delete();
+                LogIndex.getIndexFile(file).delete();
             }
         }
     }
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.oozie.XException;
+
+/**
+ * Iterable over a range of results read one page at a time.
+ * <p/>
+ * Pages are read lazily while iterating, only the current page is referenced by the iterator. Iteration ends when the
+ * range has been read or a page returns fewer results than requested.
+ * <p/>
+ * Errors reading a page are thrown as {@link PageException} by the iterator. The first page can be read ahead with
+ * {@link #prefetch()} so that its errors are thrown before anything is written with the results.
+ *
+ * @param <T> result type.
+ */
+public abstract class PagedIterable<T> implements Iterable<T> {
+
+    /**
+     * Unchecked exception thrown by the iterator when a page could not be read.
+     */
+    public static class PageException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public PageException(XException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        @Override
+        public XException getCause() {
+            return (XException) super.getCause();
+        }
+    }
+
+    private final int start;
+    private final int len;
+    private final int pageSize;
+    private List<T> firstPage;
+
+    /**
+     * Create a paged iterable.
+     *
+     * @param start offset of the first result, base 1.
+     * @param len maximum number of results.
+     * @param pageSize number of results read per page.
+     */
+    public PagedIterable(int start, int len, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be 1 or more");
+        }
+        this.start = start;
+        this.len = len;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Read a page of results.
+     *
+     * @param start offset of the first result of the page, base 1.
+     * @param len number of results to read.
+     * @return the results, fewer than <code>len</code> if there are no more results.
+     * @throws XException thrown if the page could not be read.
+     */
+    protected abstract List<T> getPage(int start, int len) throws XException;
+
+    /**
+     * Read the first page now, it is returned by the next iterator.
+     *
+     * @return this iterable.
+     * @throws XException thrown if the page could not be read.
+     */
+    public PagedIterable<T> prefetch() throws XException {
+        if (len > 0) {
+            firstPage = getPage(start, Math.min(pageSize, len));
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private List<T> page;
+            private int index;
+            private int next = start;
+            private int remaining = len;
+            private boolean last;
+
+            {
+                if (firstPage != null) {
+                    setPage(firstPage, Math.min(pageSize, remaining));
+                    firstPage = null;
+                }
+            }
+
+            private void setPage(List<T> results, int size) {
+                page = results;
+                index = 0;
+                next += page.size();
+                remaining -= page.size();
+                last = page.size() < size;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (page == null || index >= page.size()) {
+                    if (last || remaining <= 0) {
+                        page = null;
+                        return false;
+                    }
+                    int size = Math.min(pageSize, remaining);
+                    try {
+                        setPage(getPage(next, size), size);
+                    }
+                    catch (XException ex) {
+                        throw new PageException(ex);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -60,7 +60,7 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
      */
     public static class QueueElement<E> implements Delayed {
         private E element;
-        private int priority;
+        int priority;
         private long baseTime;
         boolean inQueue;
 
@@ -0,0 +1,736 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
+
+/**
+ * A lock-striped alternative to {@link PriorityDelayQueue}.
+ * <p/>
+ * Elements are distributed over <code>priorities x shards</code> sub-queues. Each sub-queue is a delay ordered heap
+ * guarded by its own lock, so producers and consumers running on different threads rarely contend for the same lock.
+ * The shard of an element is chosen from the offering thread and consumers start scanning at a shard chosen from the
+ * polling thread, which spreads both sides over the shards.
+ * <p/>
+ * Elements are consumed from the higher priority sub-queues first. Within a priority, elements are consumed based on
+ * their age within each shard; across shards of the same priority the ordering is best effort.
+ * <p/>
+ * Like {@link PriorityDelayQueue}, elements waiting more than the maximum wait time are promoted to the next higher
+ * priority. The anti-starvation check is performed by a single polling thread at a time (the others do not wait for
+ * it), at most every {@link PriorityDelayQueue#ANTI_STARVATION_INTERVAL} milliseconds.
+ * <p/>
+ * The maximum size is enforced with an atomic counter, no lock is taken to check it.
+ * <p/>
+ * Threads waiting in {@link #take()} or {@link #poll(long, TimeUnit)} are signalled when an element is inserted, and
+ * otherwise wait until the next element delay expires.
+ */
+public class ShardedPriorityDelayQueue<E> extends AbstractQueue<QueueElement<E>>
+        implements BlockingQueue<QueueElement<E>> {
+
+    /**
+     * A sub-queue, a delay ordered heap with its own lock.
+     */
+    private static class Shard<E> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<QueueElement<E>> heap = new PriorityQueue<QueueElement<E>>();
+    }
+
+    protected int priorities;
+    protected int shards;
+    private Shard<E>[][] queues;
+    private AtomicIntegerArray shardSizes;
+    private final ReentrantLock antiStarvationLock = new ReentrantLock();
+    private volatile long lastAntiStarvationCheck = 0;
+    private long maxWait;
+    private int maxSize;
+    private final AtomicInteger currentSize = new AtomicInteger();
+
+    // interval to check again expired elements that were not eligible to poll
+    private static final long ELIGIBILITY_CHECK_INTERVAL = 10;
+
+    // consumers waiting for an element, only signalled if there are any
+    private final ReentrantLock availableLock = new ReentrantLock();
+    private final Condition available = availableLock.newCondition();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Create a <code>ShardedPriorityDelayQueue</code>.
+     *
+     * @param priorities number of priorities the queue will support.
+     * @param shards number of shards per priority.
+     * @param maxWait max wait time for elements before they are promoted to the next higher priority.
+     * @param unit time unit of the max wait time.
+     * @param maxSize maximum size of the queue, -1 means unbounded.
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedPriorityDelayQueue(int priorities, int shards, long maxWait, TimeUnit unit, int maxSize) {
+        if (priorities < 1) {
+            throw new IllegalArgumentException("priorities must be 1 or more");
+        }
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be 1 or more");
+        }
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("maxWait must be greater than 0");
+        }
+        if (maxSize < -1 || maxSize == 0) {
+            throw new IllegalArgumentException("maxSize must be -1 or greater than 0");
+        }
+        this.priorities = priorities;
+        this.shards = shards;
+        queues = new Shard[priorities][shards];
+        for (int i = 0; i < priorities; i++) {
+            for (int j = 0; j < shards; j++) {
+                queues[i][j] = new Shard<E>();
+            }
+        }
+        shardSizes = new AtomicIntegerArray(priorities * shards);
+        this.maxWait = unit.toMillis(maxWait);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return number of priorities the queue supports.
+     *
+     * @return number of priorities the queue supports.
+     */
+    public int getPriorities() {
+        return priorities;
+    }
+
+    /**
+     * Return number of shards per priority.
+     *
+     * @return number of shards per priority.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Return the max wait time for elements before they are promoted to the next higher priority.
+     *
+     * @param unit time unit of the max wait time.
+     *
+     * @return the max wait time in the specified time unit.
+     */
+    public long getMaxWait(TimeUnit unit) {
+        return unit.convert(maxWait, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return the maximum queue size.
+     *
+     * @return the maximum queue size. If <code>-1</code> the queue is unbounded.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    private int index(int priority, int shard) {
+        return priority * shards + shard;
+    }
+
+    private int threadShard() {
+        return (int) (Thread.currentThread().getId() % shards);
+    }
+
+    /**
+     * Return an iterator over all the {@link QueueElement} elements (both expired and unexpired) in this queue. The
+     * iterator does not return the elements in any particular order and works on a snapshot of the shards taken when
+     * the iterator is created, its <code>remove()</code> removes the element from the queue.
+     *
+     * @return an iterator over the {@link QueueElement} elements in this queue.
+     */
+    @Override
+    public Iterator<QueueElement<E>> iterator() {
+        List<QueueElement<E>> list = new ArrayList<QueueElement<E>>();
+        for (Shard<E>[] priorityShards : queues) {
+            for (Shard<E> shard : priorityShards) {
+                shard.lock.lock();
+                try {
+                    list.addAll(shard.heap);
+                }
+                finally {
+                    shard.lock.unlock();
+                }
+            }
+        }
+        final Iterator<QueueElement<E>> snapshot = list.iterator();
+        return new Iterator<QueueElement<E>>() {
+            private QueueElement<E> last;
+
+            @Override
+            public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            @Override
+            public QueueElement<E> next() {
+                last = snapshot.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ShardedPriorityDelayQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * Remove an element from the queue.
+     *
+     * @param o the {@link QueueElement} element to remove.
+     * @return <tt>true</tt> if the element was in the queue.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof QueueElement)) {
+            return false;
+        }
+        for (int i = 0; i < priorities; i++) {
+            for (int j = 0; j < shards; j++) {
+                if (shardSizes.get(index(i, j)) == 0) {
+                    continue;
+                }
+                Shard<E> shard = queues[i][j];
+                shard.lock.lock();
+                try {
+                    if (shard.heap.remove(o)) {
+                        ((QueueElement<?>) o).inQueue = false;
+                        shardSizes.decrementAndGet(index(i, j));
+                        currentSize.decrementAndGet();
+                        return true;
+                    }
+                }
+                finally {
+                    shard.lock.unlock();
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the number of elements in the queue.
+     *
+     * @return the number of elements in the queue.
+     */
+    @Override
+    public int size() {
+        return currentSize.get();
+    }
+
+    /**
+     * Return the number of elements on each priority.
+     *
+     * @return the number of elements on each priority.
+     */
+    public int[] sizes() {
+        int[] sizes = new int[priorities];
+        for (int i = 0; i < priorities; i++) {
+            for (int j = 0; j < shards; j++) {
+                sizes[i] += shardSizes.get(index(i, j));
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Inserts the specified element into this queue if it is possible to do so without violating the maximum size.
+     *
+     * @param queueElement the {@link QueueElement} element to add.
+     * @return <tt>true</tt> (as specified by {@link Collection#add})
+     * @throws IllegalStateException if the queue has reached its maximum size.
+     */
+    @Override
+    public boolean add(QueueElement<E> queueElement) {
+        if (!offer(queueElement, false)) {
+            throw new IllegalStateException("Queue full");
+        }
+        return true;
+    }
+
+    /**
+     * Insert the specified {@link QueueElement} element into the queue.
+     *
+     * @param queueElement the {@link QueueElement} element to add.
+     * @param ignoreSize if the queue is bound to a maximum size and the maximum size is reached, this parameter (if set
+     * to <tt>true</tt>) allows to ignore the maximum size and add the element to the queue.
+     *
+     * @return <tt>true</tt> if the element has been inserted, <tt>false</tt> if the element was not inserted (the queue
+     *         has reached its maximum size).
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(QueueElement<E> queueElement, boolean ignoreSize) {
+        if (queueElement == null) {
+            throw new NullPointerException("queueElement is NULL");
+        }
+        if (queueElement.getPriority() < 0 || queueElement.getPriority() >= priorities) {
+            throw new IllegalArgumentException("priority out of range: " + queueElement);
+        }
+        if (queueElement.inQueue) {
+            throw new IllegalStateException("queueElement already in a queue: " + queueElement);
+        }
+        if (ignoreSize || maxSize == -1) {
+            currentSize.incrementAndGet();
+        }
+        else {
+            while (true) {
+                int size = currentSize.get();
+                if (size >= maxSize) {
+                    return false;
+                }
+                if (currentSize.compareAndSet(size, size + 1)) {
+                    break;
+                }
+            }
+        }
+        int shardIndex = threadShard();
+        insert(queueElement, queueElement.getPriority(), shardIndex);
+        debug("offer([{0}]), to P[{1}] S[{2}] delay[{3}ms]", queueElement.getElement().toString(),
+              queueElement.getPriority(), shardIndex, queueElement.getDelay(TimeUnit.MILLISECONDS));
+        return true;
+    }
+
+    private void insert(QueueElement<E> queueElement, int priority, int shardIndex) {
+        Shard<E> shard = queues[priority][shardIndex];
+        shard.lock.lock();
+        try {
+            shard.heap.offer(queueElement);
+            queueElement.inQueue = true;
+            shardSizes.incrementAndGet(index(priority, shardIndex));
+        }
+        finally {
+            shard.lock.unlock();
+        }
+        // a consumer counted as waiting polls again after the insertion or waits on the condition
+        if (waiting.get() > 0) {
+            availableLock.lock();
+            try {
+                available.signal();
+            }
+            finally {
+                availableLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Insert the specified element into the queue.
+     *
+     * @param queueElement the element to add.
+     *
+     * @return <tt>true</tt> if the element has been inserted, <tt>false</tt> if the element was not inserted (the queue
+     *         has reached its maximum size).
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean offer(QueueElement<E> queueElement) {
+        return offer(queueElement, false);
+    }
+
+    /**
+     * Retrieve and remove the head of this queue, or return <tt>null</tt> if this queue has no elements with an expired
+     * delay.
+     * <p/>
+     * The retrieved element is the oldest one from the first non empty shard of the highest priority.
+     * <p/>
+     * Invocations to this method run the anti-starvation (once every interval check).
+     *
+     * @return the head of this queue, or <tt>null</tt> if this queue has no elements with an expired delay.
+     */
+    @Override
+    public QueueElement<E> poll() {
+        antiStarvation();
+        int start = threadShard();
+        for (int i = priorities - 1; i >= 0; i--) {
+            for (int j = 0; j < shards; j++) {
+                int shardIndex = (start + j) % shards;
+                if (shardSizes.get(index(i, shardIndex)) == 0) {
+                    continue;
+                }
+                QueueElement<E> e = poll(i, shardIndex);
+                if (e != null) {
+                    currentSize.decrementAndGet();
+                    debug("poll(): [{0}], from P[{1}] S[{2}]", e.getElement().toString(), i, shardIndex);
+                    return e;
+                }
+            }
+        }
+        return null;
+    }
+
+    private QueueElement<E> poll(int priority, int shardIndex) {
+        Shard<E> shard = queues[priority][shardIndex];
+        shard.lock.lock();
+        try {
+            QueueElement<E> e = shard.heap.peek();
+            if (e == null || e.getDelay(TimeUnit.MILLISECONDS) > 0) {
+                return null;
+            }
+            if (eligibleToPoll(e)) {
+                shard.heap.poll();
+            }
+            else {
+                debug("poll(): the peek element [{0}], from P[{1}] S[{2}] is not eligible to poll",
+                      e.getElement().toString(), priority, shardIndex);
+                e = null;
+                Iterator<QueueElement<E>> iter = shard.heap.iterator();
+                while (e == null && iter.hasNext()) {
+                    e = iter.next();
+                    if (e.getDelay(TimeUnit.MILLISECONDS) <= 0 && eligibleToPoll(e)) {
+                        iter.remove();
+                    }
+                    else {
+                        e = null;
+                    }
+                }
+            }
+            if (e != null) {
+                e.inQueue = false;
+                shardSizes.decrementAndGet(index(priority, shardIndex));
+            }
+            return e;
+        }
+        finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieve, but does not remove, the head of this queue, or returns <tt>null</tt> if this queue is empty.  Unlike
+     * <tt>poll</tt>, if no expired elements are available in the queue, this method returns the element that will
+     * expire next, if one exists.
+     *
+     * @return the head of this queue, or <tt>null</tt> if this queue is empty.
+     */
+    @Override
+    public QueueElement<E> peek() {
+        antiStarvation();
+        QueueElement<E> next = null;
+        for (int i = priorities - 1; i >= 0; i--) {
+            QueueElement<E> oldest = null;
+            for (int j = 0; j < shards; j++) {
+                Shard<E> shard = queues[i][j];
+                QueueElement<E> e;
+                shard.lock.lock();
+                try {
+                    e = shard.heap.peek();
+                }
+                finally {
+                    shard.lock.unlock();
+                }
+                if (e != null && (oldest == null || e.compareTo(oldest) < 0)) {
+                    oldest = e;
+                }
+            }
+            if (oldest != null) {
+                if (oldest.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+                    debug("peek(): [{0}], from P[{1}]", oldest.getElement().toString(), i);
+                    return oldest;
+                }
+                if (next == null || oldest.compareTo(next) < 0) {
+                    next = oldest;
+                }
+            }
+        }
+        if (next != null) {
+            debug("peek(): [{0}], from P[{1}]", next.getElement().toString(), next.getPriority());
+        }
+        else {
+            debug("peek(): NULL");
+        }
+        return next;
+    }
+
+    /**
+     * Run the anti-starvation check every {@link PriorityDelayQueue#ANTI_STARVATION_INTERVAL} milliseconds.
+     * <p/>
+     * It promotes elements beyond max wait time to the same shard of the next higher priority. If another thread is
+     * already running the check this method returns immediately.
+     */
+    protected void antiStarvation() {
+        long now = System.currentTimeMillis();
+        if (now - lastAntiStarvationCheck > PriorityDelayQueue.ANTI_STARVATION_INTERVAL
+                && antiStarvationLock.tryLock()) {
+            try {
+                if (now - lastAntiStarvationCheck > PriorityDelayQueue.ANTI_STARVATION_INTERVAL) {
+                    for (int i = 0; i < priorities - 1; i++) {
+                        int moved = 0;
+                        for (int j = 0; j < shards; j++) {
+                            moved += antiStarvation(i, j);
+                        }
+                        debug("anti-starvation, moved {0} element(s) from P[{1}] to P[{2}]", moved, i, i + 1);
+                    }
+                    debug("queue size: {0}", currentSize.get());
+                    lastAntiStarvationCheck = System.currentTimeMillis();
+                }
+            }
+            finally {
+                antiStarvationLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Promote elements beyond max wait time from a shard to the same shard of the next higher priority.
+     *
+     * @param priority priority of the shard.
+     * @param shardIndex index of the shard.
+     * @return the number of elements promoted.
+     */
+    private int antiStarvation(int priority, int shardIndex) {
+        if (shardSizes.get(index(priority, shardIndex)) == 0) {
+            return 0;
+        }
+        List<QueueElement<E>> promoted = new ArrayList<QueueElement<E>>();
+        Shard<E> lowerShard = queues[priority][shardIndex];
+        lowerShard.lock.lock();
+        try {
+            QueueElement<E> e = lowerShard.heap.peek();
+            while (e != null && e.getDelay(TimeUnit.MILLISECONDS) < -maxWait) {
+                lowerShard.heap.poll();
+                shardSizes.decrementAndGet(index(priority, shardIndex));
+                e.inQueue = false;
+                promoted.add(e);
+                e = lowerShard.heap.peek();
+            }
+        }
+        finally {
+            lowerShard.lock.unlock();
+        }
+        for (QueueElement<E> e : promoted) {
+            e.setDelay(0, TimeUnit.MILLISECONDS);
+            e.priority++;
+            insert(e, priority + 1, shardIndex);
+        }
+        return promoted.size();
+    }
+
+    /**
+     * Method for checking the QueueElement eligible to poll before remove it from queue.
+     * <p/>
+     * This method should be overriden for checking purposes. It is invoked while holding the shard lock.
+     *
+     * @param element the element to check
+     * @return <tt>true</tt> if the element can be polled.
+     */
+    protected boolean eligibleToPoll(QueueElement<?> element) {
+        return true;
+    }
+
+    /**
+     * Method for debugging purposes. This implementation is a <tt>NOP</tt>.
+     * <p/>
+     * This method should be overriden for logging purposes.
+     * <p/>
+     * Message templates used by this class are in JDK's <tt>MessageFormat</tt> syntax.
+     *
+     * @param msgTemplate message template.
+     * @param msgArgs arguments for the message template.
+     */
+    protected void debug(String msgTemplate, Object... msgArgs) {
+    }
+
+    /**
+     * Insert the specified element into this queue.
+     * <p/>
+     * IMPORTANT: This implementation forces the addition of the element to the queue regardless of the queue current
+     * size.
+     *
+     * @param e the element to add
+     */
+    @Override
+    public void put(QueueElement<E> e) throws InterruptedException {
+        offer(e, true);
+    }
+
+    /**
+     * Insert the specified element into this queue.
+     * <p/>
+     * IMPORTANT: This implementation forces the addition of the element to the queue regardless of the queue current
+     * size. The timeout value is ignored as the element is added immediately.
+     *
+     * @param e the element to add
+     * @param timeout ignored.
+     * @param unit ignored.
+     * @return <tt>true</tt>
+     */
+    @Override
+    public boolean offer(QueueElement<E> e, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(e, true);
+    }
+
+    /**
+     * Retrieve and removes the head of this queue, waiting if necessary until an element becomes available.
+     *
+     * @return the head of this queue
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public QueueElement<E> take() throws InterruptedException {
+        return poll(0, false);
+    }
+
+    /**
+     * Retrieve and removes the head of this queue, waiting up to the specified wait time if necessary for an element
+     * to become available.
+     *
+     * @param timeout how long to wait before giving up, in units of <tt>unit</tt>
+     * @param unit a <tt>TimeUnit</tt> determining how to interpret the <tt>timeout</tt> parameter
+     * @return the head of this queue, or <tt>null</tt> if the specified waiting time elapses before an element is
+     *         available
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public QueueElement<E> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return poll(unit.toNanos(timeout), true);
+    }
+
+    private QueueElement<E> poll(long nanos, boolean timed) throws InterruptedException {
+        QueueElement<E> e = poll();
+        if (e != null) {
+            return e;
+        }
+        availableLock.lockInterruptibly();
+        waiting.incrementAndGet();
+        try {
+            while ((e = poll()) == null) {
+                if (timed && nanos <= 0) {
+                    return null;
+                }
+                long wait = nextWait();
+                if (timed) {
+                    wait = Math.min(wait, nanos);
+                }
+                long start = System.nanoTime();
+                if (wait == Long.MAX_VALUE) {
+                    available.await();
+                }
+                else {
+                    available.awaitNanos(wait);
+                }
+                nanos -= System.nanoTime() - start;
+            }
+            return e;
+        }
+        finally {
+            waiting.decrementAndGet();
+            availableLock.unlock();
+        }
+    }
+
+    // nanoseconds until the next element may be polled, Long.MAX_VALUE if the queue is empty
+    private long nextWait() {
+        QueueElement<E> next = peek();
+        if (next == null) {
+            return Long.MAX_VALUE;
+        }
+        long delay = next.getDelay(TimeUnit.MILLISECONDS);
+        return TimeUnit.MILLISECONDS.toNanos((delay > 0) ? delay : ELIGIBILITY_CHECK_INTERVAL);
+    }
+
+    /**
+     * Return the number of additional elements that this queue can accept, or <tt>Integer.MAX_VALUE</tt> if the queue
+     * is unbounded.
+     *
+     * @return the remaining capacity
+     */
+    @Override
+    public int remainingCapacity() {
+        return (maxSize == -1) ? Integer.MAX_VALUE : Math.max(0, maxSize - size());
+    }
+
+    /**
+     * Remove all available elements from this queue and adds them to the given collection.
+     *
+     * @param c the collection to transfer elements into
+     * @return the number of elements transferred
+     */
+    @Override
+    public int drainTo(Collection<? super QueueElement<E>> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Remove at most the given number of available elements from this queue and adds them to the given collection.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @return the number of elements transferred
+     */
+    @Override
+    public int drainTo(Collection<? super QueueElement<E>> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException("Cannot drain a queue to itself");
+        }
+        int count = 0;
+        QueueElement<E> e;
+        while (count < maxElements && (e = poll()) != null) {
+            c.add(e);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes all of the elements from this queue. The queue will be empty after this call returns.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < priorities; i++) {
+            for (int j = 0; j < shards; j++) {
+                Shard<E> shard = queues[i][j];
+                shard.lock.lock();
+                try {
+                    for (QueueElement<E> e : shard.heap) {
+                        e.inQueue = false;
+                    }
+                    int removed = shard.heap.size();
+                    shard.heap.clear();
+                    shardSizes.addAndGet(index(i, j), -removed);
+                    currentSize.addAndGet(-removed);
+                }
+                finally {
+                    shard.lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,8 @@ package org.apache.oozie.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -30,6 +32,8 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.oozie.service.DagXLogInfoService;
+
 import com.google.common.annotations.VisibleForTesting;
 
 import java.io.BufferedReader;
@@ -181,6 +185,8 @@ public class XLogStreamer {
         }
     }
 
+    private static final Pattern PLAIN_JOB_ID_PATTERN = Pattern.compile("[\\w\\-@]+");
+
     private String logFile;
     private String logPath;
     private Filter logFilter;
@@ -241,7 +247,38 @@ public class XLogStreamer {
         ArrayList<File> files = getFileList(dir, startTimeMillis, endTimeMillis, logRotation, logFile);
         // The MultiFileReader is a Reader that treats the files as one source so we can easily go through them all with one
         // BufferedReader
-        return new BufferedReader(new MultiFileReader(files));
+        final String jobId = getIndexedJobId();
+        if (jobId == null) {
+            return new BufferedReader(new MultiFileReader(files));
+        }
+        // Rolled files with an index are read only in the blocks where the job logged something, the others are read fully
+        return new BufferedReader(new MultiFileReader(files) {
+            @Override
+            protected Reader openReader(File file) throws IOException {
+                LogIndex index = LogIndex.read(file);
+                if (index == null) {
+                    return super.openReader(file);
+                }
+                return new InputStreamReader(index.open(file, jobId));
+            }
+        });
+    }
+
+    /**
+     * Returns the job ID the filter is restricted to if it can be looked up in the log indexes, that is if it is a plain
+     * job ID and not a regular expression.
+     *
+     * @return the job ID, or null
+     */
+    private String getIndexedJobId() {
+        if (logFilter == null) {
+            return null;
+        }
+        String jobId = logFilter.getFilterParams().get(DagXLogInfoService.JOB);
+        if (jobId == null || !PLAIN_JOB_ID_PATTERN.matcher(jobId).matches()) {
+            return null;
+        }
+        return jobId;
     }
 
     /**
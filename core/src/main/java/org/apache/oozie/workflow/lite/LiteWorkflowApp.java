@@ -19,21 +19,32 @@ package org.apache.oozie.workflow.lite;
 
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.service.WorkflowAppService;
 import org.apache.oozie.workflow.WorkflowApp;
 import org.apache.oozie.workflow.WorkflowException;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.ErrorCode;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 //TODO javadoc
 public class LiteWorkflowApp implements Writable, WorkflowApp {
@@ -41,6 +52,9 @@ public class LiteWorkflowApp implements Writable, WorkflowApp {
     private String definition;
     private Map<String, NodeDef> nodesMap = new LinkedHashMap<String, NodeDef>();
     private boolean complete = false;
+    // deflated serialized app and its digest, computed once as the app is not modified after being parsed
+    private byte[] compactBytes;
+    private byte[] digest;
 
     LiteWorkflowApp() {
     }
@@ -71,6 +85,10 @@ public class LiteWorkflowApp implements Writable, WorkflowApp {
             throw new WorkflowException(ErrorCode.E0706, node.getName());
         }
         nodesMap.put(node.getName(), node);
+        synchronized (this) {
+            compactBytes = null;
+            digest = null;
+        }
         if (node instanceof EndNodeDef) {
             complete = true;
         }
@@ -149,6 +167,73 @@ public class LiteWorkflowApp implements Writable, WorkflowApp {
         return list;
     }
 
+    /**
+     * Return the deflated serialized app, used by the compact encoding of {@link LiteWorkflowInstance}.
+     *
+     * @return the compact bytes of the app.
+     * @throws IOException thrown if the app could not be serialized.
+     */
+    synchronized byte[] getCompactBytes() throws IOException {
+        if (compactBytes == null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream dOut = new DataOutputStream(new DeflaterOutputStream(baos));
+            write(dOut);
+            dOut.close();
+            compactBytes = baos.toByteArray();
+            digest = null;
+        }
+        return compactBytes;
+    }
+
+    /**
+     * Return the digest of the compact bytes of the app, it identifies the app definition.
+     *
+     * @return the MD5 digest of the compact bytes.
+     * @throws IOException thrown if the app could not be serialized.
+     */
+    synchronized byte[] getDigest() throws IOException {
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance("MD5").digest(getCompactBytes());
+            }
+            catch (NoSuchAlgorithmException ex) {
+                throw new IOException(ex);
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * Read an app from its compact bytes.
+     * <p/>
+     * The apps read are cached by the {@link WorkflowAppService} by digest, the instances of the same app share it.
+     *
+     * @param digest digest of the compact bytes.
+     * @param compactBytes deflated serialized app.
+     * @return the app.
+     * @throws IOException thrown if the app could not be read.
+     */
+    static LiteWorkflowApp fromCompactBytes(byte[] digest, byte[] compactBytes) throws IOException {
+        WorkflowAppService wps = (Services.get() == null) ? null : Services.get().get(WorkflowAppService.class);
+        String key = "digest#" + new BigInteger(1, digest).toString(16);
+        WorkflowAppService.CachedApp cachedApp = (wps == null) ? null : wps.getCachedApp(key);
+        if (cachedApp != null) {
+            return (LiteWorkflowApp) cachedApp.getApp();
+        }
+        LiteWorkflowApp app = new LiteWorkflowApp();
+        DataInputStream dIn = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compactBytes)));
+        app.readFields(dIn);
+        dIn.close();
+        synchronized (app) {
+            app.compactBytes = compactBytes;
+            app.digest = digest;
+        }
+        if (wps != null) {
+            wps.cacheApp(key, new WorkflowAppService.CachedApp(app, null));
+        }
+        return app;
+    }
+
     @Override
     public void readFields(DataInput dataInput) throws IOException {
         name = dataInput.readUTF();
@@ -19,8 +19,10 @@ package org.apache.oozie.workflow.lite;
 
 import org.apache.oozie.service.XLogService;
 import org.apache.oozie.service.DagXLogInfoService;
+import org.apache.oozie.service.LiteWorkflowStoreService;
 import org.apache.oozie.client.OozieClient;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.workflow.WorkflowApp;
@@ -40,6 +42,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 //TODO javadoc
 public class LiteWorkflowInstance implements Writable, WorkflowInstance {
@@ -53,7 +58,48 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
 
     // Using unique string to indicate version. This is to make sure that it
     // doesn't match with user data.
-    private static final String DATA_VERSION = "V==1";
+    public static final String DATA_VERSION = "V==1";
+
+    /**
+     * Dictionary of the strings of the compact encoding, the first occurrence of a string is written with its
+     * bytes, the next ones with its index.
+     */
+    private static class StringDictionary {
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+        private final List<String> strings = new ArrayList<String>();
+
+        private void write(DataOutput dOut, String value) throws IOException {
+            if (value == null) {
+                WritableUtils.writeVInt(dOut, 0);
+                return;
+            }
+            Integer index = indexes.get(value);
+            if (index != null) {
+                WritableUtils.writeVInt(dOut, index + 2);
+            }
+            else {
+                indexes.put(value, indexes.size());
+                WritableUtils.writeVInt(dOut, 1);
+                writeBytes(value.getBytes("UTF-8"), dOut);
+            }
+        }
+
+        private String read(DataInput dIn) throws IOException {
+            int code = WritableUtils.readVInt(dIn);
+            if (code == 0) {
+                return null;
+            }
+            if (code == 1) {
+                String value = new String(readBytes(dIn), "UTF-8");
+                strings.add(value);
+                return value;
+            }
+            if (code - 2 >= strings.size()) {
+                throw new IOException("Invalid string index [" + (code - 2) + "]");
+            }
+            return strings.get(code - 2);
+        }
+    }
 
     private static class NodeInstance {
         String nodeName;
@@ -562,6 +608,11 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
 
     @Override
     public void write(DataOutput dOut) throws IOException {
+        String dataVersion = LiteWorkflowStoreService.getInstanceDataVersion();
+        if (LiteWorkflowStoreService.INSTANCE_DATA_VERSION_2.equals(dataVersion)) {
+            writeCompact(dOut);
+            return;
+        }
         dOut.writeUTF(instanceId);
 
         //Hadoop Configuration has to get its act right
@@ -590,6 +641,11 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
     @Override
     public void readFields(DataInput dIn) throws IOException {
         instanceId = dIn.readUTF();
+        // the compact encoding starts with its version in place of the instance ID
+        if (LiteWorkflowStoreService.INSTANCE_DATA_VERSION_2.equals(instanceId)) {
+            readCompact(dIn);
+            return;
+        }
 
         //Hadoop Configuration has to get its act right
         int len = dIn.readInt();
@@ -619,6 +675,105 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
         refreshLog();
     }
 
+    /*
+     * Compact encoding, V==2:
+     *   version, instance ID
+     *   deflated configuration XML
+     *   digest and compact bytes of the definition, see LiteWorkflowApp#getCompactBytes()
+     *   status, execution paths (path, node name, started) and persistent variables (node name, name, value)
+     * Strings other than variable values are dictionary encoded, counts and lengths are variable length integers.
+     */
+    private void writeCompact(DataOutput dOut) throws IOException {
+        dOut.writeUTF(LiteWorkflowStoreService.INSTANCE_DATA_VERSION_2);
+        StringDictionary dictionary = new StringDictionary();
+        dictionary.write(dOut, instanceId);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream deflaterOut = new DeflaterOutputStream(baos, deflater);
+            conf.writeXml(deflaterOut);
+            deflaterOut.close();
+        }
+        finally {
+            deflater.end();
+        }
+        writeBytes(baos.toByteArray(), dOut);
+
+        writeBytes(def.getDigest(), dOut);
+        writeBytes(def.getCompactBytes(), dOut);
+        dictionary.write(dOut, status.toString());
+        WritableUtils.writeVInt(dOut, executionPaths.size());
+        for (Map.Entry<String, NodeInstance> entry : executionPaths.entrySet()) {
+            dictionary.write(dOut, entry.getKey());
+            dictionary.write(dOut, entry.getValue().nodeName);
+            dOut.writeBoolean(entry.getValue().started);
+        }
+        WritableUtils.writeVInt(dOut, persistentVars.size());
+        for (Map.Entry<String, String> entry : persistentVars.entrySet()) {
+            String name = entry.getKey();
+            int index = name.indexOf(WorkflowInstance.NODE_VAR_SEPARATOR);
+            dictionary.write(dOut, (index == -1) ? null : name.substring(0, index));
+            dictionary.write(dOut, (index == -1) ? name : name.substring(index + 1));
+            if (entry.getValue() == null) {
+                WritableUtils.writeVInt(dOut, -1);
+            }
+            else {
+                byte[] data = entry.getValue().getBytes("UTF-8");
+                WritableUtils.writeVInt(dOut, data.length);
+                dOut.write(data);
+            }
+        }
+    }
+
+    private void readCompact(DataInput dIn) throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        instanceId = dictionary.read(dIn);
+
+        InflaterInputStream inflaterIn = new InflaterInputStream(new ByteArrayInputStream(readBytes(dIn)));
+        conf = new XConfiguration(inflaterIn);
+        inflaterIn.close();
+
+        byte[] digest = readBytes(dIn);
+        def = LiteWorkflowApp.fromCompactBytes(digest, readBytes(dIn));
+        status = Status.valueOf(dictionary.read(dIn));
+        int numExPaths = WritableUtils.readVInt(dIn);
+        for (int x = 0; x < numExPaths; x++) {
+            String path = dictionary.read(dIn);
+            NodeInstance nodeInstance = new NodeInstance(dictionary.read(dIn));
+            nodeInstance.started = dIn.readBoolean();
+            executionPaths.put(path, nodeInstance);
+        }
+        int numVars = WritableUtils.readVInt(dIn);
+        for (int x = 0; x < numVars; x++) {
+            String nodeName = dictionary.read(dIn);
+            String vName = dictionary.read(dIn);
+            if (nodeName != null) {
+                vName = nodeName + WorkflowInstance.NODE_VAR_SEPARATOR + vName;
+            }
+            int length = WritableUtils.readVInt(dIn);
+            String vVal = null;
+            if (length >= 0) {
+                byte[] data = new byte[length];
+                dIn.readFully(data);
+                vVal = new String(data, "UTF-8");
+            }
+            persistentVars.put(vName, vVal);
+        }
+        refreshLog();
+    }
+
+    private static void writeBytes(byte[] data, DataOutput dOut) throws IOException {
+        WritableUtils.writeVInt(dOut, data.length);
+        dOut.write(data);
+    }
+
+    private static byte[] readBytes(DataInput dIn) throws IOException {
+        byte[] data = new byte[WritableUtils.readVInt(dIn)];
+        dIn.readFully(data);
+        return data;
+    }
+
     private void writeStringAsBytes(String value, DataOutput dOut) throws IOException {
         if (value == null) {
             dOut.writeUTF(null);
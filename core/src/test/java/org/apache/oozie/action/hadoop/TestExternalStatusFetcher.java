@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.action.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobID;
+import org.apache.hadoop.mapred.JobStatus;
+import org.apache.oozie.test.XTestCase;
+
+public class TestExternalStatusFetcher extends XTestCase {
+
+    private static class ListingJobClient extends JobClient implements ExternalStatusFetcher.JobClientFactory {
+        private String[] runningJobIds;
+        private boolean fail;
+        private int calls;
+        private int created;
+        private int closed;
+
+        private ListingJobClient(String... runningJobIds) {
+            this.runningJobIds = runningJobIds;
+        }
+
+        @Override
+        public JobStatus[] jobsToComplete() throws IOException {
+            calls++;
+            if (fail) {
+                throw new IOException("unavailable");
+            }
+            JobStatus[] statuses = new JobStatus[runningJobIds.length];
+            for (int i = 0; i < runningJobIds.length; i++) {
+                final JobID jobId = JobID.forName(runningJobIds[i]);
+                statuses[i] = new JobStatus() {
+                    @Override
+                    public JobID getJobID() {
+                        return jobId;
+                    }
+                };
+            }
+            return statuses;
+        }
+
+        @Override
+        public JobClient createJobClient() {
+            created++;
+            return this;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed++;
+        }
+    }
+
+    public void testRunningJobs() throws Exception {
+        ExternalStatusFetcher fetcher = new ExternalStatusFetcher(60 * 1000);
+        ListingJobClient jobClient = new ListingJobClient("job_201401010000_0001", "job_201401010000_0002");
+
+        // the checks of a cluster share one listing of its running jobs
+        assertTrue(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        assertTrue(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0002", jobClient));
+        assertFalse(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0003", jobClient));
+        assertEquals(1, jobClient.calls);
+        // the client is only created to list the jobs
+        assertEquals(1, jobClient.created);
+        assertEquals(1, jobClient.closed);
+
+        // each cluster is listed
+        ListingJobClient otherJobClient = new ListingJobClient("job_201401010000_0003");
+        assertTrue(fetcher.isRunning("test", "jt2:8021", "job_201401010000_0003", otherJobClient));
+        assertFalse(fetcher.isRunning("test", "jt2:8021", "job_201401010000_0001", otherJobClient));
+        assertEquals(1, otherJobClient.calls);
+        assertEquals(1, jobClient.calls);
+
+        // each user is listed with its own client
+        ListingJobClient userJobClient = new ListingJobClient("job_201401010000_0004");
+        assertTrue(fetcher.isRunning("other", "jt1:8021", "job_201401010000_0004", userJobClient));
+        assertFalse(fetcher.isRunning("other", "jt1:8021", "job_201401010000_0001", userJobClient));
+        assertFalse(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0004", jobClient));
+        assertEquals(1, userJobClient.calls);
+        assertEquals(1, jobClient.calls);
+    }
+
+    public void testWindow() throws Exception {
+        ExternalStatusFetcher fetcher = new ExternalStatusFetcher(500);
+        ListingJobClient jobClient = new ListingJobClient("job_201401010000_0001");
+        assertTrue(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+
+        // the job completed, it is found running until the window passes
+        jobClient.runningJobIds = new String[0];
+        assertTrue(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        Thread.sleep(600);
+        assertFalse(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        assertEquals(2, jobClient.calls);
+    }
+
+    public void testIdleSnapshots() throws Exception {
+        ExternalStatusFetcher fetcher = new ExternalStatusFetcher(100);
+        ListingJobClient jobClient = new ListingJobClient("job_201401010000_0001");
+        assertTrue(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        assertTrue(fetcher.isRunning("test", "jt2:8021", "job_201401010000_0001", jobClient));
+        assertEquals(2, fetcher.getSnapshotCount());
+
+        // the lists not used for IDLE_WINDOWS windows are dropped
+        Thread.sleep(ExternalStatusFetcher.IDLE_WINDOWS * 100 / 2);
+        assertTrue(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        Thread.sleep(ExternalStatusFetcher.IDLE_WINDOWS * 100 / 2 + 100);
+        assertTrue(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        assertEquals(1, fetcher.getSnapshotCount());
+    }
+
+    public void testListingError() throws Exception {
+        ExternalStatusFetcher fetcher = new ExternalStatusFetcher(500);
+        ListingJobClient jobClient = new ListingJobClient("job_201401010000_0001");
+        jobClient.fail = true;
+
+        // the jobs are queried, the listing is not retried before the window passes
+        assertFalse(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        assertFalse(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        assertEquals(1, jobClient.calls);
+        jobClient.fail = false;
+        Thread.sleep(600);
+        assertTrue(fetcher.isRunning("test", "jt1:8021", "job_201401010000_0001", jobClient));
+        assertEquals(2, jobClient.calls);
+    }
+}
@@ -48,6 +48,7 @@ import org.apache.oozie.action.ActionExecutorException;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.command.wf.ActionXCommand;
 import org.apache.oozie.service.HadoopAccessorService;
 import org.apache.oozie.service.LiteWorkflowStoreService;
 import org.apache.oozie.service.Services;
@@ -360,6 +361,45 @@ public class TestJavaActionExecutor extends ActionExecutorTestCase {
         assertEquals(WorkflowAction.Status.OK, context.getAction().getStatus());
     }
 
+    public void testCheckOnCallbackWithStatusFetchWindow() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(JavaActionExecutor.EXTERNAL_STATUS_FETCH_WINDOW, "600");
+        new Services().init();
+
+        String actionXml = "<java>" +
+                "<job-tracker>" + getJobTrackerUri() + "</job-tracker>" +
+                "<name-node>" + getNameNodeUri() + "</name-node>" +
+                "<main-class>" + LauncherMainTester.class.getName() + "</main-class>" +
+                "</java>";
+        Context context = createContext(actionXml, null);
+        final RunningJob runningJob = submitAction(context);
+        assertFalse(runningJob.isComplete());
+        ActionExecutor ae = new JavaActionExecutor();
+        ae.check(context, context.getAction());
+        assertEquals("RUNNING", context.getAction().getExternalStatus());
+        waitFor(60 * 1000, new Predicate() {
+            @Override
+            public boolean evaluate() throws Exception {
+                return runningJob.isComplete();
+            }
+        });
+        assertTrue(runningJob.isSuccessful());
+
+        // the periodic checks use the listing of the running jobs for the window
+        ae.check(context, context.getAction());
+        assertEquals("RUNNING", context.getAction().getExternalStatus());
+
+        // the check triggered by the callback queries the job
+        ActionXCommand.ActionExecutorContext callbackContext = new ActionXCommand.ActionExecutorContext(
+                (WorkflowJobBean) context.getWorkflow(), (WorkflowActionBean) context.getAction(), false, false);
+        callbackContext.setCallback(true);
+        ae.check(callbackContext, context.getAction());
+        assertEquals("SUCCEEDED", context.getAction().getExternalStatus());
+
+        ae.end(callbackContext, context.getAction());
+        assertEquals(WorkflowAction.Status.OK, context.getAction().getStatus());
+    }
+
     public void testOutputSubmitOK() throws Exception {
         String actionXml = "<java>" +
                 "<job-tracker>" + getJobTrackerUri() + "</job-tracker>" +
@@ -747,6 +747,18 @@ public class TestOozieCLI extends DagServletTestCase {
                 args = new String[]{"jobs", "-jobtype", "coord",  "-filter", "status=FAILED", "-oozie", oozieUrl};
                 assertEquals(0, new OozieCLI().run(args));
                 assertEquals(RestConstants.JOBS_FILTER_PARAM, MockDagEngineService.did);
+
+                MockDagEngineService.reset();
+                args = new String[]{"jobs", "-len", "3", "-oozie", oozieUrl, "-filter", "name=x", "-nototal",
+                        "-cursor"};
+                assertEquals(0, new OozieCLI().run(args));
+                assertEquals(RestConstants.JOBS_FILTER_PARAM, MockDagEngineService.did);
+
+                MockDagEngineService.reset();
+                args = new String[]{"jobs", "-len", "3", "-oozie", oozieUrl, "-filter", "name=x", "-cursor",
+                        MockDagEngineService.NEXT_CURSOR};
+                assertEquals(0, new OozieCLI().run(args));
+                assertEquals(RestConstants.JOBS_FILTER_PARAM, MockDagEngineService.did);
                 return null;
             }
         });
@@ -17,7 +17,11 @@
  */
 package org.apache.oozie.command;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.oozie.ErrorCode;
+import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.service.MemoryLocksService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.test.XTestCase;
@@ -223,6 +227,74 @@ public class TestXCommand extends XTestCase {
         assertTrue(command.execute);
     }
 
+    public static class FollowUpXCommand extends XCommand<Void> {
+        private final String jobId;
+        private final List<FollowUpXCommand> coalesced = new ArrayList<FollowUpXCommand>();
+
+        public FollowUpXCommand(String jobId) {
+            super("followup", "followup", 1);
+            this.jobId = jobId;
+        }
+
+        @Override
+        protected boolean coalesce(XCommand<?> command) {
+            if (command instanceof FollowUpXCommand && ((FollowUpXCommand) command).jobId.equals(jobId)) {
+                coalesced.add((FollowUpXCommand) command);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean isLockRequired() {
+            return false;
+        }
+
+        @Override
+        public String getEntityKey() {
+            return jobId;
+        }
+
+        @Override
+        protected void loadState() {
+        }
+
+        @Override
+        protected void verifyPrecondition() {
+        }
+
+        @Override
+        protected Void execute() {
+            return null;
+        }
+    }
+
+    public void testQueueCoalescesFollowUps() throws Exception {
+        final FollowUpXCommand first = new FollowUpXCommand("job1");
+        final FollowUpXCommand second = new FollowUpXCommand("job1");
+        final FollowUpXCommand other = new FollowUpXCommand("job2");
+        final FollowUpXCommand delayed = new FollowUpXCommand("job1");
+        AXCommand command = new AXCommand(false) {
+            @Override
+            protected Object execute() throws CommandException {
+                queue(first);
+                queue(other);
+                queue(second);
+                queue(delayed, 1000);
+                return super.execute();
+            }
+        };
+        command.call();
+
+        // only the follow-ups for the same job queued with the same delay are coalesced
+        assertEquals(1, first.coalesced.size());
+        assertSame(second, first.coalesced.get(0));
+        assertTrue(other.coalesced.isEmpty());
+        assertTrue(delayed.coalesced.isEmpty());
+        assertEquals(1L, (long) Services.get().get(InstrumentationService.class).get().getCounters()
+                .get(XCommand.INSTRUMENTATION_GROUP).get("followup.coalesced").getValue());
+    }
+
     private static class LockGetter extends Thread {
 
         @Override
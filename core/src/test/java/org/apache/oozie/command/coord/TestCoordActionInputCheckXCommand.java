@@ -21,7 +21,9 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.fs.Path;
 import org.apache.oozie.CoordinatorActionBean;
@@ -33,6 +35,7 @@ import org.apache.oozie.client.CoordinatorJob.Execution;
 import org.apache.oozie.client.CoordinatorJob.Timeunit;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.coord.CoordELFunctions;
+import org.apache.oozie.dependency.ParallelExistenceChecker;
 import org.apache.oozie.executor.jpa.CoordActionGetForInputCheckJPAExecutor;
 import org.apache.oozie.executor.jpa.CoordActionGetJPAExecutor;
 import org.apache.oozie.executor.jpa.CoordActionInsertJPAExecutor;
@@ -41,9 +44,12 @@ import org.apache.oozie.executor.jpa.CoordActionQueryExecutor.CoordActionQuery;
 import org.apache.oozie.executor.jpa.CoordJobInsertJPAExecutor;
 import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.service.CallableQueueService;
+import org.apache.oozie.service.FSDependencyManagerService;
 import org.apache.oozie.service.HadoopAccessorService;
 import org.apache.oozie.service.JPAService;
+import org.apache.oozie.service.RecoveryService;
 import org.apache.oozie.service.Services;
+import org.apache.oozie.service.URIHandlerService;
 import org.apache.oozie.service.XLogService;
 import org.apache.oozie.test.XDataTestCase;
 import org.apache.oozie.util.DateUtils;
@@ -147,6 +153,40 @@ public class TestCoordActionInputCheckXCommand extends XDataTestCase {
         assertTrue(callable3.executed == 0);
     }
 
+    public void testCoalescedActionInputCheck() throws Exception {
+        Date startTime = DateUtils.parseDateOozieTZ("2009-02-01T23:59" + TZ);
+        Date endTime = DateUtils.parseDateOozieTZ("2009-02-02T23:59" + TZ);
+        CoordinatorJobBean job = addRecordToCoordJobTableForWaiting("coord-job-for-action-input-check.xml",
+                CoordinatorJob.Status.RUNNING, startTime, endTime, false, true, 3);
+        CoordinatorActionBean action1 = addRecordToCoordActionTableForWaiting(job.getId(), 1,
+                CoordinatorAction.Status.WAITING, "coord-action-for-action-input-check.xml");
+        CoordinatorActionBean action2 = addRecordToCoordActionTableForWaiting(job.getId(), 2,
+                CoordinatorAction.Status.WAITING, "coord-action-for-action-input-check.xml");
+        createTestCaseSubDir("2009/01/29/_SUCCESS".split("/"));
+        createTestCaseSubDir("2009/01/22/_SUCCESS".split("/"));
+        createTestCaseSubDir("2009/01/15/_SUCCESS".split("/"));
+        createTestCaseSubDir("2009/01/08/_SUCCESS".split("/"));
+
+        // the input checks of the actions of a job are coalesced, up to the configured maximum
+        CoordActionInputCheckXCommand command = new CoordActionInputCheckXCommand(action1.getId(), job.getId());
+        assertTrue(command.coalesce(new CoordActionInputCheckXCommand(action2.getId(), job.getId())));
+        assertTrue(command.coalesce(new CoordActionInputCheckXCommand(action2.getId(), job.getId())));
+        assertFalse(command.coalesce(new CoordActionInputCheckXCommand("other-C@1", "other-C")));
+        assertFalse(command.coalesce(new MyCoordActionInputCheckXCommand(action2.getId(), 0, job.getId())));
+        services.getConf().setInt(CoordActionInputCheckXCommand.CONF_COORD_INPUT_CHECK_COALESCE_MAX, 1);
+        assertFalse(new CoordActionInputCheckXCommand(action1.getId(), job.getId()).coalesce(
+                new CoordActionInputCheckXCommand(action2.getId(), job.getId())));
+
+        // both actions are checked by the single execution
+        command.call();
+        JPAService jpaService = Services.get().get(JPAService.class);
+        for (String actionId : new String[]{action1.getId(), action2.getId()}) {
+            CoordinatorActionBean action = jpaService.execute(new CoordActionGetJPAExecutor(actionId));
+            assertEquals("", action.getMissingDependencies());
+            assertFalse(CoordinatorAction.Status.WAITING.equals(action.getStatus()));
+        }
+    }
+
     public void testActionInputCheck() throws Exception {
         String jobId = "0000000-" + new Date().getTime() + "-TestCoordActionInputCheckXCommand-C";
         Date startTime = DateUtils.parseDateOozieTZ("2009-02-01T23:59" + TZ);
@@ -212,6 +252,111 @@ public class TestCoordActionInputCheckXCommand extends XDataTestCase {
         }
     }
 
+    public void testActionWaitsOnFirstMissingDependency() throws Exception {
+        FSDependencyManagerService depService = initFSDependencyManagerService();
+        // the action times out in 10 minutes, after the RecoveryService queues its input check again
+        Services.get().getConf().setInt(RecoveryService.CONF_COORD_OLDER_THAN, 60);
+        CoordinatorActionBean action = checkActionWithMissingDependency();
+        String firstMissingDependency = action.getMissingDependencies().split(CoordELFunctions.INSTANCE_SEPARATOR)[0];
+        assertTrue(firstMissingDependency.contains("/2009/02/12"));
+
+        // the input check is not requeued, the action waits for its first missing dependency to appear
+        assertTrue(depService.getWaitingActions(firstMissingDependency, getTestUser()).contains(action.getId()));
+    }
+
+    public void testActionNearTimeoutIsRequeued() throws Exception {
+        FSDependencyManagerService depService = initFSDependencyManagerService();
+        Services.get().getConf().setInt(RecoveryService.CONF_COORD_OLDER_THAN, 60);
+        CoordinatorActionBean action = checkActionWithMissingDependency();
+        String firstMissingDependency = action.getMissingDependencies().split(CoordELFunctions.INSTANCE_SEPARATOR)[0];
+        assertTrue(depService.getWaitingActions(firstMissingDependency, getTestUser()).contains(action.getId()));
+
+        // the action times out in 10 minutes, before the RecoveryService queues its input check again, it is
+        // unregistered and its input check is requeued so it times out on time
+        Services.get().getConf().setInt(RecoveryService.CONF_COORD_OLDER_THAN, 600);
+        new CoordActionInputCheckXCommand(action.getId(), action.getJobId()).call();
+        assertTrue(depService.getWaitingActions(firstMissingDependency, getTestUser()).isEmpty());
+        assertFalse(depService.removeMissingDependency(action.getId()));
+        JPAService jpaService = Services.get().get(JPAService.class);
+        action = jpaService.execute(new CoordActionGetJPAExecutor(action.getId()));
+        assertEquals(CoordinatorAction.Status.WAITING, action.getStatus());
+    }
+
+    public void testActionRegisteredAgainKeepsRegistrationTime() throws Exception {
+        setSystemProperty(FSDependencyManagerService.CONF_MAX_WAIT, "2");
+        FSDependencyManagerService depService = initFSDependencyManagerService();
+        Services.get().getConf().setInt(RecoveryService.CONF_COORD_OLDER_THAN, 60);
+        CoordinatorActionBean action = checkActionWithMissingDependency();
+        String firstMissingDependency = action.getMissingDependencies().split(CoordELFunctions.INSTANCE_SEPARATOR)[0];
+
+        // checking the action again registers it again without extending its registration
+        sleep(1200);
+        new CoordActionInputCheckXCommand(action.getId(), action.getJobId()).call();
+        depService.checkDependencies();
+        assertTrue(depService.getWaitingActions(firstMissingDependency, getTestUser()).contains(action.getId()));
+        sleep(1000);
+        depService.checkDependencies();
+        assertTrue(depService.getWaitingActions(firstMissingDependency, getTestUser()).isEmpty());
+    }
+
+    private FSDependencyManagerService initFSDependencyManagerService() throws Exception {
+        services.destroy();
+        setSystemProperty(Services.CONF_SERVICE_EXT_CLASSES, FSDependencyManagerService.class.getName());
+        services = new Services();
+        services.init();
+        return services.get(FSDependencyManagerService.class);
+    }
+
+    private CoordinatorActionBean checkActionWithMissingDependency() throws Exception {
+        String jobId = "0000000-" + new Date().getTime() + "-TestCoordActionInputCheckXCommand-C";
+        Date startTime = DateUtils.parseDateOozieTZ("2009-02-15T23:59" + TZ);
+        Date endTime = DateUtils.parseDateOozieTZ("2009-02-16T23:59" + TZ);
+        CoordinatorJobBean job = addRecordToCoordJobTable(jobId, startTime, endTime);
+        new CoordMaterializeTransitionXCommand(job.getId(), 3600).call();
+        createTestCaseSubDir("2009/02/19/_SUCCESS".split("/"));
+
+        new CoordActionInputCheckXCommand(job.getId() + "@1", job.getId()).call();
+        JPAService jpaService = Services.get().get(JPAService.class);
+        return jpaService.execute(new CoordActionGetJPAExecutor(job.getId() + "@1"));
+    }
+
+    public void testCheckPaths() throws Exception {
+        services.destroy();
+        setSystemProperty(URIHandlerService.EXISTENCE_CHECK_FANOUT, "3");
+        services = new Services();
+        services.init();
+        String[] uriList = new String[5];
+        for (int i = 0; i < uriList.length; i++) {
+            uriList[i] = getTestCaseFileUri("2009/01/0" + i);
+        }
+        createTestCaseSubDir("2009/01/00".split("/"));
+        createTestCaseSubDir("2009/01/02".split("/"));
+        ParallelExistenceChecker checker = new ParallelExistenceChecker(createJobConf(), getTestUser());
+        CoordActionInputCheckXCommand command = new CoordActionInputCheckXCommand("job-C@1", "job-C");
+
+        // a window of fanout paths is checked, the paths already resolved are not checked again
+        Map<String, Boolean> resolved = new HashMap<String, Boolean>();
+        resolved.put(uriList[0], Boolean.TRUE);
+        command.checkPaths(uriList, 0, resolved, checker);
+        assertEquals(4, resolved.size());
+        assertEquals(Boolean.TRUE, resolved.get(uriList[0]));
+        assertEquals(Boolean.FALSE, resolved.get(uriList[1]));
+        assertEquals(Boolean.TRUE, resolved.get(uriList[2]));
+        assertEquals(Boolean.FALSE, resolved.get(uriList[3]));
+
+        // the window starts at the given path
+        resolved.clear();
+        command.checkPaths(uriList, 3, resolved, checker);
+        assertEquals(2, resolved.size());
+        assertEquals(Boolean.FALSE, resolved.get(uriList[4]));
+
+        // an invalid path ends the window, it is left unresolved so checking it reports the error
+        resolved.clear();
+        command.checkPaths(new String[]{uriList[0], "hdfs:///dir x", uriList[2]}, 0, resolved, checker);
+        assertEquals(1, resolved.size());
+        assertEquals(Boolean.TRUE, resolved.get(uriList[0]));
+    }
+
     public void testActionInputCheckLatestActionCreationTime() throws Exception {
         Services.get().getConf().setBoolean(CoordELFunctions.LATEST_EL_USE_CURRENT_TIME, false);
 
@@ -21,6 +21,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.service.ELService;
 import org.apache.oozie.service.Services;
+import org.apache.oozie.service.URIHandlerService;
 import org.apache.oozie.test.XTestCase;
 import org.apache.oozie.util.DateUtils;
 import org.apache.oozie.util.ELEvaluator;
@@ -835,6 +836,33 @@ public class TestCoordELFunctions extends XTestCase {
         // Add test cases with EOM and EOD option
     }
 
+    public void testLatestByWindows() throws Exception {
+        createTestCaseSubDir("2009/09/10/_SUCCESS".split("/"));
+        createTestCaseSubDir("2009/09/08/_SUCCESS".split("/"));
+        createTestCaseSubDir("2009/09/05/_SUCCESS".split("/"));
+        // the instances are checked by windows of fanout instances, the result does not depend on the fanout
+        for (String fanout : new String[]{"1", "2", "4"}) {
+            services.destroy();
+            setSystemProperty(URIHandlerService.EXISTENCE_CHECK_FANOUT, fanout);
+            services = new Services();
+            services.init();
+            init("coord-action-start");
+            eval.setVariable(CoordELFunctions.CONFIGURATION, new Configuration());
+            ds.setUriTemplate(getTestCaseFileUri("${YEAR}/${MONTH}/${DAY}"));
+
+            assertEquals("2009-09-10T23:59Z", CoordELFunctions.evalAndWrap(eval, "${coord:latest(0)}"));
+            assertEquals("2009-09-08T23:59Z", CoordELFunctions.evalAndWrap(eval, "${coord:latest(-1)}"));
+            assertEquals("2009-09-05T23:59Z", CoordELFunctions.evalAndWrap(eval, "${coord:latest(-2)}"));
+            assertEquals("${coord:latest(-3)}", CoordELFunctions.evalAndWrap(eval, "${coord:latest(-3)}"));
+            assertEquals("2009-09-10T23:59Z#2009-09-08T23:59Z#2009-09-05T23:59Z",
+                    CoordELFunctions.evalAndWrap(eval, "${coord:latestRange(-2, 0)}"));
+            assertEquals("2009-09-08T23:59Z#2009-09-05T23:59Z",
+                    CoordELFunctions.evalAndWrap(eval, "${coord:latestRange(-2, -1)}"));
+            assertEquals("${coord:latestRange(-3,0)}",
+                    CoordELFunctions.evalAndWrap(eval, "${coord:latestRange(-3,0)}"));
+        }
+    }
+
     public void testPh1Future() throws Exception {
         init("coord-job-submit-instances");
         String expr = "${coord:future(1, 10)}";
@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.dependency;
+
+import junit.framework.TestCase;
+
+public class TestExistenceCache extends TestCase {
+
+    public void testPositiveAndNegative() {
+        ExistenceCache cache = new ExistenceCache(60000, 60000, 10);
+        assertNull(cache.get("a"));
+        cache.put("a", true);
+        cache.put("b", false);
+        assertEquals(Boolean.TRUE, cache.get("a"));
+        assertEquals(Boolean.FALSE, cache.get("b"));
+        cache.put("b", true);
+        assertEquals(Boolean.TRUE, cache.get("b"));
+        cache.remove("a");
+        assertNull(cache.get("a"));
+    }
+
+    public void testExpiration() throws Exception {
+        ExistenceCache cache = new ExistenceCache(60000, 50, 10);
+        cache.put("a", true);
+        cache.put("b", false);
+        Thread.sleep(100);
+        assertEquals(Boolean.TRUE, cache.get("a"));
+        assertNull(cache.get("b"));
+
+        cache.put("c", false);
+        Thread.sleep(100);
+        assertEquals(2, cache.size());
+        cache.purge();
+        assertEquals(1, cache.size());
+        assertEquals(Boolean.TRUE, cache.get("a"));
+    }
+
+    public void testDisabled() {
+        ExistenceCache cache = new ExistenceCache(0, 60000, 10);
+        cache.put("a", true);
+        cache.put("b", false);
+        assertNull(cache.get("a"));
+        assertEquals(Boolean.FALSE, cache.get("b"));
+        cache = new ExistenceCache(60000, 0, 10);
+        cache.put("a", true);
+        cache.put("b", false);
+        assertEquals(Boolean.TRUE, cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    public void testMaxSize() {
+        ExistenceCache cache = new ExistenceCache(60000, 60000, 3);
+        cache.put("a", true);
+        cache.put("b", true);
+        cache.put("c", true);
+        assertEquals(3, cache.size());
+        // the least recently used result is dropped
+        assertEquals(Boolean.TRUE, cache.get("a"));
+        cache.put("d", true);
+        assertEquals(3, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals(Boolean.TRUE, cache.get("a"));
+        assertEquals(Boolean.TRUE, cache.get("c"));
+        assertEquals(Boolean.TRUE, cache.get("d"));
+    }
+}
@@ -18,12 +18,18 @@
 package org.apache.oozie.dependency;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.URIHandlerService;
 import org.apache.oozie.test.XFsTestCase;
+import org.apache.oozie.util.Instrumentation;
 import org.junit.Test;
 
 public class TestFSURIHandler extends XFsTestCase {
@@ -35,6 +41,7 @@ public class TestFSURIHandler extends XFsTestCase {
     @Override
     protected void setUp() throws Exception {
         super.setUp();
+        setSystemProperty(URIHandlerService.EXISTENCE_CACHE_ENABLED, "true");
         services = new Services();
         services.init();
         uriService = services.get(URIHandlerService.class);
@@ -61,4 +68,119 @@ public class TestFSURIHandler extends XFsTestCase {
 
     }
 
+    @Test
+    public void testExistsCached() throws Exception {
+        Path path1 = new Path(getFsTestCaseDir() + "/2012/12/02/");
+        Path path2 = new Path(getFsTestCaseDir() + "/2012/12/12/");
+        getFileSystem().mkdirs(path1);
+        URIHandler handler = uriService.getURIHandler(path1.toUri());
+        long calls = getCounter("namenode.exists");
+        assertTrue(handler.exists(path1.toUri(), conf, getTestUser()));
+        assertFalse(handler.exists(path2.toUri(), conf, getTestUser()));
+        assertEquals(calls + 2, getCounter("namenode.exists"));
+
+        // both results are cached
+        getFileSystem().mkdirs(path2);
+        assertTrue(handler.exists(path1.toUri(), conf, getTestUser()));
+        assertFalse(handler.exists(path2.toUri(), conf, getTestUser()));
+        assertEquals(calls + 2, getCounter("namenode.exists"));
+
+        // the negative result expires
+        URI uri2 = path2.toUri();
+        uriService.getExistenceCache().remove(getTestUser() + "@"
+                + new Path(uri2.getScheme(), uri2.getAuthority(), uri2.getPath()));
+        assertTrue(handler.exists(path2.toUri(), conf, getTestUser()));
+        assertEquals(calls + 3, getCounter("namenode.exists"));
+    }
+
+    @Test
+    public void testExistsCachedNegativeExpiration() throws Exception {
+        services.destroy();
+        setSystemProperty(URIHandlerService.EXISTENCE_CACHE_NEGATIVE_TTL, "1");
+        services = new Services();
+        services.init();
+        uriService = services.get(URIHandlerService.class);
+
+        // data created after a negative check is seen once the negative result expires
+        Path path = new Path(getFsTestCaseDir() + "/2012/12/02/");
+        URIHandler handler = uriService.getURIHandler(path.toUri());
+        assertFalse(handler.exists(path.toUri(), conf, getTestUser()));
+        getFileSystem().mkdirs(path);
+        assertFalse(handler.exists(path.toUri(), conf, getTestUser()));
+        sleep(1100);
+        assertTrue(handler.exists(path.toUri(), conf, getTestUser()));
+        assertTrue(handler.exists(path.toUri(), conf, getTestUser()));
+    }
+
+    @Test
+    public void testExistsByDirectory() throws Exception {
+        Path dir = new Path(getFsTestCaseDir() + "/2012/12");
+        getFileSystem().mkdirs(new Path(dir, "01"));
+        getFileSystem().mkdirs(new Path(dir, "02"));
+        getFileSystem().mkdirs(new Path(getFsTestCaseDir() + "/2012/11/30"));
+        List<URI> uris = new ArrayList<URI>();
+        uris.add(new Path(dir, "01").toUri());
+        uris.add(new Path(dir, "02").toUri());
+        uris.add(new Path(dir, "03").toUri());
+        uris.add(new Path(getFsTestCaseDir() + "/2012/11/30").toUri());
+        uris.add(new Path(getFsTestCaseDir() + "/2013/01/01").toUri());
+        uris.add(new Path(getFsTestCaseDir() + "/2013/01/02").toUri());
+
+        FSURIHandler handler = (FSURIHandler) uriService.getURIHandler(dir.toUri());
+        long listCalls = getCounter("namenode.listStatus");
+        long existsCalls = getCounter("namenode.exists");
+        Map<URI, Boolean> results = handler.exists(uris, conf, getTestUser());
+        // 2012/12 and 2013/01 are listed, 2012/11/30 is alone in its directory
+        assertEquals(listCalls + 2, getCounter("namenode.listStatus"));
+        assertEquals(existsCalls, getCounter("namenode.exists"));
+        assertEquals(5, results.size());
+        assertTrue(results.get(uris.get(0)));
+        assertTrue(results.get(uris.get(1)));
+        assertFalse(results.get(uris.get(2)));
+        assertNull(results.get(uris.get(3)));
+        assertFalse(results.get(uris.get(4)));
+        assertFalse(results.get(uris.get(5)));
+
+        // the results of the listing are cached
+        assertTrue(handler.exists(uris.get(0), conf, getTestUser()));
+        assertFalse(handler.exists(uris.get(2), conf, getTestUser()));
+        assertEquals(existsCalls, getCounter("namenode.exists"));
+        assertEquals(5, handler.exists(uris, conf, getTestUser()).size());
+        assertEquals(listCalls + 2, getCounter("namenode.listStatus"));
+    }
+
+    @Test
+    public void testExistsByDirectoryNotReadable() throws Exception {
+        Path dir = new Path(getFsTestCaseDir() + "/2012/12");
+        getFileSystem().mkdirs(new Path(dir, "01"));
+        getFileSystem().mkdirs(new Path(dir, "02"));
+        // the children can be accessed but the directory cannot be listed
+        getFileSystem().setPermission(dir, FsPermission.valueOf("----x--x--x"));
+        try {
+            List<URI> uris = new ArrayList<URI>();
+            uris.add(new Path(dir, "01").toUri());
+            uris.add(new Path(dir, "02").toUri());
+            uris.add(new Path(dir, "03").toUri());
+
+            FSURIHandler handler = (FSURIHandler) uriService.getURIHandler(dir.toUri());
+            long existsCalls = getCounter("namenode.exists");
+            Map<URI, Boolean> results = handler.exists(uris, conf, getTestUser());
+            assertEquals(1, getCounter("namenode.listStatus.denied"));
+            assertEquals(existsCalls + 3, getCounter("namenode.exists"));
+            assertTrue(results.get(uris.get(0)));
+            assertTrue(results.get(uris.get(1)));
+            assertFalse(results.get(uris.get(2)));
+        }
+        finally {
+            getFileSystem().setPermission(dir, FsPermission.valueOf("-rwxrwx--x"));
+        }
+    }
+
+    private long getCounter(String name) {
+        Map<String, Instrumentation.Element<Long>> counters = services.get(InstrumentationService.class).get()
+                .getCounters().get(URIHandlerService.INSTRUMENTATION_GROUP);
+        Instrumentation.Element<Long> counter = (counters == null) ? null : counters.get(name);
+        return (counter == null) ? 0 : counter.getValue();
+    }
+
 }
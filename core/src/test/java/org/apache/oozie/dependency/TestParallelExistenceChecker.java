@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.dependency;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.service.URIHandlerService;
+import org.apache.oozie.test.XFsTestCase;
+
+public class TestParallelExistenceChecker extends XFsTestCase {
+
+    private Services services = null;
+    private JobConf conf;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setSystemProperty(URIHandlerService.EXISTENCE_CHECK_FANOUT, "4");
+        services = new Services();
+        services.init();
+        conf = createJobConf();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private void restartServices() throws Exception {
+        services.destroy();
+        services = new Services();
+        services.init();
+    }
+
+    private List<URI> createURIs(int count, int... existing) throws Exception {
+        List<URI> uris = new ArrayList<URI>();
+        for (int i = 0; i < count; i++) {
+            uris.add(new Path(getFsTestCaseDir(), "2013/01/" + i).toUri());
+        }
+        for (int i : existing) {
+            getFileSystem().mkdirs(new Path(uris.get(i)));
+        }
+        return uris;
+    }
+
+    public void testExists() throws Exception {
+        ParallelExistenceChecker checker = new ParallelExistenceChecker(conf, getTestUser());
+        assertEquals(4, checker.getFanout());
+        List<URI> uris = createURIs(4, 0, 1, 3);
+        assertEquals(Arrays.asList(true, true, false, true), Arrays.asList(checker.exists(uris, null)));
+
+        URIHandler handler = services.get(URIHandlerService.class).getURIHandler(uris.get(0));
+        URIHandler.Context context = handler.getContext(uris.get(0), conf, getTestUser());
+        try {
+            assertEquals(Arrays.asList(true, true, false, true), Arrays.asList(checker.exists(uris, context)));
+        }
+        finally {
+            context.destroy();
+        }
+    }
+
+    public void testDeadline() throws Exception {
+        setSystemProperty(URIHandlerService.EXISTENCE_CHECK_TIMEOUT, "0");
+        restartServices();
+        ParallelExistenceChecker checker = new ParallelExistenceChecker(conf, getTestUser());
+        List<URI> uris = createURIs(2, 0);
+        assertEquals(Arrays.asList(null, null), Arrays.asList(checker.exists(uris, null)));
+    }
+
+    public void testSequential() throws Exception {
+        setSystemProperty(URIHandlerService.EXISTENCE_CHECK_THREADS, "0");
+        restartServices();
+        assertNull(services.get(URIHandlerService.class).getExistenceCheckExecutor());
+        ParallelExistenceChecker checker = new ParallelExistenceChecker(conf, getTestUser());
+        assertEquals(1, checker.getFanout());
+        List<URI> uris = createURIs(2, 1);
+        assertEquals(Arrays.asList(false, true), Arrays.asList(checker.exists(uris, null)));
+    }
+
+    public void testError() throws Exception {
+        ParallelExistenceChecker checker = new ParallelExistenceChecker(conf, getTestUser());
+        List<URI> uris = createURIs(2, 0);
+        uris.add(new URI("nofs:///dirx/filex"));
+        try {
+            checker.exists(uris, null);
+            fail();
+        }
+        catch (URIHandlerException e) {
+            assertTrue(e.getMessage().contains("No FileSystem for scheme"));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.dependency.hcat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.PartitionDependencyManagerService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.test.XDataTestCase;
+import org.apache.oozie.util.HCatURI;
+import org.apache.oozie.util.Instrumentation;
+
+public class TestHCatNotificationPipeline extends XDataTestCase {
+
+    private static final String SERVER = "hcat.server.com:5080";
+
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        services = super.setupServicesForHCatalog();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Services.get().destroy();
+        super.tearDown();
+    }
+
+    private long getCounter(String name) {
+        Instrumentation.Element<Long> counter = services.get(InstrumentationService.class).get().getCounters()
+                .get(HCatNotificationPipeline.INSTRUMENTATION_GROUP).get(name);
+        return (counter == null) ? 0 : counter.getValue();
+    }
+
+    public void testStages() throws Exception {
+        HCatDependencyCache cache = new SimpleHCatDependencyCache();
+        cache.init(services.getConf());
+        cache.addMissingDependency(new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=1;country=us"), "1");
+        cache.addMissingDependency(new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=1;country=us"), "2");
+        cache.addMissingDependency(new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=2"), "2");
+        cache.addMissingDependency(new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=3"), "1");
+        cache.addMissingDependency(new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=4"), "3");
+        HCatNotificationPipeline pipeline = new HCatNotificationPipeline(cache, 10, 100);
+
+        // duplicate partitions are marked available once, action 2 is woken up once
+        Map<String, String> partition = getPartitionMap("dt=1;country=us");
+        assertTrue(pipeline.add(SERVER, "mydb", "mytbl", Arrays.asList(partition, partition,
+                getPartitionMap("dt=2;country=us"))));
+        assertEquals(3, pipeline.processQueue(0));
+        assertEquals(1, getCounter("duplicates"));
+        assertEquals(1, getCounter("coalesced"));
+        assertEquals(Arrays.asList("1", "2"), Arrays.asList(pipeline.getPendingWakeups().toArray()));
+        assertTrue(cache.getAvailableDependencyURIs("2").contains("hcat://" + SERVER + "/mydb/mytbl/dt=2"));
+
+        // action 1 is still pending, its wakeup is coalesced with the previous one
+        pipeline.add(SERVER, "mydb", "mytbl", Collections.singletonList(getPartitionMap("dt=3;country=in")));
+        assertEquals(1, pipeline.processQueue(0));
+        assertEquals(2, getCounter("coalesced"));
+        assertEquals(2, pipeline.getPendingWakeups().size());
+
+        assertEquals(0, pipeline.processQueue(0));
+        assertTrue(pipeline.dispatch(0));
+        assertEquals(2, getCounter("wakeups"));
+        assertTrue(pipeline.getPendingWakeups().isEmpty());
+        assertEquals(4, getCounter("received"));
+        assertEquals(4, getCounter("processed"));
+        cache.destroy();
+    }
+
+    public void testStopDrainsQueue() throws Exception {
+        HCatDependencyCache cache = new SimpleHCatDependencyCache();
+        cache.init(services.getConf());
+        cache.addMissingDependency(new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=1"), "1");
+        cache.addMissingDependency(new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=2"), "2");
+        HCatNotificationPipeline pipeline = new HCatNotificationPipeline(cache, 10, 1);
+
+        // the partitions already acknowledged to the broker are processed and their actions woken up on stop
+        assertTrue(pipeline.add(SERVER, "mydb", "mytbl", Arrays.asList(getPartitionMap("dt=1"),
+                getPartitionMap("dt=2"))));
+        pipeline.stop();
+        assertEquals(2, getCounter("processed"));
+        assertEquals(2, getCounter("wakeups"));
+        assertEquals(0, getCounter("dropped.notifications"));
+        assertEquals(0, getCounter("dropped.wakeups"));
+        assertTrue(cache.getAvailableDependencyURIs("1").contains("hcat://" + SERVER + "/mydb/mytbl/dt=1"));
+        assertTrue(cache.getAvailableDependencyURIs("2").contains("hcat://" + SERVER + "/mydb/mytbl/dt=2"));
+        assertTrue(pipeline.getPendingWakeups().isEmpty());
+        cache.destroy();
+    }
+
+    public void testBoundedQueue() throws Exception {
+        HCatDependencyCache cache = new SimpleHCatDependencyCache();
+        cache.init(services.getConf());
+        HCatNotificationPipeline pipeline = new HCatNotificationPipeline(cache, 1, 100);
+        assertTrue(pipeline.add(SERVER, "mydb", "mytbl", Collections.singletonList(getPartitionMap("dt=1"))));
+        // the queue is full, the receiver blocks until it is interrupted
+        Thread.currentThread().interrupt();
+        assertFalse(pipeline.add(SERVER, "mydb", "mytbl", Collections.singletonList(getPartitionMap("dt=2"))));
+        assertTrue(Thread.interrupted());
+        assertEquals(1, getCounter("received"));
+        cache.destroy();
+    }
+
+    public void testPartitionDependencyManagerService() throws Exception {
+        final PartitionDependencyManagerService pdms = services.get(PartitionDependencyManagerService.class);
+        final HCatURI dep = new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=1");
+        pdms.addMissingDependency(dep, "1");
+        pdms.queuePartitionsAvailable(SERVER, "mydb", "mytbl", Collections.singletonList(getPartitionMap("dt=1")));
+        waitFor(5000, new Predicate() {
+            @Override
+            public boolean evaluate() throws Exception {
+                return pdms.getAvailableDependencyURIs("1") != null;
+            }
+        });
+        assertTrue(pdms.getAvailableDependencyURIs("1").contains(dep.getURI().toString()));
+        assertNull(pdms.getWaitingActions(dep));
+        assertNotNull(services.get(InstrumentationService.class).get().getVariables()
+                .get(HCatNotificationPipeline.INSTRUMENTATION_GROUP).get("queue.depth"));
+
+        // without the pipeline the partitions are marked available by the calling thread
+        Services.get().destroy();
+        services = super.setupServicesForHCatalog();
+        services.getConf().setInt(PartitionDependencyManagerService.CONF_NOTIFICATION_QUEUE_SIZE, 0);
+        services.init();
+        PartitionDependencyManagerService syncPdms = services.get(PartitionDependencyManagerService.class);
+        syncPdms.addMissingDependency(dep, "1");
+        syncPdms.queuePartitionsAvailable(SERVER, "mydb", "mytbl", Collections.singletonList(getPartitionMap("dt=1")));
+        assertTrue(syncPdms.getAvailableDependencyURIs("1").contains(dep.getURI().toString()));
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.event;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.client.event.Event;
+import org.apache.oozie.client.event.Event.MessageType;
+import org.apache.oozie.event.EventQueue.EventQueueElement;
+import org.apache.oozie.event.listener.JobEventListener;
+import org.apache.oozie.service.EventHandlerService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.test.XTestCase;
+
+public class TestRingBufferEventQueue extends XTestCase {
+
+    private WorkflowJobEvent createEvent(int i) {
+        return new WorkflowJobEvent("000000" + i + "-W", null, WorkflowJob.Status.RUNNING, getTestUser(), "myapp",
+                null, null);
+    }
+
+    private RingBufferEventQueue createQueue(int capacity, String overflow) {
+        Configuration conf = new Configuration(false);
+        conf.setInt(EventHandlerService.CONF_QUEUE_SIZE, capacity);
+        conf.setInt(EventHandlerService.CONF_BATCH_SIZE, 3);
+        conf.set(EventHandlerService.CONF_QUEUE_OVERFLOW, overflow);
+        conf.setLong(EventHandlerService.CONF_QUEUE_BLOCK_TIMEOUT, 100);
+        conf.set(EventHandlerService.CONF_QUEUE_SPILL_DIR, getTestCaseDir());
+        RingBufferEventQueue queue = new RingBufferEventQueue();
+        queue.init(conf);
+        return queue;
+    }
+
+    private List<String> getIds(List<Event> events) {
+        List<String> ids = new ArrayList<String>();
+        for (Event event : events) {
+            ids.add(((WorkflowJobEvent) event).getId());
+        }
+        return ids;
+    }
+
+    public void testQueueOperations() throws Exception {
+        RingBufferEventQueue queue = createQueue(4, RingBufferEventQueue.OVERFLOW_BLOCK);
+        assertTrue(queue.isEmpty());
+        for (int i = 0; i < 4; i++) {
+            queue.add(createEvent(i));
+        }
+        assertEquals(4, queue.size());
+        assertEquals("0000000-W", ((WorkflowJobEvent) queue.peek()).getId());
+
+        // the buffer wraps around
+        assertEquals(3, queue.pollBatch().size());
+        queue.add(createEvent(4));
+        queue.add(createEvent(5));
+        assertEquals("0000003-W", ((WorkflowJobEvent) queue.poll()).getId());
+        assertEquals(Arrays.asList("0000004-W", "0000005-W"), getIds(queue.pollBatch()));
+        assertNull(queue.poll());
+        queue.add(createEvent(6));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testTakeBatch() throws Exception {
+        final RingBufferEventQueue queue = createQueue(4, RingBufferEventQueue.OVERFLOW_BLOCK);
+        assertTrue(queue.takeBatch(50).isEmpty());
+
+        // the consumer waits for an event to be added
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                }
+                catch (InterruptedException ex) {
+                }
+                queue.add(createEvent(0));
+            }
+        };
+        producer.start();
+        long start = System.currentTimeMillis();
+        List<EventQueueElement> batch = queue.takeBatch(5000);
+        assertEquals(1, batch.size());
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertTrue(batch.get(0).getQueuedTime() >= start);
+        producer.join();
+    }
+
+    public void testOverflowBlock() throws Exception {
+        final RingBufferEventQueue queue = createQueue(2, RingBufferEventQueue.OVERFLOW_BLOCK);
+        queue.add(createEvent(0));
+        queue.add(createEvent(1));
+
+        // the event is dropped after the block timeout
+        queue.add(createEvent(2));
+        assertEquals(2, queue.size());
+
+        // the producer is unblocked when there is room
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException ex) {
+                }
+                queue.poll();
+            }
+        };
+        consumer.start();
+        queue.add(createEvent(3));
+        consumer.join();
+        assertEquals(Arrays.asList("0000001-W", "0000003-W"), getIds(queue.pollBatch()));
+    }
+
+    public void testOverflowDropOldest() throws Exception {
+        RingBufferEventQueue queue = createQueue(2, RingBufferEventQueue.OVERFLOW_DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            queue.add(createEvent(i));
+        }
+        assertEquals(Arrays.asList("0000003-W", "0000004-W"), getIds(queue.pollBatch()));
+    }
+
+    public void testOverflowSpill() throws Exception {
+        RingBufferEventQueue queue = createQueue(2, RingBufferEventQueue.OVERFLOW_SPILL);
+        for (int i = 0; i < 7; i++) {
+            queue.add(createEvent(i));
+        }
+        assertEquals(7, queue.size());
+        assertEquals(5, queue.getSpilledSize());
+        assertEquals(1, new File(getTestCaseDir()).list().length);
+
+        // the spilled events are read back in order once the buffer is drained
+        List<Event> events = new ArrayList<Event>();
+        while (!queue.isEmpty()) {
+            events.addAll(queue.pollBatch());
+        }
+        assertEquals(Arrays.asList("0000000-W", "0000001-W", "0000002-W", "0000003-W",
+                "0000004-W", "0000005-W", "0000006-W"), getIds(events));
+        assertEquals(MessageType.JOB, events.get(6).getMsgType());
+        assertEquals(0, queue.getSpilledSize());
+        assertEquals(0, new File(getTestCaseDir()).list().length);
+    }
+
+    public static class SlowListener extends JobEventListener {
+        static CountDownLatch release;
+        static List<String> received;
+
+        @Override
+        public void init(Configuration conf) {
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public void onWorkflowJobEvent(WorkflowJobEvent wje) {
+            try {
+                release.await();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(wje.getId());
+        }
+
+        @Override
+        public void onWorkflowActionEvent(WorkflowActionEvent wae) {
+        }
+
+        @Override
+        public void onCoordinatorJobEvent(CoordinatorJobEvent cje) {
+        }
+
+        @Override
+        public void onCoordinatorActionEvent(CoordinatorActionEvent cae) {
+        }
+
+        @Override
+        public void onBundleJobEvent(BundleJobEvent bje) {
+        }
+    }
+
+    public static class FastListener extends SlowListener {
+        static List<String> received;
+
+        @Override
+        public void onWorkflowJobEvent(WorkflowJobEvent wje) {
+            received.add(wje.getId());
+        }
+    }
+
+    public void testListenerLanes() throws Exception {
+        SlowListener.release = new CountDownLatch(1);
+        SlowListener.received = Collections.synchronizedList(new ArrayList<String>());
+        FastListener.received = Collections.synchronizedList(new ArrayList<String>());
+        Services services = new Services();
+        Configuration conf = services.getConf();
+        conf.set(Services.CONF_SERVICE_EXT_CLASSES, EventHandlerService.class.getName());
+        conf.set(EventHandlerService.CONF_EVENT_QUEUE, RingBufferEventQueue.class.getName());
+        conf.set(EventHandlerService.CONF_LISTENERS, SlowListener.class.getName() + ","
+                + FastListener.class.getName());
+        services.init();
+        try {
+            EventHandlerService ehs = services.get(EventHandlerService.class);
+            for (int i = 0; i < 5; i++) {
+                ehs.queueEvent(createEvent(i));
+            }
+
+            // the slow listener does not delay the events of the other listener
+            waitFor(5000, new Predicate() {
+                @Override
+                public boolean evaluate() throws Exception {
+                    return FastListener.received.size() == 5;
+                }
+            });
+            assertEquals(5, FastListener.received.size());
+            assertTrue(SlowListener.received.isEmpty());
+
+            SlowListener.release.countDown();
+            waitFor(5000, new Predicate() {
+                @Override
+                public boolean evaluate() throws Exception {
+                    return SlowListener.received.size() == 5;
+                }
+            });
+            assertEquals(FastListener.received, SlowListener.received);
+        }
+        finally {
+            SlowListener.release.countDown();
+            services.destroy();
+        }
+    }
+}
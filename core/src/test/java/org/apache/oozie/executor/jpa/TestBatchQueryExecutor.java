@@ -19,7 +19,10 @@ package org.apache.oozie.executor.jpa;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorJobBean;
@@ -37,9 +40,11 @@ import org.apache.oozie.executor.jpa.CoordActionQueryExecutor.CoordActionQuery;
 import org.apache.oozie.executor.jpa.CoordJobQueryExecutor.CoordJobQuery;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor.WorkflowActionQuery;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
+import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.test.XDataTestCase;
+import org.apache.oozie.util.Instrumentation.Element;
 import org.apache.oozie.workflow.WorkflowInstance;
 
 public class TestBatchQueryExecutor extends XDataTestCase {
@@ -156,4 +161,64 @@ public class TestBatchQueryExecutor extends XDataTestCase {
         }
 
     }
+
+    public void testGroupCommit() throws Exception {
+        services.destroy();
+        setSystemProperty(JPAService.CONF_GROUP_COMMIT_ENABLED, "true");
+        setSystemProperty(JPAService.CONF_GROUP_COMMIT_WINDOW, "50");
+        services = new Services();
+        services.init();
+        BatchQueryExecutor.destroy();
+
+        final List<WorkflowJobBean> jobs = new ArrayList<WorkflowJobBean>();
+        for (int i = 0; i < 5; i++) {
+            jobs.add(addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING));
+        }
+        final Date modTime = new Date(System.currentTimeMillis() + 60 * 60 * 1000);
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (final WorkflowJobBean job : jobs) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        job.setLastModifiedTime(modTime);
+                        List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
+                        updateList.add(new UpdateEntry<WorkflowJobQuery>(WorkflowJobQuery.UPDATE_WORKFLOW_MODTIME,
+                                job));
+                        BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(null, updateList, null);
+                    }
+                    catch (Exception ex) {
+                        errors.add(ex);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty());
+        // updates are committed when the callers return
+        for (WorkflowJobBean job : jobs) {
+            WorkflowJobBean wfBean = WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW,
+                    job.getId());
+            assertEquals(modTime.getTime(), wfBean.getLastModifiedTime().getTime());
+        }
+        Map<String, Element<Long>> counters = services.get(InstrumentationService.class).get().getCounters()
+                .get(GroupCommitter.INSTRUMENTATION_GROUP);
+        assertEquals(5L, (long) counters.get("groupcommit.callers").getValue());
+        assertTrue(counters.get("groupcommit.batches").getValue() < 5);
+
+        // batches with inserts are not group committed
+        WorkflowJobBean job = addRecordToWfJobTable(WorkflowJob.Status.PREP, WorkflowInstance.Status.PREP);
+        Collection<JsonBean> insertList = new ArrayList<JsonBean>();
+        insertList.add(createWorkflowAction(job.getId(), "1", WorkflowAction.Status.PREP));
+        List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
+        updateList.add(new UpdateEntry<WorkflowJobQuery>(WorkflowJobQuery.UPDATE_WORKFLOW_MODTIME, job));
+        BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(insertList, updateList, null);
+        assertEquals(5L, (long) counters.get("groupcommit.callers").getValue());
+        BatchQueryExecutor.destroy();
+    }
 }
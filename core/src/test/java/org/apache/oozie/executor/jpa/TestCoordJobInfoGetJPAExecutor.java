@@ -61,6 +61,40 @@ public class TestCoordJobInfoGetJPAExecutor extends XDataTestCase {
         _testGetJobInfoForFrequencyAndUnit();
     }
 
+    public void testCoordJobGetByCursor() throws Exception {
+        addRecordToCoordJobTable(CoordinatorJob.Status.RUNNING, false, false);
+        addRecordToCoordJobTable(CoordinatorJob.Status.RUNNING, false, false);
+        addRecordToCoordJobTable(CoordinatorJob.Status.KILLED, false, false);
+        JPAService jpaService = Services.get().get(JPAService.class);
+        assertNotNull(jpaService);
+        Map<String, List<String>> filter = new HashMap<String, List<String>>();
+
+        CoordinatorJobInfo ret = jpaService.execute(new CoordJobInfoGetJPAExecutor(filter, 1, 2, JobsCursor.FIRST,
+                false));
+        assertEquals(2, ret.getCoordJobs().size());
+        assertEquals(-1, ret.getTotal());
+        assertNotNull(ret.getNextCursor());
+        String lastId = ret.getCoordJobs().get(1).getId();
+
+        ret = jpaService.execute(new CoordJobInfoGetJPAExecutor(filter, 1, 2, JobsCursor.parse(ret.getNextCursor()),
+                true));
+        assertEquals(1, ret.getCoordJobs().size());
+        assertFalse(lastId.equals(ret.getCoordJobs().get(0).getId()));
+        assertEquals(3, ret.getTotal());
+        assertNull(ret.getNextCursor());
+
+        List<String> list = new ArrayList<String>();
+        list.add("RUNNING");
+        filter.put(OozieClient.FILTER_STATUS, list);
+        ret = jpaService.execute(new CoordJobInfoGetJPAExecutor(filter, 1, 2, JobsCursor.FIRST, true));
+        assertEquals(2, ret.getCoordJobs().size());
+        assertEquals(2, ret.getTotal());
+        ret = jpaService.execute(new CoordJobInfoGetJPAExecutor(filter, 1, 2, JobsCursor.parse(ret.getNextCursor()),
+                true));
+        assertEquals(0, ret.getCoordJobs().size());
+        assertNull(ret.getNextCursor());
+    }
+
     private void _testGetJobInfoForStatus() throws Exception {
         JPAService jpaService = Services.get().get(JPAService.class);
         assertNotNull(jpaService);
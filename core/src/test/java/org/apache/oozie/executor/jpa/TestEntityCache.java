@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import junit.framework.TestCase;
+
+import org.apache.oozie.BinaryBlob;
+import org.apache.oozie.StringBlob;
+
+public class TestEntityCache extends TestCase {
+
+    public void testInvalidArguments() {
+        try {
+            new EntityCache("test", 0, 1000);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+        try {
+            new EntityCache("test", 10, 0);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+    }
+
+    public void testGetPut() {
+        EntityCache cache = new EntityCache("test", 10, 60 * 1000);
+        assertNull(cache.get("1-W", "GET_WORKFLOW_STATUS"));
+        assertEquals(1, cache.getMisses());
+        cache.put("1-W", "GET_WORKFLOW_STATUS", "RUNNING", cache.getTicket("1-W"));
+        assertEquals("RUNNING", cache.get("1-W", "GET_WORKFLOW_STATUS"));
+        assertEquals(1, cache.getHits());
+        // results are cached per query
+        assertNull(cache.get("1-W", "GET_WORKFLOW_KILL"));
+        assertEquals(1, cache.size());
+    }
+
+    public void testRowsAreCopied() {
+        EntityCache cache = new EntityCache("test", 10, 60 * 1000);
+        byte[] raw = new byte[]{1, 2, 3};
+        Object[] row = new Object[]{"1-W", new BinaryBlob(raw, false), new StringBlob(raw), null};
+        cache.put("1-W", "GET_WORKFLOW_ACTION_OP", row, cache.getTicket("1-W"));
+
+        Object[] first = (Object[]) cache.get("1-W", "GET_WORKFLOW_ACTION_OP");
+        Object[] second = (Object[]) cache.get("1-W", "GET_WORKFLOW_ACTION_OP");
+        assertNotSame(first, second);
+        assertEquals("1-W", first[0]);
+        assertNotSame(first[1], second[1]);
+        assertNotSame(first[2], second[2]);
+        assertSame(raw, ((BinaryBlob) first[1]).getRawBlob());
+        assertSame(raw, ((StringBlob) first[2]).getRawBlob());
+        assertNull(first[3]);
+        // changing a returned row does not change the cache
+        first[0] = "2-W";
+        assertEquals("1-W", ((Object[]) cache.get("1-W", "GET_WORKFLOW_ACTION_OP"))[0]);
+    }
+
+    public void testInvalidate() {
+        EntityCache cache = new EntityCache("test", 10, 60 * 1000);
+        cache.put("1-W", "GET_WORKFLOW_STATUS", "RUNNING", cache.getTicket("1-W"));
+        cache.put("1-W", "GET_WORKFLOW_KILL", new Object[]{"1-W"}, cache.getTicket("1-W"));
+        cache.put("2-W", "GET_WORKFLOW_STATUS", "RUNNING", cache.getTicket("2-W"));
+        cache.invalidate("1-W");
+        assertNull(cache.get("1-W", "GET_WORKFLOW_STATUS"));
+        assertNull(cache.get("1-W", "GET_WORKFLOW_KILL"));
+        assertEquals("RUNNING", cache.get("2-W", "GET_WORKFLOW_STATUS"));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testPutAfterInvalidateIsIgnored() {
+        EntityCache cache = new EntityCache("test", 10, 60 * 1000);
+        // the query ran before an update that invalidated the entity, its result is stale
+        long ticket = cache.getTicket("1-W");
+        cache.invalidate("1-W");
+        cache.put("1-W", "GET_WORKFLOW_STATUS", "RUNNING", ticket);
+        assertNull(cache.get("1-W", "GET_WORKFLOW_STATUS"));
+        cache.put("1-W", "GET_WORKFLOW_STATUS", "SUCCEEDED", cache.getTicket("1-W"));
+        assertEquals("SUCCEEDED", cache.get("1-W", "GET_WORKFLOW_STATUS"));
+    }
+
+    public void testTTL() throws Exception {
+        EntityCache cache = new EntityCache("test", 10, 50);
+        cache.put("1-W", "GET_WORKFLOW_STATUS", "RUNNING", cache.getTicket("1-W"));
+        assertEquals("RUNNING", cache.get("1-W", "GET_WORKFLOW_STATUS"));
+        Thread.sleep(100);
+        assertNull(cache.get("1-W", "GET_WORKFLOW_STATUS"));
+    }
+
+    public void testEviction() {
+        EntityCache cache = new EntityCache("test", 2, 60 * 1000);
+        cache.put("1-W", "GET_WORKFLOW_STATUS", "RUNNING", cache.getTicket("1-W"));
+        cache.put("2-W", "GET_WORKFLOW_STATUS", "RUNNING", cache.getTicket("2-W"));
+        // 1-W becomes the most recently used
+        assertNotNull(cache.get("1-W", "GET_WORKFLOW_STATUS"));
+        cache.put("3-W", "GET_WORKFLOW_STATUS", "RUNNING", cache.getTicket("3-W"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("2-W", "GET_WORKFLOW_STATUS"));
+        assertNotNull(cache.get("1-W", "GET_WORKFLOW_STATUS"));
+        assertNotNull(cache.get("3-W", "GET_WORKFLOW_STATUS"));
+    }
+
+}
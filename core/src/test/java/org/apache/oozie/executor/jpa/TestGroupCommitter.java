@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.executor.jpa.BatchQueryExecutor.UpdateEntry;
+import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
+import org.apache.oozie.util.Instrumentation;
+
+@SuppressWarnings("rawtypes")
+public class TestGroupCommitter extends TestCase {
+
+    private static class RecordingCommitter implements GroupCommitter.Committer {
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        private final AtomicInteger committed = new AtomicInteger();
+        private volatile UpdateEntry failing;
+
+        @Override
+        public void commit(List<UpdateEntry> updates) throws JPAExecutorException {
+            if (failing != null && updates.contains(failing)) {
+                throw new JPAExecutorException(ErrorCode.E0603, "failing update");
+            }
+            batchSizes.add(updates.size());
+            committed.addAndGet(updates.size());
+        }
+    }
+
+    private static List<UpdateEntry> updates(int count) {
+        List<UpdateEntry> updates = new ArrayList<UpdateEntry>();
+        for (int i = 0; i < count; i++) {
+            updates.add(new UpdateEntry<WorkflowJobQuery>(WorkflowJobQuery.UPDATE_WORKFLOW_MODTIME, null));
+        }
+        return updates;
+    }
+
+    public void testInvalidArguments() {
+        try {
+            new GroupCommitter(new RecordingCommitter(), -1, 1, null);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+        try {
+            new GroupCommitter(new RecordingCommitter(), 1, 0, null);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+    }
+
+    public void testSingleCaller() throws Exception {
+        RecordingCommitter committer = new RecordingCommitter();
+        GroupCommitter groupCommitter = new GroupCommitter(committer, 0, 10, null);
+        groupCommitter.commit(updates(2));
+        assertEquals(2, committer.committed.get());
+        assertEquals(1, committer.batchSizes.size());
+        assertEquals(0, groupCommitter.getPending());
+    }
+
+    public void testConcurrentCallersShareTransactions() throws Exception {
+        RecordingCommitter committer = new RecordingCommitter();
+        Instrumentation instr = new Instrumentation();
+        final GroupCommitter groupCommitter = new GroupCommitter(committer, 20, 100, instr);
+        int callers = 20;
+        final CountDownLatch done = new CountDownLatch(callers);
+        final AtomicInteger errors = new AtomicInteger();
+        for (int i = 0; i < callers; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        groupCommitter.commit(updates(2));
+                    }
+                    catch (JPAExecutorException ex) {
+                        errors.incrementAndGet();
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(0, errors.get());
+        assertEquals(callers * 2, committer.committed.get());
+        assertTrue(committer.batchSizes.size() < callers);
+        assertEquals((long) callers, (long) instr.getCounters().get(GroupCommitter.INSTRUMENTATION_GROUP)
+                .get("groupcommit.callers").getValue());
+        assertEquals((long) committer.batchSizes.size(), (long) instr.getCounters()
+                .get(GroupCommitter.INSTRUMENTATION_GROUP).get("groupcommit.batches").getValue());
+    }
+
+    public void testMaxBatch() throws Exception {
+        RecordingCommitter committer = new RecordingCommitter();
+        final GroupCommitter groupCommitter = new GroupCommitter(committer, 10 * 1000, 2, null);
+        final CountDownLatch done = new CountDownLatch(4);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 4; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        groupCommitter.commit(updates(1));
+                    }
+                    catch (JPAExecutorException ex) {
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        // full batches are committed without waiting for the window
+        assertTrue(System.currentTimeMillis() - start < 10 * 1000);
+        assertEquals(4, committer.committed.get());
+        for (Integer size : committer.batchSizes) {
+            assertTrue(size <= 2);
+        }
+    }
+
+    public void testFailingUpdateOnlyFailsItsCaller() throws Exception {
+        final RecordingCommitter committer = new RecordingCommitter();
+        final GroupCommitter groupCommitter = new GroupCommitter(committer, 50, 100, null);
+        final List<UpdateEntry> failingUpdates = updates(1);
+        committer.failing = failingUpdates.get(0);
+        final CountDownLatch done = new CountDownLatch(3);
+        final AtomicInteger errors = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            final boolean fail = (i == 1);
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        groupCommitter.commit(fail ? failingUpdates : updates(1));
+                    }
+                    catch (JPAExecutorException ex) {
+                        errors.incrementAndGet();
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(1, errors.get());
+        assertEquals(2, committer.committed.get());
+    }
+
+}
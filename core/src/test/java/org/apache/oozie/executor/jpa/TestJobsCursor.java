@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+public class TestJobsCursor extends TestCase {
+
+    public void testToken() {
+        Date createdTime = new Date(1380000000123L);
+        JobsCursor cursor = new JobsCursor(createdTime, "0000001-130101000000000-oozie-my_user-W");
+        JobsCursor parsed = JobsCursor.parse(cursor.toToken());
+        assertEquals(createdTime, parsed.getCreatedTime());
+        assertEquals("0000001-130101000000000-oozie-my_user-W", parsed.getId());
+        assertFalse(parsed.isFirst());
+    }
+
+    public void testFirst() {
+        assertEquals("", JobsCursor.FIRST.toToken());
+        assertTrue(JobsCursor.parse("").isFirst());
+        assertTrue(JobsCursor.parse(null).isFirst());
+        assertTrue(JobsCursor.parse("  ").isFirst());
+    }
+
+    public void testInvalidToken() {
+        for (String token : new String[]{"abc", "_0000001-W", "zz!_0000001-W", "10_"}) {
+            try {
+                JobsCursor.parse(token);
+                fail(token);
+            }
+            catch (IllegalArgumentException ex) {
+            }
+        }
+    }
+
+    public void testNext() {
+        Date createdTime = new Date();
+        assertNull(JobsCursor.next(createdTime, "1-W", 1, 2));
+        assertNull(JobsCursor.next(createdTime, "1-W", 0, 0));
+        assertNull(JobsCursor.next(null, "1-W", 2, 2));
+        JobsCursor next = JobsCursor.next(createdTime, "1-W", 2, 2);
+        assertEquals(createdTime, next.getCreatedTime());
+        assertEquals("1-W", next.getId());
+    }
+
+    public void testAppendTo() {
+        StringBuilder sb = new StringBuilder("select w.id from WorkflowJobBean w");
+        JobsCursor.FIRST.appendTo(sb, false);
+        assertEquals("select w.id from WorkflowJobBean w order by w.createdTimestamp desc, w.id desc", sb.toString());
+
+        sb = new StringBuilder("select w.id from WorkflowJobBean w where w.user IN (:user0)");
+        new JobsCursor(new Date(), "1-W").appendTo(sb, true);
+        assertEquals("select w.id from WorkflowJobBean w where w.user IN (:user0) and (w.createdTimestamp < :cursorTime"
+                + " or (w.createdTimestamp = :cursorTime and w.id < :cursorId)) order by w.createdTimestamp desc,"
+                + " w.id desc", sb.toString());
+    }
+}
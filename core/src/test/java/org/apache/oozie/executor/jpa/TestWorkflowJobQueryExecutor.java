@@ -18,17 +18,23 @@
 package org.apache.oozie.executor.jpa;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 
+import org.apache.oozie.ErrorCode;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.executor.jpa.BatchQueryExecutor.UpdateEntry;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
+import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.test.XDataTestCase;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.workflow.WorkflowInstance;
 
 public class TestWorkflowJobQueryExecutor extends XDataTestCase {
@@ -308,6 +314,65 @@ public class TestWorkflowJobQueryExecutor extends XDataTestCase {
         assertEquals(bean.getStatus(), retBean.getStatus());
     }
 
+    public void testGetCached() throws Exception {
+        services.destroy();
+        setSystemProperty(JPAService.CONF_ENTITY_CACHE_ENABLED, "true");
+        services = new Services();
+        services.init();
+        WorkflowJobQueryExecutor.destroy();
+        BatchQueryExecutor.destroy();
+        try {
+            Instrumentation instr = services.get(InstrumentationService.class).get();
+            WorkflowJobBean bean = addRecordToWfJobTable(WorkflowJob.Status.PREP, WorkflowInstance.Status.PREP);
+            WorkflowJobBean retBean = WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW_STATUS,
+                    bean.getId());
+            assertEquals(WorkflowJob.Status.PREP, retBean.getStatus());
+            retBean = WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW_STATUS, bean.getId());
+            assertEquals(WorkflowJob.Status.PREP, retBean.getStatus());
+            assertEquals(1L, (long) instr.getCounters().get(EntityCache.INSTRUMENTATION_GROUP)
+                    .get("workflowjob.cache.hits").getValue());
+
+            // projections with blobs, each get returns its own instances
+            WorkflowJobBean first = WorkflowJobQueryExecutor.getInstance().get(
+                    WorkflowJobQuery.GET_WORKFLOW_ACTION_OP, bean.getId());
+            WorkflowJobBean second = WorkflowJobQueryExecutor.getInstance().get(
+                    WorkflowJobQuery.GET_WORKFLOW_ACTION_OP, bean.getId());
+            assertNotSame(first.getWfInstanceBlob(), second.getWfInstanceBlob());
+            assertEquals(bean.getWorkflowInstance().getId(), second.getWorkflowInstance().getId());
+            assertEquals(bean.getProtoActionConf(), second.getProtoActionConf());
+
+            // updates through the executor invalidate the cache
+            bean.setStatus(WorkflowJob.Status.RUNNING);
+            WorkflowJobQueryExecutor.getInstance().executeUpdate(WorkflowJobQuery.UPDATE_WORKFLOW, bean);
+            retBean = WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW_STATUS, bean.getId());
+            assertEquals(WorkflowJob.Status.RUNNING, retBean.getStatus());
+
+            // updates through the batch executor invalidate the cache
+            bean.setStatus(WorkflowJob.Status.SUCCEEDED);
+            List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
+            updateList.add(new UpdateEntry<WorkflowJobQuery>(WorkflowJobQuery.UPDATE_WORKFLOW, bean));
+            BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(null, updateList, null);
+            retBean = WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW_STATUS, bean.getId());
+            assertEquals(WorkflowJob.Status.SUCCEEDED, retBean.getStatus());
+
+            // purged jobs are evicted from the cache
+            List<String> deleteList = new ArrayList<String>();
+            deleteList.add(bean.getId());
+            services.get(JPAService.class).execute(new WorkflowJobsDeleteJPAExecutor(deleteList));
+            try {
+                WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW_STATUS, bean.getId());
+                fail("Job was purged");
+            }
+            catch (JPAExecutorException ex) {
+                assertEquals(ErrorCode.E0604, ex.getErrorCode());
+            }
+        }
+        finally {
+            WorkflowJobQueryExecutor.destroy();
+            BatchQueryExecutor.destroy();
+        }
+    }
+
     public void testGetList() throws Exception {
         // TODO
     }
@@ -19,8 +19,10 @@ package org.apache.oozie.executor.jpa;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.WorkflowsInfo;
@@ -55,6 +57,52 @@ public class TestWorkflowsJobGetJPAExecutor extends XDataTestCase {
         System.out.println("testWfJobsGet Successful");
     }
 
+    public void testWfJobsGetByCursor() throws Exception {
+        Set<String> ids = new HashSet<String>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(addRecordToWfJobTable(WorkflowJob.Status.PREP, WorkflowInstance.Status.PREP).getId());
+        }
+        JPAService jpaService = Services.get().get(JPAService.class);
+        assertNotNull(jpaService);
+
+        Map<String, List<String>> filter = new HashMap<String, List<String>>();
+        _testGetWFInfosByCursor(jpaService, filter, ids);
+
+        List<String> statusList = new ArrayList<String>();
+        statusList.add(WorkflowJob.Status.PREP.toString());
+        filter.put(OozieClient.FILTER_STATUS, statusList);
+        _testGetWFInfosByCursor(jpaService, filter, ids);
+
+        // the total is computed only if requested
+        WorkflowsInfo wfInfo = jpaService.execute(new WorkflowsJobGetJPAExecutor(filter, 1, 2, JobsCursor.FIRST,
+                true));
+        assertEquals(5, wfInfo.getTotal());
+    }
+
+    private void _testGetWFInfosByCursor(JPAService jpaService, Map<String, List<String>> filter, Set<String> ids)
+            throws JPAExecutorException {
+        Set<String> listed = new HashSet<String>();
+        JobsCursor cursor = JobsCursor.FIRST;
+        int pages = 0;
+        while (cursor != null) {
+            WorkflowsInfo wfInfo = jpaService.execute(new WorkflowsJobGetJPAExecutor(filter, 1, 2, cursor, false));
+            assertEquals(-1, wfInfo.getTotal());
+            WorkflowJobBean previous = null;
+            for (WorkflowJobBean wfBean : wfInfo.getWorkflows()) {
+                assertTrue(listed.add(wfBean.getId()));
+                if (previous != null) {
+                    assertTrue(previous.getCreatedTime().compareTo(wfBean.getCreatedTime()) >= 0);
+                }
+                previous = wfBean;
+            }
+            cursor = (wfInfo.getNextCursor() != null) ? JobsCursor.parse(wfInfo.getNextCursor()) : null;
+            pages++;
+        }
+        assertEquals(ids, listed);
+        // 2 full pages, then a page with the last job
+        assertEquals(3, pages);
+    }
+
     private void _testGetWFInfos() throws JPAExecutorException {
         JPAService jpaService = Services.get().get(JPAService.class);
         assertNotNull(jpaService);
@@ -95,11 +95,11 @@ public class TestHCatMessageHandler extends XDataTestCase {
             String actionId4 = "1234465454";
 
             // add partition as missing
-            HCatURI dep1 = new HCatURI("hcat://hcat.server.com:5080/mydb/mytbl/dt=20120101;country=us");
-            HCatURI dep2 = new HCatURI("hcat://hcat.server.com:5080/mydb/mytbl/country=us;dt=20120101");
-            HCatURI dep3 = new HCatURI("hcat://hcat.server.com:5080/mydb/mytbl/dt=20120102;country=us");
-            HCatURI dep4 = new HCatURI("hcat://hcat.server.com:5080/mydb/mytbl/dt=20120102;country=us;state=CA");
-            PartitionDependencyManagerService pdms = Services.get().get(PartitionDependencyManagerService.class);
+            final HCatURI dep1 = new HCatURI("hcat://hcat.server.com:5080/mydb/mytbl/dt=20120101;country=us");
+            final HCatURI dep2 = new HCatURI("hcat://hcat.server.com:5080/mydb/mytbl/country=us;dt=20120101");
+            final HCatURI dep3 = new HCatURI("hcat://hcat.server.com:5080/mydb/mytbl/dt=20120102;country=us");
+            final HCatURI dep4 = new HCatURI("hcat://hcat.server.com:5080/mydb/mytbl/dt=20120102;country=us;state=CA");
+            final PartitionDependencyManagerService pdms = Services.get().get(PartitionDependencyManagerService.class);
             pdms.addMissingDependency(dep1, actionId1);
             pdms.addMissingDependency(dep2, actionId2);
             pdms.addMissingDependency(dep3, actionId3);
@@ -121,6 +121,13 @@ public class TestHCatMessageHandler extends XDataTestCase {
             // test message processing
             HCatMessageHandler hcatHandler = new HCatMessageHandler("hcat.server.com:5080");
             hcatHandler.process(msg);
+            // the partitions are marked available asynchronously by the notification pipeline
+            waitFor(5 * 1000, new Predicate() {
+                @Override
+                public boolean evaluate() throws Exception {
+                    return pdms.getWaitingActions(dep1) == null && pdms.getWaitingActions(dep2) == null;
+                }
+            });
             assertNull(pdms.getWaitingActions(dep1));
             assertNull(pdms.getWaitingActions(dep2));
             assertTrue(pdms.getWaitingActions(dep3).contains(actionId3));
@@ -139,7 +146,12 @@ public class TestHCatMessageHandler extends XDataTestCase {
             Topic topic = session.createTopic("hcat.topic1");
             MessageProducer producer = session.createProducer(topic);
             producer.send(msg);
-            Thread.sleep(500);
+            waitFor(5 * 1000, new Predicate() {
+                @Override
+                public boolean evaluate() throws Exception {
+                    return pdms.getWaitingActions(dep3) == null && pdms.getWaitingActions(dep4) == null;
+                }
+            });
 
             assertNull(pdms.getWaitingActions(dep3));
             assertNull(pdms.getWaitingActions(dep4));
@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.jms;
+
+import java.util.Collections;
+import java.util.Map;
+
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.JMSAccessorService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.Instrumentation;
+
+public class TestJMSMessagePublisher extends XTestCase {
+    private Services services;
+    private Configuration conf;
+    private JMSConnectionInfo connInfo;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        services = new Services();
+        conf = services.getConf();
+        conf.set(Services.CONF_SERVICE_EXT_CLASSES, JMSAccessorService.class.getName());
+        conf.set(JMSJobEventListener.JMS_CONNECTION_PROPERTIES, "java.naming.factory.initial#" + ActiveMQConnFactory
+                + ";" + "java.naming.provider.url#" + localActiveMQBroker + ";connectionFactoryNames#"
+                + "ConnectionFactory");
+        services.init();
+        connInfo = new JMSConnectionInfo(conf.get(JMSJobEventListener.JMS_CONNECTION_PROPERTIES));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private long getCounter(String name) {
+        Map<String, Instrumentation.Element<Long>> counters = services.get(InstrumentationService.class).get()
+                .getCounters().get(JMSMessagePublisher.INSTRUMENTATION_GROUP);
+        Instrumentation.Element<Long> counter = (counters == null) ? null : counters.get(name);
+        return (counter == null) ? 0 : counter.getValue();
+    }
+
+    private long getTimerTicks(String name) {
+        Map<String, Instrumentation.Element<Instrumentation.Timer>> timers = services.get(
+                InstrumentationService.class).get().getTimers().get(JMSMessagePublisher.INSTRUMENTATION_GROUP);
+        Instrumentation.Element<Instrumentation.Timer> timer = (timers == null) ? null : timers.get(name);
+        return (timer == null) ? 0 : timer.getValue().getTicks();
+    }
+
+    private MessageConsumer createConsumer(String topic) throws Exception {
+        ConnectionContext jmsContext = services.get(JMSAccessorService.class).createProducerConnectionContext(
+                connInfo);
+        Session session = jmsContext.createSession(Session.AUTO_ACKNOWLEDGE);
+        return jmsContext.createConsumer(session, topic);
+    }
+
+    private void assertReceived(MessageConsumer consumer, String topic, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            TextMessage message = (TextMessage) consumer.receive(5000);
+            assertNotNull(message);
+            assertEquals(topic + "-" + i, message.getText());
+            assertEquals(Integer.toString(i), message.getStringProperty("index"));
+        }
+    }
+
+    private void publish(JMSMessagePublisher publisher, String topic, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(publisher.publish(topic, topic + "-" + i, Collections.singletonMap("index",
+                    Integer.toString(i))));
+        }
+    }
+
+    public void testAsyncPublish() throws Exception {
+        conf.setInt(JMSMessagePublisher.JMS_PRODUCER_BATCH_SIZE, 10);
+        JMSMessagePublisher publisher = new JMSMessagePublisher(services.get(JMSAccessorService.class), connInfo,
+                conf);
+        MessageConsumer consumer1 = createConsumer("topic1");
+        MessageConsumer consumer2 = createConsumer("topic2");
+
+        // the messages are queued until the publisher is started
+        publish(publisher, "topic1", 25);
+        publish(publisher, "topic2", 5);
+        assertEquals(30, publisher.getQueueSize());
+        publisher.start();
+        assertReceived(consumer1, "topic1", 25);
+        assertReceived(consumer2, "topic2", 5);
+        waitFor(5000, new Predicate() {
+            @Override
+            public boolean evaluate() throws Exception {
+                return getCounter("published") == 30;
+            }
+        });
+
+        // a producer is kept for each topic, messages are sent by batches
+        assertEquals(2, publisher.getProducerCount());
+        assertTrue(getCounter("batches") >= 3);
+        assertTrue(getCounter("batches") < 30);
+        assertEquals(30, getTimerTicks("latency"));
+        assertEquals(0, getCounter("dropped"));
+
+        publisher.stop(5000);
+        assertEquals(0, publisher.getProducerCount());
+    }
+
+    public void testTransactedPublish() throws Exception {
+        conf.setInt(JMSMessagePublisher.JMS_PRODUCER_BATCH_SIZE, 10);
+        conf.setBoolean(JMSMessagePublisher.JMS_PRODUCER_TRANSACTED, true);
+        JMSMessagePublisher publisher = new JMSMessagePublisher(services.get(JMSAccessorService.class), connInfo,
+                conf);
+        MessageConsumer consumer = createConsumer("topic1");
+        publish(publisher, "topic1", 15);
+
+        // the messages of a batch are received once it is committed
+        assertEquals(10, publisher.publishQueue(0));
+        assertReceived(consumer, "topic1", 10);
+        publisher.start();
+        publisher.stop(5000);
+        for (int i = 10; i < 15; i++) {
+            TextMessage message = (TextMessage) consumer.receive(5000);
+            assertEquals("topic1-" + i, message.getText());
+        }
+        assertEquals(15, getCounter("published"));
+        assertEquals(2, getCounter("batches"));
+        assertEquals(0, getCounter("failed"));
+    }
+
+    public void testDropWhenFull() throws Exception {
+        conf.setInt(JMSMessagePublisher.JMS_PRODUCER_QUEUE_SIZE, 2);
+        JMSMessagePublisher publisher = new JMSMessagePublisher(services.get(JMSAccessorService.class), connInfo,
+                conf);
+        MessageConsumer consumer = createConsumer("topic1");
+
+        // the messages published while the queue is full are dropped
+        publish(publisher, "topic1", 2);
+        assertFalse(publisher.publish("topic1", "dropped", Collections.<String, String>emptyMap()));
+        assertEquals(1, getCounter("dropped"));
+        publisher.start();
+        assertReceived(consumer, "topic1", 2);
+        assertNull(consumer.receive(500));
+        publisher.stop(5000);
+    }
+
+    public void testSyncPublish() throws Exception {
+        conf.setInt(JMSMessagePublisher.JMS_PRODUCER_QUEUE_SIZE, 0);
+        JMSMessagePublisher publisher = new JMSMessagePublisher(services.get(JMSAccessorService.class), connInfo,
+                conf);
+        MessageConsumer consumer = createConsumer("topic1");
+
+        // the messages are sent by the calling thread
+        publish(publisher, "topic1", 3);
+        assertEquals(3, getCounter("published"));
+        assertEquals(3, getCounter("batches"));
+        assertEquals(1, publisher.getProducerCount());
+        assertReceived(consumer, "topic1", 3);
+        publisher.stop(5000);
+    }
+}
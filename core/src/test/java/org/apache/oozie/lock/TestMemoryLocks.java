@@ -17,6 +17,8 @@
  */
 package org.apache.oozie.lock;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.oozie.test.XTestCase;
 import org.apache.oozie.util.XLog;
 
@@ -218,4 +220,147 @@ public class TestMemoryLocks extends XTestCase {
         assertEquals("a:1-L a:1-U a:2-L a:2-U", sb.toString().trim());
     }
 
+    private boolean getWriteLockInOtherThread(final String resource, final long wait) throws Exception {
+        final AtomicInteger result = new AtomicInteger();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    MemoryLocks.MemoryLockToken token = locks.getWriteLock(resource, wait);
+                    if (token != null) {
+                        result.set(1);
+                        token.release();
+                    }
+                }
+                catch (InterruptedException ex) {
+                    result.set(-1);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        assertTrue(result.get() >= 0);
+        return result.get() == 1;
+    }
+
+    public void testLockEntryRemovedOnRelease() throws Exception {
+        MemoryLocks.MemoryLockToken t1 = locks.getReadLock("a", -1);
+        MemoryLocks.MemoryLockToken t2 = locks.getReadLock("a", -1);
+        assertNotNull(t1);
+        assertNotNull(t2);
+        assertEquals(1, locks.size());
+        assertFalse(getWriteLockInOtherThread("a", 0));
+        assertEquals(1, locks.size());
+        t1.release();
+        assertEquals(1, locks.size());
+        t2.release();
+        assertEquals(0, locks.size());
+
+        MemoryLocks.MemoryLockToken t3 = locks.getWriteLock("a", 0);
+        assertNotNull(t3);
+        assertEquals(1, locks.size());
+        t3.release();
+        assertEquals(0, locks.size());
+    }
+
+    public void testLockEntriesUnderContention() throws Exception {
+        final int threads = 10;
+        final AtomicInteger inLock = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        Thread[] lockers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            lockers[i] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 500; j++) {
+                            MemoryLocks.MemoryLockToken token = locks.getWriteLock("r" + (j % 3), -1);
+                            if (inLock.incrementAndGet() > 3) {
+                                errors.incrementAndGet();
+                            }
+                            inLock.decrementAndGet();
+                            token.release();
+                        }
+                    }
+                    catch (InterruptedException ex) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+            lockers[i].start();
+        }
+        for (Thread locker : lockers) {
+            locker.join();
+        }
+        assertEquals(0, errors.get());
+        assertEquals(0, locks.size());
+    }
+
+    public void testJobStripes() throws Exception {
+        locks = new MemoryLocks(1);
+        MemoryLocks.MemoryLockToken t1 = locks.getWriteLock("0000000-000000000000000-oozie-oozi-W", 0);
+        assertNotNull(t1);
+        assertEquals(0, locks.size());
+        // with a single stripe all the jobs share the same lock
+        assertFalse(getWriteLockInOtherThread("0000001-000000000000000-oozie-oozi-C", 0));
+        // resources that are not job IDs are not striped
+        MemoryLocks.MemoryLockToken t2 = locks.getWriteLock("a", 0);
+        assertNotNull(t2);
+        assertEquals(1, locks.size());
+        t1.release();
+        t2.release();
+        assertEquals(0, locks.size());
+        assertTrue(getWriteLockInOtherThread("0000001-000000000000000-oozie-oozi-C", 0));
+    }
+
+    public void testNestedJobStripes() throws Exception {
+        String wfId = "0000000-000000000000000-oozie-oozi-W";
+        String coordId = "0000001-000000000000000-oozie-oozi-C";
+
+        // without stripes nested locks of different jobs are independent
+        MemoryLocks.MemoryLockToken t1 = locks.getReadLock(wfId, -1);
+        MemoryLocks.MemoryLockToken t2 = locks.getWriteLock(coordId, -1);
+        assertNotNull(t2);
+        t2.release();
+        t1.release();
+
+        locks = new MemoryLocks(1);
+        // a WRITE lock nested in a WRITE lock of the same stripe is reentrant
+        t1 = locks.getWriteLock(wfId, -1);
+        t2 = locks.getWriteLock(coordId, -1);
+        assertNotNull(t2);
+        t2.release();
+        assertFalse(getWriteLockInOtherThread(coordId, 0));
+        t1.release();
+
+        // a WRITE lock nested in a READ lock of the same stripe is not obtained, the thread does not wait for itself
+        t1 = locks.getReadLock(wfId, -1);
+        assertNull(locks.getWriteLock(coordId, -1));
+        assertEquals(1, locks.getStats(MemoryLocks.ResourceType.COORDINATOR).getTimeouts());
+        t2 = locks.getReadLock(coordId, -1);
+        assertNotNull(t2);
+        t2.release();
+        t1.release();
+        assertTrue(getWriteLockInOtherThread(coordId, 0));
+    }
+
+    public void testStats() throws Exception {
+        String jobId = "0000000-000000000000000-oozie-oozi-W";
+        assertEquals(MemoryLocks.ResourceType.WORKFLOW, MemoryLocks.ResourceType.of(jobId));
+        assertEquals(MemoryLocks.ResourceType.COORDINATOR,
+                MemoryLocks.ResourceType.of("0000000-000000000000000-oozie-oozi-C"));
+        assertEquals(MemoryLocks.ResourceType.BUNDLE,
+                MemoryLocks.ResourceType.of("0000000-000000000000000-oozie-oozi-B"));
+        assertEquals(MemoryLocks.ResourceType.OTHER, MemoryLocks.ResourceType.of("a"));
+
+        MemoryLocks.MemoryLockToken token = locks.getWriteLock(jobId, -1);
+        assertFalse(getWriteLockInOtherThread(jobId, 100));
+        token.release();
+
+        MemoryLocks.Stats stats = locks.getStats(MemoryLocks.ResourceType.WORKFLOW);
+        assertEquals(1, stats.getAcquired());
+        assertEquals(1, stats.getContended());
+        assertEquals(1, stats.getTimeouts());
+        assertTrue(stats.getWaitTime() >= 90);
+        assertEquals(0, locks.getStats(MemoryLocks.ResourceType.OTHER).getAcquired());
+    }
+
 }
@@ -139,6 +139,49 @@ public class TestActionCheckerService extends XDataTestCase {
         assertEquals(WorkflowActionBean.Status.OK, action2.getStatus());
     }
 
+    /**
+     * Tests the push mode of the Action Checker Service Runnable. </p> The first
+     * run queries the running actions and adds them to the index, the next runs
+     * only check the actions the index considers due.
+     *
+     * @throws Exception
+     */
+    public void testActionCheckerServicePushMode() throws Exception {
+        Reader reader = IOUtils.getResourceAsReader("wf-ext-schema-valid.xml", -1);
+        Writer writer = new FileWriter(new File(getTestCaseDir(), "workflow.xml"));
+        IOUtils.copyCharStream(reader, writer);
+
+        final DagEngine engine = new DagEngine(getTestUser());
+        Configuration conf = new XConfiguration();
+        conf.set(OozieClient.APP_PATH, getTestCaseFileUri("workflow.xml"));
+        conf.set(WorkflowAppService.HADOOP_USER, getTestUser());
+        conf.set(OozieClient.LOG_TOKEN, "t");
+        conf.set("external-status", "ok");
+        conf.set("signal-value", "based_on_action_status");
+        conf.set("running-mode", "async");
+
+        final String jobId = engine.submitJob(conf, true);
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.RUNNING);
+            }
+        });
+        sleep(2000);
+
+        RunningActionIndex index = new RunningActionIndex(3600 * 1000, 3600 * 1000);
+        Runnable actionCheckRunnable = new ActionCheckRunnable(0, index, 3600 * 1000);
+        actionCheckRunnable.run();
+        assertEquals(1, index.size());
+        String actionId = index.getDueActions(Long.MAX_VALUE).get(0);
+        assertEquals(jobId, Services.get().get(UUIDService.class).getId(actionId));
+
+        waitFor(20000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.SUCCEEDED);
+            }
+        });
+    }
+
     /**
      * Tests the delayed check functionality of the Action Check Service
      * Runnable. </p> Starts an action which behaves like an Async Action
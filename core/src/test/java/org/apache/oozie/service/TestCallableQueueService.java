@@ -227,6 +227,86 @@ public class TestCallableQueueService extends XTestCase {
         assertTrue(callable.executed >= scheduled + 1000);
     }
 
+    public void testShardedQueue() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(CallableQueueService.CONF_QUEUE_TYPE, CallableQueueService.QUEUE_TYPE_SHARDED);
+        setSystemProperty(CallableQueueService.CONF_QUEUE_SHARDS, "4");
+        new Services().init();
+        final CallableQueueService queueservice = Services.get().get(CallableQueueService.class);
+
+        final List<MyCallable> callables = new ArrayList<MyCallable>();
+        for (int i = 0; i < 20; i++) {
+            callables.add(new MyCallable("sharded" + (i % 5), i % 3, 10));
+        }
+        final MyCallable delayed = new MyCallable();
+        long scheduled = System.currentTimeMillis();
+        queueservice.queue(delayed, 500);
+        for (MyCallable c : callables) {
+            queueservice.queue(c);
+        }
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                for (MyCallable c : callables) {
+                    if (c.executed == 0) {
+                        return false;
+                    }
+                }
+                return delayed.executed != 0;
+            }
+        });
+        for (MyCallable c : callables) {
+            assertTrue(c.executed != 0);
+        }
+        assertTrue(delayed.executed >= scheduled + 500);
+        assertEquals(0, queueservice.queueSize());
+    }
+
+    public void testElasticExecutionMode() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(CallableQueueService.CONF_EXECUTION_MODE, CallableQueueService.EXECUTION_MODE_ELASTIC);
+        setSystemProperty(CallableQueueService.CONF_ELASTIC_MAX_CONCURRENCY, "50");
+        setSystemProperty(CallableQueueService.CONF_THREADS, "1");
+        new Services().init();
+        final CallableQueueService queueservice = Services.get().get(CallableQueueService.class);
+
+        // 20 callables blocking 500ms each with a single dispatcher thread, they can only complete within the
+        // timeout if they run concurrently in the elastic executor
+        final List<MyCallable> callables = new ArrayList<MyCallable>();
+        for (int i = 0; i < 20; i++) {
+            MyCallable callable = new MyCallable("elastic" + i, 0, 500);
+            callables.add(callable);
+            queueservice.queue(callable);
+        }
+        long start = System.currentTimeMillis();
+        float originalRatio = XTestCase.WAITFOR_RATIO;
+        try {
+            XTestCase.WAITFOR_RATIO = 1;
+            waitFor(5000, new Predicate() {
+                public boolean evaluate() throws Exception {
+                    for (MyCallable c : callables) {
+                        if (c.executed == 0) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            });
+        }
+        finally {
+            XTestCase.WAITFOR_RATIO = originalRatio;
+        }
+        for (MyCallable c : callables) {
+            assertTrue(c.executed != 0);
+        }
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        waitFor(1000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return queueservice.elasticActiveCount() == 0;
+            }
+        });
+        assertEquals(0, queueservice.elasticActiveCount());
+    }
+
     public void testPriorityExecution() throws Exception {
         EXEC_ORDER = new AtomicLong();
         Services.get().destroy();
@@ -378,6 +458,46 @@ public class TestCallableQueueService extends XTestCase {
         assertTrue(CLCallable.getConcurrency() <= 3);
     }
 
+    public void testConcurrencyLimitPerType() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(CallableQueueService.CONF_CALLABLE_CONCURRENCY_TYPES, "type=1");
+        new Services().init();
+
+        CLCallable.resetConcurrency();
+        final CallableQueueService queueservice = Services.get().get(CallableQueueService.class);
+
+        final List<MyCallable> others = new ArrayList<MyCallable>();
+        for (int i = 0; i < 5; i++) {
+            queueservice.queue(new CLCallable(), 10);
+            MyCallable other = new MyCallable("other", 0, 10);
+            others.add(other);
+            queueservice.queue(other, 10);
+        }
+
+        float originalRatio = XTestCase.WAITFOR_RATIO;
+        try{
+            XTestCase.WAITFOR_RATIO = 1;
+            waitFor(5000, new Predicate() {
+                public boolean evaluate() throws Exception {
+                    for (MyCallable other : others) {
+                        if (other.executed == 0) {
+                            return false;
+                        }
+                    }
+                    return queueservice.queueSize() == 0;
+                }
+            });
+        }
+        finally {
+            XTestCase.WAITFOR_RATIO = originalRatio;
+        }
+
+        assertEquals(1, CLCallable.getConcurrency());
+        for (MyCallable other : others) {
+            assertTrue(other.executed != 0);
+        }
+    }
+
     /**
      * When using config 'oozie.service.CallableQueueService.callable.next.eligible' true, the next other type of callables
      * should be invoked when top one in the queue is reached max concurrency.
@@ -51,4 +51,33 @@ public class TestELService extends XTestCase {
         assertNotNull(eval.evaluate("${urlEncode('abc')}", String.class));
     }
 
+    public void testEvaluatorsShareGroupContext() throws Exception {
+        ELService service = Services.get().get(ELService.class);
+        ELEvaluator eval1 = service.createEvaluator("workflow");
+        ELEvaluator eval2 = service.createEvaluator("workflow");
+
+        // the variables are set in the evaluator only, on top of the constants and functions of the group
+        eval1.setVariable("KB", 1L);
+        eval1.setVariable("a", "A");
+        assertEquals(Long.valueOf(1), eval1.evaluate("${KB}", Long.class));
+        assertEquals(Long.valueOf(1024), eval2.evaluate("${KB}", Long.class));
+        assertEquals("Ab", eval1.evaluate("${concat(a, 'b')}", String.class));
+        assertNull(eval2.getVariable("a"));
+        try {
+            eval2.evaluate("${concat(a, 'b')}", String.class);
+            fail();
+        }
+        catch (ELException ex) {
+            //nop
+        }
+        assertEquals(Long.valueOf(1024), service.createEvaluator("workflow").evaluate("${KB}", Long.class));
+        try {
+            service.createEvaluator("undefined");
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            //nop
+        }
+    }
+
 }
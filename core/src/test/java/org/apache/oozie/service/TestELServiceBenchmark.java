@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.ELEvaluator;
+
+/**
+ * Evaluation benchmark of the {@link ELService} evaluators, excluded from the default test run, run it with
+ * <code>-Dtest=TestELServiceBenchmark</code>.
+ */
+public class TestELServiceBenchmark extends XTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        new Services().init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Services.get().destroy();
+        super.tearDown();
+    }
+
+    /**
+     * Creates an evaluator per iteration, as done per action, so the evaluators share the group contexts, and
+     * evaluates representative workflow and coordinator expressions with and without the parsed expression cache and
+     * prints the throughput of each.
+     */
+    public void testEvaluationBenchmark() throws Exception {
+        String[] wfExprs = {"${concat(concat(user, '-'), app)}", "${firstNotNull(queue, 'default')}",
+                "${trim(concat(' ', app))}", "/user/${user}/${app}/output/${KB * 4}", "${user eq 'oozie' and KB > 0}"};
+        String[] coordExprs = {"${coord:days(1)}", "${coord:hours(6)}", "${coord:minutes(30)}",
+                "${coord:months(1)}", "${coord:endOfDays(1)}"};
+        int iterations = 20000;
+        try {
+            for (int cacheSize : new int[]{0, ELEvaluator.DEFAULT_EXPRESSION_CACHE_SIZE}) {
+                ELEvaluator.setExpressionCacheSize(cacheSize);
+                long start = System.currentTimeMillis();
+                for (int i = 0; i < iterations; i++) {
+                    ELEvaluator eval = Services.get().get(ELService.class).createEvaluator("workflow");
+                    eval.setVariable("user", "oozie");
+                    eval.setVariable("app", "app-" + (i % 10));
+                    eval.setVariable("queue", null);
+                    for (String expr : wfExprs) {
+                        eval.evaluate(expr, String.class);
+                    }
+                }
+                long wfTime = System.currentTimeMillis() - start;
+
+                start = System.currentTimeMillis();
+                for (int i = 0; i < iterations; i++) {
+                    ELEvaluator eval = Services.get().get(ELService.class).createEvaluator("coord-job-submit-freq");
+                    for (String expr : coordExprs) {
+                        eval.evaluate(expr, String.class);
+                    }
+                }
+                long coordTime = System.currentTimeMillis() - start;
+
+                System.out.println("EL evaluation benchmark, cache size=" + cacheSize + " iterations=" + iterations);
+                System.out.println("  workflow    : " + wfTime + "ms, "
+                        + (iterations * wfExprs.length * 1000L / Math.max(1, wfTime)) + " evaluations/sec");
+                System.out.println("  coordinator : " + coordTime + "ms, "
+                        + (iterations * coordExprs.length * 1000L / Math.max(1, coordTime)) + " evaluations/sec");
+            }
+        }
+        finally {
+            ELEvaluator.setExpressionCacheSize(ELEvaluator.DEFAULT_EXPRESSION_CACHE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.util.Collection;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.oozie.test.XDataTestCase;
+import org.apache.oozie.util.Instrumentation;
+
+public class TestFSDependencyManagerService extends XDataTestCase {
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setSystemProperty(Services.CONF_SERVICE_EXT_CLASSES, FSDependencyManagerService.class.getName());
+        setSystemProperty(FSDependencyManagerService.CONF_MIN_BACKOFF, "0");
+        setSystemProperty(FSDependencyManagerService.CONF_MAX_ACTIONS, "3");
+        services = new Services();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private long getCounter(String name) {
+        Instrumentation.Element<Long> counter = services.get(InstrumentationService.class).get().getCounters()
+                .get(FSDependencyManagerService.INSTRUMENTATION_GROUP).get(name);
+        return (counter == null) ? 0 : counter.getValue();
+    }
+
+    public void testDependencyAvailable() throws Exception {
+        FSDependencyManagerService service = services.get(FSDependencyManagerService.class);
+        Path dir = new Path(getFsTestCaseDir(), "2013/01/01");
+        String dep1 = new Path(dir, "00").toString();
+        String dep2 = new Path(dir, "01").toString();
+
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@1", "job-C"));
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@2", "job-C"));
+        assertTrue(service.addMissingDependency(dep2, getTestUser(), "job-C@3", "job-C"));
+        Collection<String> waiting = service.getWaitingActions(dep1, getTestUser());
+        assertEquals(2, waiting.size());
+        assertTrue(waiting.contains("job-C@1") && waiting.contains("job-C@2"));
+        // the same dependency checked as another user is another dependency
+        assertTrue(service.getWaitingActions(dep1, getTestUser2()).isEmpty());
+
+        service.checkDependencies();
+        assertEquals(2, getCounter("checks"));
+        assertEquals(0, getCounter("available"));
+        assertEquals(2, service.getWaitingActions(dep1, getTestUser()).size());
+
+        getFileSystem().mkdirs(new Path(dep1));
+        service.checkDependencies();
+        assertEquals(4, getCounter("checks"));
+        assertEquals(1, getCounter("available"));
+        assertEquals(2, getCounter("wakeups"));
+        assertTrue(service.getWaitingActions(dep1, getTestUser()).isEmpty());
+        assertEquals(1, service.getWaitingActions(dep2, getTestUser()).size());
+    }
+
+    public void testRegistration() throws Exception {
+        FSDependencyManagerService service = services.get(FSDependencyManagerService.class);
+        String dep1 = new Path(getFsTestCaseDir(), "a").toString();
+        String dep2 = new Path(getFsTestCaseDir(), "b").toString();
+
+        // an action waits on one dependency at a time
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@1", "job-C"));
+        assertTrue(service.addMissingDependency(dep2, getTestUser(), "job-C@1", "job-C"));
+        assertTrue(service.getWaitingActions(dep1, getTestUser()).isEmpty());
+        assertEquals(1, service.getWaitingActions(dep2, getTestUser()).size());
+
+        assertTrue(service.removeMissingDependency("job-C@1"));
+        assertFalse(service.removeMissingDependency("job-C@1"));
+        assertTrue(service.getWaitingActions(dep2, getTestUser()).isEmpty());
+
+        // invalid dependencies are not registered, their input check reports the error
+        assertFalse(service.addMissingDependency("hdfs:///dir x", getTestUser(), "job-C@2", "job-C"));
+        assertFalse(service.addMissingDependency(dep1, null, "job-C@2", "job-C"));
+
+        // the number of registered actions is bounded
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@2", "job-C"));
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@3", "job-C"));
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@4", "job-C"));
+        assertFalse(service.addMissingDependency(dep1, getTestUser(), "job-C@5", "job-C"));
+        assertTrue(service.addMissingDependency(dep2, getTestUser(), "job-C@4", "job-C"));
+    }
+
+    public void testExpiration() throws Exception {
+        services.destroy();
+        setSystemProperty(FSDependencyManagerService.CONF_MAX_WAIT, "1");
+        services = new Services();
+        services.init();
+        FSDependencyManagerService service = services.get(FSDependencyManagerService.class);
+        String dep = new Path(getFsTestCaseDir(), "a").toString();
+
+        assertTrue(service.addMissingDependency(dep, getTestUser(), "job-C@1", "job-C"));
+        service.checkDependencies();
+        assertEquals(1, service.getWaitingActions(dep, getTestUser()).size());
+        sleep(1100);
+        service.checkDependencies();
+        assertTrue(service.getWaitingActions(dep, getTestUser()).isEmpty());
+        assertEquals(1, getCounter("expired"));
+        assertFalse(service.removeMissingDependency("job-C@1"));
+    }
+
+    public void testExpirationOfActionRegisteredAgain() throws Exception {
+        services.destroy();
+        setSystemProperty(FSDependencyManagerService.CONF_MAX_WAIT, "2");
+        services = new Services();
+        services.init();
+        FSDependencyManagerService service = services.get(FSDependencyManagerService.class);
+        String dep1 = new Path(getFsTestCaseDir(), "a").toString();
+        String dep2 = new Path(getFsTestCaseDir(), "b").toString();
+
+        // registering an action again, on the same or on another dependency, keeps its registration time
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@1", "job-C"));
+        sleep(1200);
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@1", "job-C"));
+        assertTrue(service.addMissingDependency(dep2, getTestUser(), "job-C@1", "job-C"));
+        service.checkDependencies();
+        assertEquals(1, service.getWaitingActions(dep2, getTestUser()).size());
+        sleep(1000);
+        service.checkDependencies();
+        assertTrue(service.getWaitingActions(dep2, getTestUser()).isEmpty());
+        assertEquals(1, getCounter("expired"));
+
+        // an action registered after its registration expired is registered for max.wait again
+        assertTrue(service.addMissingDependency(dep1, getTestUser(), "job-C@1", "job-C"));
+        service.checkDependencies();
+        assertEquals(1, service.getWaitingActions(dep1, getTestUser()).size());
+    }
+}
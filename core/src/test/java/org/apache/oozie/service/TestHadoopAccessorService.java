@@ -23,6 +23,7 @@ import org.apache.hadoop.mapred.JobClient;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.io.Text;
 import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentation;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -116,6 +117,73 @@ public class TestHadoopAccessorService extends XTestCase {
         }
     }
 
+    public void testJobClientPool() throws Exception {
+        // without pool every caller gets its own client
+        HadoopAccessorService has = Services.get().get(HadoopAccessorService.class);
+        JobClient jc1 = has.createJobClient(getTestUser(), createJobConf(has));
+        JobClient jc2 = has.createJobClient(getTestUser(), createJobConf(has));
+        assertEquals(2, getCounter("jobclient.created"));
+        jc1.close();
+        jc2.close();
+
+        Services.get().destroy();
+        setSystemProperty(HadoopAccessorService.JOB_CLIENT_POOL_IDLE_TIMEOUT, "300");
+        new Services().init();
+        has = Services.get().get(HadoopAccessorService.class);
+        jc1 = has.createJobClient(getTestUser(), createJobConf(has));
+        jc2 = has.createJobClient(getTestUser(), createJobConf(has));
+        assertEquals(1, getCounter("jobclient.created"));
+        assertEquals(1, getCounter("jobclient.pool.hits"));
+        assertEquals(2, getVariable("jobclient.in.use"));
+
+        // each caller releases the client once, however many times it closes its handle
+        jc1.close();
+        jc1.close();
+        assertEquals(1, getVariable("jobclient.in.use"));
+        jc2.close();
+        assertEquals(0, getVariable("jobclient.in.use"));
+        assertEquals(1, getVariable("jobclient.pooled"));
+
+        // clients are pooled per connection settings
+        JobConf conf = createJobConf(has);
+        conf.setInt("ipc.client.connect.max.retries", 3);
+        jc1 = has.createJobClient(getTestUser(), conf);
+        assertEquals(2, getCounter("jobclient.created"));
+        assertEquals(2, getVariable("jobclient.pooled"));
+        jc1.close();
+
+        // idle clients are closed
+        Services.get().destroy();
+        setSystemProperty(HadoopAccessorService.JOB_CLIENT_POOL_IDLE_TIMEOUT, "1");
+        new Services().init();
+        has = Services.get().get(HadoopAccessorService.class);
+        jc1 = has.createJobClient(getTestUser(), createJobConf(has));
+        jc1.close();
+        sleep(1100);
+        jc2 = has.createJobClient(getTestUser(), createJobConf(has));
+        assertEquals(2, getCounter("jobclient.created"));
+        assertEquals(1, getCounter("jobclient.closed"));
+        jc2.close();
+    }
+
+    private JobConf createJobConf(HadoopAccessorService has) {
+        JobConf conf = has.createJobConf(getJobTrackerUri());
+        conf.set("mapred.job.tracker", getJobTrackerUri());
+        conf.set("fs.default.name", getNameNodeUri());
+        return conf;
+    }
+
+    private int getVariable(String name) {
+        return (Integer) ((Instrumentation.Variable) Services.get().get(InstrumentationService.class).get()
+                .getVariables().get(HadoopAccessorService.INSTRUMENTATION_GROUP).get(name)).getValue();
+    }
+
+    private long getCounter(String name) {
+        Instrumentation.Element<Long> counter = Services.get().get(InstrumentationService.class).get().getCounters()
+                .get(HadoopAccessorService.INSTRUMENTATION_GROUP).get(name);
+        return (counter == null) ? 0 : counter.getValue();
+    }
+
     public void testGetMRDelegationTokenRenewer() throws Exception {
         HadoopAccessorService has = Services.get().get(HadoopAccessorService.class);
         JobConf jobConf = new JobConf(false);
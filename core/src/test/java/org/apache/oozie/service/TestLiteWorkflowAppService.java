@@ -23,8 +23,11 @@ import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.workflow.WorkflowApp;
 import org.apache.oozie.workflow.WorkflowException;
 import org.apache.oozie.workflow.lite.LiteWorkflowApp;
+import org.apache.oozie.workflow.lite.LiteWorkflowInstance;
 import org.apache.oozie.test.XTestCase;
 import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.WritableUtils;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.action.ActionExecutor;
 import org.apache.oozie.action.ActionExecutorException;
@@ -303,6 +306,74 @@ public class TestLiteWorkflowAppService extends XTestCase {
         }
     }
 
+    private long getCounter(String name) {
+        Instrumentation.Element<Long> counter = Services.get().get(InstrumentationService.class).get().getCounters()
+                .get(WorkflowAppService.INSTRUMENTATION_GROUP).get(name);
+        return (counter == null) ? 0 : counter.getValue();
+    }
+
+    private void writeWorkflow(String name) throws Exception {
+        Writer writer = new FileWriter(new File(getTestCaseDir(), "workflow.xml"));
+        writer.write("<workflow-app xmlns='uri:oozie:workflow:0.4' name='" + name + "'><parameters>"
+                + "<property><name>input</name></property><property><name>output</name><value>out</value></property>"
+                + "</parameters><start to='end'/><end name='end'/></workflow-app>");
+        writer.close();
+    }
+
+    public void testDefinitionCache() throws Exception {
+        Services services = new Services();
+        try {
+            services.init();
+            WorkflowAppService wps = services.get(WorkflowAppService.class);
+            writeWorkflow("cached-wf");
+
+            Configuration jobConf = new XConfiguration();
+            jobConf.set(OozieClient.APP_PATH, getTestCaseFileUri("workflow.xml"));
+            jobConf.set(OozieClient.USER_NAME, getTestUser());
+            jobConf.set("input", "in");
+            WorkflowApp app = wps.parseDef(jobConf);
+            assertEquals("cached-wf", app.getName());
+            assertEquals("out", jobConf.get("output"));
+
+            // the definition is not read nor parsed again, the parameters are checked for each job
+            Configuration otherConf = new XConfiguration();
+            otherConf.set(OozieClient.APP_PATH, getTestCaseFileUri("workflow.xml"));
+            otherConf.set(OozieClient.USER_NAME, getTestUser());
+            try {
+                wps.parseDef(otherConf);
+                fail();
+            }
+            catch (WorkflowException ex) {
+                assertEquals(ErrorCode.E0738, ex.getErrorCode());
+            }
+            otherConf.set("input", "in");
+            assertSame(app, wps.parseDef(otherConf));
+            assertEquals("out", otherConf.get("output"));
+            assertEquals(1, getCounter("definition.cache.misses"));
+            assertEquals(2, getCounter("definition.cache.hits"));
+            assertEquals(1, getCounter("app.cache.misses"));
+            assertEquals(2, getCounter("app.cache.hits"));
+
+            // the application is parsed again with another default configuration
+            Configuration configDefault = new XConfiguration();
+            configDefault.set("a", "A");
+            assertNotSame(app, wps.parseDef(jobConf, configDefault));
+
+            // the instances of the application share it once deserialized
+            byte[] array = WritableUtils.toByteArray(new LiteWorkflowInstance((LiteWorkflowApp) app, jobConf, "1"));
+            assertSame(WritableUtils.fromByteArray(array, LiteWorkflowInstance.class).getApp(),
+                    WritableUtils.fromByteArray(array, LiteWorkflowInstance.class).getApp());
+
+            // a modified definition is read and parsed again
+            writeWorkflow("modified-wf");
+            assertEquals("modified-wf", wps.parseDef(jobConf).getName());
+            assertEquals(2, getCounter("definition.cache.misses"));
+        }
+        finally {
+            services.destroy();
+        }
+    }
+
     public void testCreateprotoConf() throws Exception {
         Services services = new Services();
         try {
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import org.apache.oozie.dependency.hcat.TrieHCatDependencyCache;
+import org.apache.oozie.util.HCatURI;
+import org.junit.Test;
+
+public class TestPartitionDependencyManagerTrie extends TestPartitionDependencyManagerService {
+
+    private static final String SERVER = "hcat.server.com:5080";
+
+    private void setupServices() throws ServiceException {
+        Services.get().destroy();
+        services = super.setupServicesForHCatalog();
+        services.getConf().set(PartitionDependencyManagerService.CACHE_MANAGER_IMPL,
+                TrieHCatDependencyCache.class.getName());
+        services.init();
+    }
+
+    @Override
+    @Test
+    public void testPartitionDependency() throws Exception {
+        setupServices();
+        super.testPartitionDependency();
+    }
+
+    @Override
+    @Test
+    public void testMemoryUsageAndSpeed() throws Exception {
+        setupServices();
+        super.testMemoryUsageAndSpeed();
+    }
+
+    @Test
+    public void testPartialMatch() throws Exception {
+        setupServices();
+        PartitionDependencyManagerService pdms = Services.get().get(PartitionDependencyManagerService.class);
+        HCatURI day = new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=20120101");
+        HCatURI hour = new HCatURI("hcat://" + SERVER + "/mydb/mytbl/dt=20120101;hr=10");
+        HCatURI otherHour = new HCatURI("hcat://" + SERVER + "/mydb/mytbl/hr=11;dt=20120101");
+        pdms.addMissingDependency(day, "1");
+        pdms.addMissingDependency(hour, "2");
+        pdms.addMissingDependency(otherHour, "3");
+
+        pdms.partitionAvailable(SERVER, "mydb", "mytbl", getPartitionMap("dt=20120101;hr=10"));
+        assertNull(pdms.getWaitingActions(day));
+        assertNull(pdms.getWaitingActions(hour));
+        assertEquals(1, pdms.getWaitingActions(otherHour).size());
+        assertTrue(pdms.getAvailableDependencyURIs("1").contains(day.getURI().toString()));
+        assertTrue(pdms.getAvailableDependencyURIs("2").contains(hour.getURI().toString()));
+        assertNull(pdms.getAvailableDependencyURIs("3"));
+
+        // removing the last action of a partition removes the partition but not the partitions below it
+        pdms.addMissingDependency(day, "4");
+        assertTrue(pdms.removeMissingDependency(day, "4"));
+        assertNull(pdms.getWaitingActions(day));
+        assertEquals(1, pdms.getWaitingActions(otherHour).size());
+        assertFalse(pdms.removeMissingDependency(day, "4"));
+    }
+
+}
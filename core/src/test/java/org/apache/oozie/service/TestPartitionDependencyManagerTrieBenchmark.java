@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.oozie.dependency.hcat.EhcacheHCatDependencyCache;
+import org.apache.oozie.dependency.hcat.HCatDependencyCache;
+import org.apache.oozie.dependency.hcat.SimpleHCatDependencyCache;
+import org.apache.oozie.dependency.hcat.TrieHCatDependencyCache;
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.HCatURI;
+
+/**
+ * Matching benchmark of {@link TrieHCatDependencyCache}, excluded from the default test run, run it with
+ * <code>-Dtest=TestPartitionDependencyManagerTrieBenchmark</code>.
+ */
+public class TestPartitionDependencyManagerTrieBenchmark extends XTestCase {
+
+    private static final String SERVER = "hcat.server.com:5080";
+    private static final String[] KEYS = {"dt", "hr", "region", "country", "state", "city", "source", "type"};
+
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        services = new Services();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    /**
+     * Registers the same missing partitions in the simple, the Ehcache and the trie caches and prints the time each
+     * one takes to match the same partition notifications. The partitions use 128 different partition key patterns
+     * of the same table, most notifications do not match any missing partition.
+     */
+    public void testMatchingBenchmark() throws Exception {
+        int partitions = 20000;
+        int notifications = 20000;
+        HCatDependencyCache[] caches = {new SimpleHCatDependencyCache(), new EhcacheHCatDependencyCache(),
+                new TrieHCatDependencyCache()};
+        long[] times = new long[caches.length];
+        int[] matched = new int[caches.length];
+        for (int c = 0; c < caches.length; c++) {
+            HCatDependencyCache cache = caches[c];
+            cache.init(services.getConf());
+            Random random = new Random(1);
+            for (int i = 0; i < partitions; i++) {
+                StringBuilder partition = new StringBuilder("dt=").append(random.nextInt(10));
+                for (int k = 1; k < KEYS.length; k++) {
+                    // the pattern of the partition is given by the bits of i
+                    if ((i & (1 << (k - 1))) != 0) {
+                        partition.append(";").append(KEYS[k]).append("=").append(random.nextInt(10));
+                    }
+                }
+                cache.addMissingDependency(new HCatURI("hcat://" + SERVER + "/mydb/mytbl/" + partition), "" + i);
+            }
+            random = new Random(2);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < notifications; i++) {
+                Map<String, String> notification = new HashMap<String, String>();
+                for (String key : KEYS) {
+                    notification.put(key, "" + random.nextInt(10));
+                }
+                Collection<String> actions = cache.markDependencyAvailable(SERVER, "mydb", "mytbl", notification);
+                matched[c] += (actions == null) ? 0 : actions.size();
+            }
+            times[c] = System.currentTimeMillis() - start;
+            cache.destroy();
+        }
+        assertEquals(matched[0], matched[1]);
+        assertEquals(matched[0], matched[2]);
+        System.out.println("Matching benchmark, partitions=" + partitions + " notifications=" + notifications
+                + " matched=" + matched[0]);
+        for (int c = 0; c < caches.length; c++) {
+            System.out.println("  " + caches[c].getClass().getSimpleName() + " : " + times[c] + "ms, "
+                    + (notifications * 1000L / Math.max(1, times[c])) + " notifications/sec");
+        }
+    }
+}
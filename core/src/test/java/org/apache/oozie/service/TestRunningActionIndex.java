@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.oozie.test.XTestCase;
+
+public class TestRunningActionIndex extends XTestCase {
+
+    public void testUnknownRuntime() throws Exception {
+        RunningActionIndex index = new RunningActionIndex(1000, 10000);
+        long now = System.currentTimeMillis();
+        index.add("A@1", "app/node", now);
+        assertEquals(now + 1000, index.getNextCheckTime("A@1"));
+        assertTrue(index.getDueActions(now).isEmpty());
+        assertEquals(Arrays.asList("A@1"), index.getDueActions(now + 1000));
+        // the interval grows with the age of the action
+        assertEquals(now + 2000, index.getNextCheckTime("A@1"));
+        assertEquals(Arrays.asList("A@1"), index.getDueActions(now + 20000));
+        assertEquals(now + 25000, index.getNextCheckTime("A@1"));
+        assertEquals(Arrays.asList("A@1"), index.getDueActions(now + 60000));
+        assertEquals(now + 70000, index.getNextCheckTime("A@1"));
+    }
+
+    public void testExpectedRuntime() throws Exception {
+        RunningActionIndex index = new RunningActionIndex(1000, 10000);
+        long now = System.currentTimeMillis();
+        index.add("A@1", "app/node", now - 8000);
+        index.completed("A@1");
+        long expected = index.getExpectedRuntime("app/node");
+        assertTrue(expected >= 8000 && expected < 9000);
+        assertEquals(0, index.size());
+
+        // the action is checked when it is expected to complete
+        index.add("A@2", "app/node", now);
+        assertEquals(now + expected, index.getNextCheckTime("A@2"));
+        index.add("A@3", "app/other", now);
+        assertEquals(now + 1000, index.getNextCheckTime("A@3"));
+
+        // then less and less often
+        index.add("A@4", "app/node", now - 40000);
+        assertEquals(Arrays.asList("A@4"), index.getDueActions(now));
+        assertEquals(now + 10000, index.getNextCheckTime("A@4"));
+
+        // the runtimes are averaged
+        index.add("A@5", "app/node", now - 16000);
+        index.completed("A@5");
+        long average = index.getExpectedRuntime("app/node");
+        assertTrue(average >= (expected * 3 + 16000) / 4 && average < (expected * 3 + 17000) / 4);
+    }
+
+    public void testReconcileAndRemove() throws Exception {
+        RunningActionIndex index = new RunningActionIndex(1000, 10000);
+        long now = System.currentTimeMillis();
+        index.add("A@1", "app/node", now);
+        assertFalse(index.reconcile("A@1", now));
+        assertTrue(index.reconcile("A@2", now));
+        assertEquals(2, index.size());
+
+        // the runtime of a reconciled action is unknown
+        index.completed("A@2");
+        assertNull(index.getExpectedRuntime(null));
+        assertTrue(index.remove("A@1"));
+        assertFalse(index.remove("A@1"));
+        assertEquals(0, index.size());
+        assertEquals(Collections.emptyList(), index.getDueActions(now + 100000));
+    }
+}
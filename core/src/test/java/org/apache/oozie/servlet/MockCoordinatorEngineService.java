@@ -191,6 +191,17 @@ public class MockCoordinatorEngineService extends CoordinatorEngineService {
             return (CoordinatorJobBean) coordJobs.get(idx);
         }
 
+        @Override
+        public List<CoordinatorActionBean> getCoordActions(String jobId, String filter, int start, int length,
+                boolean desc) throws CoordinatorEngineException {
+            did = RestConstants.JOB_SHOW_INFO;
+            int idx = validateCoordinatorIdx(jobId);
+            List<CoordinatorActionBean> actions = ((CoordinatorJobBean) coordJobs.get(idx)).getActions();
+            int from = Math.min(start - 1, actions.size());
+            return new ArrayList<CoordinatorActionBean>(actions.subList(from, Math.min(from + length,
+                    actions.size())));
+        }
+
         @Override
         public String getDefinition(String jobId) throws BaseEngineException {
             did = RestConstants.JOB_SHOW_DEFINITION;
@@ -50,6 +50,7 @@ public class MockDagEngineService extends DagEngineService {
     public static final String USER = "user";
 
     public static final String LOG = "log";
+    public static final String NEXT_CURSOR = "next-cursor";
 
     public static Configuration submittedConf;
     public static String did = null;
@@ -203,6 +204,18 @@ public class MockDagEngineService extends DagEngineService {
             return new WorkflowsInfo((List) workflows, start, len, workflows.size());
         }
 
+        @Override
+        public WorkflowsInfo getJobs(String filter, int start, int len, String cursor, boolean count)
+                throws DagEngineException {
+            parseFilter(filter);
+            did = RestConstants.JOBS_FILTER_PARAM;
+            WorkflowsInfo info = new WorkflowsInfo((List) workflows, start, len, count ? workflows.size() : -1);
+            if (cursor != null) {
+                info.setNextCursor((cursor.length() == 0) ? NEXT_CURSOR : null);
+            }
+            return info;
+        }
+
         @Override
         public String getJobIdForExternalId(String externalId) throws DagEngineException {
             did = RestConstants.JOBS_EXTERNAL_ID_PARAM;
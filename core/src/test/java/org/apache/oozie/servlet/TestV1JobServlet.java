@@ -22,8 +22,10 @@ import org.apache.oozie.ErrorCode;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.rest.RestConstants;
 import org.apache.oozie.client.rest.JsonTags;
+import org.apache.oozie.service.Services;
 import org.apache.oozie.util.IOUtils;
 import org.apache.oozie.servlet.V1JobServlet;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
 
@@ -261,6 +263,42 @@ public class TestV1JobServlet extends DagServletTestCase {
         });
     }
 
+    public void testJobInfoStreaming() throws Exception {
+        runTest("/v1/job/*", V1JobServlet.class, IS_SECURITY_ENABLED, new Callable<Void>() {
+            public Void call() throws Exception {
+                Services.get().getConf().setInt(JsonRestServlet.STREAMING_PAGE_SIZE, 2);
+                MockCoordinatorEngineService.reset();
+                Map<String, String> params = new HashMap<String, String>();
+                params.put(RestConstants.JOB_SHOW_PARAM, RestConstants.JOB_SHOW_INFO);
+                params.put(RestConstants.OFFSET_PARAM, "1");
+                params.put(RestConstants.LEN_PARAM, "50");
+                URL url = createURL(MockCoordinatorEngineService.JOB_ID + 3, params);
+                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("GET");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                assertTrue(conn.getHeaderField("content-type").startsWith(RestConstants.JSON_CONTENT_TYPE));
+                JSONObject obj = (JSONObject) JSONValue.parse(new InputStreamReader(conn.getInputStream()));
+                assertEquals(MockCoordinatorEngineService.JOB_ID + 3, obj.get(JsonTags.COORDINATOR_JOB_ID));
+                JSONArray actions = (JSONArray) obj.get(JsonTags.COORDINATOR_ACTIONS);
+                assertEquals(3, actions.size());
+                for (int i = 0; i < 3; i++) {
+                    assertEquals(MockCoordinatorEngineService.ACTION_ID + i,
+                            ((JSONObject) actions.get(i)).get(JsonTags.COORDINATOR_ACTION_ID));
+                }
+
+                params.put(RestConstants.OFFSET_PARAM, "3");
+                url = createURL(MockCoordinatorEngineService.JOB_ID + 3, params);
+                conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("GET");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                obj = (JSONObject) JSONValue.parse(new InputStreamReader(conn.getInputStream()));
+                actions = (JSONArray) obj.get(JsonTags.COORDINATOR_ACTIONS);
+                assertEquals(1, actions.size());
+                return null;
+            }
+        });
+    }
+
     public void testCoordChange() throws Exception {
         runTest("/v1/job/*", V1JobServlet.class, IS_SECURITY_ENABLED, new Callable<Void>() {
             public Void call() throws Exception {
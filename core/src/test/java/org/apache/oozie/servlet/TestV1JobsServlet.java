@@ -169,6 +169,39 @@ public class TestV1JobsServlet extends DagServletTestCase {
         });
     }
 
+    public void testJobsByCursor() throws Exception {
+        runTest("/v1/jobs", V1JobsServlet.class, IS_SECURITY_ENABLED, new Callable<Void>() {
+            public Void call() throws Exception {
+                MockDagEngineService.reset();
+
+                Map<String, String> params = new HashMap<String, String>();
+                params.put(RestConstants.JOBS_FILTER_PARAM, "name=x");
+                params.put(RestConstants.CURSOR_PARAM, "");
+                params.put(RestConstants.NO_TOTAL_PARAM, "true");
+                URL url = createURL("", params);
+                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("GET");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                JSONObject json = (JSONObject) JSONValue.parse(new InputStreamReader(conn.getInputStream()));
+                JSONArray array = (JSONArray) json.get(JsonTags.WORKFLOWS_JOBS);
+                assertEquals(MockDagEngineService.INIT_WF_COUNT, array.size());
+                assertEquals(MockDagEngineService.NEXT_CURSOR, json.get(JsonTags.WORKFLOWS_NEXT_CURSOR));
+                assertEquals(-1L, json.get(JsonTags.WORKFLOWS_TOTAL));
+
+                params.put(RestConstants.CURSOR_PARAM, MockDagEngineService.NEXT_CURSOR);
+                params.remove(RestConstants.NO_TOTAL_PARAM);
+                url = createURL("", params);
+                conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("GET");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                json = (JSONObject) JSONValue.parse(new InputStreamReader(conn.getInputStream()));
+                assertNull(json.get(JsonTags.WORKFLOWS_NEXT_CURSOR));
+                assertEquals((long) MockDagEngineService.INIT_WF_COUNT, json.get(JsonTags.WORKFLOWS_TOTAL));
+                return null;
+            }
+        });
+    }
+
     public void testJobs() throws Exception {
         runTest("/v1/jobs", V1JobsServlet.class, IS_SECURITY_ENABLED, new Callable<Void>() {
             public Void call() throws Exception {
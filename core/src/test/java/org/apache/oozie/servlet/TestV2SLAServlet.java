@@ -108,6 +108,31 @@ public class TestV2SLAServlet extends DagServletTestCase {
         });
     }
 
+    public void testSLAStreaming() throws Exception {
+        runTest("/v2/sla", V2SLAServlet.class, IS_SECURITY_ENABLED, new Callable<Void>() {
+            public Void call() throws Exception {
+                Services.get().getConf().setInt(JsonRestServlet.STREAMING_PAGE_SIZE, 2);
+                final Date currentTime = new Date(System.currentTimeMillis());
+                final Date nominalTime = DateUtils.parseDateUTC("2012-06-03T14:00Z");
+                insertEntriesIntoSLASummaryTable(7, "3-", "-W", "2-C", nominalTime, "testapp-3",
+                        AppType.WORKFLOW_JOB, currentTime);
+
+                Map<String, String> queryParams = new HashMap<String, String>();
+                queryParams.put(RestConstants.JOBS_FILTER_PARAM, "app_name=testapp-3");
+                JSONArray array = getSLAJSONResponse(queryParams);
+                // Read by pages of 2
+                assertSLAJSONResponse(array, 1, 7, "3-", "-W", "2-C", nominalTime, "testapp-3", AppType.WORKFLOW_JOB,
+                        currentTime);
+
+                queryParams.put(RestConstants.LEN_PARAM, "5");
+                array = getSLAJSONResponse(queryParams);
+                assertSLAJSONResponse(array, 1, 5, "3-", "-W", "2-C", nominalTime, "testapp-3", AppType.WORKFLOW_JOB,
+                        currentTime);
+                return null;
+            }
+        });
+    }
+
     private JSONArray getSLAJSONResponse(Map<String, String> queryParams) throws Exception {
         URL url = createURL("", queryParams);
         HttpURLConnection conn = (HttpURLConnection) url.openConnection();
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.sla;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.apache.oozie.AppType;
+import org.apache.oozie.client.event.SLAEvent.EventStatus;
+import org.apache.oozie.client.event.SLAEvent.SLAStatus;
+
+public class TestCompactSLARegistration extends TestCase {
+
+    static SLARegistrationBean createRegistration(int i) {
+        SLARegistrationBean reg = new SLARegistrationBean();
+        reg.setId("0000" + i + "-000000000000001-oozie-wrkf-C@" + i);
+        reg.setParentId(new String("0000000-000000000000001-oozie-wrkf-C"));
+        reg.setAppName(new String("test-coord"));
+        reg.setAppType(AppType.COORDINATOR_ACTION);
+        reg.setUser(new String("dummyuser"));
+        reg.setNominalTime(new Date(i * 1000L));
+        reg.setExpectedStart(new Date(i * 1000L + 60000));
+        reg.setExpectedEnd(new Date(i * 1000L + 120000));
+        reg.setExpectedDuration(30000);
+        reg.setNotificationMsg(new String("notification of the test-coord actions"));
+        reg.setUpstreamApps(new String("upstream-coord"));
+        reg.setJobData(new String("job data of the test-coord actions"));
+        reg.setAlertEvents(new String("START_MISS,END_MISS"));
+        reg.setAlertContact(new String("alert-receiver@oozie.com"));
+        return reg;
+    }
+
+    public void testSlaConfigRoundTrip() {
+        SLARegistrationBean reg = new SLARegistrationBean();
+        reg.setId("0000000-000000000000001-oozie-wrkf-W");
+        reg.setAppType(AppType.WORKFLOW_JOB);
+        reg.getSlaConfigMap().put("max_duration", "30");
+        reg.setAlertEvents("START_MISS,END_MISS");
+        reg.setAlertContact("alert-receiver@oozie.com");
+        SLARegistrationBean copy = new CompactSLARegistration(reg).toBean();
+        assertEquals("30", copy.getSlaConfigMap().get("max_duration"));
+        assertEquals("START_MISS,END_MISS", copy.getAlertEvents());
+        assertEquals("alert-receiver@oozie.com", copy.getAlertContact());
+        assertEquals(reg.getSlaConfigMap(), copy.getSlaConfigMap());
+    }
+
+    public void testRoundTrip() {
+        SLARegistrationBean reg = createRegistration(1);
+        SLARegistrationBean copy = new CompactSLARegistration(reg).toBean();
+        assertEquals(reg.getId(), copy.getId());
+        assertEquals(reg.getParentId(), copy.getParentId());
+        assertEquals(reg.getAppName(), copy.getAppName());
+        assertEquals(reg.getAppType(), copy.getAppType());
+        assertEquals(reg.getUser(), copy.getUser());
+        assertEquals(reg.getNominalTime(), copy.getNominalTime());
+        assertEquals(reg.getExpectedStart(), copy.getExpectedStart());
+        assertEquals(reg.getExpectedEnd(), copy.getExpectedEnd());
+        assertEquals(reg.getExpectedDuration(), copy.getExpectedDuration());
+        assertEquals(reg.getNotificationMsg(), copy.getNotificationMsg());
+        assertEquals(reg.getUpstreamApps(), copy.getUpstreamApps());
+        assertEquals(reg.getJobData(), copy.getJobData());
+        assertEquals(reg.getAlertEvents(), copy.getAlertEvents());
+        assertEquals(reg.getAlertContact(), copy.getAlertContact());
+        assertNull(copy.getCreatedTime());
+
+        reg = new SLARegistrationBean();
+        reg.setId("0000000-000000000000001-oozie-wrkf-W");
+        reg.setAppType(AppType.WORKFLOW_JOB);
+        copy = new CompactSLARegistration(reg).toBean();
+        assertNull(copy.getExpectedStart());
+        assertNull(copy.getAlertContact());
+        assertEquals(-1, copy.getExpectedDuration());
+    }
+
+    public void testSharedStrings() {
+        CompactSLARegistration reg1 = new CompactSLARegistration(createRegistration(1));
+        CompactSLARegistration reg2 = new CompactSLARegistration(createRegistration(2));
+        assertSame(reg1.getParentId(), reg2.getParentId());
+        assertSame(reg1.getAppName(), reg2.getAppName());
+        assertSame(reg1.getUser(), reg2.getUser());
+        assertSame(reg1.getNotificationMsg(), reg2.getNotificationMsg());
+        assertSame(reg1.getJobData(), reg2.getJobData());
+        assertSame(reg1.getSlaConfig(), reg2.getSlaConfig());
+        assertNotSame(reg1.getId(), reg2.getId());
+    }
+
+    public void testCompactCalcStatus() {
+        SLARegistrationBean reg = createRegistration(1);
+        SLACalcStatus slaCalc = new SLACalcStatus(reg);
+        slaCalc.setSLAStatus(SLAStatus.IN_PROCESS);
+        slaCalc.setActualStart(new Date(5000));
+        slaCalc.compact();
+
+        // the getters read the compact registration, the bean is rehydrated for each call
+        assertEquals(reg.getId(), slaCalc.getId());
+        assertEquals(reg.getExpectedStart(), slaCalc.getExpectedStart());
+        assertEquals(reg.getExpectedEnd(), slaCalc.getExpectedEnd());
+        assertEquals(reg.getAlertContact(), slaCalc.getAlertContact());
+        assertEquals(AppType.COORDINATOR_ACTION, slaCalc.getAppType());
+        assertEquals(new Date(5000), slaCalc.getActualStart());
+        assertNull(slaCalc.getActualEnd());
+        assertNotSame(slaCalc.getSLARegistrationBean(), slaCalc.getSLARegistrationBean());
+
+        // the events emitted are copies holding a full bean
+        slaCalc.setEventStatus(EventStatus.START_MET);
+        SLACalcStatus event = new SLACalcStatus(slaCalc);
+        assertSame(event.getSLARegistrationBean(), event.getSLARegistrationBean());
+        assertEquals(reg.getNotificationMsg(), event.getSLARegistrationBean().getNotificationMsg());
+        assertEquals(EventStatus.START_MET, event.getEventStatus());
+        assertEquals(new Date(5000), event.getActualStart());
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.sla;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Heap benchmark of {@link CompactSLARegistration}, excluded from the default test run, run it with
+ * <code>-Dtest=TestCompactSLARegistrationBenchmark</code>.
+ */
+public class TestCompactSLARegistrationBenchmark extends TestCase {
+
+    /**
+     * Tracks registrations of coordinator actions in full and compact form and prints the heap used by each.
+     */
+    public void testHeapBenchmark() {
+        int count = 100000;
+        long full = measureHeap(count, false);
+        long compact = measureHeap(count, true);
+        System.out.println("SLA registration heap benchmark, registrations=" + count);
+        System.out.println("  full    : " + (full / count) + " bytes/registration");
+        System.out.println("  compact : " + (compact / count) + " bytes/registration");
+    }
+
+    private long measureHeap(int count, boolean compact) {
+        long before = usedHeap();
+        List<SLACalcStatus> statuses = new ArrayList<SLACalcStatus>(count);
+        for (int i = 0; i < count; i++) {
+            SLACalcStatus slaCalc = new SLACalcStatus(TestCompactSLARegistration.createRegistration(i));
+            slaCalc.setJobStatus("RUNNING");
+            if (compact) {
+                slaCalc.compact();
+            }
+            statuses.add(slaCalc);
+        }
+        long used = usedHeap() - before;
+        assertEquals(count, statuses.size());
+        return used;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.sla;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+public class TestSLADeadlineIndex extends TestCase {
+
+    public void testSchedule() {
+        SLADeadlineIndex index = new SLADeadlineIndex();
+        index.schedule("job1", 300);
+        index.schedule("job2", 100);
+        index.schedule("job3", 200);
+        index.schedule("job4", Long.MIN_VALUE);
+        index.schedule("job5", Long.MAX_VALUE);
+        assertEquals(4, index.size());
+        assertNull(index.getDeadline("job5"));
+
+        // the jobs whose deadline passed are returned by deadline and removed
+        assertEquals(Arrays.asList("job4"), index.pollDue(100));
+        assertEquals(Arrays.asList("job2", "job3"), index.pollDue(250));
+        assertEquals(Collections.<String>emptyList(), index.pollDue(250));
+        assertEquals(1, index.size());
+        assertEquals(Long.valueOf(300), index.getDeadline("job1"));
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.pollDue(Long.MAX_VALUE).isEmpty());
+    }
+
+    public void testRescheduleAndRemove() {
+        SLADeadlineIndex index = new SLADeadlineIndex();
+        index.schedule("job1", 100);
+        index.schedule("job2", 100);
+        index.schedule("job3", 100);
+
+        // previous deadlines are ignored
+        index.schedule("job1", 500);
+        index.schedule("job2", 100);
+        index.schedule("job3", Long.MAX_VALUE);
+        assertEquals(Arrays.asList("job2"), index.pollDue(200));
+        index.remove("job1");
+        assertTrue(index.pollDue(1000).isEmpty());
+
+        // a job can be rescheduled back to a previous deadline
+        index.schedule("job1", 100);
+        index.schedule("job1", 500);
+        index.schedule("job1", 100);
+        assertEquals(Arrays.asList("job1"), index.pollDue(1000));
+        assertTrue(index.pollDue(1000).isEmpty());
+    }
+
+    public void testCompaction() {
+        SLADeadlineIndex index = new SLADeadlineIndex();
+        for (int i = 0; i < 10000; i++) {
+            index.schedule("job" + (i % 10), i);
+        }
+        assertEquals(10, index.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Long.valueOf(9990 + i), index.getDeadline("job" + i));
+        }
+        assertEquals(10, index.pollDue(10000).size());
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.sla;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Periodic check benchmark of {@link SLADeadlineIndex}, excluded from the default test run, run it with
+ * <code>-Dtest=TestSLADeadlineIndexBenchmark</code>.
+ */
+public class TestSLADeadlineIndexBenchmark extends TestCase {
+
+    /**
+     * Registers a million jobs with deadlines spread over a day and compares the time to find the due jobs at each
+     * tick with the index and by walking all the jobs, as done before the index.
+     */
+    public void testDeadlineIndexBenchmark() {
+        int jobs = 1000000;
+        int ticks = 100;
+        long interval = 30 * 1000;
+        long day = 24 * 3600 * 1000L;
+
+        Random random = new Random(0);
+        SLADeadlineIndex index = new SLADeadlineIndex();
+        Map<String, Long> deadlines = new HashMap<String, Long>();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < jobs; i++) {
+            String jobId = "0000" + i + "-oozie-W";
+            long deadline = (long) (random.nextDouble() * day);
+            index.schedule(jobId, deadline);
+            deadlines.put(jobId, deadline);
+        }
+        long scheduleTime = System.currentTimeMillis() - start;
+
+        long indexDue = 0;
+        start = System.currentTimeMillis();
+        for (int tick = 1; tick <= ticks; tick++) {
+            indexDue += index.pollDue(tick * interval).size();
+        }
+        long indexTime = System.currentTimeMillis() - start;
+
+        long scanDue = 0;
+        long visited = 0;
+        start = System.currentTimeMillis();
+        for (int tick = 1; tick <= ticks; tick++) {
+            for (Map.Entry<String, Long> entry : deadlines.entrySet()) {
+                visited++;
+                if (entry.getValue() < tick * interval) {
+                    scanDue++;
+                    entry.setValue(Long.MAX_VALUE);
+                }
+            }
+        }
+        long scanTime = System.currentTimeMillis() - start;
+        assertEquals(scanDue, indexDue);
+
+        System.out.println("SLA deadline benchmark, jobs=" + jobs + " ticks=" + ticks + " due=" + indexDue);
+        System.out.println("  schedule   : " + scheduleTime + "ms, "
+                + (jobs * 1000L / Math.max(1, scheduleTime)) + " jobs/sec");
+        System.out.println("  index tick : " + indexTime + "ms, " + indexDue + " jobs visited");
+        System.out.println("  full scan  : " + scanTime + "ms, " + visited + " jobs visited");
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import junit.framework.TestCase;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestConcurrencyLimiter extends TestCase {
+
+    public void testParseLimits() {
+        Map<String, Integer> limits = ConcurrencyLimiter.parseLimits(null);
+        assertTrue(limits.isEmpty());
+        limits = ConcurrencyLimiter.parseLimits(new String[]{" action.check = 10", "", "coord_action_start=20"});
+        assertEquals(2, limits.size());
+        assertEquals((Integer) 10, limits.get("action.check"));
+        assertEquals((Integer) 20, limits.get("coord_action_start"));
+        try {
+            ConcurrencyLimiter.parseLimits(new String[]{"action.check"});
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+        try {
+            ConcurrencyLimiter.parseLimits(new String[]{"action.check=x"});
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+    }
+
+    public void testLimits() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2,
+                ConcurrencyLimiter.parseLimits(new String[]{"a=1", "b=3"}));
+        assertEquals(1, limiter.getLimit("a"));
+        assertEquals(3, limiter.getLimit("b"));
+        assertEquals(2, limiter.getLimit("c"));
+
+        assertTrue(limiter.hasFreeSlot("a"));
+        assertTrue(limiter.acquire("a"));
+        assertFalse(limiter.hasFreeSlot("a"));
+        assertFalse(limiter.acquire("a"));
+        assertEquals(1, limiter.getActive("a"));
+
+        assertTrue(limiter.acquire("c"));
+        assertTrue(limiter.acquire("c"));
+        assertFalse(limiter.acquire("c"));
+        assertTrue(limiter.hasFreeSlot("b"));
+
+        limiter.release("a");
+        assertEquals(0, limiter.getActive("a"));
+        assertTrue(limiter.acquire("a"));
+
+        limiter.release("c");
+        limiter.release("c");
+        try {
+            limiter.release("c");
+            fail();
+        }
+        catch (IllegalStateException ex) {
+        }
+        assertEquals(0, limiter.getActive("c"));
+        try {
+            limiter.release("d");
+            fail();
+        }
+        catch (IllegalStateException ex) {
+        }
+    }
+
+    public void testInvalidLimits() {
+        try {
+            new ConcurrencyLimiter(0, null);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+        try {
+            new ConcurrencyLimiter(1, ConcurrencyLimiter.parseLimits(new String[]{"a=0"}));
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+    }
+
+    public void testConcurrency() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(3, null);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 1000; j++) {
+                            if (limiter.acquire("type")) {
+                                int current = active.incrementAndGet();
+                                int currentMax = max.get();
+                                while (current > currentMax && !max.compareAndSet(currentMax, current)) {
+                                    currentMax = max.get();
+                                }
+                                active.decrementAndGet();
+                                limiter.release("type");
+                            }
+                        }
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertTrue(max.get() <= 3);
+        assertEquals(0, limiter.getActive("type"));
+    }
+
+}
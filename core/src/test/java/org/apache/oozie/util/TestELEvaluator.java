@@ -198,4 +198,65 @@ public class TestELEvaluator extends XTestCase {
         assertNull(ELEvaluator.getCurrent());
     }
 
+    public void testParentContext() throws Exception {
+        ELEvaluator.Context parent = new ELEvaluator.Context();
+        parent.setVariable("a", "A");
+        parent.setVariable("b", "B");
+        parent.addFunction("a", "a", functionA);
+        ELEvaluator.Context support = new ELEvaluator.Context(parent);
+        support.setVariable("b", "BB");
+        support.addFunction("a", "d", functionD);
+
+        // the variables and functions of the context hide the ones of the parent
+        assertEquals("A", support.getVariable("a"));
+        assertEquals("BB", support.getVariable("b"));
+        assertEquals("BB", support.resolveVariable("b"));
+        assertEquals("B", parent.getVariable("b"));
+        assertNull(support.getVariable("c"));
+        assertEquals(functionA, support.resolveFunction("a", "a"));
+        assertEquals(functionD, support.resolveFunction("a", "d"));
+        assertNull(parent.resolveFunction("a", "d"));
+        try {
+            support.resolveVariable("c");
+            fail();
+        }
+        catch (ELException ex) {
+            //nop
+        }
+        ELEvaluator evaluator = new ELEvaluator(support);
+        assertEquals("a::BB", evaluator.evaluate("${a:d(a:a(), b)}", String.class));
+    }
+
+    public void testExpressionCache() throws Exception {
+        ELEvaluator.Context support = new ELEvaluator.Context();
+        support.addFunction("a", "d", functionD);
+        try {
+            for (int cacheSize : new int[]{2, 0}) {
+                ELEvaluator.setExpressionCacheSize(cacheSize);
+
+                // the parsed expressions are shared, the variables are the ones of each evaluation
+                for (int i = 0; i < 5; i++) {
+                    ELEvaluator evaluator = new ELEvaluator(new ELEvaluator.Context(support));
+                    evaluator.setVariable("x", i);
+                    assertEquals("x::" + i, evaluator.evaluate("${a:d('x', x)}", String.class));
+                    assertEquals(Integer.valueOf(i + 1), evaluator.evaluate("${x + 1}", Integer.class));
+                    assertEquals(Long.valueOf(i * 2), evaluator.evaluate("${x * 2}", Long.class));
+                    assertEquals(Boolean.TRUE, evaluator.evaluate("${x >= 0}", Boolean.class));
+                    assertEquals("value-" + i, evaluator.evaluate("value-${x}", String.class));
+                    assertEquals(Integer.valueOf(5), evaluator.evaluate("5", Integer.class));
+                    assertEquals("", evaluator.evaluate("", String.class));
+                }
+                try {
+                    new ELEvaluator(support).evaluate("${a:a(), a:a()}", String.class);
+                    fail("Evaluated bad expression");
+                }
+                catch (ELException ignore) {
+                }
+            }
+        }
+        finally {
+            ELEvaluator.setExpressionCacheSize(ELEvaluator.DEFAULT_EXPRESSION_CACHE_SIZE);
+        }
+    }
+
 }
@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.oozie.test.XTestCase;
+
+public class TestLogIndex extends XTestCase {
+
+    private static final String[] JOBS = {"0000001-130101000000000-oozie-W", "0000002-130101000000000-oozie-W",
+            "0000003-130101000000000-oozie-C"};
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        XLogStreamer.Filter.reset();
+        XLogStreamer.Filter.defineParameter("USER");
+        XLogStreamer.Filter.defineParameter("GROUP");
+        XLogStreamer.Filter.defineParameter("TOKEN");
+        XLogStreamer.Filter.defineParameter("APP");
+        XLogStreamer.Filter.defineParameter("JOB");
+        XLogStreamer.Filter.defineParameter("ACTION");
+    }
+
+    // job 0 logs all along, job 1 only at the beginning, job 2 only at the end, some messages are multi-line
+    private static String createLog() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            String job = (i % 2 == 0) ? JOBS[0] : (i < 50) ? JOBS[1] : (i >= 250) ? JOBS[2] : "-";
+            sb.append(String.format("2013-01-01 10:%02d:%02d,000  INFO Test:1 - USER[test] GROUP[-] TOKEN[-] APP[app] "
+                    + "JOB[%s] ACTION[-] message %d\n", i / 60, i % 60, job, i));
+            if (i % 7 == 0) {
+                sb.append("java.lang.Exception: line ").append(i).append("\n\tat Test.test(Test.java:1)\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        OutputStream os = new FileOutputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            os = new GZIPOutputStream(os);
+        }
+        os.write(content.getBytes());
+        os.close();
+    }
+
+    private static String streamLog(String dir, String jobId) throws IOException {
+        XLogStreamer.Filter filter = new XLogStreamer.Filter();
+        filter.setParameter("JOB", jobId);
+        StringWriter sw = new StringWriter();
+        new XLogStreamer(filter, dir, "oozie.log", 3600).streamLog(sw, new Date(System.currentTimeMillis() - 3600000),
+                new Date(), 4096);
+        return sw.toString();
+    }
+
+    public void testRanges() throws Exception {
+        File file = new File(getTestCaseDir(), "oozie.log-2013-01-01-10");
+        String log = createLog();
+        write(file, log);
+        LogIndex index = LogIndex.build(file, 1024);
+        assertTrue(index.getBlockCount() > 10);
+
+        List<long[]> ranges = index.getRanges(JOBS[0]);
+        assertEquals(1, ranges.size());
+        assertEquals(0, ranges.get(0)[0]);
+        assertTrue(ranges.get(0)[1] > log.length() / 2);
+
+        ranges = index.getRanges(JOBS[1]);
+        assertEquals(1, ranges.size());
+        assertEquals(0, ranges.get(0)[0]);
+        assertTrue(ranges.get(0)[1] < log.length() / 2);
+
+        ranges = index.getRanges(JOBS[2]);
+        assertEquals(1, ranges.size());
+        assertTrue(ranges.get(0)[0] > log.length() / 2);
+        assertEquals(log.length(), ranges.get(0)[0] + ranges.get(0)[1]);
+        // blocks start at the beginning of a message
+        assertTrue(log.substring((int) ranges.get(0)[0]).startsWith("2013-01-01 10:"));
+
+        assertTrue(index.getRanges("0000004-130101000000000-oozie-W").isEmpty());
+    }
+
+    public void testReadWrite() throws Exception {
+        File file = new File(getTestCaseDir(), "oozie.log-2013-01-01-10");
+        write(file, createLog());
+        assertNull(LogIndex.read(file));
+        LogIndex index = LogIndex.build(file, 1024);
+        index.write(file);
+        assertTrue(LogIndex.getIndexFile(file).exists());
+        assertTrue(LogIndex.getIndexFile(file).getName().startsWith("."));
+
+        LogIndex read = LogIndex.read(file);
+        assertNotNull(read);
+        assertEquals(index.getBlockCount(), read.getBlockCount());
+        for (String job : JOBS) {
+            List<long[]> expected = index.getRanges(job);
+            List<long[]> actual = read.getRanges(job);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i)[0], actual.get(i)[0]);
+                assertEquals(expected.get(i)[1], actual.get(i)[1]);
+            }
+        }
+
+        // the log file changed since it was indexed
+        FileWriter fw = new FileWriter(file, true);
+        fw.write("2013-01-01 11:00:00,000  INFO Test:1 - more\n");
+        fw.close();
+        assertNull(LogIndex.read(file));
+    }
+
+    public void testStreamLogWithIndex() throws Exception {
+        String hour = new SimpleDateFormat("yyyy-MM-dd-HH").format(new Date());
+        File plainDir = new File(getTestCaseDir(), "plain");
+        File gzDir = new File(getTestCaseDir(), "gz");
+        assertTrue(plainDir.mkdir() && gzDir.mkdir());
+        File plain = new File(plainDir, "oozie.log.1");
+        File gz = new File(gzDir, "oozie.log-" + hour + ".gz");
+        write(plain, createLog());
+        write(gz, createLog());
+
+        String[] expected = new String[JOBS.length];
+        for (int i = 0; i < JOBS.length; i++) {
+            expected[i] = streamLog(plainDir.getPath(), JOBS[i]);
+            assertTrue(expected[i].contains("JOB[" + JOBS[i] + "]"));
+            assertEquals(expected[i], streamLog(gzDir.getPath(), JOBS[i]));
+        }
+
+        LogIndex.build(plain, 512).write(plain);
+        LogIndex.build(gz, 512).write(gz);
+        for (int i = 0; i < JOBS.length; i++) {
+            assertEquals(expected[i], streamLog(plainDir.getPath(), JOBS[i]));
+            assertEquals(expected[i], streamLog(gzDir.getPath(), JOBS[i]));
+        }
+        assertEquals("", streamLog(plainDir.getPath(), "0000004-130101000000000-oozie-W"));
+        assertEquals("", streamLog(gzDir.getPath(), "0000004-130101000000000-oozie-W"));
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.oozie.util;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import org.apache.commons.logging.LogFactory;
@@ -130,6 +131,71 @@ public class TestOozieRollingPolicy extends XTestCase {
                    f7.exists() && f8.exists());
     }
     
+    public void testIndexingRolledFiles() throws Exception {
+        String oozieLogPath = getTestCaseDir();
+        String oozieLogName = "oozie.log";
+        final XLogService xls = new MockXLogService(oozieLogPath, oozieLogName);
+        OozieRollingPolicy orp = new OozieRollingPolicy() {
+
+            @Override
+            XLogService getXLogService() {
+                return xls;
+            }
+
+        };
+        orp.setIndexBlockSize(1024);
+
+        String line = "2013-01-01 10:00:00,000  INFO Test:1 - USER[test] GROUP[-] TOKEN[-] APP[app] JOB[1-W] ACTION[-] msg\n";
+        File active = new File(oozieLogPath, oozieLogName);
+        FileWriter fw = new FileWriter(active);
+        fw.write(line);
+        fw.close();
+        Calendar cal = new GregorianCalendar();
+        cal.add(Calendar.HOUR_OF_DAY, -1);
+        final File older = new File(oozieLogPath, oozieLogName + formatDateForFilename(cal));
+        fw = new FileWriter(older);
+        fw.write(line);
+        fw.close();
+        older.setLastModified(cal.getTimeInMillis());
+        cal.add(Calendar.HOUR_OF_DAY, 1);
+        File rolled = new File(oozieLogPath, oozieLogName + formatDateForFilename(cal));
+        fw = new FileWriter(rolled);
+        fw.write(line);
+        fw.close();
+        File other = new File(oozieLogPath, "blah.txt");
+        other.createNewFile();
+
+        // a rollover only indexes the file that was just rolled
+        orp.indexLatestRolledFile();
+        assertFalse(LogIndex.getIndexFile(active).exists());
+        assertTrue(LogIndex.getIndexFile(rolled).exists());
+        assertFalse(LogIndex.getIndexFile(older).exists());
+        assertFalse(LogIndex.getIndexFile(other).exists());
+        assertEquals(1, LogIndex.read(rolled).getRanges("1-W").size());
+
+        // the backlog indexes the others
+        orp.indexRolledFiles();
+        assertFalse(LogIndex.getIndexFile(active).exists());
+        assertTrue(LogIndex.getIndexFile(older).exists());
+        assertFalse(LogIndex.getIndexFile(other).exists());
+        assertEquals(1, LogIndex.read(older).getRanges("1-W").size());
+
+        // the index is deleted along with its log file
+        orp.setMaxHistory(0);
+        orp.isTriggeringEvent(null, null, null, 0);
+        final File index = LogIndex.getIndexFile(rolled);
+        waitFor(60 * 1000, new Predicate() {
+            @Override
+            public boolean evaluate() throws Exception {
+                return !index.exists() && !LogIndex.getIndexFile(older).exists();
+            }
+        });
+        assertFalse(rolled.exists());
+        assertFalse(index.exists());
+        assertFalse(older.exists());
+        assertFalse(LogIndex.getIndexFile(older).exists());
+    }
+
     private String formatDateForFilename(Calendar cal) {
         int year = cal.get(Calendar.YEAR);
         int month = cal.get(Calendar.MONTH) + 1;
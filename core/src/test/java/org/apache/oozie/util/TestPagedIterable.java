@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import junit.framework.TestCase;
+
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.XException;
+
+public class TestPagedIterable extends TestCase {
+
+    private static class Numbers extends PagedIterable<Integer> {
+        private final int count;
+        private final List<String> pages = new ArrayList<String>();
+
+        Numbers(int count, int start, int len, int pageSize) {
+            super(start, len, pageSize);
+            this.count = count;
+        }
+
+        @Override
+        protected List<Integer> getPage(int start, int len) throws XException {
+            pages.add(start + ":" + len);
+            List<Integer> page = new ArrayList<Integer>();
+            for (int i = start; i < start + len && i <= count; i++) {
+                page.add(i);
+            }
+            return page;
+        }
+    }
+
+    private static List<Integer> toList(Iterable<Integer> iterable) {
+        List<Integer> list = new ArrayList<Integer>();
+        for (Integer i : iterable) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    public void testPages() {
+        Numbers numbers = new Numbers(10, 1, 100, 4);
+        List<Integer> list = toList(numbers);
+        assertEquals(10, list.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, list.get(i).intValue());
+        }
+        assertEquals("[1:4, 5:4, 9:4]", numbers.pages.toString());
+    }
+
+    public void testRange() {
+        Numbers numbers = new Numbers(10, 3, 5, 2);
+        assertEquals("[3, 4, 5, 6, 7]", toList(numbers).toString());
+        assertEquals("[3:2, 5:2, 7:1]", numbers.pages.toString());
+    }
+
+    public void testExactPages() {
+        Numbers numbers = new Numbers(8, 1, 100, 4);
+        assertEquals(8, toList(numbers).size());
+        assertEquals("[1:4, 5:4, 9:4]", numbers.pages.toString());
+    }
+
+    public void testEmpty() {
+        Numbers numbers = new Numbers(0, 1, 100, 4);
+        Iterator<Integer> it = numbers.iterator();
+        assertFalse(it.hasNext());
+        try {
+            it.next();
+            fail();
+        }
+        catch (NoSuchElementException ex) {
+        }
+        assertEquals(0, toList(new Numbers(10, 1, 0, 4)).size());
+    }
+
+    public void testLazy() {
+        Numbers numbers = new Numbers(10, 1, 100, 4);
+        Iterator<Integer> it = numbers.iterator();
+        assertEquals(0, numbers.pages.size());
+        it.next();
+        assertEquals(1, numbers.pages.size());
+    }
+
+    public void testInvalidPageSize() {
+        try {
+            new Numbers(10, 1, 100, 0);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+    }
+
+    public void testPageError() {
+        final XException error = new XException(ErrorCode.E0603, "failed");
+        PagedIterable<Integer> failing = new PagedIterable<Integer>(1, 10, 5) {
+            @Override
+            protected List<Integer> getPage(int start, int len) throws XException {
+                throw error;
+            }
+        };
+        try {
+            failing.iterator().hasNext();
+            fail();
+        }
+        catch (PagedIterable.PageException ex) {
+            assertSame(error, ex.getCause());
+        }
+        try {
+            failing.prefetch();
+            fail();
+        }
+        catch (XException ex) {
+            assertSame(error, ex);
+        }
+    }
+
+    public void testPrefetch() throws Exception {
+        Numbers numbers = new Numbers(10, 3, 5, 2);
+        assertSame(numbers, numbers.prefetch());
+        assertEquals("[3:2]", numbers.pages.toString());
+        // the first page is not read again by the iterator
+        assertEquals("[3, 4, 5, 6, 7]", toList(numbers).toString());
+        assertEquals("[3:2, 5:2, 7:1]", numbers.pages.toString());
+
+        numbers = new Numbers(1, 1, 100, 4);
+        numbers.prefetch();
+        assertEquals("[1]", toList(numbers).toString());
+        assertEquals("[1:4]", numbers.pages.toString());
+
+        numbers = new Numbers(10, 1, 0, 4);
+        numbers.prefetch();
+        assertEquals(0, numbers.pages.size());
+        assertEquals(0, toList(numbers).size());
+    }
+}
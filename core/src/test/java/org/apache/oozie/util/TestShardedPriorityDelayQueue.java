@@ -0,0 +1,331 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
+
+public class TestShardedPriorityDelayQueue extends TestCase {
+
+    public void testInvalidArguments() {
+        try {
+            new ShardedPriorityDelayQueue<Integer>(0, 1, 1000, TimeUnit.MILLISECONDS, -1);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+        try {
+            new ShardedPriorityDelayQueue<Integer>(1, 0, 1000, TimeUnit.MILLISECONDS, -1);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+        try {
+            new ShardedPriorityDelayQueue<Integer>(1, 1, 1000, TimeUnit.MILLISECONDS, 0);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+        try {
+            new ShardedPriorityDelayQueue<Integer>(1, 1, 1000, TimeUnit.MILLISECONDS, -2);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+        }
+    }
+
+    public void testBoundUnboundQueueSize() {
+        ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(1, 4, 1000,
+                TimeUnit.MILLISECONDS, -1);
+        assertEquals(1, q.getPriorities());
+        assertEquals(4, q.getShards());
+        assertEquals(-1, q.getMaxSize());
+        assertEquals(1000, q.getMaxWait(TimeUnit.MILLISECONDS));
+        assertEquals(0, q.size());
+        assertTrue(q.offer(new QueueElement<Integer>(1)));
+        assertTrue(q.offer(new QueueElement<Integer>(1)));
+        assertTrue(q.offer(new QueueElement<Integer>(1)));
+        assertEquals(3, q.size());
+
+        q = new ShardedPriorityDelayQueue<Integer>(1, 4, 1000, TimeUnit.MILLISECONDS, 1);
+        assertEquals(1, q.getMaxSize());
+        assertTrue(q.offer(new QueueElement<Integer>(1)));
+        assertEquals(1, q.size());
+        assertFalse(q.offer(new QueueElement<Integer>(1)));
+        assertEquals(1, q.size());
+        assertTrue(q.offer(new QueueElement<Integer>(1), true));
+        assertEquals(2, q.size());
+        assertNotNull(q.poll());
+        assertNotNull(q.poll());
+        assertEquals(0, q.size());
+        assertTrue(q.offer(new QueueElement<Integer>(1)));
+        assertEquals(1, q.size());
+    }
+
+    public void testElementAlreadyInQueue() {
+        ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(1, 2, 1000,
+                TimeUnit.MILLISECONDS, -1);
+        QueueElement<Integer> e = new QueueElement<Integer>(1);
+        assertTrue(q.offer(e));
+        try {
+            q.offer(e);
+            fail();
+        }
+        catch (IllegalStateException ex) {
+        }
+        assertEquals(e, q.poll());
+        assertTrue(q.offer(e));
+    }
+
+    public void testPoll() throws Exception {
+        ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(3, 4, 500,
+                TimeUnit.MILLISECONDS, -1);
+
+        q.offer(new QueueElement<Integer>(1));
+        assertEquals((Integer) 1, q.poll().getElement());
+        assertEquals(0, q.size());
+
+        q.offer(new QueueElement<Integer>(2, 0, 10, TimeUnit.MILLISECONDS));
+        assertNull(q.poll());
+        Thread.sleep(11);
+        assertEquals((Integer) 2, q.poll().getElement());
+        assertEquals(0, q.size());
+
+        q.offer(new QueueElement<Integer>(10, 0, 0, TimeUnit.MILLISECONDS));
+        q.offer(new QueueElement<Integer>(30, 2, 0, TimeUnit.MILLISECONDS));
+        q.offer(new QueueElement<Integer>(20, 1, 0, TimeUnit.MILLISECONDS));
+
+        assertEquals((Integer) 30, q.poll().getElement());
+        assertEquals((Integer) 20, q.poll().getElement());
+        assertEquals((Integer) 10, q.poll().getElement());
+        assertEquals(0, q.size());
+
+        q.offer(new QueueElement<Integer>(10, 0, 100, TimeUnit.MILLISECONDS));
+        q.offer(new QueueElement<Integer>(20, 1, 0, TimeUnit.MILLISECONDS));
+        assertEquals((Integer) 20, q.poll().getElement());
+        assertNull(q.poll());
+        Thread.sleep(101);
+        assertEquals((Integer) 10, q.poll().getElement());
+        assertEquals(0, q.size());
+    }
+
+    public void testPeek() throws Exception {
+        ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(3, 4, 500,
+                TimeUnit.MILLISECONDS, -1);
+        assertNull(q.peek());
+
+        q.offer(new QueueElement<Integer>(10, 0, 0, TimeUnit.MILLISECONDS));
+        q.offer(new QueueElement<Integer>(30, 2, 0, TimeUnit.MILLISECONDS));
+        assertEquals((Integer) 30, q.peek().getElement());
+        assertNotNull(q.poll());
+        assertEquals((Integer) 10, q.peek().getElement());
+        assertNotNull(q.poll());
+
+        q.offer(new QueueElement<Integer>(30, 2, 200, TimeUnit.MILLISECONDS));
+        q.offer(new QueueElement<Integer>(10, 0, 100, TimeUnit.MILLISECONDS));
+        assertEquals((Integer) 10, q.peek().getElement());
+        assertEquals(2, q.size());
+    }
+
+    public void testAntiStarvation() throws Exception {
+        ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(3, 4, 500,
+                TimeUnit.MILLISECONDS, -1);
+        q.offer(new QueueElement<Integer>(1));
+        q.peek();
+        assertEquals(1, q.sizes()[0]);
+        Thread.sleep(600);
+        q.peek();
+        assertEquals(1, q.sizes()[1]);
+        Thread.sleep(600);
+        q.peek();
+        assertEquals(1, q.sizes()[2]);
+        assertEquals(1, q.size());
+        assertEquals(2, q.poll().getPriority());
+    }
+
+    public void testEligibleToPoll() throws Exception {
+        ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(1, 1, 500,
+                TimeUnit.MILLISECONDS, -1) {
+            @Override
+            protected boolean eligibleToPoll(QueueElement<?> element) {
+                return ((Integer) element.getElement()) != 1;
+            }
+        };
+        q.offer(new QueueElement<Integer>(1));
+        q.offer(new QueueElement<Integer>(2, 0, 1, TimeUnit.MILLISECONDS));
+        Thread.sleep(2);
+        assertEquals((Integer) 2, q.poll().getElement());
+        assertNull(q.poll());
+        assertEquals(1, q.size());
+    }
+
+    public void testIteratorAndClear() throws Exception {
+        ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(3, 4, 500,
+                TimeUnit.MILLISECONDS, -1);
+        q.offer(new QueueElement<Integer>(1, 1, 10, TimeUnit.MILLISECONDS));
+        q.offer(new QueueElement<Integer>(10, 0, 0, TimeUnit.MILLISECONDS));
+        q.offer(new QueueElement<Integer>(30, 2, 0, TimeUnit.MILLISECONDS));
+
+        Iterator<QueueElement<Integer>> it = q.iterator();
+        int size = 0;
+        while (it.hasNext()) {
+            it.next();
+            size++;
+        }
+        assertEquals(3, size);
+
+        List<QueueElement<Integer>> drained = new ArrayList<QueueElement<Integer>>();
+        assertEquals(2, q.drainTo(drained));
+        assertEquals(1, q.size());
+        q.clear();
+        assertEquals(0, q.size());
+        assertEquals(0, q.sizes()[1]);
+    }
+
+    public void testRemove() throws Exception {
+        ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(3, 4, 500,
+                TimeUnit.MILLISECONDS, -1);
+        QueueElement<Integer> e1 = new QueueElement<Integer>(1, 1, 0, TimeUnit.MILLISECONDS);
+        QueueElement<Integer> e2 = new QueueElement<Integer>(2, 2, 0, TimeUnit.MILLISECONDS);
+        QueueElement<Integer> e3 = new QueueElement<Integer>(3, 0, 0, TimeUnit.MILLISECONDS);
+        q.offer(e1);
+        q.offer(e2);
+        q.offer(e3);
+
+        assertTrue(q.remove(e2));
+        assertFalse(q.remove(e2));
+        assertEquals(2, q.size());
+        assertEquals(0, q.sizes()[2]);
+
+        // the iterator removes from the queue, not from its snapshot
+        Iterator<QueueElement<Integer>> it = q.iterator();
+        while (it.hasNext()) {
+            if (it.next() == e1) {
+                it.remove();
+            }
+        }
+        assertEquals(1, q.size());
+        assertSame(e3, q.poll());
+        assertNull(q.poll());
+
+        // removed elements can be queued again
+        assertTrue(q.offer(e2));
+        assertSame(e2, q.poll());
+    }
+
+    public void testTakeWaitsForOffer() throws Exception {
+        final ShardedPriorityDelayQueue<Integer> q = new ShardedPriorityDelayQueue<Integer>(3, 4, 500,
+                TimeUnit.MILLISECONDS, -1);
+        long start = System.currentTimeMillis();
+        assertNull(q.poll(50, TimeUnit.MILLISECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 50);
+
+        final List<Integer> taken = new ArrayList<Integer>();
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            public void run() {
+                try {
+                    waiting.countDown();
+                    taken.add(q.take().getElement());
+                }
+                catch (InterruptedException ex) {
+                }
+                finally {
+                    done.countDown();
+                }
+            }
+        }).start();
+        assertTrue(waiting.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(1, done.getCount());
+        q.offer(new QueueElement<Integer>(1, 1, 0, TimeUnit.MILLISECONDS));
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(1, (int) taken.get(0));
+
+        // a delayed element is returned once its delay expires
+        q.offer(new QueueElement<Integer>(2, 1, 100, TimeUnit.MILLISECONDS));
+        start = System.currentTimeMillis();
+        assertEquals((Integer) 2, q.poll(1, TimeUnit.SECONDS).getElement());
+        assertTrue(System.currentTimeMillis() - start >= 90);
+    }
+
+    public void testConcurrency() throws Exception {
+        final ShardedPriorityDelayQueue<String> queue = new ShardedPriorityDelayQueue<String>(5, 4, 100,
+                TimeUnit.MILLISECONDS, -1);
+        assertEquals(5 * 100, runProducersConsumers(queue, 5, 5, 100, 5));
+        assertEquals(0, queue.size());
+    }
+
+    static int runProducersConsumers(final BlockingQueue<QueueElement<String>> queue, int producers, int consumers,
+            final int elements, final int maxDelay) throws Exception {
+        final int total = producers * elements;
+        final AtomicInteger consumed = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(producers + consumers);
+        for (int i = 0; i < producers; i++) {
+            final int producer = i;
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < elements; j++) {
+                            queue.offer(new QueueElement<String>(producer + " - " + j, j % 3,
+                                    (maxDelay == 0) ? 0 : (int) (Math.random() * maxDelay), TimeUnit.MILLISECONDS));
+                        }
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        for (int i = 0; i < consumers; i++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        while (consumed.get() < total) {
+                            if (queue.poll() != null) {
+                                consumed.incrementAndGet();
+                            }
+                            else {
+                                Thread.sleep(1);
+                            }
+                        }
+                    }
+                    catch (InterruptedException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        return consumed.get();
+    }
+
+}
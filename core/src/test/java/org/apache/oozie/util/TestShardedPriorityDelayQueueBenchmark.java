@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark of {@link ShardedPriorityDelayQueue}, excluded from the default test run, run it with
+ * <code>-Dtest=TestShardedPriorityDelayQueueBenchmark</code>.
+ */
+public class TestShardedPriorityDelayQueueBenchmark extends TestCase {
+
+    /**
+     * Queues and consumes the same load through a {@link PriorityDelayQueue} and a {@link ShardedPriorityDelayQueue}
+     * with many producer and consumer threads and prints the throughput of each.
+     */
+    public void testContentionBenchmark() throws Exception {
+        int producers = 16;
+        int consumers = 64;
+        int elements = 5000;
+
+        PriorityDelayQueue<String> single = new PriorityDelayQueue<String>(3, 30000, TimeUnit.MILLISECONDS, -1);
+        long start = System.currentTimeMillis();
+        assertEquals(producers * elements,
+                TestShardedPriorityDelayQueue.runProducersConsumers(single, producers, consumers, elements, 0));
+        long singleTime = System.currentTimeMillis() - start;
+
+        ShardedPriorityDelayQueue<String> sharded = new ShardedPriorityDelayQueue<String>(3, 8, 30000,
+                TimeUnit.MILLISECONDS, -1);
+        start = System.currentTimeMillis();
+        assertEquals(producers * elements,
+                TestShardedPriorityDelayQueue.runProducersConsumers(sharded, producers, consumers, elements, 0));
+        long shardedTime = System.currentTimeMillis() - start;
+
+        System.out.println("Contention benchmark, producers=" + producers + " consumers=" + consumers + " elements="
+                + (producers * elements));
+        System.out.println("  PriorityDelayQueue        : " + singleTime + "ms, "
+                + (producers * elements * 1000L / Math.max(1, singleTime)) + " elements/sec");
+        System.out.println("  ShardedPriorityDelayQueue : " + shardedTime + "ms, "
+                + (producers * elements * 1000L / Math.max(1, shardedTime)) + " elements/sec");
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.oozie.workflow.lite;
 
 
 import org.apache.commons.lang.RandomStringUtils;
+import org.apache.oozie.service.LiteWorkflowStoreService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.workflow.WorkflowException;
 import org.apache.oozie.workflow.WorkflowInstance;
@@ -27,6 +28,8 @@ import org.apache.oozie.util.WritableUtils;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.ErrorCode;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -776,6 +779,91 @@ public class TestLiteWorkflowLib extends XTestCase {
         assertEquals(value, job.getVar("a"));
     }
 
+    // start -> one (asynch) -> node-0 -> ... -> node-<nodes - 1> -> end
+    static LiteWorkflowApp createChainApp(int nodes) throws WorkflowException {
+        String actionConf = "<java><job-tracker>jt</job-tracker><name-node>nn</name-node><main-class>Main</main-class>"
+                + "<arg>" + RandomStringUtils.randomAlphanumeric(200) + "</arg></java>";
+        StringBuilder definition = new StringBuilder("<workflow-app name='wf'>");
+        for (int i = 0; i < nodes; i++) {
+            definition.append("<action name='node-").append(i).append("'>").append(actionConf).append("</action>");
+        }
+        definition.append("</workflow-app>");
+        LiteWorkflowApp def = new LiteWorkflowApp("wf", definition.toString(),
+            new StartNodeDef(TestControlNodeHandler.class, "one"))
+                .addNode(new NodeDef("one", null, AsynchNodeHandler.class, Arrays.asList(new String[]{"node-0"})));
+        for (int i = 0; i < nodes; i++) {
+            String to = (i == nodes - 1) ? "end" : "node-" + (i + 1);
+            def.addNode(new NodeDef("node-" + i, actionConf, SynchNodeHandler.class, Arrays.asList(new String[]{to})));
+        }
+        return def.addNode(new EndNodeDef("end", TestControlNodeHandler.class));
+    }
+
+    static LiteWorkflowInstance createChainJob(LiteWorkflowApp def, int nodes) throws WorkflowException {
+        XConfiguration conf = new XConfiguration();
+        for (int i = 0; i < nodes; i++) {
+            conf.set("property." + i, "value." + i);
+        }
+        LiteWorkflowInstance job = new LiteWorkflowInstance(def, conf, "0000001-140101000000000-oozie-W");
+        job.setVar("a", "A");
+        for (int i = 0; i < nodes; i++) {
+            job.setVar("node-" + i + WorkflowInstance.NODE_VAR_SEPARATOR + "transition.to", "node-" + (i + 1));
+            job.setVar("node-" + i + WorkflowInstance.NODE_VAR_SEPARATOR + "signal.value", "OK");
+        }
+        return job;
+    }
+
+    public void testJobPersistanceDataVersions() throws WorkflowException {
+        LiteWorkflowApp def = createChainApp(20);
+        LiteWorkflowInstance job = createChainJob(def, 20);
+        job.start();
+        assertEquals(WorkflowInstance.Status.RUNNING, job.getStatus());
+
+        // the original encoding is the default, the compact one is opt-in, both encodings are read
+        byte[] original = WritableUtils.toByteArray(job);
+        services.getConf().set(LiteWorkflowStoreService.CONF_INSTANCE_DATA_VERSION,
+                LiteWorkflowStoreService.INSTANCE_DATA_VERSION_2);
+        byte[] compact = WritableUtils.toByteArray(job);
+        assertTrue(compact.length < original.length);
+        for (byte[] array : new byte[][]{compact, original}) {
+            LiteWorkflowInstance read = WritableUtils.fromByteArray(array, LiteWorkflowInstance.class);
+            assertEquals("0000001-140101000000000-oozie-W", read.getId());
+            assertEquals(WorkflowInstance.Status.RUNNING, read.getStatus());
+            assertEquals("value.19", read.getConf().get("property.19"));
+            assertEquals(def.getDefinition(), read.getApp().getDefinition());
+            assertEquals(def.getNodeDefs().size(), ((LiteWorkflowApp) read.getApp()).getNodeDefs().size());
+            assertEquals("A", read.getVar("a"));
+            assertEquals("node-20", read.getVar("node-19" + WorkflowInstance.NODE_VAR_SEPARATOR + "transition.to"));
+            assertEquals("OK", read.getVar("node-0" + WorkflowInstance.NODE_VAR_SEPARATOR + "signal.value"));
+            read.signal("/", "");
+            assertEquals(WorkflowInstance.Status.SUCCEEDED, read.getStatus());
+        }
+    }
+
+    public void testJobPersistanceCompactSize() throws Exception {
+        int nodes = 200;
+        LiteWorkflowApp def = createChainApp(nodes);
+        LiteWorkflowInstance job = createChainJob(def, nodes);
+        job.start();
+        byte[] original = WritableUtils.toByteArray(job);
+        services.getConf().set(LiteWorkflowStoreService.CONF_INSTANCE_DATA_VERSION,
+                LiteWorkflowStoreService.INSTANCE_DATA_VERSION_2);
+        byte[] compact = WritableUtils.toByteArray(job);
+
+        // the definition and configuration repeat a lot, the compact encoding is a fraction of the original one
+        assertTrue(compact.length * 4 < original.length);
+
+        // a job read and written back stays compact
+        LiteWorkflowInstance read = WritableUtils.fromByteArray(compact, LiteWorkflowInstance.class);
+        byte[] rewritten = WritableUtils.toByteArray(read);
+        assertEquals(LiteWorkflowStoreService.INSTANCE_DATA_VERSION_2,
+                new DataInputStream(new ByteArrayInputStream(rewritten)).readUTF());
+        assertTrue(rewritten.length * 4 < original.length);
+        read = WritableUtils.fromByteArray(rewritten, LiteWorkflowInstance.class);
+        assertEquals(WorkflowInstance.Status.RUNNING, read.getStatus());
+        assertEquals(def.getNodeDefs().size(), ((LiteWorkflowApp) read.getApp()).getNodeDefs().size());
+        assertEquals("value." + (nodes - 1), read.getConf().get("property." + (nodes - 1)));
+    }
+
     public void testImmediateError() throws WorkflowException {
         LiteWorkflowApp workflowDef = new LiteWorkflowApp("testWf", "<worklfow-app/>",
             new StartNodeDef(TestControlNodeHandler.class, "one"))
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.workflow.lite;
+
+import org.apache.oozie.service.LiteWorkflowStoreService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.WritableUtils;
+
+/**
+ * Serialization benchmark of {@link LiteWorkflowInstance}, excluded from the default test run, run it with
+ * <code>-Dtest=TestLiteWorkflowLibBenchmark</code>.
+ */
+public class TestLiteWorkflowLibBenchmark extends XTestCase {
+
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        services = new Services();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    /**
+     * Prints the size of a running job of a 200 actions workflow and the time it takes to read and write it back, as
+     * done on each signal, with both encodings.
+     */
+    public void testSerializationBenchmark() throws Exception {
+        int nodes = 200;
+        int iterations = 200;
+        LiteWorkflowInstance job = TestLiteWorkflowLib.createChainJob(TestLiteWorkflowLib.createChainApp(nodes), nodes);
+        job.start();
+        System.out.println("Serialization benchmark, nodes=" + nodes + " iterations=" + iterations);
+        int[] sizes = new int[2];
+        String[] versions = {LiteWorkflowStoreService.INSTANCE_DATA_VERSION_1,
+                LiteWorkflowStoreService.INSTANCE_DATA_VERSION_2};
+        for (int v = 0; v < versions.length; v++) {
+            services.getConf().set(LiteWorkflowStoreService.CONF_INSTANCE_DATA_VERSION, versions[v]);
+            byte[] array = WritableUtils.toByteArray(job);
+            sizes[v] = array.length;
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                array = WritableUtils.toByteArray(WritableUtils.fromByteArray(array, LiteWorkflowInstance.class));
+            }
+            long time = Math.max(1, System.currentTimeMillis() - start);
+            System.out.println("  " + versions[v] + " : " + sizes[v] + " bytes, " + time + "ms, "
+                    + (iterations * 1000L / time) + " read/write per sec");
+        }
+        assertTrue(sizes[1] < sizes[0]);
+    }
+}